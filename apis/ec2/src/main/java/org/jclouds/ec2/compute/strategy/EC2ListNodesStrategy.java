@@ -27,8 +27,13 @@ import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Multimaps.filterKeys;
 import static com.google.common.collect.Multimaps.index;
 import static com.google.common.collect.Multimaps.transformValues;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -38,20 +43,28 @@ import org.jclouds.Constants;
 import org.jclouds.aws.util.AWSUtils;
 import org.jclouds.compute.domain.ComputeMetadata;
 import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.compute.predicates.NodePredicates;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.ListNodesStrategy;
 import org.jclouds.ec2.EC2Api;
+import org.jclouds.ec2.domain.InstanceState;
 import org.jclouds.ec2.domain.Reservation;
 import org.jclouds.ec2.domain.RunningInstance;
 import org.jclouds.location.Region;
 import org.jclouds.logging.Logger;
 
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 
@@ -70,15 +83,18 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
    protected final Supplier<Set<String>> regions;
    protected final Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata;
    protected final ListeningExecutorService userExecutor;
+   protected final GroupNamingConvention.Factory namingConvention;
 
    @Inject
    protected EC2ListNodesStrategy(EC2Api client, @Region Supplier<Set<String>> regions,
             Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata,
-            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+            GroupNamingConvention.Factory namingConvention) {
       this.client =  checkNotNull(client, "client");
       this.regions =  checkNotNull(regions, "regions");
       this.runningInstanceToNodeMetadata = checkNotNull(runningInstanceToNodeMetadata, "runningInstanceToNodeMetadata");
       this.userExecutor =  checkNotNull(userExecutor, "userExecutor");
+      this.namingConvention = checkNotNull(namingConvention, "namingConvention");
    }
 
    @Override
@@ -88,9 +104,7 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
 
    @Override
    public Set<? extends NodeMetadata> listNodesByIds(Iterable<String> ids) {
-      Multimap<String, String> idsByHandles = index(ids, splitHandle(1));
-      Multimap<String, String> idsByRegions = transformValues(idsByHandles, splitHandle(0));
-      Multimap<String, String> idsByConfiguredRegions = filterKeys(idsByRegions, in(regions.get()));
+      Multimap<String, String> idsByConfiguredRegions = idsByConfiguredRegions(ids);
 
       if (idsByConfiguredRegions.isEmpty()) {
          return ImmutableSet.of();
@@ -104,7 +118,9 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
 
    @Override
    public Set<? extends NodeMetadata> listDetailsOnNodesMatching(Predicate<? super NodeMetadata> filter) {
-      Iterable<? extends RunningInstance> instances = pollRunningInstances();
+      Optional<? extends Multimap<String, Multimap<String, String>>> instanceFilters = instanceFiltersByRegion(filter);
+      Iterable<? extends RunningInstance> instances = instanceFilters.isPresent()
+            ? pollRunningInstancesMatching(instanceFilters.get()) : pollRunningInstances();
       Iterable<? extends NodeMetadata> nodes = filter(transform(filter(instances, notNull()),
                runningInstanceToNodeMetadata), and(notNull(), filter));
       return ImmutableSet.copyOf(nodes);
@@ -117,6 +133,67 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
       return concat(concat(reservations));
    }
 
+   /**
+    * Translates the predicates EC2 can evaluate into DescribeInstances filters, so that listing a group or a few
+    * nodes doesn't download every instance of the account. Each region maps to alternative filters whose results are
+    * combined, and are all requested in parallel; regions without filters are not listed at all. Returns absent if the predicate can't be translated,
+    * in which case every instance is listed.
+    * <p>
+    * The predicate is still applied to the nodes listed, so the filters only have to match a superset of them. For
+    * groups, these are the instances whose security group or key pair is named after the group, which is where
+    * {@link org.jclouds.ec2.compute.functions.RunningInstanceToNodeMetadata} reads the group from. Security groups
+    * are matched both by {@code group-name}, which only covers EC2-Classic, and by {@code instance.group-name}, which
+    * also covers instances in a VPC.
+    */
+   protected Optional<? extends Multimap<String, Multimap<String, String>>> instanceFiltersByRegion(
+            Predicate<? super NodeMetadata> filter) {
+      ImmutableListMultimap.Builder<String, Multimap<String, String>> filters = ImmutableListMultimap.builder();
+      if (filter instanceof NodePredicates.WithIds) {
+         Multimap<String, String> idsByRegions = idsByConfiguredRegions(NodePredicates.WithIds.class.cast(filter)
+                  .getIds());
+         for (String region : idsByRegions.keySet()) {
+            filters.put(region, ImmutableMultimap.<String, String> builder()
+                     .putAll("instance-id", idsByRegions.get(region)).build());
+         }
+      } else if (filter instanceof NodePredicates.InGroup) {
+         String group = NodePredicates.InGroup.class.cast(filter).getGroup();
+         String namePattern = namingConvention.create().sharedNameForGroup(group) + "*";
+         for (String region : regions.get()) {
+            filters.put(region, ImmutableMultimap.of("group-name", namePattern));
+            filters.put(region, ImmutableMultimap.of("instance.group-name", namePattern));
+            filters.put(region, ImmutableMultimap.of("key-name", namePattern));
+         }
+      } else if (filter == NodePredicates.RUNNING) {
+         for (String region : regions.get()) {
+            filters.put(region, ImmutableMultimap.of("instance-state-name", InstanceState.RUNNING.value()));
+         }
+      } else {
+         return Optional.absent();
+      }
+      return Optional.of(filters.build());
+   }
+
+   protected Iterable<? extends RunningInstance> pollRunningInstancesMatching(
+            Multimap<String, Multimap<String, String>> filtersByRegions) {
+      List<ListenableFuture<Set<? extends Reservation<? extends RunningInstance>>>> reservations = Lists
+               .newArrayList();
+      for (final Map.Entry<String, Multimap<String, String>> filter : filtersByRegions.entries()) {
+         reservations.add(userExecutor.submit(new Callable<Set<? extends Reservation<? extends RunningInstance>>>() {
+            @Override
+            public Set<? extends Reservation<? extends RunningInstance>> call() {
+               return client.getInstanceApi().get().describeInstancesInRegionWithFilter(filter.getKey(),
+                        filter.getValue());
+            }
+         }));
+      }
+      // an instance can match more than one alternative
+      Map<String, RunningInstance> byRegionAndId = Maps.newLinkedHashMap();
+      for (RunningInstance instance : concat(concat(getUnchecked(allAsList(reservations))))) {
+         byRegionAndId.put(instance.getRegion() + "/" + instance.getId(), instance);
+      }
+      return byRegionAndId.values();
+   }
+
    protected Iterable<? extends RunningInstance> pollRunningInstancesByRegionsAndIds(final Multimap<String, String> idsByRegions) {
       Iterable<? extends Set<? extends Reservation<? extends RunningInstance>>> reservations
          = transform(idsByRegions.keySet(), instancesByIdInRegion(idsByRegions));
@@ -124,6 +201,12 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
       return concat(concat(reservations));
    }
 
+   protected Multimap<String, String> idsByConfiguredRegions(Iterable<String> ids) {
+      Multimap<String, String> idsByHandles = index(ids, splitHandle(1));
+      Multimap<String, String> idsByRegions = transformValues(idsByHandles, splitHandle(0));
+      return filterKeys(idsByRegions, in(regions.get()));
+   }
+
    protected Function<String, String> splitHandle(final int pos) {
       return new Function<String, String>() {
 
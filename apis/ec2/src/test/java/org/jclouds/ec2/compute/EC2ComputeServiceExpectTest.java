@@ -16,6 +16,7 @@
  */
 package org.jclouds.ec2.compute;
 
+import static org.jclouds.compute.predicates.NodePredicates.inGroup;
 import static org.jclouds.ec2.compute.options.EC2TemplateOptions.Builder.blockUntilRunning;
 import static org.jclouds.ec2.compute.options.EC2TemplateOptions.Builder.maxCount;
 import static org.testng.Assert.assertEquals;
@@ -321,4 +322,48 @@ public class EC2ComputeServiceExpectTest extends BaseEC2ComputeServiceExpectTest
       assertTrue(node.getCredentials().getOptionalPrivateKey().isPresent());
    }
 
+
+   public void testListNodesInGroupFiltersBySecurityGroupAndKeyPairName() throws Exception {
+      HttpRequest describeInstancesBySecurityGroupRequest =
+              formSigner.filter(HttpRequest.builder()
+                      .method("POST")
+                      .endpoint("https://ec2." + region + ".amazonaws.com/")
+                      .addHeader("Host", "ec2." + region + ".amazonaws.com")
+                      .addFormParam("Action", "DescribeInstances")
+                      .addFormParam("Filter.1.Name", "group-name")
+                      .addFormParam("Filter.1.Value.1", "jclouds#mygroup2*").build());
+
+      HttpRequest describeInstancesByVpcSecurityGroupRequest =
+              formSigner.filter(HttpRequest.builder()
+                      .method("POST")
+                      .endpoint("https://ec2." + region + ".amazonaws.com/")
+                      .addHeader("Host", "ec2." + region + ".amazonaws.com")
+                      .addFormParam("Action", "DescribeInstances")
+                      .addFormParam("Filter.1.Name", "instance.group-name")
+                      .addFormParam("Filter.1.Value.1", "jclouds#mygroup2*").build());
+
+      HttpRequest describeInstancesByKeyPairRequest =
+              formSigner.filter(HttpRequest.builder()
+                      .method("POST")
+                      .endpoint("https://ec2." + region + ".amazonaws.com/")
+                      .addHeader("Host", "ec2." + region + ".amazonaws.com")
+                      .addFormParam("Action", "DescribeInstances")
+                      .addFormParam("Filter.1.Name", "key-name")
+                      .addFormParam("Filter.1.Value.1", "jclouds#mygroup2*").build());
+
+      Builder<HttpRequest, HttpResponse> requestResponseMap = ImmutableMap.<HttpRequest, HttpResponse> builder();
+      requestResponseMap.put(describeRegionsRequest, describeRegionsResponse);
+      requestResponseMap.put(describeAvailabilityZonesRequest, describeAvailabilityZonesResponse);
+      requestResponseMap.put(describeImagesRequest, describeImagesResponse);
+      requestResponseMap.put(describeImageRequest, describeImagesResponse);
+      requestResponseMap.put(describeInstancesBySecurityGroupRequest, describeInstanceResponse);
+      requestResponseMap.put(describeInstancesByVpcSecurityGroupRequest, describeInstanceResponse);
+      requestResponseMap.put(describeInstancesByKeyPairRequest, describeInstanceResponse);
+
+      ComputeService apiThatListsNodes = requestsSendResponses(requestResponseMap.build());
+
+      NodeMetadata node = Iterables.getOnlyElement(apiThatListsNodes.listNodesDetailsMatching(inGroup("mygroup2")));
+      assertEquals(node.getId(), region + "/i-2baa5550");
+      assertEquals(node.getGroup(), "mygroup2");
+   }
 }
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.filesystem.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+
+/**
+ * A range of a file, read with positional {@link FileChannel} reads. Slicing narrows the range without skipping
+ * through the file, and {@link #transferTo(FileChannel)} lets the kernel copy the bytes.
+ */
+final class FileChannelByteSource extends ByteSource {
+   private final File file;
+   private final long offset;
+   private final long length;
+
+   FileChannelByteSource(File file) {
+      this(file, 0, Long.MAX_VALUE);
+   }
+
+   private FileChannelByteSource(File file, long offset, long length) {
+      this.file = checkNotNull(file, "file");
+      this.offset = offset;
+      this.length = length;
+   }
+
+   File getFile() {
+      return file;
+   }
+
+   @Override
+   public InputStream openStream() throws IOException {
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      try {
+         channel.position(offset);
+      } catch (IOException e) {
+         channel.close();
+         throw e;
+      }
+      return ByteStreams.limit(Channels.newInputStream(channel), length);
+   }
+
+   @Override
+   public long size() throws IOException {
+      if (!file.isFile()) {
+         throw new FileNotFoundException(file.toString());
+      }
+      return Math.max(0, Math.min(file.length() - offset, length));
+   }
+
+   @Override
+   public ByteSource slice(long sliceOffset, long sliceLength) {
+      checkArgument(sliceOffset >= 0, "offset (%s) may not be negative", sliceOffset);
+      checkArgument(sliceLength >= 0, "length (%s) may not be negative", sliceLength);
+      return new FileChannelByteSource(file, offset + sliceOffset,
+            Math.min(sliceLength, Math.max(0, length - sliceOffset)));
+   }
+
+   /**
+    * Copies the range to the current position of the target, with {@link FileChannel#transferTo}.
+    *
+    * @return the number of bytes copied
+    */
+   long transferTo(FileChannel target) throws IOException {
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      try {
+         long end = Math.min(channel.size(), offset + Math.min(length, channel.size()));
+         long position = offset;
+         while (position < end) {
+            long transferred = channel.transferTo(position, end - position, target);
+            if (transferred <= 0) {
+               // the file shrank while copying
+               break;
+            }
+            position += transferred;
+         }
+         return Math.max(0, position - offset);
+      } finally {
+         channel.close();
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "FileChannelByteSource(" + file + ", " + offset + ", " + length + ")";
+   }
+}
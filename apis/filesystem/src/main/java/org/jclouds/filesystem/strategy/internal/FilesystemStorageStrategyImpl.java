@@ -35,15 +35,24 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.UUID;
 
@@ -59,6 +68,7 @@ import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.BlobBuilder;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.MutableStorageMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
@@ -79,12 +89,19 @@ import org.jclouds.rest.annotations.ParamValidators;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ForwardingNavigableMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteSource;
@@ -106,6 +123,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    private static final String XATTR_CONTENT_LANGUAGE = "user.content-language";
    private static final String XATTR_CONTENT_MD5 = "user.content-md5";
    private static final String XATTR_CONTENT_TYPE = "user.content-type";
+   private static final String XATTR_ETAG = "user.etag";
    private static final String XATTR_EXPIRES = "user.expires";
    private static final String XATTR_USER_METADATA_PREFIX = "user.user-metadata.";
    private static final byte[] DIRECTORY_MD5 =
@@ -321,6 +339,190 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       return blobNames;
    }
 
+   /**
+    * Returns a view of the directory holding the keys which start with prefix. Iterating over the entries of the
+    * view, or of its tail maps, lists each directory only when the walk reaches it and loads metadata lazily, so that
+    * a listing page which starts at a marker and stops when full reads only the directories and blobs it covers.
+    * The file system remains the source of truth, so changes made by other processes are visible to the next listing.
+    */
+   @Override
+   public NavigableMap<String, MutableBlobMetadata> getBlobMetadataIndex(final String container, String prefix)
+         throws IOException {
+      filesystemContainerNameValidator.validate(container);
+      String root = "";
+      int separator = prefix == null ? -1 : prefix.lastIndexOf('/');
+      if (separator > 0) {
+         root = prefix.substring(0, separator + 1);
+      }
+      return new BlobMetadataIndex(container, root, null, true);
+   }
+
+   /**
+    * A key-ordered view of the blobs under a directory of a container, from an optional lower bound. Iterating over
+    * the entries walks the directories lazily from the lower bound; other operations walk every key in range first.
+    */
+   private final class BlobMetadataIndex extends ForwardingNavigableMap<String, MutableBlobMetadata> {
+      private final String container;
+      private final String root;
+      // null when the view starts at the first key
+      private final String fromKey;
+      private final boolean inclusive;
+      private NavigableMap<String, MutableBlobMetadata> walked;
+
+      private BlobMetadataIndex(String container, String root, String fromKey, boolean inclusive) {
+         this.container = container;
+         this.root = root;
+         this.fromKey = fromKey;
+         this.inclusive = inclusive;
+      }
+
+      @Override
+      protected NavigableMap<String, MutableBlobMetadata> delegate() {
+         if (walked == null) {
+            walked = Maps.asMap(ImmutableSortedSet.copyOf(walk()), new Function<String, MutableBlobMetadata>() {
+               @Override
+               public MutableBlobMetadata apply(String key) {
+                  return blobMetadataOrNull(container, key);
+               }
+            });
+         }
+         return walked;
+      }
+
+      @Override
+      public Set<Map.Entry<String, MutableBlobMetadata>> entrySet() {
+         return new AbstractSet<Map.Entry<String, MutableBlobMetadata>>() {
+            @Override
+            public Iterator<Map.Entry<String, MutableBlobMetadata>> iterator() {
+               return Iterators.transform(walk(), new Function<String, Map.Entry<String, MutableBlobMetadata>>() {
+                  @Override
+                  public Map.Entry<String, MutableBlobMetadata> apply(String key) {
+                     return Maps.immutableEntry(key, blobMetadataOrNull(container, key));
+                  }
+               });
+            }
+
+            @Override
+            public int size() {
+               return delegate().size();
+            }
+         };
+      }
+
+      @Override
+      public NavigableMap<String, MutableBlobMetadata> tailMap(String fromKey, boolean inclusive) {
+         if (this.fromKey != null) {
+            int comparison = fromKey.compareTo(this.fromKey);
+            if (comparison < 0 || comparison == 0 && !this.inclusive) {
+               return this;
+            }
+         }
+         return new BlobMetadataIndex(container, root, fromKey, inclusive);
+      }
+
+      private Iterator<String> walk() {
+         KeyWalker walker = new KeyWalker(container, root);
+         if (fromKey != null) {
+            walker.seek(fromKey, inclusive);
+         }
+         return walker;
+      }
+   }
+
+   /**
+    * The keys under a directory of a container in ascending order, starting with the directory itself. A directory
+    * is listed only when the walk enters it.
+    */
+   private final class KeyWalker extends AbstractIterator<String> {
+      private final String container;
+      // the keys left to visit in each directory being walked, innermost first
+      private final Deque<PeekingIterator<String>> directories = new ArrayDeque<PeekingIterator<String>>();
+
+      private KeyWalker(String container, String root) {
+         this.container = container;
+         if (root.isEmpty()) {
+            directories.push(children(root));
+         } else if (new File(buildPathStartingFromBaseDir(container, root)).isDirectory()) {
+            directories.push(Iterators.peekingIterator(Iterators.singletonIterator(root)));
+         }
+      }
+
+      /**
+       * Skips the keys before fromKey, entering only the directories which may hold it.
+       */
+      private void seek(String fromKey, boolean inclusive) {
+         while (!directories.isEmpty()) {
+            PeekingIterator<String> keys = directories.peek();
+            while (keys.hasNext() && keys.peek().compareTo(fromKey) < 0 && !holds(keys.peek(), fromKey)) {
+               keys.next();
+            }
+            if (!keys.hasNext()) {
+               directories.pop();
+               continue;
+            }
+            String next = keys.peek();
+            if (next.endsWith("/") && fromKey.startsWith(next) && !(inclusive && next.equals(fromKey))) {
+               // fromKey is within this directory, or is the directory itself and excluded
+               keys.next();
+               directories.push(children(next));
+               if (next.equals(fromKey)) {
+                  return;
+               }
+               continue;
+            }
+            if (!inclusive && next.equals(fromKey)) {
+               keys.next();
+            }
+            return;
+         }
+      }
+
+      private boolean holds(String key, String fromKey) {
+         return key.endsWith("/") && fromKey.startsWith(key);
+      }
+
+      @Override
+      protected String computeNext() {
+         while (!directories.isEmpty()) {
+            PeekingIterator<String> keys = directories.peek();
+            if (!keys.hasNext()) {
+               directories.pop();
+               continue;
+            }
+            String key = keys.next();
+            if (key.endsWith("/")) {
+               directories.push(children(key));
+            }
+            return key;
+         }
+         return endOfData();
+      }
+
+      private PeekingIterator<String> children(String directoryKey) {
+         File[] files = new File(buildPathStartingFromBaseDir(container, directoryKey)).listFiles();
+         if (files == null) {
+            return Iterators.peekingIterator(Iterators.<String>emptyIterator());
+         }
+         // a directory sorts as its key with the trailing separator, which places it among its siblings exactly
+         // where the keys it holds belong
+         String[] keys = new String[files.length];
+         for (int i = 0; i < files.length; i++) {
+            keys[i] = directoryKey + denormalize(files[i].getName()) + (files[i].isDirectory() ? "/" : "");
+         }
+         Arrays.sort(keys);
+         return Iterators.peekingIterator(Iterators.forArray(keys));
+      }
+   }
+
+   private MutableBlobMetadata blobMetadataOrNull(String container, String key) {
+      if (!blobExists(container, key)) {
+         // a folder, or a blob removed since the walk
+         return null;
+      }
+      Blob blob = getBlob(container, key);
+      return blob == null ? null : blob.getMetadata();
+   }
+
    @Override
    public Blob getBlob(final String container, final String key) {
       BlobBuilder builder = blobBuilders.get();
@@ -332,8 +534,9 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
          logger.debug("%s - %s is a directory", container, key);
          byteSource = ByteSource.empty();
       } else {
-         byteSource = Files.asByteSource(file);
+         byteSource = new FileChannelByteSource(file);
       }
+      String eTag = null;
       try {
          String cacheControl = null;
          String contentDisposition = null;
@@ -362,6 +565,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
                   view.read(XATTR_CONTENT_MD5, buf);
                   hashCode = HashCode.fromBytes(buf.array());
                }
+               eTag = readStringAttributeIfPresent(view, attributes, XATTR_ETAG);
                if (attributes.contains(XATTR_EXPIRES)) {
                   ByteBuffer buf = ByteBuffer.allocate(view.size(XATTR_EXPIRES));
                   view.read(XATTR_EXPIRES, buf);
@@ -403,7 +607,9 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       blob.getMetadata().setContainer(container);
       blob.getMetadata().setLastModified(new Date(file.lastModified()));
       blob.getMetadata().setSize(file.length());
-      if (blob.getPayload().getContentMetadata().getContentMD5() != null)
+      if (eTag != null)
+         blob.getMetadata().setETag(eTag);
+      else if (blob.getPayload().getContentMetadata().getContentMD5() != null)
          blob.getMetadata().setETag(base16().lowerCase().encode(blob.getPayload().getContentMetadata().getContentMD5()));
       return blob;
    }
@@ -472,15 +678,31 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       HashingInputStream his = null;
       try {
          Files.createParentDirs(tmpFile);
-         his = new HashingInputStream(Hashing.md5(), payload.openStream());
-         long actualSize = Files.asByteSink(tmpFile).writeFrom(his);
+         HashCode expectedHashCode = payload.getContentMetadata().getContentMD5AsHashCode();
+         FileChannelByteSource source = asFileChannelByteSource(payload);
+         long actualSize;
+         HashCode actualHashCode;
+         if (source != null) {
+            // the bytes stay in the kernel; hash them only when the payload does not carry its MD5
+            FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                  StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+               actualSize = source.transferTo(channel);
+            } finally {
+               channel.close();
+            }
+            actualHashCode = expectedHashCode != null ? expectedHashCode
+                  : new FileChannelByteSource(tmpFile).hash(Hashing.md5());
+         } else {
+            his = new HashingInputStream(Hashing.md5(), payload.openStream());
+            actualSize = Files.asByteSink(tmpFile).writeFrom(his);
+            actualHashCode = his.hash();
+         }
          Long expectedSize = blob.getMetadata().getContentMetadata().getContentLength();
          if (expectedSize != null && actualSize != expectedSize) {
             throw new IOException("Content-Length mismatch, actual: " + actualSize +
                   " expected: " + expectedSize);
          }
-         HashCode actualHashCode = his.hash();
-         HashCode expectedHashCode = payload.getContentMetadata().getContentMD5AsHashCode();
          if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
             throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
                   " expected: " + expectedHashCode);
@@ -524,6 +746,107 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       }
    }
 
+   /**
+    * @return the payload as a file range, when it is backed by a file which the kernel can copy from
+    */
+   private static FileChannelByteSource asFileChannelByteSource(Payload payload) {
+      Object content = payload.getRawContent();
+      if (content instanceof FileChannelByteSource) {
+         return (FileChannelByteSource) content;
+      } else if (content instanceof File && ((File) content).isFile()) {
+         return new FileChannelByteSource((File) content);
+      }
+      return null;
+   }
+
+   @Override
+   public String concatenateBlobs(final String containerName, final Blob blob, final List<String> blobKeys)
+         throws IOException {
+      String blobKey = blob.getMetadata().getName();
+      filesystemContainerNameValidator.validate(containerName);
+      filesystemBlobKeyValidator.validate(blobKey);
+      File outputFile = getFileForBlobKey(containerName, blobKey);
+      String tmpBlobName = blobKey + "-" + UUID.randomUUID();
+      File tmpFile = getFileForBlobKey(containerName, tmpBlobName);
+      Path tmpPath = tmpFile.toPath();
+      try {
+         Files.createParentDirs(tmpFile);
+         Hasher partHashes = Hashing.md5().newHasher();
+         FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+               StandardOpenOption.TRUNCATE_EXISTING);
+         try {
+            for (String partKey : blobKeys) {
+               File partFile = getFileForBlobKey(containerName, partKey);
+               if (!partFile.isFile()) {
+                  throw new KeyNotFoundException(containerName, partKey, "while concatenating " + blobKey);
+               }
+               new FileChannelByteSource(partFile).transferTo(channel);
+               partHashes.putBytes(contentMD5(partFile).asBytes());
+            }
+         } finally {
+            channel.close();
+         }
+         // same form as the ETag of a multipart object on S3: the MD5 of the part MD5s and the part count
+         String eTag = base16().lowerCase().encode(partHashes.hash().asBytes()) + "-" + blobKeys.size();
+
+         if (outputFile.exists()) {
+            delete(outputFile);
+         }
+
+         boolean eTagStored = false;
+         UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(tmpPath);
+         if (view != null) {
+            try {
+               writeStringAttributeIfPresent(view, XATTR_ETAG, eTag);
+               eTagStored = true;
+               writeCommonMetadataAttr(view, blob);
+            } catch (IOException e) {
+               logger.debug("xattrs not supported on %s", tmpPath);
+            }
+         }
+         if (!eTagStored) {
+            // getBlob derives the ETag from the content when there is nowhere to store it
+            eTag = base16().lowerCase().encode(new FileChannelByteSource(tmpFile).hash(Hashing.md5()).asBytes());
+         }
+
+         setBlobAccess(containerName, tmpBlobName, BlobAccess.PRIVATE);
+
+         if (!tmpFile.renameTo(outputFile)) {
+            throw new IOException("Could not rename file " + tmpFile + " to " + outputFile);
+         }
+         tmpFile = null;
+
+         return eTag;
+      } finally {
+         if (tmpFile != null) {
+            try {
+               delete(tmpFile);
+            } catch (IOException e) {
+               logger.debug("Could not delete %s: %s", tmpFile, e);
+            }
+         }
+      }
+   }
+
+   /**
+    * @return the MD5 stored alongside the file, or the MD5 of its content when there is none
+    */
+   private HashCode contentMD5(File file) throws IOException {
+      UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(file.toPath());
+      if (view != null) {
+         try {
+            if (view.list().contains(XATTR_CONTENT_MD5)) {
+               ByteBuffer buf = ByteBuffer.allocate(view.size(XATTR_CONTENT_MD5));
+               view.read(XATTR_CONTENT_MD5, buf);
+               return HashCode.fromBytes(buf.array());
+            }
+         } catch (IOException e) {
+            logger.debug("xattrs not supported on %s", file.toPath());
+         }
+      }
+      return new FileChannelByteSource(file).hash(Hashing.md5());
+   }
+
    @Override
    public void removeBlob(final String container, final String blobKey) {
       filesystemContainerNameValidator.validate(container);
@@ -32,6 +32,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -64,6 +65,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteSource;
@@ -262,6 +264,30 @@ public class FilesystemBlobStoreTest {
         checkForContainerContent(CONTAINER_NAME, "rrr/", blobsExpected);
     }
 
+    public void testList_PrefixAfterSiblingFile() throws IOException {
+        blobStore.createContainerInLocation(null, CONTAINER_NAME);
+        TestUtils.createBlobsInContainer(CONTAINER_NAME, "foo", "foo.txt", "d/a", "d/ab");
+
+        assertEquals(listNames(ListContainerOptions.Builder.prefix("foo.")), ImmutableList.of("foo.txt"));
+        assertEquals(listNames(ListContainerOptions.Builder.prefix("d/ab").recursive()), ImmutableList.of("d/ab"));
+    }
+
+    @Test(timeOut = 30000)
+    public void testList_SkipsDirectoryAfterSiblingFile() throws IOException {
+        blobStore.createContainerInLocation(null, CONTAINER_NAME);
+        TestUtils.createBlobsInContainer(CONTAINER_NAME, "a", "ab/x", "b");
+
+        assertEquals(listNames(ListContainerOptions.NONE), ImmutableList.of("a", "ab/", "b"));
+    }
+
+    private List<String> listNames(ListContainerOptions options) {
+        ImmutableList.Builder<String> names = ImmutableList.builder();
+        for (StorageMetadata metadata : blobStore.list(CONTAINER_NAME, options)) {
+            names.add(metadata.getName());
+        }
+        return names.build();
+    }
+
     /**
      * TODO Should throws an exception?
      */
@@ -23,6 +23,7 @@ import static org.jclouds.utils.TestUtils.randomByteSource;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -32,6 +33,8 @@ import java.io.IOException;
 import java.nio.file.InvalidPathException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -41,6 +44,7 @@ import org.assertj.core.api.Fail;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobBuilder;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.domain.Location;
@@ -56,9 +60,12 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Files;
 import com.google.common.util.concurrent.Uninterruptibles;
@@ -493,6 +500,72 @@ public class FilesystemStorageStrategyImplTest {
             "Files are not equal");
    }
 
+   public void testWritePayloadOnFileComputesMissingMD5() throws IOException {
+      String blobKey = TestUtils.createRandomBlobKey("writePayload-", ".img");
+      File sourceFile = TestUtils.getImageForBlobPayload();
+      Blob blob = storageStrategy.newBlob(blobKey);
+      blob.setPayload(new FilePayload(sourceFile));
+
+      String eTag = storageStrategy.putBlob(CONTAINER_NAME, blob);
+
+      assertEquals(eTag, Files.asByteSource(sourceFile).hash(Hashing.md5()).toString());
+   }
+
+   public void testWriteSliceOfStoredBlob() throws IOException {
+      String sourceKey = TestUtils.createRandomBlobKey("slice-source-", ".img");
+      ByteSource content = randomByteSource().slice(0, 1024);
+      Blob source = storageStrategy.newBlob(sourceKey);
+      source.setPayload(content);
+      storageStrategy.putBlob(CONTAINER_NAME, source);
+
+      ByteSource stored = (ByteSource) storageStrategy.getBlob(CONTAINER_NAME, sourceKey).getPayload()
+            .getRawContent();
+      assertEquals(stored.size(), 1024);
+      ByteSource slice = stored.slice(100, 200);
+      assertEquals(slice.size(), 200);
+      assertTrue(slice.contentEquals(content.slice(100, 200)), "slice differs");
+
+      String blobKey = TestUtils.createRandomBlobKey("slice-", ".img");
+      Blob blob = storageStrategy.newBlob(blobKey);
+      blob.setPayload(slice);
+      storageStrategy.putBlob(CONTAINER_NAME, blob);
+
+      assertTrue(Files.asByteSource(new File(TARGET_CONTAINER_NAME, blobKey)).contentEquals(content.slice(100, 200)),
+            "Files are not equal");
+   }
+
+   public void testConcatenateBlobs() throws IOException {
+      ByteSource content = randomByteSource().slice(0, 3000);
+      List<String> partKeys = Lists.newArrayList();
+      Hasher partHashes = Hashing.md5().newHasher();
+      for (int i = 0; i < 3; i++) {
+         String partKey = TestUtils.createRandomBlobKey("part-", "");
+         Blob part = storageStrategy.newBlob(partKey);
+         part.setPayload(content.slice(i * 1000, 1000));
+         storageStrategy.putBlob(CONTAINER_NAME, part);
+         partKeys.add(partKey);
+         partHashes.putBytes(content.slice(i * 1000, 1000).hash(Hashing.md5()).asBytes());
+      }
+
+      String blobKey = TestUtils.createRandomBlobKey("concatenate-", ".img");
+      Blob blob = storageStrategy.newBlob(blobKey);
+      blob.setPayload(ByteSource.empty());
+      blob.getMetadata().getContentMetadata().setContentType("application/x-test");
+      String eTag = storageStrategy.concatenateBlobs(CONTAINER_NAME, blob, partKeys);
+
+      // the ETag of a multipart object on S3, as the transient store returns
+      assertEquals(eTag, partHashes.hash().toString() + "-3");
+      Blob stored = storageStrategy.getBlob(CONTAINER_NAME, blobKey);
+      assertEquals(stored.getMetadata().getETag(), eTag);
+      assertNull(stored.getMetadata().getContentMetadata().getContentMD5AsHashCode());
+      assertEquals(stored.getMetadata().getSize(), Long.valueOf(3000));
+      assertTrue(Files.asByteSource(new File(TARGET_CONTAINER_NAME, blobKey)).contentEquals(content),
+            "Files are not equal");
+      for (String partKey : partKeys) {
+         assertTrue(storageStrategy.blobExists(CONTAINER_NAME, partKey), partKey);
+      }
+   }
+
    public void testWritePayloadOnFile_SourceFileDoesntExist() {
       File sourceFile = new File("asdfkjsadkfjasdlfasdflk.asdfasdfas");
       FilePayload payload = new FilePayload(sourceFile);
@@ -623,6 +696,65 @@ public class FilesystemStorageStrategyImplTest {
       }
    }
 
+   public void testGetBlobMetadataIndex() throws IOException {
+      storageStrategy.createContainer(CONTAINER_NAME);
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, "a/b/c", "a/b/d", "a/e", "f");
+
+      NavigableMap<String, MutableBlobMetadata> index = storageStrategy.getBlobMetadataIndex(CONTAINER_NAME, null);
+      assertEquals(ImmutableList.copyOf(index.keySet()), ImmutableList.of("a/", "a/b/", "a/b/c", "a/b/d", "a/e", "f"));
+      // intermediate directories are not blobs
+      assertNull(index.get("a/"));
+      assertEquals(index.get("a/b/c").getName(), "a/b/c");
+
+      // only the directory holding the prefix is walked
+      index = storageStrategy.getBlobMetadataIndex(CONTAINER_NAME, "a/b/");
+      assertEquals(ImmutableList.copyOf(index.keySet()), ImmutableList.of("a/b/", "a/b/c", "a/b/d"));
+
+      // blobs removed after the walk have no metadata
+      storageStrategy.removeBlob(CONTAINER_NAME, "a/b/d");
+      assertNull(index.get("a/b/d"));
+   }
+
+   public void testBlobMetadataIndexTailMapWalksInKeyOrder() throws IOException {
+      storageStrategy.createContainer(CONTAINER_NAME);
+      // '-' sorts before the separator and '0' after it
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, "a/b-c", "a/b/x", "a/b0", "c");
+      NavigableMap<String, MutableBlobMetadata> index = storageStrategy.getBlobMetadataIndex(CONTAINER_NAME, null);
+
+      assertEquals(entryKeys(index), ImmutableList.of("a/", "a/b-c", "a/b/", "a/b/x", "a/b0", "c"));
+      assertEquals(entryKeys(index.tailMap("a/b", false)), ImmutableList.of("a/b-c", "a/b/", "a/b/x", "a/b0", "c"));
+      assertEquals(entryKeys(index.tailMap("a/b-c", true)), ImmutableList.of("a/b-c", "a/b/", "a/b/x", "a/b0", "c"));
+      assertEquals(entryKeys(index.tailMap("a/b/", true)), ImmutableList.of("a/b/", "a/b/x", "a/b0", "c"));
+      assertEquals(entryKeys(index.tailMap("a/b/", false)), ImmutableList.of("a/b/x", "a/b0", "c"));
+      assertEquals(entryKeys(index.tailMap("a/b/x", false)), ImmutableList.of("a/b0", "c"));
+      assertEquals(entryKeys(index.tailMap("a/z", false)), ImmutableList.of("c"));
+      assertEquals(entryKeys(index.tailMap("c", false)), ImmutableList.of());
+      // a lower bound below the current one leaves the view unchanged
+      assertEquals(entryKeys(index.tailMap("a/b/x", false).tailMap("a/", true)), ImmutableList.of("a/b0", "c"));
+
+      Map.Entry<String, MutableBlobMetadata> first = index.tailMap("a/b/x", true).entrySet().iterator().next();
+      assertEquals(first.getValue().getName(), "a/b/x");
+   }
+
+   public void testBlobMetadataIndexTailMapSkipsFilesSharingThePrefix() throws IOException {
+      storageStrategy.createContainer(CONTAINER_NAME);
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, "a", "ab/x", "b", "foo", "foo.txt");
+      NavigableMap<String, MutableBlobMetadata> index = storageStrategy.getBlobMetadataIndex(CONTAINER_NAME, null);
+
+      // only a directory can hold the lower bound
+      assertEquals(entryKeys(index.tailMap("foo.", true)), ImmutableList.of("foo.txt"));
+      assertEquals(entryKeys(index.tailMap("ab0", true)), ImmutableList.of("b", "foo", "foo.txt"));
+      assertEquals(entryKeys(index.tailMap("ab/", false)), ImmutableList.of("ab/x", "b", "foo", "foo.txt"));
+   }
+
+   private static List<String> entryKeys(NavigableMap<String, MutableBlobMetadata> index) {
+      ImmutableList.Builder<String> keys = ImmutableList.builder();
+      for (Map.Entry<String, MutableBlobMetadata> entry : index.entrySet()) {
+         keys.add(entry.getKey());
+      }
+      return keys.build();
+   }
+
    public void testCountsBlob() {
       storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE);
    }
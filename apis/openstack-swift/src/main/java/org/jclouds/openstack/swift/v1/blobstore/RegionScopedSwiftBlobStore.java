@@ -48,6 +48,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 
 import org.jclouds.Constants;
 import org.jclouds.blobstore.BlobStore;
@@ -73,8 +74,13 @@ import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
 import org.jclouds.blobstore.strategy.ClearListStrategy;
+import org.jclouds.blobstore.strategy.internal.BoundedMultipartUploader;
+import org.jclouds.blobstore.strategy.internal.FetchBlobMetadata;
 import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
+import org.jclouds.blobstore.strategy.internal.PrefetchingListIterator;
+import org.jclouds.blobstore.util.CloseableIterator;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
 import org.jclouds.io.ContentMetadata;
@@ -139,17 +145,20 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
       this.context = context;
       this.api = api;
       this.userExecutor = userExecutor;
-      // until we parameterize ClearListStrategy with a factory
-      this.clearList = baseGraph.createChildInjector(new AbstractModule() {
+      // until we parameterize ClearListStrategy and FetchBlobMetadata with a factory
+      Injector regionGraph = baseGraph.createChildInjector(new AbstractModule() {
          @Override
          protected void configure() {
             bind(BlobStore.class).toInstance(RegionScopedSwiftBlobStore.this);
          }
-      }).getInstance(ClearListStrategy.class);
+      });
+      this.clearList = regionGraph.getInstance(ClearListStrategy.class);
+      this.fetchBlobMetadata = regionGraph.getProvider(FetchBlobMetadata.class);
    }
 
    private final BlobStoreContext context;
    private final ClearListStrategy clearList;
+   private final Provider<FetchBlobMetadata> fetchBlobMetadata;
    private final SwiftApi api;
    private final Location region;
    private final String regionId;
@@ -243,20 +252,45 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
          }
          // TODO: we should probably deprecate this option
          if (options.isDetailed()) {
-            list = transform(list, new Function<StorageMetadata, StorageMetadata>() {
-               @Override
-               public StorageMetadata apply(StorageMetadata input) {
-                  if (input.getType() != StorageType.BLOB) {
-                     return input;
-                  }
-                  return blobMetadata(container, input.getName());
-               }
-            });
+            list = withDetails(container, list);
          }
          return new PageSetImpl<StorageMetadata>(list, marker);
       }
    }
 
+   @Beta
+   @Override
+   public CloseableIterator<StorageMetadata> streamList(String container, ListContainerOptions options) {
+      return streamList(container, options, userExecutor);
+   }
+
+   @Beta
+   @Override
+   public CloseableIterator<StorageMetadata> streamList(String container, ListContainerOptions options,
+         ExecutorService executor) {
+      return new PrefetchingListIterator(this, container, options, executor);
+   }
+
+   /**
+    * Listings lack user metadata, so each blob is fetched, in parallel; directories keep their place in the list.
+    */
+   private List<StorageMetadata> withDetails(String container, List<? extends StorageMetadata> list) {
+      Map<String, StorageMetadata> fetched = Maps.newHashMap();
+      for (StorageMetadata metadata : fetchBlobMetadata.get().setContainerName(container)
+            .apply(new PageSetImpl<StorageMetadata>(list, null))) {
+         fetched.put(metadata.getName(), metadata);
+      }
+      ImmutableList.Builder<StorageMetadata> builder = ImmutableList.builder();
+      for (StorageMetadata input : list) {
+         if (input.getType() != StorageType.BLOB) {
+            builder.add(input);
+         } else if (fetched.containsKey(input.getName())) {
+            builder.add(fetched.get(input.getName()));
+         }
+      }
+      return builder.build();
+   }
+
    @Override
    public boolean blobExists(String container, String name) {
       return blobMetadata(container, name) != null;
@@ -634,41 +668,21 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
 
    @Beta
    protected String putMultipartBlob(String container, Blob blob, PutOptions overrides, ListeningExecutorService executor) {
-      ArrayList<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
-
       long contentLength = checkNotNull(blob.getMetadata().getContentMetadata().getContentLength(),
             "must provide content-length to use multi-part upload");
       MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(
             getMinimumMultipartPartSize(), getMaximumMultipartPartSize(), getMaximumNumberOfParts());
       long partSize = algorithm.calculateChunkSize(contentLength);
       MultipartUpload mpu = initiateMultipartUpload(container, blob.getMetadata(), partSize, overrides);
-      int partNumber = 0;
 
-      for (Payload payload : slicer.slice(blob.getPayload(), partSize)) {
-         BlobUploader b =
-               new BlobUploader(mpu, partNumber++, payload);
-         parts.add(executor.submit(b));
-      }
-
-      return completeMultipartUpload(mpu, Futures.getUnchecked(Futures.allAsList(parts)));
+      List<MultipartPart> parts = new BoundedMultipartUploader(this, uploadConcurrency)
+            .upload(mpu, slicer.slice(blob.getPayload(), partSize), 0, executor);
+      return completeMultipartUpload(mpu, parts);
    }
 
-   private final class BlobUploader implements Callable<MultipartPart> {
-      private final MultipartUpload mpu;
-      private final int partNumber;
-      private final Payload payload;
-
-      BlobUploader(MultipartUpload mpu, int partNumber, Payload payload) {
-         this.mpu = mpu;
-         this.partNumber = partNumber;
-         this.payload = payload;
-      }
-
-      @Override
-      public MultipartPart call() {
-         return uploadMultipartPart(mpu, partNumber, payload);
-      }
-   }
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_UPLOAD_CONCURRENCY)
+   protected int uploadConcurrency = BoundedMultipartUploader.DEFAULT_CONCURRENCY;
 
    @Override
    @Beta
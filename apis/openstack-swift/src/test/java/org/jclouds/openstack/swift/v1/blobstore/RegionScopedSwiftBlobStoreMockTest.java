@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.swift.v1.blobstore;
+
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
+import static org.jclouds.blobstore.options.ListContainerOptions.Builder.withDetails;
+import static org.jclouds.openstack.swift.v1.reference.SwiftHeaders.OBJECT_METADATA_PREFIX;
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.openstack.swift.v1.SwiftApi;
+import org.jclouds.openstack.v2_0.internal.BaseOpenStackMockTest;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+@Test(groups = "unit", testName = "RegionScopedSwiftBlobStoreMockTest")
+public class RegionScopedSwiftBlobStoreMockTest extends BaseOpenStackMockTest<SwiftApi> {
+   private static final String CONTAINER_PATH = "/v1/MossoCloudFS_5bcf396e-39dd-45ff-93a1-712b9aba90a9/myContainer";
+
+   public void testDetailedListFetchesEachBlobOnce() throws Exception {
+      MockWebServer server = mockOpenStackServer();
+      server.enqueue(addCommonHeaders(new MockResponse().setBody(stringFromResource("/access.json"))));
+      server.enqueue(addCommonHeaders(new MockResponse().setBody("[{\"subdir\": \"dir/\"}, "
+            + "{\"name\": \"test_obj_1\", \"hash\": \"4281c348eaf83e70ddce0e07221c3d28\", \"bytes\": 4, "
+            + "\"content_type\": \"text/plain\", \"last_modified\": \"2009-02-03T05:26:32.612278\"}, "
+            + "{\"name\": \"test_obj_2\", \"hash\": \"b039efe731ad111bc1b0ef221c3849d0\", \"bytes\": 4, "
+            + "\"content_type\": \"text/plain\", \"last_modified\": \"2009-02-03T05:26:32.612278\"}, "
+            + "{\"name\": \"test_obj_3\", \"hash\": \"0b2e80bd0744d9ebb20484149a57c82e\", \"bytes\": 4, "
+            + "\"content_type\": \"text/plain\", \"last_modified\": \"2014-05-20T05:26:32.612278\"}]")));
+      server.enqueue(objectResponse("4281c348eaf83e70ddce0e07221c3d28").addHeader(OBJECT_METADATA_PREFIX + "Key", "one"));
+      // deleted since it was listed
+      server.enqueue(new MockResponse().setResponseCode(404));
+      server.enqueue(objectResponse("0b2e80bd0744d9ebb20484149a57c82e").addHeader(OBJECT_METADATA_PREFIX + "Key", "three"));
+
+      RegionScopedBlobStoreContext context = context(server.getUrl("/").toString());
+      try {
+         List<StorageMetadata> list = ImmutableList.copyOf(context.getBlobStore("DFW").list("myContainer",
+               withDetails()));
+
+         assertEquals(list.size(), 3);
+         // the directory keeps its place
+         assertEquals(list.get(0).getName(), "dir/");
+         assertEquals(list.get(0).getType(), StorageType.FOLDER);
+         assertEquals(list.get(1).getName(), "test_obj_1");
+         assertEquals(((BlobMetadata) list.get(1)).getUserMetadata(), ImmutableMap.of("key", "one"));
+         assertEquals(list.get(2).getName(), "test_obj_3");
+         assertEquals(((BlobMetadata) list.get(2)).getUserMetadata(), ImmutableMap.of("key", "three"));
+
+         assertEquals(server.getRequestCount(), 5);
+         assertAuthentication(server);
+         assertEquals(server.takeRequest().getMethod(), "GET");
+         assertRequest(server.takeRequest(), "HEAD", CONTAINER_PATH + "/test_obj_1");
+         assertRequest(server.takeRequest(), "HEAD", CONTAINER_PATH + "/test_obj_2");
+         assertRequest(server.takeRequest(), "HEAD", CONTAINER_PATH + "/test_obj_3");
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   private static MockResponse objectResponse(String eTag) {
+      return new MockResponse()
+            .addHeader("Last-Modified", "Fri, 12 Jun 2010 13:40:18 GMT")
+            .addHeader("ETag", eTag)
+            .addHeader("Content-Type", "text/plain");
+   }
+
+   private static RegionScopedBlobStoreContext context(String uri) {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_MAX_RETRIES, "1");
+      return ContextBuilder.newBuilder("openstack-swift")
+            .credentials("jclouds:joe", "letmein")
+            .endpoint(uri)
+            .overrides(overrides)
+            .modules(ImmutableSet.<Module> of(new ExecutorServiceModule(sameThreadExecutor())))
+            .buildView(RegionScopedBlobStoreContext.class);
+   }
+}
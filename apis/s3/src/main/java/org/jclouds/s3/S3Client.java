@@ -742,6 +742,26 @@ public interface S3Client extends Closeable {
          @PathParam("sourceBucket") String sourceBucket, @PathParam("sourceObject") String sourceObject,
          @PathParam("startOffset") long startOffset, @PathParam("endOffset") long endOffset);
 
+   /**
+    * Copies a range of an object into a part of a multipart upload, like
+    * {@link #uploadPartCopy(String, String, int, String, String, String, long, long)}.
+    *
+    * @param options
+    *           conditions the source object must satisfy, such as {@link CopyObjectOptions#ifSourceETagMatches}
+    */
+   @Named("UploadPartCopy")
+   @PUT
+   @Path("/{key}")
+   @Headers(keys = {"x-amz-copy-source", "x-amz-copy-source-range"}, values = {"/{sourceBucket}/{sourceObject}", "bytes={startOffset}-{endOffset}"})
+   @ResponseParser(ETagFromHttpResponseViaRegex.class)
+   String uploadPartCopy(@Bucket @EndpointParam(parser = AssignCorrectHostnameForBucket.class) @BinderParam(
+         BindAsHostPrefixIfConfigured.class) @ParamValidators(BucketNameValidator.class) String bucketName,
+         @PathParam("key") String key, @QueryParam("partNumber") int partNumber,
+         @QueryParam("uploadId") String uploadId,
+         @PathParam("sourceBucket") String sourceBucket, @PathParam("sourceObject") String sourceObject,
+         @PathParam("startOffset") long startOffset, @PathParam("endOffset") long endOffset,
+         CopyObjectOptions options);
+
    /**
     *
     This operation completes a multipart upload by assembling previously uploaded parts.
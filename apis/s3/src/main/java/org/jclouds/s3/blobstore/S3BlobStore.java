@@ -19,16 +19,20 @@ package org.jclouds.s3.blobstore;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static org.jclouds.util.Predicates2.retry;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
-import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.jclouds.aws.AWSResponseException;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.ContainerNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
@@ -37,15 +41,21 @@ import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
 import org.jclouds.blobstore.domain.MultipartPart;
 import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
 import org.jclouds.blobstore.functions.BlobToHttpGetOptions;
 import org.jclouds.blobstore.internal.BaseBlobStore;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
 import org.jclouds.blobstore.options.CopyOptions;
 import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.blobstore.strategy.internal.BoundedMultipartUploader;
 import org.jclouds.blobstore.strategy.internal.FetchBlobMetadata;
+import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
 import org.jclouds.blobstore.util.BlobUtils;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
@@ -65,6 +75,7 @@ import org.jclouds.s3.domain.AccessControlList.GroupGranteeURI;
 import org.jclouds.s3.domain.AccessControlList.Permission;
 import org.jclouds.s3.domain.BucketMetadata;
 import org.jclouds.s3.domain.CannedAccessPolicy;
+import org.jclouds.s3.domain.DeleteResult;
 import org.jclouds.s3.domain.ListMultipartUploadResponse;
 import org.jclouds.s3.domain.ListMultipartUploadsResponse;
 import org.jclouds.s3.options.CopyObjectOptions;
@@ -76,9 +87,11 @@ import org.jclouds.s3.util.S3Utils;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.inject.Inject;
 
 @Singleton
 public class S3BlobStore extends BaseBlobStore {
@@ -93,6 +106,10 @@ public class S3BlobStore extends BaseBlobStore {
    private final BlobToHttpGetOptions blob2ObjectGetOptions;
    private final Provider<FetchBlobMetadata> fetchBlobMetadataProvider;
 
+   @Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_COPY_CONCURRENCY)
+   private int copyConcurrency = 16;
+
    @Inject
    protected S3BlobStore(BlobStoreContext context, BlobUtils blobUtils, Supplier<Location> defaultLocation,
             @Memoized Supplier<Set<? extends Location>> locations, PayloadSlicer slicer, S3Client sync,
@@ -269,6 +286,10 @@ public class S3BlobStore extends BaseBlobStore {
       return sync.putObject(container, blob2Object.apply(blob), options);
    }
 
+   /**
+    * This implementation invokes {@link S3Client#copyObject}. When S3 rejects the copy and the source is larger than
+    * a single copy accepts, it invokes {@link S3Client#uploadPartCopy} for each part instead.
+    */
    @Override
    public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
          CopyOptions options) {
@@ -319,7 +340,82 @@ public class S3BlobStore extends BaseBlobStore {
          s3Options.overrideMetadataWith(userMetadata);
       }
 
-      return sync.copyObject(fromContainer, fromName, toContainer, toName, s3Options).getETag();
+      try {
+         return sync.copyObject(fromContainer, fromName, toContainer, toName, s3Options).getETag();
+      } catch (RuntimeException re) {
+         // S3 reports a source too large to copy at once as an InvalidRequest, which it also uses for other errors
+         AWSResponseException exception = getFirstThrowableOfType(re, AWSResponseException.class);
+         if (exception == null || exception.getError() == null
+               || !"InvalidRequest".equals(exception.getError().getCode())) {
+            throw re;
+         }
+         BlobMetadata source = blobMetadata(fromContainer, fromName);
+         if (source == null || source.getSize() == null || source.getSize() <= getMaximumMultipartPartSize()) {
+            throw re;
+         }
+         return copyBlobMultipart(fromContainer, fromName, source, toContainer, toName, options);
+      }
+   }
+
+   /**
+    * Copies the source as a multipart upload whose parts are ranges of the source, copied server-side with at most
+    * {@link BlobStoreConstants#PROPERTY_BLOBSTORE_COPY_CONCURRENCY} parts in flight. Every part requires the ETag
+    * which the source had when the copy started, so a source overwritten meanwhile fails the copy instead of
+    * mixing its versions.
+    */
+   private String copyBlobMultipart(final String fromContainer, final String fromName, BlobMetadata source,
+         String toContainer, String toName, CopyOptions options) {
+      checkCopyPreconditions(source, options);
+
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
+      metadata.setName(toName);
+      ContentMetadata contentMetadata = options.contentMetadata() != null ? options.contentMetadata()
+            : source.getContentMetadata();
+      metadata.getContentMetadata().setCacheControl(contentMetadata.getCacheControl());
+      metadata.getContentMetadata().setContentDisposition(contentMetadata.getContentDisposition());
+      metadata.getContentMetadata().setContentEncoding(contentMetadata.getContentEncoding());
+      metadata.getContentMetadata().setContentLanguage(contentMetadata.getContentLanguage());
+      metadata.getContentMetadata().setContentType(contentMetadata.getContentType());
+      metadata.getContentMetadata().setExpires(contentMetadata.getExpires());
+      metadata.setUserMetadata(options.userMetadata() != null ? options.userMetadata() : source.getUserMetadata());
+
+      final String sourceETag = source.getETag();
+      final MultipartUpload mpu = initiateMultipartUpload(toContainer, metadata, PutOptions.NONE);
+      try {
+         final long size = source.getSize();
+         final long partSize = new MultipartUploadSlicingAlgorithm(getMinimumMultipartPartSize(),
+               getMaximumMultipartPartSize(), getMaximumNumberOfParts()).calculateChunkSize(size);
+         Iterator<Callable<MultipartPart>> copies = new AbstractIterator<Callable<MultipartPart>>() {
+            private int partNumber = 1;
+
+            @Override
+            protected Callable<MultipartPart> computeNext() {
+               final long offset = (partNumber - 1) * partSize;
+               if (offset >= size) {
+                  return endOfData();
+               }
+               final int number = partNumber++;
+               final long length = Math.min(partSize, size - offset);
+               return new Callable<MultipartPart>() {
+                  @Override
+                  public MultipartPart call() {
+                     CopyObjectOptions conditions = new CopyObjectOptions();
+                     if (sourceETag != null) {
+                        conditions.ifSourceETagMatches(sourceETag);
+                     }
+                     String eTag = sync.uploadPartCopy(mpu.containerName(), mpu.blobName(), number, mpu.id(),
+                           fromContainer, fromName, offset, offset + length - 1, conditions);
+                     return MultipartPart.create(number, length, eTag, null);
+                  }
+               };
+            }
+         };
+         List<MultipartPart> parts = new BoundedMultipartUploader(this, copyConcurrency).run(copies, userExecutor);
+         return completeMultipartUpload(mpu, parts);
+      } catch (RuntimeException re) {
+         abortMultipartUpload(mpu);
+         throw re;
+      }
    }
 
    /**
@@ -338,7 +434,12 @@ public class S3BlobStore extends BaseBlobStore {
    @Override
    public void removeBlobs(String container, Iterable<String> keys) {
       for (List<String> partition : Iterables.partition(keys, 1000)) {
-         sync.deleteObjects(container, partition);
+         DeleteResult result = sync.deleteObjects(container, partition);
+         if (!result.getErrors().isEmpty()) {
+            throw new BlobRuntimeException(String.format("failed to remove %d of %d keys from %s: %s",
+                  result.getErrors().size(), partition.size(), container,
+                  Iterables.limit(result.getErrors().entrySet(), 10)));
+         }
       }
    }
 
@@ -19,10 +19,8 @@ package org.jclouds.s3.filters;
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.io.BaseEncoding.base16;
-import static com.google.common.io.ByteStreams.readBytes;
 import static org.jclouds.crypto.Macs.asByteProcessor;
 import static org.jclouds.http.utils.Queries.queryParser;
-import static org.jclouds.util.Strings2.toInputStream;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -56,6 +54,7 @@ import com.google.common.io.ByteStreams;
 import com.google.common.net.HttpHeaders;
 import com.google.common.net.PercentEscaper;
 import com.google.inject.ImplementedBy;
+import org.jclouds.aws.filters.SignatureV4Keys;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.domain.Credentials;
 import org.jclouds.http.HttpException;
@@ -117,7 +116,6 @@ public abstract class Aws4SignerBase {
    protected final Supplier<Date> timestampProvider;
    protected final Crypto crypto;
 
-
    protected Aws4SignerBase(SignatureWire signatureWire, String headerTag,
          Supplier<Credentials> creds, Supplier<Date> timestampProvider,
          ServiceAndRegion serviceAndRegion, Crypto crypto) {
@@ -204,19 +202,15 @@ public abstract class Aws4SignerBase {
     * </code>
     * </p>
     *
-    * @param secretKey AWS access secret key
+    * @param credentials AWS access key and secret key
     * @param datestamp date yyyyMMdd
     * @param region   AWS region
     * @param service   AWS service
     * @return SigningKey
+    * @see SignatureV4Keys
     */
-   protected byte[] signatureKey(String secretKey, String datestamp, String region, String service) {
-      byte[] kSecret = ("AWS4" + secretKey).getBytes(UTF_8);
-      byte[] kDate = hmacSHA256(datestamp, kSecret);
-      byte[] kRegion = hmacSHA256(region, kDate);
-      byte[] kService = hmacSHA256(service, kRegion);
-      byte[] kSigning = hmacSHA256("aws4_request", kService);
-      return kSigning;
+   protected byte[] signatureKey(Credentials credentials, String datestamp, String region, String service) {
+      return SignatureV4Keys.signatureKey(credentials, datestamp, region, service);
    }
 
    /**
@@ -226,13 +220,7 @@ public abstract class Aws4SignerBase {
     * @param key   hash key
     */
    protected byte[] hmacSHA256(String toSign, byte[] key) {
-      try {
-         return readBytes(toInputStream(toSign), hmacSHA256(crypto, key));
-      } catch (IOException e) {
-         throw new HttpException("read sign error", e);
-      } catch (InvalidKeyException e) {
-         throw new HttpException("invalid key", e);
-      }
+      return SignatureV4Keys.hmacSHA256(toSign, key);
    }
 
    public static ByteProcessor<byte[]> hmacSHA256(Crypto crypto, byte[] signatureKey) throws InvalidKeyException {
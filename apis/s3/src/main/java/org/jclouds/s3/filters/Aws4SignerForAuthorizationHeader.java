@@ -32,6 +32,7 @@ import org.jclouds.domain.Credentials;
 import org.jclouds.http.HttpException;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.internal.SignatureWire;
+import org.jclouds.io.ContentMetadataBuilder;
 import org.jclouds.io.Payload;
 import org.jclouds.location.Provider;
 import org.jclouds.util.Closeables2;
@@ -155,7 +156,7 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
             credentialScope, contentSha256);
       signatureWire.getWireLog().debug("<< " + stringToSign);
 
-      byte[] signatureKey = signatureKey(credentials.credential, datestamp, region, service);
+      byte[] signatureKey = signatureKey(credentials, datestamp, region, service);
       String signature = base16().lowerCase().encode(hmacSHA256(stringToSign, signatureKey));
 
       StringBuilder authorization = new StringBuilder(AMZ_ALGORITHM_HMAC_SHA256).append(" ");
@@ -173,6 +174,11 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
          // when payload is null.
          return getEmptyPayloadContentHash();
       }
+      // reuse a known hash rather than reading the payload an extra time
+      HashCode sha256 = ContentMetadataBuilder.getContentSHA256(payload.getContentMetadata());
+      if (sha256 != null) {
+         return base16().lowerCase().encode(sha256.asBytes());
+      }
       return calculatePayloadContentHash(payload);
    }
 
@@ -191,7 +191,7 @@ public class Aws4SignerForChunkedUpload extends Aws4SignerBase {
             credentialScope, contentSha256);
       signatureWire.getWireLog().debug("<< " + stringToSign);
 
-      byte[] signatureKey = signatureKey(credentials.credential, datestamp, region, service);
+      byte[] signatureKey = signatureKey(credentials, datestamp, region, service);
 
       // init hmacSHA256 processor for seed signature and chunked block signature
       ByteProcessor<byte[]> hmacSHA256;
@@ -136,7 +136,7 @@ public class Aws4SignerForQueryString extends Aws4SignerBase {
       signatureWire.getWireLog().debug("<< " + stringToSign);
 
 
-      byte[] signatureKey = signatureKey(credentials.credential, datestamp, region, service);
+      byte[] signatureKey = signatureKey(credentials, datestamp, region, service);
       String signature = base16().lowerCase().encode(hmacSHA256(stringToSign, signatureKey));
 
       // X-Amz-Signature=Signature
@@ -49,6 +49,7 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
    private final String timestamp;
    private final String scope;
    private final ByteProcessor<byte[]> hmacSHA256;
+   private final String seedSignature;
    private String lastComputedSignature;
 
    public ChunkedUploadPayload(Payload payload, int blockSize, String timestamp, String scope,
@@ -59,6 +60,7 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
       this.timestamp = timestamp;
       this.scope = scope;
       this.hmacSHA256 = hmacSHA256;
+      this.seedSignature = seedSignature;
       this.lastComputedSignature = seedSignature;
 
       // init content metadata
@@ -168,6 +170,8 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
 
    @Override
    public InputStream openStream() throws IOException {
+      // a repeatable payload may be sent again, so restart the signature chain from the seed
+      lastComputedSignature = seedSignature;
       return new SequenceInputStream(new ChunkedInputStreamEnumeration(this.payload.openStream(), chunkedBlockSize));
    }
 
@@ -16,15 +16,19 @@
  */
 package org.jclouds.s3.filters;
 
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD_THRESHOLD;
+
 import com.google.common.reflect.TypeToken;
 import com.google.inject.Singleton;
 import org.jclouds.http.HttpException;
 import org.jclouds.http.HttpRequest;
+import org.jclouds.io.ContentMetadataBuilder;
 import org.jclouds.io.Payload;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
 import org.jclouds.s3.S3Client;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 @Singleton
 public class RequestAuthorizeSignatureV4 implements RequestAuthorizeSignature {
@@ -37,6 +41,10 @@ public class RequestAuthorizeSignatureV4 implements RequestAuthorizeSignature {
    private final Aws4SignerForChunkedUpload signerForChunkedUpload;
    private final Aws4SignerForQueryString signerForQueryString;
 
+   @com.google.inject.Inject(optional = true)
+   @Named(PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD_THRESHOLD)
+   private long chunkedUploadThreshold = Long.MAX_VALUE;
+
    @Inject
    public RequestAuthorizeSignatureV4(Aws4SignerForAuthorizationHeader signerForAuthorizationHeader,
          Aws4SignerForChunkedUpload signerForChunkedUpload,
@@ -59,7 +67,8 @@ public class RequestAuthorizeSignatureV4 implements RequestAuthorizeSignature {
     * returns true, if use AWS S3 chunked upload.
     */
    protected boolean useChunkedUpload(HttpRequest request) {
-      // only S3Client putObject method, payload not null, content-length > 0 and cannot repeatable
+      // only S3Client putObject method, payload not null, content-length > 0, no known SHA-256, and either cannot
+      // repeatable or large enough that hashing it up front is not worth an extra read
       if (!GeneratedHttpRequest.class.isAssignableFrom(request.getClass())) {
          return false;
       }
@@ -84,7 +93,17 @@ public class RequestAuthorizeSignatureV4 implements RequestAuthorizeSignature {
          return false;
       }
 
-      return contentLength > 0L && !payload.isRepeatable();
+      if (contentLength <= 0L || ContentMetadataBuilder.getContentSHA256(payload.getContentMetadata()) != null) {
+         return false;
+      }
+
+      // hashing up front reads a repeatable payload twice unless it is in memory
+      return !payload.isRepeatable() || contentLength >= chunkedUploadThreshold && !isInMemory(payload);
+   }
+
+   private static boolean isInMemory(Payload payload) {
+      Object rawContent = payload.getRawContent();
+      return rawContent instanceof byte[] || rawContent instanceof String;
    }
 
    protected HttpRequest signForAuthorizationHeader(HttpRequest request) {
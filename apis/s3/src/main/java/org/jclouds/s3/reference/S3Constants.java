@@ -32,6 +32,12 @@ public final class S3Constants {
    public static final String PROPERTY_S3_SERVICE_PATH = "jclouds.s3.service-path";
    public static final String PROPERTY_S3_VIRTUAL_HOST_BUCKETS = "jclouds.s3.virtual-host-buckets";
    public static final String PROPERTY_JCLOUDS_S3_CHUNKED_SIZE = "jclouds.s3.chunked.size";
+   /**
+    * Repeatable payloads of at least this many bytes that are not held in memory and have no known SHA-256 are
+    * uploaded with aws-chunked encoding, so they are not read once to hash them and again to send them. Unset, only
+    * payloads that cannot be read twice are uploaded this way.
+    */
+   public static final String PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD_THRESHOLD = "jclouds.s3.chunked.upload-threshold";
 
    public static final String TEMPORARY_SIGNATURE_PARAM = "Signature";
 
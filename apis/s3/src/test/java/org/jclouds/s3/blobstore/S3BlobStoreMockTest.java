@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.s3.blobstore;
+
+import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.LAST_MODIFIED;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
+import static org.jclouds.util.Strings2.toStringAndClose;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.Set;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.aws.AWSResponseException;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.http.okhttp.config.OkHttpCommandExecutorServiceModule;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "S3BlobStoreMockTest", singleThreaded = true)
+public class S3BlobStoreMockTest {
+
+   private static final Set<Module> modules = ImmutableSet.<Module> of(new OkHttpCommandExecutorServiceModule(),
+         new ExecutorServiceModule(sameThreadExecutor()));
+   private static final String SOURCE_ETAG = "\"d41d8cd98f00b204e9800998ecf8427e\"";
+
+   public void testCopyBlobLargerThanSingleCopyUsesPartCopies() throws Exception {
+      MockWebServer server = new MockWebServer();
+      server.play();
+      try {
+         BlobStore blobStore = getBlobStore(server);
+         long size = blobStore.getMaximumMultipartPartSize() + 1;
+         long partSize = new MultipartUploadSlicingAlgorithm(blobStore.getMinimumMultipartPartSize(),
+               blobStore.getMaximumMultipartPartSize(), blobStore.getMaximumNumberOfParts()).calculateChunkSize(size);
+         int partCount = (int) ((size + partSize - 1) / partSize);
+
+         server.enqueue(new MockResponse().setResponseCode(400).addHeader(CONTENT_TYPE, "application/xml")
+               .setBody("<Error><Code>InvalidRequest</Code><Message>The specified copy source is larger than the"
+                     + " maximum allowable size for a copy source: 5368709120</Message></Error>"));
+         server.enqueue(new MockResponse().addHeader(ETAG, SOURCE_ETAG).addHeader(CONTENT_LENGTH, size)
+               .addHeader(LAST_MODIFIED, "Wed, 01 Jan 2025 00:00:00 GMT"));
+         server.enqueue(new MockResponse().setBody(stringFromResource("/initiate-multipart-upload.xml")));
+         for (int i = 1; i <= partCount; i++) {
+            server.enqueue(new MockResponse().setBody("<CopyPartResult><ETag>\"part" + i + "\"</ETag></CopyPartResult>"));
+         }
+         server.enqueue(new MockResponse().setBody(stringFromResource("/complete-multipart-upload.xml")));
+
+         assertEquals(blobStore.copyBlob("bucket", "source", "bucket", "destination", CopyOptions.NONE),
+               "\"3858f62230ac3c915f300c664312c11f-9\"");
+
+         assertEquals(server.takeRequest().getRequestLine(), "PUT /bucket/destination HTTP/1.1");
+         assertEquals(server.takeRequest().getRequestLine(), "HEAD /bucket/source HTTP/1.1");
+         assertEquals(server.takeRequest().getRequestLine(), "POST /bucket/destination?uploads HTTP/1.1");
+         for (int i = 1; i <= partCount; i++) {
+            RecordedRequest request = server.takeRequest();
+            assertEquals(request.getRequestLine(), "PUT /bucket/destination?partNumber=" + i
+                  + "&uploadId=VXBsb2FkIElEIGZvciA2aWWpbmcncyBteS1tb3ZpZS5tMnRzIHVwbG9hZA HTTP/1.1");
+            assertEquals(request.getHeader("x-amz-copy-source"), "/bucket/source");
+            assertEquals(request.getHeader("x-amz-copy-source-range"), "bytes=" + (i - 1) * partSize + "-"
+                  + (Math.min(i * partSize, size) - 1));
+            assertEquals(request.getHeader("x-amz-copy-source-if-match"), SOURCE_ETAG);
+         }
+         RecordedRequest complete = server.takeRequest();
+         assertEquals(complete.getRequestLine(), "POST /bucket/destination?uploadId="
+               + "VXBsb2FkIElEIGZvciA2aWWpbmcncyBteS1tb3ZpZS5tMnRzIHVwbG9hZA HTTP/1.1");
+         assertEquals(server.getRequestCount(), partCount + 4);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testCopySmallBlobUsesCopyObject() throws Exception {
+      MockWebServer server = new MockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/copy_object.xml")));
+      server.play();
+      try {
+         getBlobStore(server).copyBlob("bucket", "source", "bucket", "destination", CopyOptions.NONE);
+
+         RecordedRequest request = server.takeRequest();
+         assertEquals(request.getRequestLine(), "PUT /bucket/destination HTTP/1.1");
+         assertEquals(request.getHeader("x-amz-copy-source"), "/bucket/source");
+         assertEquals(server.getRequestCount(), 1);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testCopyRejectedForAnotherReasonIsNotRetriedInParts() throws Exception {
+      MockWebServer server = new MockWebServer();
+      server.enqueue(new MockResponse().setResponseCode(400).addHeader(CONTENT_TYPE, "application/xml")
+            .setBody("<Error><Code>InvalidRequest</Code><Message>This copy request is illegal</Message></Error>"));
+      server.enqueue(new MockResponse().addHeader(ETAG, SOURCE_ETAG).addHeader(CONTENT_LENGTH, 1024)
+            .addHeader(LAST_MODIFIED, "Wed, 01 Jan 2025 00:00:00 GMT"));
+      server.play();
+      try {
+         getBlobStore(server).copyBlob("bucket", "source", "bucket", "destination", CopyOptions.NONE);
+         fail("expected the copy to fail");
+      } catch (AWSResponseException expected) {
+         assertEquals(expected.getError().getCode(), "InvalidRequest");
+         assertEquals(server.takeRequest().getRequestLine(), "PUT /bucket/destination HTTP/1.1");
+         assertEquals(server.takeRequest().getRequestLine(), "HEAD /bucket/source HTTP/1.1");
+         assertEquals(server.getRequestCount(), 2);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testRemoveBlobsReportsKeysThatFailed() throws Exception {
+      MockWebServer server = new MockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/delete-result.xml")));
+      server.play();
+      try {
+         getBlobStore(server).removeBlobs("bucket", ImmutableList.of("key1", "key2"));
+         fail("expected BlobRuntimeException");
+      } catch (BlobRuntimeException expected) {
+         assertTrue(expected.getMessage().startsWith("failed to remove 1 of 2 keys from bucket: "),
+               expected.getMessage());
+         assertTrue(expected.getMessage().contains("key2"), expected.getMessage());
+         assertEquals(server.takeRequest().getRequestLine(), "POST /bucket?delete HTTP/1.1");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   private static BlobStore getBlobStore(MockWebServer server) {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_MAX_RETRIES, "1");
+      return ContextBuilder.newBuilder("s3")
+            .credentials("accessKey", "secretKey")
+            .endpoint(server.getUrl("/").toString())
+            .modules(modules)
+            .overrides(overrides)
+            .buildView(BlobStoreContext.class).getBlobStore();
+   }
+
+   private String stringFromResource(String resourceName) throws IOException {
+      return toStringAndClose(getClass().getResourceAsStream(resourceName));
+   }
+}
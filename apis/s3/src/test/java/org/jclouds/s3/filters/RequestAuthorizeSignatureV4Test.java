@@ -17,9 +17,14 @@
 package org.jclouds.s3.filters;
 
 import static org.jclouds.reflect.Reflection2.method;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD_THRESHOLD;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Date;
+import java.util.Properties;
 
 import javax.inject.Named;
 
@@ -32,6 +37,7 @@ import org.jclouds.http.HttpRequest;
 import org.jclouds.http.options.GetOptions;
 import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
+import org.jclouds.io.payloads.BaseMutableContentMetadata;
 import org.jclouds.logging.config.NullLoggingModule;
 import org.jclouds.reflect.Invocation;
 import org.jclouds.rest.ConfiguresHttpApi;
@@ -44,9 +50,12 @@ import org.jclouds.s3.domain.S3Object;
 import org.jclouds.s3.options.PutObjectOptions;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
 import com.google.common.net.HttpHeaders;
 import com.google.inject.Injector;
 import com.google.inject.Module;
@@ -103,8 +112,13 @@ public class RequestAuthorizeSignatureV4Test {
    }
 
    public static Injector injector(Credentials creds) {
+      return injector(creds, new Properties());
+   }
+
+   private static Injector injector(Credentials creds, Properties overrides) {
       return ContextBuilder.newBuilder(new S3ApiMetadata())
             .credentialsSupplier(Suppliers.<Credentials>ofInstance(creds))
+            .overrides(overrides)
             .modules(ImmutableList.<Module>of(new BaseRestApiTest.MockModule(), new NullLoggingModule(),
                   new TestS3HttpApiModule()))
             .buildInjector();
@@ -135,6 +149,29 @@ public class RequestAuthorizeSignatureV4Test {
       assertEquals(filtered.getFirstHeaderOrNull("Authorization"), GET_BUCKET_LOCATION_SIGNATURE_RESULT);
    }
 
+   @Test
+   void testCachedSigningKeysFollowTheSecret() {
+      Invocation invocation = Invocation.create(method(S3Client.class, "getBucketLocation", String.class),
+            ImmutableList.<Object>of(BUCKET_NAME));
+      HttpRequest getBucketLocation = GeneratedHttpRequest.builder().method("GET")
+            .invocation(invocation)
+            .endpoint("https://" + BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn/")
+            .addHeader(HttpHeaders.HOST, BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn")
+            .addQueryParam("location", "")
+            .build();
+      RequestAuthorizeSignatureV4 filter = filter(temporaryCredentials);
+      assertEquals(filter.filter(getBucketLocation).getFirstHeaderOrNull("Authorization"),
+            GET_BUCKET_LOCATION_SIGNATURE_RESULT);
+
+      // same access key and scope, so only the secret tells the cached keys apart
+      Credentials rotated = new Credentials.Builder().identity(IDENTITY).credential("rotated").build();
+      assertNotEquals(filter(rotated).filter(getBucketLocation).getFirstHeaderOrNull("Authorization"),
+            GET_BUCKET_LOCATION_SIGNATURE_RESULT);
+
+      assertEquals(filter.filter(getBucketLocation).getFirstHeaderOrNull("Authorization"),
+            GET_BUCKET_LOCATION_SIGNATURE_RESULT);
+   }
+
    @Test
    void testGetObjectSignature() {
       Invocation invocation = Invocation.create(method(S3Client.class, "getObject", String.class,
@@ -190,4 +227,62 @@ public class RequestAuthorizeSignatureV4Test {
       assertEquals(filtered.getFirstHeaderOrNull("Authorization"), PUT_OBJECT_RESULT);
 
    }
+
+   @Test
+   void testPutObjectWithKnownSha256DoesNotReadPayload() {
+      Invocation invocation = Invocation.create(method(S3Client.class, "putObject", String.class, S3Object.class,
+                  PutObjectOptions[].class),
+            ImmutableList.<Object>of(BUCKET_NAME));
+
+      ByteSource unreadable = new ByteSource() {
+         @Override
+         public InputStream openStream() throws IOException {
+            throw new IOException("payload should not be read while signing");
+         }
+      };
+      Payload payload = Payloads.newByteSourcePayload(unreadable);
+      payload.getContentMetadata().setContentType("text/plain");
+      payload.getContentMetadata().setContentLength((long) PUT_OBJECT_CONTENT.length());
+      ((BaseMutableContentMetadata) payload.getContentMetadata()).setContentSHA256(
+            Hashing.sha256().hashString(PUT_OBJECT_CONTENT, Charsets.UTF_8));
+
+      HttpRequest putObject = GeneratedHttpRequest.builder().method("PUT")
+            .invocation(invocation)
+            .endpoint("https://" + BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn/" + OBJECT_NAME)
+            .addHeader(HttpHeaders.HOST, BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn")
+            .addHeader("x-amz-storage-class", "REDUCED_REDUNDANCY")
+            .payload(payload)
+            .build();
+
+      HttpRequest filtered = filter(temporaryCredentials).filter(putObject);
+      assertEquals(filtered.getFirstHeaderOrNull("Authorization"), PUT_OBJECT_RESULT);
+   }
+
+   @Test
+   void testRepeatablePayloadIsHashedUnlessAboveTheChunkedUploadThreshold() {
+      Invocation invocation = Invocation.create(method(S3Client.class, "putObject", String.class, S3Object.class,
+                  PutObjectOptions[].class),
+            ImmutableList.<Object>of(BUCKET_NAME));
+
+      Payload payload = Payloads.newByteSourcePayload(ByteSource.wrap(PUT_OBJECT_CONTENT.getBytes(Charsets.UTF_8)));
+      payload.getContentMetadata().setContentType("text/plain");
+      payload.getContentMetadata().setContentLength((long) PUT_OBJECT_CONTENT.length());
+
+      HttpRequest putObject = GeneratedHttpRequest.builder().method("PUT")
+            .invocation(invocation)
+            .endpoint("https://" + BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn/" + OBJECT_NAME)
+            .addHeader(HttpHeaders.HOST, BUCKET_NAME + ".s3.cn-north-1.amazonaws.com.cn")
+            .payload(payload)
+            .build();
+
+      HttpRequest filtered = filter(temporaryCredentials).filter(putObject);
+      assertEquals(filtered.getFirstHeaderOrNull("x-amz-content-sha256"),
+            Hashing.sha256().hashString(PUT_OBJECT_CONTENT, Charsets.UTF_8).toString());
+
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_JCLOUDS_S3_CHUNKED_UPLOAD_THRESHOLD, String.valueOf(PUT_OBJECT_CONTENT.length()));
+      filtered = injector(temporaryCredentials, overrides).getInstance(RequestAuthorizeSignatureV4.class)
+            .filter(putObject);
+      assertEquals(filtered.getFirstHeaderOrNull("x-amz-content-sha256"), "STREAMING-AWS4-HMAC-SHA256-PAYLOAD");
+   }
 }
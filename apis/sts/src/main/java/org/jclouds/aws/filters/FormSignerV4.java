@@ -29,12 +29,9 @@ import static org.jclouds.aws.reference.FormParameters.VERSION;
 import static org.jclouds.http.utils.Queries.queryParser;
 
 import java.net.URI;
-import java.security.GeneralSecurityException;
 import java.util.List;
 import java.util.Map;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import javax.inject.Inject;
 
 import org.jclouds.aws.domain.SessionCredentials;
@@ -161,8 +158,8 @@ public final class FormSignerV4 implements FormSigner {
       ImmutableMap<String, String> signedHeaders = signedHeadersBuilder.build();
 
       String stringToSign = createStringToSign(requestBuilder.build(), signedHeaders, credentialScope);
-      byte[] signatureKey = signatureKey(credentials.credential, datestamp, region, service);
-      String signature = base16().lowerCase().encode(hmacSHA256(stringToSign, signatureKey));
+      byte[] signatureKey = SignatureV4Keys.signatureKey(credentials, datestamp, region, service);
+      String signature = base16().lowerCase().encode(SignatureV4Keys.hmacSHA256(stringToSign, signatureKey));
 
       StringBuilder authorization = new StringBuilder("AWS4-HMAC-SHA256 ");
       authorization.append("Credential=").append(credentials.identity).append('/').append(credentialScope).append(", ");
@@ -172,26 +169,6 @@ public final class FormSignerV4 implements FormSigner {
       return requestBuilder.addHeader(AUTHORIZATION, authorization.toString()).build();
    }
 
-   static byte[] signatureKey(String secretKey, String datestamp, String region, String service) {
-      byte[] kSecret = ("AWS4" + secretKey).getBytes(UTF_8);
-      byte[] kDate = hmacSHA256(datestamp, kSecret);
-      byte[] kRegion = hmacSHA256(region, kDate);
-      byte[] kService = hmacSHA256(service, kRegion);
-      byte[] kSigning = hmacSHA256("aws4_request", kService);
-      return kSigning;
-   }
-
-   static byte[] hmacSHA256(String data, byte[] key) {
-      try {
-         String algorithm = "HmacSHA256";
-         Mac mac = Mac.getInstance(algorithm);
-         mac.init(new SecretKeySpec(key, algorithm));
-         return mac.doFinal(data.getBytes(UTF_8));
-      } catch (GeneralSecurityException e) {
-         throw new HttpException(e);
-      }
-   }
-
    static String createStringToSign(HttpRequest request, Map<String, String> signedHeaders, String credentialScope) {
       StringBuilder canonicalRequest = new StringBuilder();
       // HTTPRequestMethod + '\n' +
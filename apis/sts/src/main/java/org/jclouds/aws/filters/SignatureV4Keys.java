@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.aws.filters;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.hash.Hashing.sha256;
+
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.HttpException;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Derives the signing keys of AWS Signature Version 4.
+ * <p>
+ * A signing key only changes with the credentials, date, region and service, so recent keys are cached rather than
+ * recomputed with four chained HMACs for every request. The cache is keyed by the access key and a hash of the
+ * secret, never the secret itself.
+ */
+public final class SignatureV4Keys {
+
+   private static final String HMAC_SHA256 = "HmacSHA256";
+
+   private static final Cache<List<String>, byte[]> SIGNING_KEYS = CacheBuilder.newBuilder()
+         .maximumSize(64)
+         .build();
+
+   /** Looking up a {@link Mac} costs far more than initializing one, so each thread keeps its own. */
+   private static final ThreadLocal<Mac> MACS = new ThreadLocal<Mac>() {
+      @Override
+      protected Mac initialValue() {
+         try {
+            return Mac.getInstance(HMAC_SHA256);
+         } catch (GeneralSecurityException e) {
+            throw new HttpException(e);
+         }
+      }
+   };
+
+   private SignatureV4Keys() {
+   }
+
+   /**
+    * Returns the signing key of the credentials for a date, region and service:
+    * <p>
+    * <code>
+    * hmacSHA256("aws4_request", hmacSHA256(service, hmacSHA256(region, hmacSHA256(datestamp, "AWS4" + secret))))
+    * </code>
+    *
+    * @param datestamp date yyyyMMdd
+    * @return a copy of the key, which callers may modify
+    */
+   public static byte[] signatureKey(Credentials credentials, final String datestamp, final String region,
+         final String service) {
+      final String secretKey = checkNotNull(credentials.credential, "secret key");
+      List<String> scope = ImmutableList.of(String.valueOf(credentials.identity),
+            sha256().hashString(secretKey, UTF_8).toString(), datestamp, region, service);
+      try {
+         return SIGNING_KEYS.get(scope, new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+               byte[] kSecret = ("AWS4" + secretKey).getBytes(UTF_8);
+               byte[] kDate = hmacSHA256(datestamp, kSecret);
+               byte[] kRegion = hmacSHA256(region, kDate);
+               byte[] kService = hmacSHA256(service, kRegion);
+               return hmacSHA256("aws4_request", kService);
+            }
+         }).clone();
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      } catch (UncheckedExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   public static byte[] hmacSHA256(String data, byte[] key) {
+      try {
+         Mac mac = MACS.get();
+         mac.init(new SecretKeySpec(key, HMAC_SHA256));
+         return mac.doFinal(data.getBytes(UTF_8));
+      } catch (GeneralSecurityException e) {
+         throw new HttpException(e);
+      }
+   }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.date.DateService;
+import org.jclouds.date.internal.LockFreeDateService;
+import org.jclouds.date.internal.SimpleDateFormatDateService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Formats and parses the timestamps found in signed requests and in nearly every list response. Runs with several
+ * threads, since the default {@link DateService} is shared by all of them; use {@code -t} to check how each
+ * implementation scales with more.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class DateServiceBenchmark {
+   @Param({ "LockFreeDateService", "SimpleDateFormatDateService" })
+   public String implementation;
+
+   private DateService dateService;
+   private final Date date = new Date(1234567890123L);
+
+   @Setup
+   public void setup() {
+      dateService = "LockFreeDateService".equals(implementation) ? new LockFreeDateService()
+            : new SimpleDateFormatDateService();
+   }
+
+   @Benchmark
+   public String iso8601DateFormat() {
+      return dateService.iso8601DateFormat(date);
+   }
+
+   @Benchmark
+   public Date iso8601DateParse() {
+      return dateService.iso8601DateParse("2009-02-13T23:31:30.123Z");
+   }
+
+   @Benchmark
+   public Date iso8601SecondsDateParse() {
+      return dateService.iso8601SecondsDateParse("2009-02-13T23:31:30Z");
+   }
+
+   @Benchmark
+   public String rfc822DateFormat() {
+      return dateService.rfc822DateFormat(date);
+   }
+
+   @Benchmark
+   public Date rfc822DateParse() {
+      return dateService.rfc822DateParse("Fri, 13 Feb 2009 23:31:30 GMT");
+   }
+}
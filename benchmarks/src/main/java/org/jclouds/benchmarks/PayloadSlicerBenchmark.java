@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.io.Payload;
+import org.jclouds.io.PayloadSlicer;
+import org.jclouds.io.Payloads;
+import org.jclouds.io.internal.BasePayloadSlicer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.io.ByteSource;
+
+/**
+ * Slices and drains a 16 MB payload into 1 MB parts, as a multipart upload does. Compares a non-repeatable stream,
+ * which is buffered part by part, with a repeatable byte source, which is sliced in place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadSlicerBenchmark {
+   private static final int CONTENT_LENGTH = 16 * 1024 * 1024;
+   private static final long PART_SIZE = 1024 * 1024;
+
+   private final PayloadSlicer slicer = new BasePayloadSlicer();
+   private final byte[] buffer = new byte[64 * 1024];
+   private byte[] content;
+
+   @Setup
+   public void setup() {
+      content = new byte[CONTENT_LENGTH];
+      new Random(0).nextBytes(content);
+   }
+
+   @Benchmark
+   public void sliceInputStream(Blackhole blackhole) throws IOException {
+      Payload payload = Payloads.newInputStreamPayload(new ByteArrayInputStream(content));
+      payload.getContentMetadata().setContentLength((long) CONTENT_LENGTH);
+      drain(slicer.slice(payload, PART_SIZE), blackhole);
+   }
+
+   @Benchmark
+   public void sliceByteSource(Blackhole blackhole) throws IOException {
+      Payload payload = Payloads.newByteSourcePayload(ByteSource.wrap(content));
+      payload.getContentMetadata().setContentLength((long) CONTENT_LENGTH);
+      drain(slicer.slice(payload, PART_SIZE), blackhole);
+   }
+
+   private void drain(Iterable<Payload> parts, Blackhole blackhole) throws IOException {
+      for (Payload part : parts) {
+         InputStream is = part.openStream();
+         try {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+               blackhole.consume(read);
+            }
+         } finally {
+            is.close();
+         }
+      }
+   }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jclouds.util.Closeables2;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Loads the recorded provider responses under {@code /payloads}, so that every benchmark runs offline against the
+ * same bytes.
+ */
+final class Resources {
+
+   static byte[] payload(String name) {
+      InputStream is = Resources.class.getResourceAsStream("/payloads/" + name);
+      if (is == null) {
+         throw new IllegalArgumentException("no recorded payload named " + name);
+      }
+      try {
+         return ByteStreams.toByteArray(is);
+      } catch (IOException e) {
+         throw new IllegalStateException(e);
+      } finally {
+         Closeables2.closeQuietly(is);
+      }
+   }
+
+   private Resources() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import static org.jclouds.providers.AnonymousProviderMetadata.forApiOnEndpoint;
+import static org.jclouds.reflect.Reflection2.method;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Named;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.logging.config.NullLoggingModule;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.QueryParams;
+import org.jclouds.rest.binders.BindToStringPayload;
+import org.jclouds.rest.internal.RestAnnotationProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.Invokable;
+import com.google.inject.Module;
+
+/**
+ * Turns annotated method invocations into requests, which every synchronous api call does before it is sent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestAnnotationProcessorBenchmark {
+
+   public interface ObjectApi extends Closeable {
+      @Named("GetObject")
+      @GET
+      @Path("/{container}/{name}")
+      @Headers(keys = "X-Client", values = "benchmark")
+      HttpRequest get(@PathParam("container") String container, @PathParam("name") String name,
+            @HeaderParam("Range") String range);
+
+      @Named("ListObjects")
+      @GET
+      @Path("/{container}")
+      @QueryParams(keys = "format", values = "json")
+      HttpRequest list(@PathParam("container") String container, @QueryParam("prefix") String prefix,
+            @QueryParam("marker") String marker, @QueryParam("limit") int limit);
+
+      @Named("PutObject")
+      @PUT
+      @Path("/{container}/{name}")
+      HttpRequest put(@PathParam("container") String container, @PathParam("name") String name,
+            @BinderParam(BindToStringPayload.class) String content);
+   }
+
+   private RestAnnotationProcessor processor;
+   private Invocation get;
+   private Invocation list;
+   private Invocation put;
+
+   @Setup
+   public void setup() {
+      processor = ContextBuilder.newBuilder(forApiOnEndpoint(ObjectApi.class, "http://localhost:8080"))
+            .modules(ImmutableSet.<Module> of(new NullLoggingModule()))
+            .buildInjector()
+            .getInstance(RestAnnotationProcessor.class);
+      get = Invocation.create(invokable("get", String.class, String.class, String.class),
+            ImmutableList.<Object> of("container", "photos/2018/IMG 0001.jpg", "bytes=0-1023"));
+      list = Invocation.create(invokable("list", String.class, String.class, String.class, int.class),
+            ImmutableList.<Object> of("container", "photos/", "photos/2018/IMG_0001.jpg", 1000));
+      put = Invocation.create(invokable("put", String.class, String.class, String.class),
+            ImmutableList.<Object> of("container", "notes/today.txt", "hello world"));
+   }
+
+   private static Invokable<?, ?> invokable(String name, Class<?>... parameterTypes) {
+      return method(ObjectApi.class, name, parameterTypes);
+   }
+
+   @Benchmark
+   public HttpRequest getObject() {
+      return processor.apply(get);
+   }
+
+   @Benchmark
+   public HttpRequest listObjects() {
+      return processor.apply(list);
+   }
+
+   @Benchmark
+   public HttpRequest putObject() {
+      return processor.apply(put);
+   }
+}
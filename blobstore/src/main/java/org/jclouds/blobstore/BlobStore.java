@@ -36,6 +36,7 @@ import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.util.CloseableIterator;
 import org.jclouds.domain.Location;
 import org.jclouds.io.Payload;
 import org.jclouds.javax.annotation.Nullable;
@@ -130,6 +131,32 @@ public interface BlobStore {
     */
    PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options);
 
+   /**
+    * Like {@link #list(String, ListContainerOptions)} except every page is returned, lazily, using the jclouds
+    * userExecutor to fetch the next page while the current one is consumed.
+    *
+    * @see #streamList(String, ListContainerOptions, ExecutorService)
+    */
+   @Beta
+   CloseableIterator<StorageMetadata> streamList(String container, ListContainerOptions options);
+
+   /**
+    * Like {@link #list(String, ListContainerOptions)} except every page is returned, lazily. The next page is
+    * fetched on the executor while the current one is consumed, so at most two pages are held in memory. Close the
+    * iterator when abandoning it before the end, to cancel the request in flight.
+    *
+    * @param container
+    *           what to list
+    * @param options
+    *           size, recursion, and context of each page; the marker is set by the iterator
+    * @param executor
+    *           runs the page requests
+    * @return an iterator over the whole listing; failures are thrown from {@code hasNext}
+    */
+   @Beta
+   CloseableIterator<StorageMetadata> streamList(String container, ListContainerOptions options,
+         ExecutorService executor);
+
    /**
     * This will delete the contents of a container at its root path without deleting the container
     *
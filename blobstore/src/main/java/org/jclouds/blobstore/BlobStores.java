@@ -52,6 +52,7 @@ public class BlobStores {
     * will not refresh) the first page.
     *  
     * @throws ContainerNotFoundException If listAllOptions.isEager and container cannot be found
+    * @see BlobStore#streamList(String, ListContainerOptions) to fetch the next page while iterating
     */
    @Beta
    public static Iterable<StorageMetadata> listAll(final BlobStore blobStore, final String container,
@@ -18,14 +18,18 @@ package org.jclouds.blobstore;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
 
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.domain.Location;
+import org.jclouds.javax.annotation.Nullable;
 
 /**
  * Strategy for local operations related to container and blob
@@ -100,6 +104,22 @@ public interface LocalStorageStrategy {
      */
     Iterable<String> getBlobKeysInsideContainer(String container) throws IOException;
 
+    /**
+     * Returns a read-only, key-ordered index of the metadata of the blobs inside a container, so that listing can
+     * seek straight to a marker and stop after a page instead of loading every blob. The index contains at least
+     * every key starting with prefix. Implementations may load metadata lazily; a null value means that the key
+     * is not a blob, e.g., it was removed after the index was returned. Callers must copy the metadata before
+     * modifying it.
+     *
+     * @param container
+     * @param prefix
+     *           only keys starting with this prefix are required, or null for every key
+     * @return index of blob key to metadata
+     * @throws IOException
+     */
+    NavigableMap<String, MutableBlobMetadata> getBlobMetadataIndex(String container, @Nullable String prefix)
+          throws IOException;
+
     /**
      * Load the blob with the given key belonging to the container with the given
      * name. There must exist a resource on the file system whose complete name
@@ -123,6 +143,18 @@ public interface LocalStorageStrategy {
      */
     String putBlob(String containerName, Blob blob) throws IOException;
 
+    /**
+     * Write a {@link Blob} whose content is the content of the given blobs, in order
+     * @param containerName
+     * @param blob name and metadata of the new blob; its payload is ignored
+     * @param blobKeys keys of the blobs to concatenate, which are left in place
+     * @return etag of blob, which takes the form of a multipart object on S3: the MD5 of the part MD5s, "-" and
+     * the part count. The blob has no Content-MD5. A store with nowhere to keep such an etag returns the MD5 of the
+     * content instead.
+     * @throws IOException
+     */
+    String concatenateBlobs(String containerName, Blob blob, List<String> blobKeys) throws IOException;
+
     /**
      * Remove blob named by the given key
      * @param container
@@ -22,9 +22,13 @@ import static com.google.common.io.BaseEncoding.base16;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.inject.Inject;
 
@@ -32,6 +36,7 @@ import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.Blob.Factory;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.MutableStorageMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
@@ -42,16 +47,20 @@ import org.jclouds.blobstore.util.BlobStoreUtils;
 import org.jclouds.date.DateService;
 import org.jclouds.domain.Location;
 import org.jclouds.http.HttpUtils;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.io.ContentMetadataCodec;
 import org.jclouds.io.MutableContentMetadata;
 import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
 import org.jclouds.util.Closeables2;
 
+import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimaps;
 import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteSource;
@@ -59,7 +68,7 @@ import com.google.common.io.ByteStreams;
 import com.google.common.net.HttpHeaders;
 
 public class TransientStorageStrategy implements LocalStorageStrategy {
-   private final ConcurrentMap<String, ConcurrentMap<String, Blob>> containerToBlobs = new ConcurrentHashMap<String, ConcurrentMap<String, Blob>>();
+   private final ConcurrentMap<String, ConcurrentNavigableMap<String, Blob>> containerToBlobs = new ConcurrentHashMap<String, ConcurrentNavigableMap<String, Blob>>();
    private final ConcurrentMap<String, ConcurrentMap<String, BlobAccess>> containerToBlobAccess = new ConcurrentHashMap<String, ConcurrentMap<String, BlobAccess>>();
    private final ConcurrentMap<String, StorageMetadata> containerMetadata = new ConcurrentHashMap<String, StorageMetadata>();
    private final ConcurrentMap<String, ContainerAccess> containerAccessMap = new ConcurrentHashMap<String, ContainerAccess>();
@@ -89,8 +98,8 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
 
    @Override
    public boolean createContainerInLocation(String containerName, Location location, CreateContainerOptions options) {
-      ConcurrentMap<String, Blob> origValue = containerToBlobs.putIfAbsent(
-            containerName, new ConcurrentHashMap<String, Blob>());
+      ConcurrentNavigableMap<String, Blob> origValue = containerToBlobs.putIfAbsent(
+            containerName, new ConcurrentSkipListMap<String, Blob>());
       if (origValue != null) {
          return false;
       }
@@ -152,6 +161,21 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
       return containerToBlobs.get(containerName).keySet();
    }
 
+   @Override
+   public NavigableMap<String, MutableBlobMetadata> getBlobMetadataIndex(final String containerName, String prefix) {
+      NavigableMap<String, Blob> map = containerToBlobs.get(containerName);
+      if (map == null) {
+         throw new ContainerNotFoundException(containerName, "in getBlobMetadataIndex");
+      }
+      return Maps.unmodifiableNavigableMap(Maps.transformValues(map,
+            new Function<Blob, MutableBlobMetadata>() {
+               @Override
+               public MutableBlobMetadata apply(Blob blob) {
+                  return blob.getMetadata();
+               }
+            }));
+   }
+
    @Override
    public Blob getBlob(final String containerName, final String blobName) {
       Map<String, Blob> map = containerToBlobs.get(containerName);
@@ -181,12 +205,37 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
          Closeables2.closeQuietly(input);
       }
 
-      Blob newBlob = createUpdatedCopyOfBlobInContainer(containerName, blob, payload, actualHashCode);
+      String eTag = base16().lowerCase().encode(actualHashCode.asBytes());
+      Blob newBlob = createUpdatedCopyOfBlobInContainer(containerName, blob, payload, actualHashCode, eTag);
       Map<String, Blob> map = containerToBlobs.get(containerName);
       String blobName = newBlob.getMetadata().getName();
       map.put(blobName, newBlob);
       containerToBlobAccess.get(containerName).put(blobName, BlobAccess.PRIVATE);
-      return base16().lowerCase().encode(actualHashCode.asBytes());
+      return eTag;
+   }
+
+   @Override
+   public String concatenateBlobs(final String containerName, final Blob blob, final List<String> blobKeys)
+         throws IOException {
+      ImmutableList.Builder<ByteSource> parts = ImmutableList.builder();
+      Hasher partHashes = Hashing.md5().newHasher();
+      for (String blobKey : blobKeys) {
+         Blob part = getBlob(containerName, blobKey);
+         if (part == null) {
+            throw new KeyNotFoundException(containerName, blobKey, "while concatenating "
+                  + blob.getMetadata().getName());
+         }
+         parts.add((ByteSource) part.getPayload().getRawContent());
+         partHashes.putBytes(part.getPayload().getContentMetadata().getContentMD5AsHashCode().asBytes());
+      }
+      // same form as the ETag of a multipart object on S3, which has no Content-MD5 either
+      String eTag = base16().lowerCase().encode(partHashes.hash().asBytes()) + "-" + blobKeys.size();
+      Blob newBlob = createUpdatedCopyOfBlobInContainer(containerName, blob, ByteSource.concat(parts.build()).read(),
+            null, eTag);
+      String blobName = newBlob.getMetadata().getName();
+      containerToBlobs.get(containerName).put(blobName, newBlob);
+      containerToBlobAccess.get(containerName).put(blobName, BlobAccess.PRIVATE);
+      return eTag;
    }
 
    @Override
@@ -228,11 +277,12 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
       return "/";
    }
 
-   private Blob createUpdatedCopyOfBlobInContainer(String containerName, Blob in, byte[] input, HashCode contentMd5) {
+   private Blob createUpdatedCopyOfBlobInContainer(String containerName, Blob in, byte[] input,
+         @Nullable HashCode contentMd5, String eTag) {
       checkNotNull(containerName, "containerName");
       checkNotNull(in, "blob");
       checkNotNull(input, "input");
-      checkNotNull(contentMd5, "contentMd5");
+      checkNotNull(eTag, "eTag");
       Payload payload = Payloads.newByteSourcePayload(ByteSource.wrap(input));
       MutableContentMetadata oldMd = in.getPayload().getContentMetadata();
       HttpUtils.copy(oldMd, payload.getContentMetadata());
@@ -243,7 +293,6 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
       blob.getMetadata().setContainer(containerName);
       blob.getMetadata().setLastModified(new Date());
       blob.getMetadata().setSize((long) input.length);
-      String eTag = base16().lowerCase().encode(contentMd5.asBytes());
       blob.getMetadata().setETag(eTag);
       // Set HTTP headers to match metadata
       blob.getAllHeaders().replaceValues(HttpHeaders.LAST_MODIFIED,
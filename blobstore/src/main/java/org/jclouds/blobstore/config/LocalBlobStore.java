@@ -17,25 +17,22 @@
 package org.jclouds.blobstore.config;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.getCausalChain;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.Iterables.size;
-import static com.google.common.collect.Iterables.transform;
-import static com.google.common.collect.Iterables.tryFind;
-import static com.google.common.collect.Sets.filter;
 import static com.google.common.collect.Sets.newTreeSet;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.SequenceInputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.UUID;
@@ -43,8 +40,10 @@ import java.util.concurrent.ExecutorService;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.Constants;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.ContainerNotFoundException;
@@ -70,8 +69,12 @@ import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.blobstore.strategy.internal.PrefetchingListIterator;
+import org.jclouds.blobstore.strategy.internal.RangedBlobDownloader;
 import org.jclouds.blobstore.util.BlobStoreUtils;
 import org.jclouds.blobstore.util.BlobUtils;
+import org.jclouds.blobstore.util.CloseableIterator;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
 import org.jclouds.http.HttpCommand;
@@ -79,6 +82,7 @@ import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpResponseException;
 import org.jclouds.http.HttpUtils;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.io.ByteStreams2;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.ContentMetadataCodec;
@@ -87,8 +91,6 @@ import org.jclouds.logging.Logger;
 import org.jclouds.util.Closeables2;
 
 import com.google.common.base.Function;
-import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
@@ -96,8 +98,10 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
+import com.google.common.hash.HashCode;
 import com.google.common.io.ByteSource;
 import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 @Singleton
 public final class LocalBlobStore implements BlobStore {
@@ -113,6 +117,25 @@ public final class LocalBlobStore implements BlobStore {
    private final Blob.Factory blobFactory;
    private final LocalStorageStrategy storageStrategy;
 
+   @com.google.inject.Inject
+   @Named(Constants.PROPERTY_USER_THREADS)
+   ListeningExecutorService userExecutor;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_DOWNLOAD_PART_SIZE)
+   long downloadPartSize = RangedBlobDownloader.DEFAULT_PART_SIZE;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_DOWNLOAD_CONCURRENCY)
+   int downloadConcurrency = RangedBlobDownloader.DEFAULT_CONCURRENCY;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(Constants.PROPERTY_MAX_RETRIES)
+   int retryCountLimit = 5;
+
+   @com.google.inject.Inject
+   BackoffLimitedRetryHandler retryHandler;
+
    @Inject
    LocalBlobStore(BlobStoreContext context,
          BlobUtils blobUtils,
@@ -229,143 +252,128 @@ public final class LocalBlobStore implements BlobStore {
       if (!storageStrategy.containerExists(containerName))
          throw cnfe(containerName);
 
-      // Loading blobs from container
-      Iterable<String> blobBelongingToContainer = null;
+      // Only the keys between prefix and the end of the page are visited
+      String prefix = null;
+      String delimiter = null;
+      boolean includePrefix = true;
+      if (options.getDir() != null && !options.getDir().isEmpty()) {
+         prefix = options.getDir().endsWith("/") ? options.getDir() : options.getDir() + "/";
+         includePrefix = false;
+         if (!options.isRecursive()) {
+            delimiter = storageStrategy.getSeparator();
+         }
+      } else if (options.getPrefix() != null) {
+         prefix = options.getPrefix();
+         delimiter = options.getDelimiter();
+      } else if (!options.isRecursive() || options.getDelimiter() != null) {
+         delimiter = options.getDelimiter() == null ? storageStrategy.getSeparator() : options.getDelimiter();
+      }
+      String marker = options.getMarker();
+      int maxResults = options.getMaxResults() != null ? options.getMaxResults() : 1000;
+
+      NavigableMap<String, MutableBlobMetadata> index;
       try {
-         blobBelongingToContainer = storageStrategy.getBlobKeysInsideContainer(containerName);
+         index = storageStrategy.getBlobMetadataIndex(containerName, prefix);
       } catch (IOException e) {
          logger.error(e, "An error occurred loading blobs contained into container %s", containerName);
-         propagate(e);
+         throw propagate(e);
       }
 
-      blobBelongingToContainer = Iterables.filter(blobBelongingToContainer,
-            new Predicate<String>() {
-               @Override
-               public boolean apply(String key) {
-                  // ignore folders
-                  return storageStrategy.blobExists(containerName, key);
-               }
-            });
-      SortedSet<StorageMetadata> contents = newTreeSet(FluentIterable.from(blobBelongingToContainer)
-            .transform(new Function<String, StorageMetadata>() {
-               @Override
-               public StorageMetadata apply(String key) {
-                  Blob oldBlob = loadBlob(containerName, key);
-                  if (oldBlob == null) {
-                     return null;
-                  }
-                  checkState(oldBlob.getMetadata() != null, "blob " + containerName + "/" + key + " has no metadata");
-                  MutableBlobMetadata md = BlobStoreUtils.copy(oldBlob.getMetadata());
-                  md.setSize(oldBlob.getMetadata().getSize());
-                  return md;
-               }
-            })
-            .filter(Predicates.<StorageMetadata>notNull()));
-
-      String marker = null;
-      if (options != null) {
-         if (options.getDir() != null && !options.getDir().isEmpty()) {
-            contents = filterDirectory(contents, options);
-         } else if (options.getPrefix() != null) {
-            contents = filterPrefix(contents, options);
-         } else if (!options.isRecursive() || (options.getDelimiter() != null)) {
-            String delimiter = options.getDelimiter() == null ? storageStrategy.getSeparator() : options.getDelimiter();
-            contents = extractCommonPrefixes(contents, delimiter, null);
+      SortedSet<StorageMetadata> contents = newTreeSet();
+      String nextMarker = null;
+      Iterator<Map.Entry<String, MutableBlobMetadata>> it = seek(index, prefix, marker);
+      while (it.hasNext()) {
+         Map.Entry<String, MutableBlobMetadata> entry = it.next();
+         String key = entry.getKey();
+         if (prefix != null && !key.startsWith(prefix)) {
+            // keys sharing a prefix are contiguous
+            break;
          }
-
-         if (options.getMarker() != null) {
-            final String finalMarker = options.getMarker();
-            String delimiter = storageStrategy.getSeparator();
-            Optional<StorageMetadata> lastMarkerMetadata = tryFind(contents, new Predicate<StorageMetadata>() {
-               public boolean apply(StorageMetadata metadata) {
-                  return metadata.getName().compareTo(finalMarker) > 0;
-               }
-            });
-            if (lastMarkerMetadata.isPresent()) {
-               contents = contents.tailSet(lastMarkerMetadata.get());
-            } else {
-               // marker is after last key or container is empty
-               contents.clear();
-            }
+         if (entry.getValue() == null || (!includePrefix && key.equals(prefix))) {
+            // ignore folders
+            continue;
          }
 
-         int maxResults = options.getMaxResults() != null ? options.getMaxResults() : 1000;
-         if (!contents.isEmpty()) {
-            StorageMetadata lastElement = contents.last();
-            contents = newTreeSet(Iterables.limit(contents, maxResults));
-            if (maxResults != 0 && !contents.contains(lastElement)) {
-               // Partial listing
-               lastElement = contents.last();
-               marker = lastElement.getName();
+         StorageMetadata md;
+         String commonPrefix = delimiter == null ? null : commonPrefix(key, prefix, delimiter);
+         if (commonPrefix != null) {
+            // skip every other key under the same common prefix
+            it = skipPrefix(index, commonPrefix);
+            if (marker != null && commonPrefix.compareTo(marker) <= 0) {
+               continue;
+            }
+            MutableStorageMetadata prefixMetadata = new MutableStorageMetadataImpl();
+            prefixMetadata.setType(StorageType.RELATIVE_PATH);
+            prefixMetadata.setName(commonPrefix);
+            md = prefixMetadata;
+         } else {
+            if (marker != null && key.compareTo(marker) <= 0) {
+               continue;
+            }
+            MutableBlobMetadata blobMetadata = BlobStoreUtils.copy(entry.getValue());
+            blobMetadata.setSize(entry.getValue().getSize());
+            // trim metadata, if the response isn't supposed to be detailed.
+            if (!options.isDetailed()) {
+               blobMetadata.getUserMetadata().clear();
             }
+            md = blobMetadata;
          }
 
-         // trim metadata, if the response isn't supposed to be detailed.
-         if (!options.isDetailed()) {
-            for (StorageMetadata md : contents) {
-               md.getUserMetadata().clear();
+         if (contents.size() == maxResults) {
+            // Partial listing
+            if (maxResults != 0) {
+               nextMarker = contents.last().getName();
             }
+            break;
          }
+         contents.add(md);
       }
 
-      return new PageSetImpl<StorageMetadata>(contents, marker);
+      return new PageSetImpl<StorageMetadata>(contents, nextMarker);
    }
 
-   private SortedSet<StorageMetadata> filterDirectory(SortedSet<StorageMetadata> contents, ListContainerOptions
-           options) {
-      String prefix = options.getDir();
-      final String dirPrefix = prefix.endsWith("/") ?
-              prefix :
-              prefix + "/";
-      contents = newTreeSet(filter(contents, new Predicate<StorageMetadata>() {
-         public boolean apply(StorageMetadata o) {
-            return o != null
-                    && o.getName().replace(File.separatorChar, '/').startsWith(dirPrefix)
-                    && !o.getName().replace(File.separatorChar, '/').equals(dirPrefix);
-         }
-      }));
-
-      if (!options.isRecursive()) {
-         return extractCommonPrefixes(contents, storageStrategy.getSeparator(), dirPrefix);
+   /**
+    * Positions an iterator at the first key of the index which can appear in a listing starting at
+    * {@code prefix} and after {@code marker}.
+    */
+   private static Iterator<Map.Entry<String, MutableBlobMetadata>> seek(NavigableMap<String, MutableBlobMetadata> index,
+         String prefix, String marker) {
+      if (marker != null && (prefix == null || marker.compareTo(prefix) >= 0)) {
+         return index.tailMap(marker, false).entrySet().iterator();
+      } else if (prefix != null) {
+         return index.tailMap(prefix, true).entrySet().iterator();
       }
-
-      return contents;
+      return index.entrySet().iterator();
    }
 
-   private SortedSet<StorageMetadata> filterPrefix(SortedSet<StorageMetadata> contents, final ListContainerOptions
-                                                   options) {
-      contents = newTreeSet(filter(contents, new Predicate<StorageMetadata>() {
-         public boolean apply(StorageMetadata o) {
-            return o != null && o.getName().replace(File.separatorChar, '/').startsWith(options.getPrefix());
-         }
-      }));
-
-      if (options.getDelimiter() != null) {
-         return extractCommonPrefixes(contents, options.getDelimiter(), options.getPrefix());
+   /**
+    * Positions an iterator after every key starting with {@code prefix}.
+    */
+   private static Iterator<Map.Entry<String, MutableBlobMetadata>> skipPrefix(
+         NavigableMap<String, MutableBlobMetadata> index, String prefix) {
+      // the smallest string greater than every string starting with prefix
+      int last = prefix.length() - 1;
+      while (last >= 0 && prefix.charAt(last) == Character.MAX_VALUE) {
+         last--;
       }
-
-      return contents;
+      if (last < 0) {
+         return Iterators.emptyIterator();
+      }
+      String upperBound = prefix.substring(0, last) + (char) (prefix.charAt(last) + 1);
+      return index.tailMap(upperBound, true).entrySet().iterator();
    }
 
-   private SortedSet<StorageMetadata> extractCommonPrefixes(SortedSet<StorageMetadata> contents, String delimiter,
-                                                            String prefix) {
-      SortedSet<String> commonPrefixes = newTreeSet(
-              transform(contents, new CommonPrefixes(prefix, delimiter)));
-      commonPrefixes.remove(CommonPrefixes.NO_PREFIX);
-
-      contents = newTreeSet(filter(contents, new DelimiterFilter(prefix, delimiter)));
-
-      for (String o : commonPrefixes) {
-         MutableStorageMetadata md = new MutableStorageMetadataImpl();
-         md.setType(StorageType.RELATIVE_PATH);
-
-         if (prefix != null) {
-            o = prefix + o;
-         }
-         md.setName(o + delimiter);
-         contents.add(md);
+   /**
+    * @return the common prefix, including the delimiter, which {@code key} rolls up into, or null if {@code key}
+    *         is listed as itself
+    */
+   private static String commonPrefix(String key, String prefix, String delimiter) {
+      int offset = prefix == null ? 0 : prefix.length();
+      int index = key.indexOf(delimiter, offset);
+      if (index < 0) {
+         return null;
       }
-      return contents;
+      return key.substring(0, index) + delimiter;
    }
 
    private ContainerNotFoundException cnfe(final String name) {
@@ -458,60 +466,6 @@ public final class LocalBlobStore implements BlobStore {
       return storageStrategy.getBlob(container, key);
    }
 
-   private static class DelimiterFilter implements Predicate<StorageMetadata> {
-      private final String prefix;
-      private final String delimiter;
-
-      public DelimiterFilter(String prefix, String delimiter) {
-         this.prefix = prefix;
-         this.delimiter = delimiter;
-      }
-
-      public boolean apply(StorageMetadata metadata) {
-         String name = metadata.getName();
-         if (prefix == null || prefix.isEmpty()) {
-            return name.indexOf(delimiter) == -1;
-         }
-         if (name.startsWith(prefix)) {
-            String unprefixedName = name.substring(prefix.length());
-            if (unprefixedName.equals("")) {
-               // a blob that matches the prefix should also be returned
-               return true;
-            }
-            return unprefixedName.indexOf(delimiter) == -1;
-         }
-         return false;
-      }
-   }
-
-   private static class CommonPrefixes implements Function<StorageMetadata, String> {
-      private final String prefix;
-      private final String delimiter;
-      public static final String NO_PREFIX = "NO_PREFIX";
-
-      public CommonPrefixes(String prefix, String delimiter) {
-         this.prefix = prefix;
-         this.delimiter = delimiter;
-      }
-
-      public String apply(StorageMetadata metadata) {
-         String working = metadata.getName();
-         if (prefix != null) {
-            if (working.startsWith(prefix)) {
-               working = working.substring(prefix.length());
-            } else {
-               return NO_PREFIX;
-            }
-         }
-         if (working.indexOf(delimiter) >= 0) {
-            // include the delimiter in the result
-            return working.substring(0, working.indexOf(delimiter));
-         } else {
-            return NO_PREFIX;
-         }
-      }
-   }
-
    private static HttpResponseException returnResponseException(int code) {
       HttpResponse response = HttpResponse.builder().statusCode(code).build();
       return new HttpResponseException(new HttpCommand(HttpRequest.builder().method("GET").endpoint("http://stub")
@@ -554,14 +508,24 @@ public final class LocalBlobStore implements BlobStore {
 
       InputStream is = null;
       try {
-         is = blob.getPayload().openStream();
          ContentMetadata metadata = blob.getMetadata().getContentMetadata();
-         BlobBuilder.PayloadBlobBuilder builder = blobBuilder(toName)
-               .payload(is);
+         BlobBuilder.PayloadBlobBuilder builder;
+         Object content = blob.getPayload().getRawContent();
+         if (content instanceof ByteSource) {
+            // lets the storage strategy copy the source without reading it
+            builder = blobBuilder(toName).payload((ByteSource) content);
+         } else {
+            is = blob.getPayload().openStream();
+            builder = blobBuilder(toName).payload(is);
+         }
          Long contentLength = metadata.getContentLength();
          if (contentLength != null) {
             builder.contentLength(contentLength);
          }
+         HashCode contentMD5 = metadata.getContentMD5AsHashCode();
+         if (contentMD5 != null) {
+            builder.contentMD5(contentMD5);
+         }
 
          ContentMetadata contentMetadata = options.contentMetadata();
          if (contentMetadata != null) {
@@ -802,23 +766,18 @@ public final class LocalBlobStore implements BlobStore {
 
    @Override
    public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
-      ImmutableList.Builder<InputStream> streams = ImmutableList.builder();
-      long contentLength = 0;
+      if (!storageStrategy.containerExists(mpu.containerName())) {
+         throw cnfe(mpu.containerName());
+      }
+      ImmutableList.Builder<String> builder = ImmutableList.builder();
       for (MultipartPart part : parts) {
-         Blob blobPart = getBlob(mpu.containerName(), MULTIPART_PREFIX + mpu.id() + "-" + mpu.blobName() + "-" + part.partNumber());
-         contentLength += blobPart.getMetadata().getContentMetadata().getContentLength();
-         InputStream is;
-         try {
-            is = blobPart.getPayload().openStream();
-         } catch (IOException ioe) {
-            throw propagate(ioe);
-         }
-         streams.add(is);
+         builder.add(MULTIPART_PREFIX + mpu.id() + "-" + mpu.blobName() + "-" + part.partNumber());
       }
+      List<String> partNames = builder.build();
+      // the storage strategy joins the parts itself, so only the metadata goes in the blob
       PayloadBlobBuilder blobBuilder = blobBuilder(mpu.blobName())
             .userMetadata(mpu.blobMetadata().getUserMetadata())
-            .payload(new SequenceInputStream(Iterators.asEnumeration(streams.build().iterator())))
-            .contentLength(contentLength);
+            .payload(ByteSource.empty());
       String cacheControl = mpu.blobMetadata().getContentMetadata().getCacheControl();
       if (cacheControl != null) {
          blobBuilder.cacheControl(cacheControl);
@@ -845,10 +804,17 @@ public final class LocalBlobStore implements BlobStore {
          blobBuilder.expires(expires);
       }
 
-      String eTag = putBlob(mpu.containerName(), blobBuilder.build());
+      String eTag;
+      try {
+         eTag = storageStrategy.concatenateBlobs(mpu.containerName(), blobBuilder.build(), partNames);
+      } catch (IOException e) {
+         logger.error(e, "An error occurred completing the multipart upload of [%s] to container [%s].",
+               mpu.blobName(), mpu.containerName());
+         throw propagate(e);
+      }
 
-      for (MultipartPart part : parts) {
-         removeBlob(mpu.containerName(), MULTIPART_PREFIX + mpu.id() + "-" + mpu.blobName() + "-" + part.partNumber());
+      for (String partName : partNames) {
+         removeBlob(mpu.containerName(), partName);
       }
       removeBlob(mpu.containerName(), MULTIPART_PREFIX + mpu.id() + "-" + mpu.blobName() + "-stub");
 
@@ -936,22 +902,38 @@ public final class LocalBlobStore implements BlobStore {
 
    @Override
    public void downloadBlob(String container, String name, File destination) {
-      throw new UnsupportedOperationException();
+      downloadBlob(container, name, destination, userExecutor);
    }
 
    @Override
    public void downloadBlob(String container, String name, File destination, ExecutorService executor) {
-      throw new UnsupportedOperationException();
+      rangedBlobDownloader().download(container, name, destination, executor);
    }
 
    @Override
    public InputStream streamBlob(String container, String name) {
-      throw new UnsupportedOperationException();
+      return streamBlob(container, name, userExecutor);
    }
 
    @Override
    public InputStream streamBlob(String container, String name, ExecutorService executor) {
-      throw new UnsupportedOperationException();
+      return rangedBlobDownloader().stream(container, name, executor);
+   }
+
+   @Override
+   public CloseableIterator<StorageMetadata> streamList(String container, ListContainerOptions options) {
+      return streamList(container, options, userExecutor);
+   }
+
+   @Override
+   public CloseableIterator<StorageMetadata> streamList(String container, ListContainerOptions options,
+         ExecutorService executor) {
+      return new PrefetchingListIterator(this, container, options, executor);
+   }
+
+   private RangedBlobDownloader rangedBlobDownloader() {
+      return new RangedBlobDownloader(this, downloadPartSize, downloadConcurrency, retryCountLimit,
+            retryHandler);
    }
 
    private static String maybeQuoteETag(String eTag) {
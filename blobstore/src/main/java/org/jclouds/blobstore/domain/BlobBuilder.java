@@ -24,6 +24,7 @@ import java.util.Map;
 import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
 import org.jclouds.io.Payload;
 
+import com.google.common.annotations.Beta;
 import com.google.common.hash.HashCode;
 import com.google.common.io.ByteSource;
 import com.google.common.net.MediaType;
@@ -118,6 +119,12 @@ public interface BlobBuilder {
 
       PayloadBlobBuilder contentMD5(HashCode md5);
 
+      /**
+       * SHA-256 of the payload, if known, which spares signers that need it from reading the payload to compute it.
+       */
+      @Beta
+      PayloadBlobBuilder contentSHA256(HashCode sha256);
+
       PayloadBlobBuilder contentType(MediaType contentType);
 
       PayloadBlobBuilder contentType(String contentType);
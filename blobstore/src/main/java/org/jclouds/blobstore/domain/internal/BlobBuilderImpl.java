@@ -30,6 +30,7 @@ import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobBuilder;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.io.Payload;
+import org.jclouds.io.payloads.BaseMutableContentMetadata;
 import org.jclouds.io.payloads.PhantomPayload;
 
 import com.google.common.collect.Maps;
@@ -205,6 +206,14 @@ public class BlobBuilderImpl implements BlobBuilder {
          return this;
       }
 
+      @Override
+      public PayloadBlobBuilder contentSHA256(HashCode sha256) {
+         // the hash only saves signers a read, so metadata that cannot carry it simply goes without
+         if (payload.getContentMetadata() instanceof BaseMutableContentMetadata)
+            ((BaseMutableContentMetadata) payload.getContentMetadata()).setContentSHA256(sha256);
+         return this;
+      }
+
       @Override
       public PayloadBlobBuilder contentType(MediaType contentType) {
          return contentType(checkNotNull(contentType, "contentType").toString());
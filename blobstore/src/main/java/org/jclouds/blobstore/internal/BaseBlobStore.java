@@ -16,8 +16,11 @@
  */
 package org.jclouds.blobstore.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static org.jclouds.Constants.PROPERTY_MAX_PARALLEL_DELETES;
+import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
 import static org.jclouds.util.Predicates2.retry;
@@ -25,12 +28,17 @@ import static org.jclouds.util.Predicates2.retry;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -41,23 +49,30 @@ import org.jclouds.blobstore.ContainerNotFoundException;
 import org.jclouds.blobstore.KeyNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobBuilder;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.MultipartPart;
 import org.jclouds.blobstore.domain.MultipartUpload;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.blobstore.strategy.internal.BoundedMultipartUploader;
 import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
+import org.jclouds.blobstore.strategy.internal.PrefetchingListIterator;
+import org.jclouds.blobstore.strategy.internal.RangedBlobDownloader;
 import org.jclouds.blobstore.util.BlobUtils;
+import org.jclouds.blobstore.util.CloseableIterator;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpResponseException;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.io.ContentMetadata;
-import org.jclouds.io.Payload;
 import org.jclouds.io.PayloadSlicer;
 import org.jclouds.util.Closeables2;
 
@@ -66,8 +81,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
-import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ListeningExecutorService;
 
 public abstract class BaseBlobStore implements BlobStore {
@@ -139,10 +154,109 @@ public abstract class BaseBlobStore implements BlobStore {
       blobUtils.createDirectory(containerName, directory);
    }
 
+   /**
+    * This implementation removes the blobs in parallel, with at most
+    * {@link org.jclouds.Constants#PROPERTY_MAX_PARALLEL_DELETES} removals in flight. The calling thread removes blobs
+    * too, and helpers on the jclouds userExecutor only take the names that are left, so this completes even when the
+    * caller itself runs on a saturated userExecutor.
+    *
+    * @throws BlobRuntimeException
+    *            once every removal has completed, if more than one failed; a single failure is rethrown as is
+    */
    @Override
    public void removeBlobs(String container, Iterable<String> names) {
-      for (String name : names) {
-         removeBlob(container, name);
+      ParallelRemoval removal = new ParallelRemoval(container, ImmutableList.copyOf(names));
+      List<ParallelRemoval.Helper> helpers = Lists.newArrayList();
+      for (int i = 1; i < Math.min(maxParallelDeletes, removal.names.size()); i++) {
+         ParallelRemoval.Helper helper = removal.new Helper();
+         try {
+            userExecutor.execute(helper);
+         } catch (RejectedExecutionException e) {
+            break;
+         }
+         helpers.add(helper);
+      }
+      try {
+         removal.run();
+         for (ParallelRemoval.Helper helper : helpers) {
+            helper.await();
+         }
+         if (Thread.interrupted()) {
+            throw new InterruptedException();
+         }
+      } catch (InterruptedException e) {
+         removal.stopped = true;
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      }
+      removal.rethrowFailures();
+   }
+
+   /**
+    * Names of a {@link #removeBlobs} call, taken one at a time by the calling thread and its helpers.
+    */
+   private class ParallelRemoval implements Runnable {
+      private final String container;
+      private final List<String> names;
+      private final AtomicInteger next = new AtomicInteger();
+      private final Queue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+      private volatile boolean stopped;
+
+      ParallelRemoval(String container, List<String> names) {
+         this.container = container;
+         this.names = names;
+      }
+
+      @Override
+      public void run() {
+         for (int i = next.getAndIncrement(); i < names.size(); i = next.getAndIncrement()) {
+            if (stopped || Thread.currentThread().isInterrupted()) {
+               return;
+            }
+            try {
+               removeBlob(container, names.get(i));
+            } catch (RuntimeException e) {
+               failures.add(e);
+            } catch (Error e) {
+               failures.add(e);
+               stopped = true;
+               throw e;
+            }
+         }
+      }
+
+      void rethrowFailures() {
+         if (failures.size() == 1) {
+            throw Throwables.propagate(failures.peek());
+         } else if (!failures.isEmpty()) {
+            throw new BlobRuntimeException(String.format("failed to remove %d of %d blobs from %s", failures.size(),
+                  names.size(), container), failures.peek());
+         }
+      }
+
+      /**
+       * Runs on the userExecutor, unless the calling thread runs out of names first and claims it.
+       */
+      class Helper implements Runnable {
+         private final AtomicBoolean claimed = new AtomicBoolean();
+         private final CountDownLatch done = new CountDownLatch(1);
+
+         @Override
+         public void run() {
+            if (claimed.compareAndSet(false, true)) {
+               try {
+                  ParallelRemoval.this.run();
+               } finally {
+                  done.countDown();
+               }
+            }
+         }
+
+         void await() throws InterruptedException {
+            if (!claimed.compareAndSet(false, true)) {
+               done.await();
+            }
+         }
       }
    }
 
@@ -271,26 +385,7 @@ public abstract class BaseBlobStore implements BlobStore {
          throw new KeyNotFoundException(fromContainer, fromName, "while copying");
       }
 
-      String eTag = blob.getMetadata().getETag();
-      if (eTag != null) {
-         eTag = maybeQuoteETag(eTag);
-         if (options.ifMatch() != null && !maybeQuoteETag(options.ifMatch()).equals(eTag)) {
-            throw returnResponseException(412);
-         }
-         if (options.ifNoneMatch() != null && maybeQuoteETag(options.ifNoneMatch()).equals(eTag)) {
-            throw returnResponseException(412);
-         }
-      }
-
-      Date lastModified = blob.getMetadata().getLastModified();
-      if (lastModified != null) {
-         if (options.ifModifiedSince() != null && lastModified.compareTo(options.ifModifiedSince()) <= 0) {
-            throw returnResponseException(412);
-         }
-         if (options.ifUnmodifiedSince() != null && lastModified.compareTo(options.ifUnmodifiedSince()) >= 0) {
-            throw returnResponseException(412);
-         }
-      }
+      checkCopyPreconditions(blob.getMetadata(), options);
 
       InputStream is = null;
       try {
@@ -331,7 +426,7 @@ public abstract class BaseBlobStore implements BlobStore {
    @com.google.inject.Inject
    @Named(PROPERTY_USER_THREADS)
    @VisibleForTesting
-   ListeningExecutorService userExecutor;
+   protected ListeningExecutorService userExecutor;
 
    /**
     * Upload using a user-provided executor, or the jclouds userExecutor
@@ -352,40 +447,52 @@ public abstract class BaseBlobStore implements BlobStore {
 
    @Beta
    protected String putMultipartBlob(String container, Blob blob, PutOptions overrides, ListeningExecutorService executor) {
-      ArrayList<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
       MultipartUpload mpu = initiateMultipartUpload(container, blob.getMetadata(), overrides);
       try {
          long contentLength = blob.getMetadata().getContentMetadata().getContentLength();
          MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(
                getMinimumMultipartPartSize(), getMaximumMultipartPartSize(), getMaximumNumberOfParts());
          long partSize = algorithm.calculateChunkSize(contentLength);
-         int partNumber = 1;
-         for (Payload payload : slicer.slice(blob.getPayload(), partSize)) {
-            BlobUploader b =
-                  new BlobUploader(mpu, partNumber++, payload);
-            parts.add(executor.submit(b));
-         }
-         return completeMultipartUpload(mpu, Futures.getUnchecked(Futures.allAsList(parts)));
+         List<MultipartPart> parts = new BoundedMultipartUploader(this, uploadConcurrency)
+               .upload(mpu, slicer.slice(blob.getPayload(), partSize), 1, executor);
+         return completeMultipartUpload(mpu, parts);
       } catch (RuntimeException re) {
          abortMultipartUpload(mpu);
          throw re;
       }
    }
 
-   private final class BlobUploader implements Callable<MultipartPart> {
-      private final MultipartUpload mpu;
-      private final int partNumber;
-      private final Payload payload;
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_UPLOAD_CONCURRENCY)
+   @VisibleForTesting
+   int uploadConcurrency = BoundedMultipartUploader.DEFAULT_CONCURRENCY;
 
-      BlobUploader(MultipartUpload mpu, int partNumber, Payload payload) {
-         this.mpu = mpu;
-         this.partNumber = partNumber;
-         this.payload = payload;
+   /**
+    * Evaluates the conditions of a copy against the metadata of its source.
+    *
+    * @throws HttpResponseException
+    *            with status code 412 if the source does not satisfy them
+    */
+   protected static void checkCopyPreconditions(BlobMetadata source, CopyOptions options) {
+      String eTag = source.getETag();
+      if (eTag != null) {
+         eTag = maybeQuoteETag(eTag);
+         if (options.ifMatch() != null && !maybeQuoteETag(options.ifMatch()).equals(eTag)) {
+            throw returnResponseException(412);
+         }
+         if (options.ifNoneMatch() != null && maybeQuoteETag(options.ifNoneMatch()).equals(eTag)) {
+            throw returnResponseException(412);
+         }
       }
 
-      @Override
-      public MultipartPart call() {
-         return uploadMultipartPart(mpu, partNumber, payload);
+      Date lastModified = source.getLastModified();
+      if (lastModified != null) {
+         if (options.ifModifiedSince() != null && lastModified.compareTo(options.ifModifiedSince()) <= 0) {
+            throw returnResponseException(412);
+         }
+         if (options.ifUnmodifiedSince() != null && lastModified.compareTo(options.ifUnmodifiedSince()) >= 0) {
+            throw returnResponseException(412);
+         }
       }
    }
 
@@ -403,23 +510,94 @@ public abstract class BaseBlobStore implements BlobStore {
       return eTag;
    }
 
+   @VisibleForTesting
+   int maxParallelDeletes = 16;
+
+   @com.google.inject.Inject(optional = true)
+   @VisibleForTesting
+   void setMaxParallelDeletes(@Named(PROPERTY_MAX_PARALLEL_DELETES) int maxParallelDeletes) {
+      checkArgument(maxParallelDeletes > 0, "%s must be positive", PROPERTY_MAX_PARALLEL_DELETES);
+      this.maxParallelDeletes = maxParallelDeletes;
+   }
+
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_DOWNLOAD_PART_SIZE)
+   @VisibleForTesting
+   long downloadPartSize = RangedBlobDownloader.DEFAULT_PART_SIZE;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_DOWNLOAD_CONCURRENCY)
+   @VisibleForTesting
+   int downloadConcurrency = RangedBlobDownloader.DEFAULT_CONCURRENCY;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(PROPERTY_MAX_RETRIES)
+   protected int retryCountLimit = 5;
+
+   @com.google.inject.Inject
+   BackoffLimitedRetryHandler retryHandler;
+
+   /**
+    * This implementation invokes {@link #downloadBlob(String, String, File, ExecutorService)} with the jclouds
+    * userExecutor.
+    */
+   @Beta
    @Override
    public void downloadBlob(String container, String name, File destination) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      downloadBlob(container, name, destination, userExecutor);
    }
 
+   /**
+    * This implementation issues parallel ranged {@link #getBlob(String, String, GetOptions)} calls and writes each
+    * range at its offset in the destination file.
+    */
+   @Beta
    @Override
    public void downloadBlob(String container, String name, File destination, ExecutorService executor) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      rangedBlobDownloader().download(container, name, destination, executor);
    }
 
+   /**
+    * This implementation invokes {@link #streamBlob(String, String, ExecutorService)} with the jclouds userExecutor.
+    */
+   @Beta
    @Override
    public InputStream streamBlob(String container, String name) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      return streamBlob(container, name, userExecutor);
    }
 
+   /**
+    * This implementation issues parallel ranged {@link #getBlob(String, String, GetOptions)} calls, reading ahead at
+    * most {@link BlobStoreConstants#PROPERTY_BLOBSTORE_DOWNLOAD_CONCURRENCY} parts.
+    */
+   @Beta
    @Override
    public InputStream streamBlob(String container, String name, ExecutorService executor) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      return rangedBlobDownloader().stream(container, name, executor);
+   }
+
+   /**
+    * This implementation invokes {@link #streamList(String, ListContainerOptions, ExecutorService)} with the jclouds
+    * userExecutor.
+    */
+   @Beta
+   @Override
+   public CloseableIterator<StorageMetadata> streamList(String container, ListContainerOptions options) {
+      return streamList(container, options, userExecutor);
+   }
+
+   /**
+    * This implementation follows the markers of {@link #list(String, ListContainerOptions)}, prefetching one page.
+    */
+   @Beta
+   @Override
+   public CloseableIterator<StorageMetadata> streamList(String container, ListContainerOptions options,
+         ExecutorService executor) {
+      return new PrefetchingListIterator(this, container, options, executor);
+   }
+
+   private RangedBlobDownloader rangedBlobDownloader() {
+      return new RangedBlobDownloader(this, downloadPartSize, downloadConcurrency, retryCountLimit,
+            retryHandler);
    }
 }
@@ -53,6 +53,36 @@ public final class BlobStoreConstants {
     */
    public static final String PROPERTY_USER_METADATA_PREFIX = "jclouds.blobstore.metaprefix";
 
+   /**
+    * Size in bytes of each ranged GET issued by {@code downloadBlob} and {@code streamBlob}. Defaults to 32 MB.
+    */
+   public static final String PROPERTY_BLOBSTORE_DOWNLOAD_PART_SIZE = "jclouds.blobstore.download.partsize";
+
+   /**
+    * Maximum number of ranged GETs in flight for a single {@code downloadBlob} or {@code streamBlob} call. This also
+    * bounds the read-ahead of {@code streamBlob}. Defaults to 4.
+    */
+   public static final String PROPERTY_BLOBSTORE_DOWNLOAD_CONCURRENCY = "jclouds.blobstore.download.concurrency";
+
+   /**
+    * Maximum number of parts in flight for a single multipart {@code putBlob} call. The payload is only read once a
+    * slot frees up, so memory use stays at roughly this many parts for non-repeatable payloads. Defaults to 4.
+    */
+   public static final String PROPERTY_BLOBSTORE_UPLOAD_CONCURRENCY = "jclouds.blobstore.upload.concurrency";
+
+   /**
+    * Maximum number of ranged server-side part copies in flight for a single {@code copyBlob} call, on providers
+    * which copy large blobs as a multipart upload of ranges of the source. Defaults to 16.
+    */
+   public static final String PROPERTY_BLOBSTORE_COPY_CONCURRENCY = "jclouds.blobstore.copy.concurrency";
+
+   /**
+    * Maximum number of blobs passed to a single {@code removeBlobs} call when clearing a container or deleting a
+    * directory. Providers whose {@code removeBlobs} is one bulk request, such as S3, set this to their batch limit.
+    * Defaults to 1, which removes each blob with {@code removeBlob}.
+    */
+   public static final String PROPERTY_BLOBSTORE_DELETE_BATCH_SIZE = "jclouds.blobstore.delete.batchsize";
+
    public static final String BLOBSTORE_LOGGER = "jclouds.blobstore";
    public static final String DIRECTORY_BLOB_SUFFIX = "/";
 
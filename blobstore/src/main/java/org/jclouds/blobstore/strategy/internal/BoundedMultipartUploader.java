@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.io.Payload;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Throwables;
+import com.google.common.collect.UnmodifiableIterator;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Uploads the parts of a multipart upload with at most {@code concurrency} parts in flight. The next part is only
+ * pulled from the payload iterator once a slot frees up, so slicing a non-repeatable stream holds roughly
+ * {@code concurrency} parts in memory regardless of the size of the blob. Uploading stops reading the payload as soon
+ * as any part fails.
+ */
+@Beta
+public final class BoundedMultipartUploader {
+   public static final int DEFAULT_CONCURRENCY = 4;
+
+   private final BlobStore blobStore;
+   private final int concurrency;
+
+   public BoundedMultipartUploader(BlobStore blobStore, int concurrency) {
+      checkArgument(concurrency > 0, "concurrency must be positive, was %s", concurrency);
+      this.blobStore = checkNotNull(blobStore, "blobStore");
+      this.concurrency = concurrency;
+   }
+
+   /**
+    * @return the uploaded parts in part number order, starting at {@code firstPartNumber}
+    */
+   public List<MultipartPart> upload(final MultipartUpload mpu, Iterable<Payload> payloads, final int firstPartNumber,
+         ListeningExecutorService executor) {
+      final Iterator<Payload> it = payloads.iterator();
+      return run(new UnmodifiableIterator<Callable<MultipartPart>>() {
+         private int partNumber = firstPartNumber;
+
+         @Override
+         public boolean hasNext() {
+            return it.hasNext();
+         }
+
+         @Override
+         public Callable<MultipartPart> next() {
+            return new PartUploader(mpu, partNumber++, it.next());
+         }
+      }, executor);
+   }
+
+   /**
+    * Runs part tasks other than plain uploads, such as server-side copies of ranges of another blob, with the same
+    * bound on the parts in flight.
+    *
+    * @return the parts in the order of the tasks
+    */
+   public List<MultipartPart> run(Iterator<? extends Callable<MultipartPart>> tasks,
+         ListeningExecutorService executor) {
+      final Semaphore permits = new Semaphore(concurrency);
+      final AtomicBoolean failed = new AtomicBoolean();
+      List<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
+      FutureCallback<MultipartPart> releasePermit = new FutureCallback<MultipartPart>() {
+         @Override
+         public void onSuccess(MultipartPart result) {
+            permits.release();
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            failed.set(true);
+            permits.release();
+         }
+      };
+
+      boolean complete = false;
+      try {
+         while (true) {
+            // Acquire before hasNext so that a lazy iterator does not read ahead of the uploads
+            permits.acquire();
+            if (failed.get() || !tasks.hasNext()) {
+               break;
+            }
+            ListenableFuture<MultipartPart> part = executor.submit(tasks.next());
+            Futures.addCallback(part, releasePermit);
+            parts.add(part);
+         }
+         List<MultipartPart> result = Futures.getUnchecked(Futures.allAsList(parts));
+         complete = true;
+         return result;
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(ie);
+      } finally {
+         if (!complete) {
+            for (ListenableFuture<MultipartPart> part : parts) {
+               part.cancel(true);
+            }
+         }
+      }
+   }
+
+   private final class PartUploader implements Callable<MultipartPart> {
+      private final MultipartUpload mpu;
+      private final int partNumber;
+      private Payload payload;
+
+      PartUploader(MultipartUpload mpu, int partNumber, Payload payload) {
+         this.mpu = mpu;
+         this.partNumber = partNumber;
+         this.payload = payload;
+      }
+
+      @Override
+      public MultipartPart call() {
+         Payload toUpload = payload;
+         // do not retain the part contents once uploaded
+         payload = null;
+         return blobStore.uploadMultipartPart(mpu, partNumber, toUpload);
+      }
+   }
+}
@@ -16,16 +16,19 @@
  */
 package org.jclouds.blobstore.strategy.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
 
 import java.util.HashSet;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -36,6 +39,7 @@ import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.ContainerNotFoundException;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.internal.BlobRuntimeException;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.reference.BlobStoreConstants;
@@ -45,6 +49,7 @@ import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.logging.Logger;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -75,6 +80,9 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
    /** Maximum parallel deletes. */
    private int maxParallelDeletes;
 
+   /** Maximum blobs removed by one request. */
+   private int deleteBatchSize = 1;
+
    @Inject
    DeleteAllKeysInList(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService executorService,
          BlobStore blobStore, BackoffLimitedRetryHandler retryHandler,
@@ -82,6 +90,7 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
       this.executorService = executorService;
       this.blobStore = blobStore;
       this.retryHandler = retryHandler;
+      checkArgument(maxParallelDeletes > 0, "%s must be positive", Constants.PROPERTY_MAX_PARALLEL_DELETES);
       this.maxParallelDeletes = maxParallelDeletes;
    }
 
@@ -95,6 +104,12 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
       this.maxErrors = maxErrors;
    }
 
+   @Inject(optional = true)
+   void setDeleteBatchSize(@Named(BlobStoreConstants.PROPERTY_BLOBSTORE_DELETE_BATCH_SIZE) int deleteBatchSize) {
+      checkArgument(deleteBatchSize > 0, "%s must be positive", BlobStoreConstants.PROPERTY_BLOBSTORE_DELETE_BATCH_SIZE);
+      this.deleteBatchSize = deleteBatchSize;
+   }
+
    public void execute(String containerName) {
       execute(containerName, recursive());
    }
@@ -134,7 +149,7 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
          final ListContainerOptions options,
          final Semaphore semaphore,
          final Set<ListenableFuture<Void>> outstandingFutures,
-         final AtomicBoolean deleteFailure) {
+         final AtomicBoolean deleteFailure, final AtomicLong removed) {
       // fetch partial directory listing
       PageSet<? extends StorageMetadata> listing = null;
 
@@ -161,7 +176,7 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
                if (!fullPath.equals(options.getDir())) {
                   executeOneIteration(containerName,
                      options.clone().inDirectory(fullPath), semaphore,
-                     outstandingFutures, deleteFailure, /*blocking=*/ true);
+                     outstandingFutures, deleteFailure, removed, /*blocking=*/ true);
                }
                break;
             case CONTAINER:
@@ -214,6 +229,9 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
     *           failed.
     * @param outstandingFutures
     *           The List of outstanding futures.
+    * @param removed
+    *           Incremented by the number of blobs each completed future
+    *           removed.
     * @throws TimeoutException
     *            If any blob deletion takes too long.
     */
@@ -221,24 +239,29 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
          ListContainerOptions options,
          PageSet<? extends StorageMetadata> listing, final Semaphore semaphore,
          final AtomicBoolean deleteFailure,
-         final Set<ListenableFuture<Void>> outstandingFutures)
+         final Set<ListenableFuture<Void>> outstandingFutures,
+         final AtomicLong removed)
          throws TimeoutException {
+      List<String> batch = Lists.newArrayList();
       for (final StorageMetadata md : listing) {
          final String fullPath = parentIsFolder(options, md) ? options.getDir()
                + "/" + md.getName() : md.getName();
 
-         // Attempt to acquire a semaphore within the time limit. At least
-         // one outstanding future should complete within this period for the
-         // semaphore to be acquired.
-         try {
-            if (!semaphore.tryAcquire(maxTime, TimeUnit.MILLISECONDS)) {
-               throw new TimeoutException("Timeout waiting for semaphore");
+         // Blobs are removed together when the provider has a bulk delete.
+         // The batch is bounded by the page, so it is sent before listing the
+         // next one.
+         if (deleteBatchSize > 1 && md.getType() == StorageType.BLOB) {
+            batch.add(fullPath);
+            if (batch.size() == deleteBatchSize) {
+               removeBlobs(containerName, batch, semaphore, deleteFailure,
+                     outstandingFutures, removed);
+               batch = Lists.newArrayList();
             }
-         } catch (InterruptedException ie) {
-            logger.debug("Interrupted while deleting blobs");
-            Thread.currentThread().interrupt();
+            continue;
          }
 
+         acquire(semaphore);
+
          final ListenableFuture<Void> blobDelFuture;
          switch (md.getType()) {
          case FOLDER:
@@ -261,32 +284,10 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
             blobDelFuture = null;
          }
 
-         // If a future to delete a blob/directory actually got created above,
-         // keep a reference of that in the outstandingFutures list. This is
-         // useful in case of a timeout exception. All outstanding futures can
-         // then be cancelled.
          if (blobDelFuture != null) {
-            outstandingFutures.add(blobDelFuture);
-
-            // Add a callback to release the semaphore. This is required for
-            // other threads waiting to acquire a semaphore above to make
-            // progress.
-            Futures.addCallback(blobDelFuture, new FutureCallback<Object>() {
-               @Override
-               public void onSuccess(final Object o) {
-                  outstandingFutures.remove(blobDelFuture);
-                  semaphore.release();
-               }
-
-               @Override
-               public void onFailure(final Throwable t) {
-                  // Make a note the fact that some blob/directory could not be
-                  // deleted successfully. This is used for retrying later.
-                  deleteFailure.set(true);
-                  outstandingFutures.remove(blobDelFuture);
-                  semaphore.release();
-               }
-            });
+            track(containerName, fullPath, md.getType() == StorageType.BLOB ? 1 : 0,
+                  blobDelFuture, semaphore, deleteFailure, outstandingFutures,
+                  removed);
          } else {
             // It is possible above to acquire a semaphore but not submit any
             // task to the executorService. For e.g. if the listing contains
@@ -297,6 +298,81 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
             semaphore.release();
          }
       }
+      if (!batch.isEmpty()) {
+         removeBlobs(containerName, batch, semaphore, deleteFailure,
+               outstandingFutures, removed);
+      }
+   }
+
+   /**
+    * Attempt to acquire a semaphore within the time limit. At least one
+    * outstanding future should complete within this period for the semaphore
+    * to be acquired.
+    */
+   private void acquire(final Semaphore semaphore) throws TimeoutException {
+      try {
+         if (!semaphore.tryAcquire(maxTime, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("Timeout waiting for semaphore");
+         }
+      } catch (InterruptedException ie) {
+         logger.debug("Interrupted while deleting blobs");
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Removes a batch of blobs with one {@link BlobStore#removeBlobs} call,
+    * holding a single permit of the semaphore.
+    */
+   private void removeBlobs(final String containerName,
+         final List<String> names, final Semaphore semaphore,
+         final AtomicBoolean deleteFailure,
+         final Set<ListenableFuture<Void>> outstandingFutures,
+         final AtomicLong removed)
+         throws TimeoutException {
+      acquire(semaphore);
+      ListenableFuture<Void> batchDelFuture = executorService.submit(new Callable<Void>() {
+         @Override
+         public Void call() {
+            blobStore.removeBlobs(containerName, names);
+            return null;
+         }
+      });
+      track(containerName, names.size() + " blobs", names.size(), batchDelFuture,
+            semaphore, deleteFailure, outstandingFutures, removed);
+   }
+
+   private void track(final String containerName, final String what,
+         final int blobs, final ListenableFuture<Void> blobDelFuture,
+         final Semaphore semaphore, final AtomicBoolean deleteFailure,
+         final Set<ListenableFuture<Void>> outstandingFutures,
+         final AtomicLong removed) {
+      // Keep a reference of the future in the outstandingFutures list. This
+      // is useful in case of a timeout exception. All outstanding futures can
+      // then be cancelled.
+      outstandingFutures.add(blobDelFuture);
+
+      // Add a callback to release the semaphore. This is required for other
+      // threads waiting to acquire a semaphore above to make progress.
+      Futures.addCallback(blobDelFuture, new FutureCallback<Object>() {
+         @Override
+         public void onSuccess(final Object o) {
+            removed.addAndGet(blobs);
+            outstandingFutures.remove(blobDelFuture);
+            semaphore.release();
+         }
+
+         @Override
+         public void onFailure(final Throwable t) {
+            // Make a note the fact that some blob/directory could not be
+            // deleted successfully. This is used for retrying later.
+            logger.debug("Failed to delete %s from %s: %s", what,
+                  containerName, t.getMessage());
+            deleteFailure.set(true);
+            outstandingFutures.remove(blobDelFuture);
+            semaphore.release();
+         }
+      });
    }
 
    /**
@@ -317,6 +393,8 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
     * @param deleteFailure
     *           A flag used to track of whether there was a failure while
     *           deleting any blob.
+    * @param removed
+    *           The number of blobs removed so far, logged after each page.
     * @param blocking
     *           when true, block until all outstanding operations have completed
     * @return A PageSet of StorageMetadata objects.
@@ -327,6 +405,16 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
          ListContainerOptions listOptions, final Semaphore semaphore,
          final Set<ListenableFuture<Void>> outstandingFutures,
          final AtomicBoolean deleteFailure, final boolean blocking) {
+      executeOneIteration(containerName, listOptions, semaphore,
+            outstandingFutures, deleteFailure, new AtomicLong(), blocking);
+   }
+
+   private void executeOneIteration(
+         final String containerName,
+         ListContainerOptions listOptions, final Semaphore semaphore,
+         final Set<ListenableFuture<Void>> outstandingFutures,
+         final AtomicBoolean deleteFailure, final AtomicLong removed,
+         final boolean blocking) {
       ListContainerOptions options = listOptions.clone();
       String message = getMessage(containerName, listOptions);
       if (options.isRecursive()) {
@@ -335,12 +423,12 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
       logger.debug(message);
 
       PageSet<? extends StorageMetadata> listing = getListing(containerName,
-            options, semaphore, outstandingFutures, deleteFailure);
+            options, semaphore, outstandingFutures, deleteFailure, removed);
       while (listing != null && !listing.isEmpty()) {
          try {
             // Remove blobs and now-empty subdirectories.
             deleteBlobsAndEmptyDirs(containerName, options, listing, semaphore,
-                  deleteFailure, outstandingFutures);
+                  deleteFailure, outstandingFutures, removed);
          } catch (TimeoutException te) {
             logger.debug("TimeoutException while deleting blobs: {}",
                   te.getMessage());
@@ -348,12 +436,13 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
             deleteFailure.set(true);
          }
 
+         logger.debug("%s: %d blobs removed so far", message, removed.get());
          String marker = listing.getNextMarker();
          if (marker != null) {
             logger.debug("%s with marker %s", message, marker);
             options = options.afterMarker(marker);
             listing = getListing(containerName, options, semaphore,
-                  outstandingFutures, deleteFailure);
+                  outstandingFutures, deleteFailure, removed);
          } else {
             break;
          }
@@ -384,6 +473,7 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
          throw new IllegalArgumentException("Prefix and delimiter support has not yet been added");
       }
       final AtomicBoolean deleteFailure = new AtomicBoolean();
+      final AtomicLong removed = new AtomicLong();
       int retries = maxErrors;
 
       /*
@@ -414,7 +504,7 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
       while (retries > 0) {
          deleteFailure.set(false);
          executeOneIteration(containerName, listOptions, semaphore,
-               outstandingFutures, deleteFailure, /*blocking=*/ false);
+               outstandingFutures, deleteFailure, removed, /*blocking=*/ false);
          waitForCompletion(semaphore, outstandingFutures);
 
          // Try again if there was any failure while deleting blobs and the max
@@ -432,5 +522,6 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
          cancelOutstandingFutures(outstandingFutures);
          throw new BlobRuntimeException("Exceeded maximum retry attempts");
       }
+      logger.debug("%s: removed %d blobs", getMessage(containerName, listOptions), removed.get());
    }
 }
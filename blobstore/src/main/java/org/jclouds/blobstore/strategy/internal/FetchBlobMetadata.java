@@ -16,10 +16,14 @@
  */
 package org.jclouds.blobstore.strategy.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static org.jclouds.concurrent.FutureIterables.transformParallel;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -40,12 +44,16 @@ import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Inject;
 
 /**
- * Retrieves all blobmetadata in the list as efficiently as possible
+ * Retrieves all blobmetadata in the list as efficiently as possible, with at most
+ * {@link Constants#PROPERTY_MAX_PARALLEL_METADATA_FETCHES} requests in flight. The metadata is returned in the order
+ * of the list; blobs deleted since they were listed are left out.
  */
 @NotThreadSafe
 public class FetchBlobMetadata implements Function<PageSet<? extends StorageMetadata>, PageSet<? extends StorageMetadata>> {
@@ -65,6 +73,8 @@ public class FetchBlobMetadata implements Function<PageSet<? extends StorageMeta
    @Named(Constants.PROPERTY_REQUEST_TIMEOUT)
    protected Long maxTime;
 
+   private int maxParallelFetches = Integer.MAX_VALUE;
+
    @Inject
    FetchBlobMetadata(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, BlobStore blobstore,
             BackoffLimitedRetryHandler retryHandler) {
@@ -73,6 +83,12 @@ public class FetchBlobMetadata implements Function<PageSet<? extends StorageMeta
       this.retryHandler = retryHandler;
    }
 
+   @Inject(optional = true)
+   void setMaxParallelFetches(@Named(Constants.PROPERTY_MAX_PARALLEL_METADATA_FETCHES) int maxParallelFetches) {
+      checkArgument(maxParallelFetches > 0, "%s must be positive", Constants.PROPERTY_MAX_PARALLEL_METADATA_FETCHES);
+      this.maxParallelFetches = maxParallelFetches;
+   }
+
    public FetchBlobMetadata setContainerName(String container) {
       this.container = container;
       return this;
@@ -81,26 +97,48 @@ public class FetchBlobMetadata implements Function<PageSet<? extends StorageMeta
    public PageSet<? extends StorageMetadata> apply(PageSet<? extends StorageMetadata> in) {
       checkState(container != null, "container name should be initialized");
 
-      Iterable<BlobMetadata> returnv = Lists.newArrayList(transformParallel(Iterables.filter(in, new Predicate<StorageMetadata>() {
+      List<StorageMetadata> blobs = Lists.newArrayList(Iterables.filter(in, new Predicate<StorageMetadata>() {
 
          @Override
          public boolean apply(StorageMetadata input) {
             return input.getType() == StorageType.BLOB;
          }
 
-      }), new Function<StorageMetadata, ListenableFuture<? extends BlobMetadata>>() {
+      }));
+      final Semaphore permits = new Semaphore(Math.min(maxParallelFetches, Math.max(blobs.size(), 1)));
+
+      Iterable<BlobMetadata> fetched = transformParallel(blobs,
+            new Function<StorageMetadata, ListenableFuture<? extends BlobMetadata>>() {
 
          @Override
          public ListenableFuture<BlobMetadata> apply(final StorageMetadata from) {
-            return userExecutor.submit(new Callable<BlobMetadata>() {
+            permits.acquireUninterruptibly();
+            ListenableFuture<BlobMetadata> future = userExecutor.submit(new Callable<BlobMetadata>() {
                @Override public BlobMetadata call() throws Exception {
                   return blobstore.blobMetadata(container, from.getName());
                }
             });
+            future.addListener(new Runnable() {
+               @Override public void run() {
+                  permits.release();
+               }
+            }, MoreExecutors.sameThreadExecutor());
+            return future;
          }
 
-      }, userExecutor, maxTime, logger, String.format("getting metadata from containerName: %s", container)));
-
+      }, userExecutor, maxTime, logger, String.format("getting metadata from containerName: %s", container));
+
+      Map<String, BlobMetadata> byName = Maps.newHashMap();
+      for (BlobMetadata metadata : fetched) {
+         if (metadata != null)
+            byName.put(metadata.getName(), metadata);
+      }
+      List<BlobMetadata> returnv = Lists.newArrayListWithCapacity(byName.size());
+      for (StorageMetadata blob : blobs) {
+         BlobMetadata metadata = byName.get(blob.getName());
+         if (metadata != null)
+            returnv.add(metadata);
+      }
       return new PageSetImpl<BlobMetadata>(returnv, in.getNextMarker());
    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.util.CloseableIterator;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+
+/**
+ * Iterates over every page of a container listing, following {@link PageSet#getNextMarker()}. The next page is
+ * requested on the executor as soon as the current one arrives, so at most two pages are held at a time: the one
+ * being consumed and the one in flight. {@link #close()} cancels the request in flight.
+ * <p/>
+ * Not thread safe; failures listing a page are thrown from {@link #hasNext()}.
+ */
+@Beta
+public final class PrefetchingListIterator extends AbstractIterator<StorageMetadata> implements
+      CloseableIterator<StorageMetadata> {
+
+   private final BlobStore blobStore;
+   private final String container;
+   private final ListContainerOptions options;
+   private final ExecutorService executor;
+   private Iterator<? extends StorageMetadata> page = Iterators.emptyIterator();
+   private Future<PageSet<? extends StorageMetadata>> next;
+
+   /**
+    * Requests the first page right away.
+    */
+   public PrefetchingListIterator(BlobStore blobStore, String container, ListContainerOptions options,
+         ExecutorService executor) {
+      this.blobStore = checkNotNull(blobStore, "blobStore");
+      this.container = checkNotNull(container, "container");
+      this.options = checkNotNull(options, "options");
+      this.executor = checkNotNull(executor, "executor");
+      this.next = fetch(null);
+   }
+
+   @Override
+   protected StorageMetadata computeNext() {
+      while (!page.hasNext()) {
+         if (next == null) {
+            return endOfData();
+         }
+         PageSet<? extends StorageMetadata> list = await(next);
+         next = list.getNextMarker() == null ? null : fetch(list.getNextMarker());
+         page = list.iterator();
+      }
+      return page.next();
+   }
+
+   @Override
+   public void close() {
+      if (next != null) {
+         next.cancel(true);
+         next = null;
+      }
+      page = Iterators.emptyIterator();
+   }
+
+   private Future<PageSet<? extends StorageMetadata>> fetch(String marker) {
+      final ListContainerOptions nextOptions = marker == null ? options : options.clone().afterMarker(marker);
+      return executor.submit(new Callable<PageSet<? extends StorageMetadata>>() {
+         @Override
+         public PageSet<? extends StorageMetadata> call() {
+            return blobStore.list(container, nextOptions);
+         }
+      });
+   }
+
+   private PageSet<? extends StorageMetadata> await(Future<PageSet<? extends StorageMetadata>> future) {
+      try {
+         return future.get();
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(ie);
+      } catch (ExecutionException ee) {
+         throw Throwables.propagate(ee.getCause());
+      } finally {
+         next = null;
+      }
+   }
+}
@@ -0,0 +1,408 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static com.google.common.base.Preconditions.checkState;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
+import org.jclouds.rest.AuthorizationException;
+import org.jclouds.rest.ResourceNotFoundException;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Downloads a blob as a series of concurrent ranged GETs, either positionally into a file or
+ * through a bounded read-ahead {@link InputStream}. Only relies on
+ * {@link BlobStore#blobMetadata} and {@link BlobStore#getBlob(String, String, GetOptions)}, so
+ * any provider which honors {@link GetOptions#range} and {@link GetOptions#ifETagMatches} can use it.
+ */
+@Beta
+public final class RangedBlobDownloader {
+   public static final long DEFAULT_PART_SIZE = 32L * 1024 * 1024;
+   public static final int DEFAULT_CONCURRENCY = 4;
+
+   private static final int COPY_BUFFER_SIZE = 64 * 1024;
+   /** Parts buffered by {@link #stream} are held in a single array. */
+   private static final long MAX_STREAM_PART_SIZE = Integer.MAX_VALUE - 8;
+   private static final byte[] EMPTY = new byte[0];
+
+   private final BlobStore blobStore;
+   private final long partSize;
+   private final int concurrency;
+   private final int retryCountLimit;
+   private final BackoffLimitedRetryHandler retryHandler;
+
+   public RangedBlobDownloader(BlobStore blobStore, long partSize, int concurrency, int retryCountLimit,
+         BackoffLimitedRetryHandler retryHandler) {
+      checkArgument(partSize > 0, "partSize must be positive, was %s", partSize);
+      checkArgument(concurrency > 0, "concurrency must be positive, was %s", concurrency);
+      checkArgument(retryCountLimit > 0, "retryCountLimit must be positive, was %s", retryCountLimit);
+      this.blobStore = checkNotNull(blobStore, "blobStore");
+      this.partSize = partSize;
+      this.concurrency = concurrency;
+      this.retryCountLimit = retryCountLimit;
+      this.retryHandler = checkNotNull(retryHandler, "retryHandler");
+   }
+
+   /**
+    * Writes the blob into a temporary file next to {@code destination}, which replaces
+    * {@code destination} once every range has been written and forced to disk.
+    */
+   public void download(String container, String name, File destination, ExecutorService executor) {
+      BlobMetadata metadata = metadata(container, name);
+      long contentLength = metadata.getContentMetadata().getContentLength();
+      ListeningExecutorService listeningExecutor = MoreExecutors.listeningDecorator(executor);
+      Deque<ListenableFuture<Void>> inFlight = new ArrayDeque<ListenableFuture<Void>>();
+      File tempFile = new File(destination + "." + UUID.randomUUID());
+      RandomAccessFile raf = null;
+      try {
+         // Reserve space up front so that parts can be written in any order
+         raf = new RandomAccessFile(tempFile, "rw");
+         raf.setLength(contentLength);
+         FileChannel channel = raf.getChannel();
+
+         for (long from = 0; from < contentLength; from += partSize) {
+            if (inFlight.size() >= concurrency) {
+               await(inFlight.removeFirst());
+            }
+            long to = Math.min(from + partSize, contentLength) - 1;
+            inFlight.addLast(listeningExecutor.submit(new RangeToChannel(container, name, metadata.getETag(), channel,
+                  from, to)));
+         }
+         while (!inFlight.isEmpty()) {
+            await(inFlight.removeFirst());
+         }
+
+         channel.force(true);
+         raf.close();
+         raf = null;
+
+         if (destination.exists() && !destination.delete()) {
+            throw new IOException("Could not delete existing destination " + destination);
+         }
+         if (!tempFile.renameTo(destination)) {
+            throw new IOException("Could not move temporary downloaded file to destination " + destination);
+         }
+         tempFile = null;
+      } catch (IOException ioe) {
+         throw Throwables.propagate(ioe);
+      } finally {
+         cancel(inFlight);
+         Closeables2.closeQuietly(raf);
+         if (tempFile != null) {
+            tempFile.delete();
+         }
+      }
+   }
+
+   /**
+    * Returns a stream over the blob which keeps at most {@code concurrency} ranges in flight
+    * ahead of the reader. Closing the stream cancels any outstanding range.
+    */
+   public InputStream stream(String container, String name, ExecutorService executor) {
+      BlobMetadata metadata = metadata(container, name);
+      return new ReadAheadInputStream(container, name, metadata.getETag(),
+            metadata.getContentMetadata().getContentLength(), MoreExecutors.listeningDecorator(executor),
+            Math.min(partSize, MAX_STREAM_PART_SIZE));
+   }
+
+   private BlobMetadata metadata(String container, String name) {
+      BlobMetadata metadata = blobStore.blobMetadata(container, name);
+      if (metadata == null) {
+         throw new KeyNotFoundException(container, name, "while downloading");
+      }
+      checkState(metadata.getContentMetadata().getContentLength() != null, "unknown content length for %s/%s",
+            container, name);
+      return metadata;
+   }
+
+   /**
+    * Failures which another attempt cannot fix: a missing blob, denied access, or any other client error which the
+    * provider did not retry itself.
+    */
+   private static boolean isPermanent(RuntimeException re) {
+      if (getFirstThrowableOfType(re, ResourceNotFoundException.class) != null
+            || getFirstThrowableOfType(re, AuthorizationException.class) != null) {
+         return true;
+      }
+      int statusCode = statusCode(re);
+      return statusCode >= 400 && statusCode < 500 && statusCode != 408 && statusCode != 429;
+   }
+
+   private static int statusCode(RuntimeException re) {
+      HttpResponseException hre = getFirstThrowableOfType(re, HttpResponseException.class);
+      return hre == null || hre.getResponse() == null ? -1 : hre.getResponse().getStatusCode();
+   }
+
+   /** Waits for a range, rethrowing its failure as is. */
+   private static void await(Future<?> range) {
+      try {
+         Uninterruptibles.getUninterruptibly(range);
+      } catch (ExecutionException ee) {
+         throw Throwables.propagate(ee.getCause());
+      }
+   }
+
+   private static void cancel(Iterable<? extends Future<?>> futures) {
+      for (Future<?> future : futures) {
+         future.cancel(true);
+      }
+   }
+
+   /**
+    * Reads one range, requiring the ETag which the blob had when the download started so that a blob overwritten
+    * meanwhile fails the download instead of mixing its versions. Transient failures are retried with an exponential
+    * backoff.
+    */
+   private abstract class Range<T> implements Callable<T> {
+      private final String container;
+      private final String name;
+      private final String eTag;
+      protected final long begin;
+      protected final long end;
+
+      Range(String container, String name, String eTag, long begin, long end) {
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.begin = begin;
+         this.end = end;
+      }
+
+      /** Reads exactly the bytes of the range. */
+      abstract T read(InputStream is) throws IOException;
+
+      @Override
+      public T call() {
+         Exception lastException = null;
+         for (int failures = 0; failures < retryCountLimit; failures++) {
+            if (failures > 0) {
+               retryHandler.imposeBackoffExponentialDelay(failures, "download of " + container + "/" + name
+                     + " range " + begin + "-" + end);
+            }
+            InputStream is = null;
+            try {
+               is = openRange();
+               T result = read(is);
+               if (is.read() != -1) {
+                  throw new IOException("Received more bytes than requested for range " + begin + "-" + end);
+               }
+               return result;
+            } catch (InterruptedIOException iioe) {
+               throw Throwables.propagate(iioe);
+            } catch (IOException ioe) {
+               lastException = ioe;
+            } catch (RuntimeException re) {
+               if (statusCode(re) == 412) {
+                  throw new BlobRuntimeException(container + "/" + name + " changed while downloading", re);
+               } else if (isPermanent(re)) {
+                  throw re;
+               }
+               lastException = re;
+            } finally {
+               Closeables2.closeQuietly(is);
+            }
+         }
+         throw new BlobRuntimeException("After " + retryCountLimit + " retries: " + lastException, lastException);
+      }
+
+      private InputStream openRange() throws IOException {
+         GetOptions options = GetOptions.Builder.range(begin, end);
+         if (eTag != null) {
+            options.ifETagMatches(eTag);
+         }
+         Blob blob = blobStore.getBlob(container, name, options);
+         if (blob == null) {
+            throw new KeyNotFoundException(container, name, "while downloading range " + begin + "-" + end);
+         }
+         return blob.getPayload().openStream();
+      }
+   }
+
+   private final class RangeToChannel extends Range<Void> {
+      private final FileChannel channel;
+
+      RangeToChannel(String container, String name, String eTag, FileChannel channel, long begin, long end) {
+         super(container, name, eTag, begin, end);
+         this.channel = channel;
+      }
+
+      @Override
+      Void read(InputStream is) throws IOException {
+         ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+         long position = begin;
+         while (position <= end) {
+            int length = (int) Math.min(buffer.capacity(), end + 1 - position);
+            int read = is.read(buffer.array(), 0, length);
+            if (read == -1) {
+               throw new IOException("Premature end of range " + begin + "-" + end + " at " + position);
+            }
+            buffer.clear();
+            buffer.limit(read);
+            while (buffer.hasRemaining()) {
+               position += channel.write(buffer, position);
+            }
+         }
+         return null;
+      }
+   }
+
+   private final class RangeToArray extends Range<byte[]> {
+      RangeToArray(String container, String name, String eTag, long begin, long end) {
+         super(container, name, eTag, begin, end);
+      }
+
+      @Override
+      byte[] read(InputStream is) throws IOException {
+         byte[] part = new byte[(int) (end - begin + 1)];
+         ByteStreams.readFully(is, part);
+         return part;
+      }
+   }
+
+   private final class ReadAheadInputStream extends InputStream {
+      private final String container;
+      private final String name;
+      private final String eTag;
+      private final long contentLength;
+      private final ListeningExecutorService executor;
+      private final long streamPartSize;
+      private final Deque<ListenableFuture<byte[]>> parts = new ArrayDeque<ListenableFuture<byte[]>>();
+      private long nextOffset;
+      private byte[] current = EMPTY;
+      private int position;
+      private boolean closed;
+
+      ReadAheadInputStream(String container, String name, String eTag, long contentLength,
+            ListeningExecutorService executor, long streamPartSize) {
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.contentLength = contentLength;
+         this.executor = executor;
+         this.streamPartSize = streamPartSize;
+         scheduleReadAhead();
+      }
+
+      private void scheduleReadAhead() {
+         while (parts.size() < concurrency && nextOffset < contentLength) {
+            long end = Math.min(nextOffset + streamPartSize, contentLength) - 1;
+            parts.addLast(executor.submit(new RangeToArray(container, name, eTag, nextOffset, end)));
+            nextOffset = end + 1;
+         }
+      }
+
+      /** @return false at the end of the blob */
+      private boolean ensureAvailable() throws IOException {
+         if (closed) {
+            throw new IOException("Stream closed");
+         }
+         while (position >= current.length) {
+            ListenableFuture<byte[]> next = parts.pollFirst();
+            if (next == null) {
+               return false;
+            }
+            scheduleReadAhead();
+            try {
+               current = next.get();
+            } catch (InterruptedException ie) {
+               Thread.currentThread().interrupt();
+               close();
+               throw new InterruptedIOException("Interrupted while downloading " + container + "/" + name);
+            } catch (ExecutionException ee) {
+               close();
+               throw new IOException("Error downloading " + container + "/" + name, ee.getCause());
+            }
+            position = 0;
+         }
+         return true;
+      }
+
+      @Override
+      public int read() throws IOException {
+         if (!ensureAvailable()) {
+            return -1;
+         }
+         return current[position++] & 0xFF;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         checkPositionIndexes(off, off + len, b.length);
+         if (len == 0) {
+            return 0;
+         }
+         if (!ensureAvailable()) {
+            return -1;
+         }
+         int count = Math.min(len, current.length - position);
+         System.arraycopy(current, position, b, off, count);
+         position += count;
+         return count;
+      }
+
+      @Override
+      public int available() {
+         return closed ? 0 : current.length - position;
+      }
+
+      @Override
+      public void close() {
+         if (closed) {
+            return;
+         }
+         closed = true;
+         cancel(parts);
+         parts.clear();
+         current = EMPTY;
+         position = 0;
+      }
+   }
+}
@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * An iterator holding resources, such as requests in flight, which are released by {@link #close()}. Once closed,
+ * the iterator fetches no further elements.
+ */
+@Beta
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+
+   @Override
+   void close();
+}
@@ -118,6 +118,17 @@ public abstract class ForwardingBlobStore extends ForwardingObject
       return delegate().list(container, options);
    }
 
+   @Override
+   public CloseableIterator<StorageMetadata> streamList(String container, ListContainerOptions options) {
+      return delegate().streamList(container, options);
+   }
+
+   @Override
+   public CloseableIterator<StorageMetadata> streamList(String container, ListContainerOptions options,
+         ExecutorService executor) {
+      return delegate().streamList(container, options, executor);
+   }
+
    @Override
    public void clearContainer(String container) {
       delegate().clearContainer(container);
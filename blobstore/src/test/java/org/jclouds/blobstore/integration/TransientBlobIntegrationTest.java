@@ -16,10 +16,23 @@
  */
 package org.jclouds.blobstore.integration;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartUpload;
 import org.jclouds.blobstore.integration.internal.BaseBlobIntegrationTest;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
 import org.testng.annotations.Test;
 import org.testng.SkipException;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+
 @Test(groups = { "integration" })
 public class TransientBlobIntegrationTest extends BaseBlobIntegrationTest {
    public TransientBlobIntegrationTest() {
@@ -31,4 +44,36 @@ public class TransientBlobIntegrationTest extends BaseBlobIntegrationTest {
    public void testSetBlobAccess() throws Exception {
       throw new SkipException("transient does not support anonymous access");
    }
+
+   @Test(groups = { "integration" })
+   public void testMultipartUploadETag() throws Exception {
+      BlobStore blobStore = view.getBlobStore();
+      String container = getContainerName();
+      try {
+         String name = "multipart-etag";
+         MultipartUpload mpu = blobStore.initiateMultipartUpload(container,
+               blobStore.blobBuilder(name).payload(new byte[0]).build().getMetadata(), new PutOptions());
+         ByteSource part1 = ByteSource.wrap(new byte[] { 1, 2, 3 });
+         ByteSource part2 = ByteSource.wrap(new byte[] { 4, 5 });
+         String eTag = blobStore.completeMultipartUpload(mpu, ImmutableList.of(
+               blobStore.uploadMultipartPart(mpu, 1, payload(part1)),
+               blobStore.uploadMultipartPart(mpu, 2, payload(part2))));
+
+         // the ETag of a multipart object on S3, as the filesystem store returns
+         byte[] partMD5s = ByteSource.concat(ByteSource.wrap(part1.hash(Hashing.md5()).asBytes()),
+               ByteSource.wrap(part2.hash(Hashing.md5()).asBytes())).read();
+         assertEquals(eTag, Hashing.md5().hashBytes(partMD5s).toString() + "-2");
+         BlobMetadata metadata = blobStore.blobMetadata(container, name);
+         assertEquals(metadata.getETag(), eTag);
+         assertNull(metadata.getContentMetadata().getContentMD5AsHashCode());
+      } finally {
+         returnContainer(container);
+      }
+   }
+
+   private static Payload payload(ByteSource byteSource) throws Exception {
+      Payload payload = Payloads.newByteSourcePayload(byteSource);
+      payload.getContentMetadata().setContentLength(byteSource.size());
+      return payload;
+   }
 }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.Constants;
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.ContainerNotFoundException;
+import org.jclouds.util.Closeables2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+
+@Test(groups = "unit", testName = "BaseBlobStoreTest", singleThreaded = true)
+public class BaseBlobStoreTest {
+   private static final String CONTAINER = "container";
+
+   private BlobStoreContext context;
+   private BaseBlobStore blobStore;
+   private ListeningExecutorService userExecutor;
+
+   @BeforeClass
+   void setupBlobStore() {
+      Properties overrides = new Properties();
+      // a single user thread, so any task that waits for another one on the userExecutor starves
+      overrides.setProperty(Constants.PROPERTY_USER_THREADS, "1");
+      overrides.setProperty(Constants.PROPERTY_MAX_PARALLEL_DELETES, "4");
+      context = ContextBuilder.newBuilder("transient").overrides(overrides).build(BlobStoreContext.class);
+      blobStore = context.utils().injector().getInstance(TransientBaseBlobStore.class);
+      userExecutor = context.utils().injector().getInstance(
+            Key.get(ListeningExecutorService.class, Names.named(Constants.PROPERTY_USER_THREADS)));
+      blobStore.createContainerInLocation(null, CONTAINER);
+   }
+
+   @AfterClass
+   void close() {
+      Closeables2.closeQuietly(context);
+   }
+
+   public void testRemoveBlobs() {
+      List<String> names = putBlobs(10);
+
+      blobStore.removeBlobs(CONTAINER, names);
+
+      assertEquals(blobStore.countBlobs(CONTAINER), 0);
+   }
+
+   public void testRemoveBlobsFromATaskOnTheUserExecutor() throws Exception {
+      final List<String> names = putBlobs(10);
+
+      userExecutor.submit(new Callable<Void>() {
+         @Override
+         public Void call() {
+            blobStore.removeBlobs(CONTAINER, names);
+            return null;
+         }
+      }).get(30, TimeUnit.SECONDS);
+
+      assertEquals(blobStore.countBlobs(CONTAINER), 0);
+   }
+
+   public void testRemoveBlobsRethrowsASingleFailure() {
+      try {
+         blobStore.removeBlobs("missing", ImmutableList.of("blob"));
+         fail("expected ContainerNotFoundException");
+      } catch (ContainerNotFoundException expected) {
+      }
+   }
+
+   public void testRemoveBlobsReportsEveryFailure() {
+      try {
+         blobStore.removeBlobs("missing", ImmutableList.of("blob-0", "blob-1", "blob-2"));
+         fail("expected BlobRuntimeException");
+      } catch (BlobRuntimeException expected) {
+         assertEquals(expected.getMessage(), "failed to remove 3 of 3 blobs from missing");
+         assertTrue(expected.getCause() instanceof ContainerNotFoundException, expected.getCause() + "");
+      }
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testMaxParallelDeletesMustBePositive() {
+      blobStore.setMaxParallelDeletes(0);
+   }
+
+   private List<String> putBlobs(int count) {
+      List<String> names = Lists.newArrayList();
+      for (int i = 0; i < count; i++) {
+         String name = "blob-" + i;
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder(name).payload(new byte[] { (byte) i }).build());
+         names.add(name);
+      }
+      return names;
+   }
+}
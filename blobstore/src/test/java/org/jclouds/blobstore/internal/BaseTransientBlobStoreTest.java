@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.internal;
+
+import java.util.Properties;
+import java.util.concurrent.Executors;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.util.Closeables2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Runs blobstore strategy tests against a transient context with {@link #CONTAINER} already created, and an
+ * {@link #executor} for the strategies that take one. Override {@link #setupProperties()} to configure the context.
+ */
+public abstract class BaseTransientBlobStoreTest {
+   protected static final String CONTAINER = "container";
+
+   protected BlobStoreContext context;
+   protected BlobStore blobStore;
+   protected ListeningExecutorService executor;
+
+   protected Properties setupProperties() {
+      return new Properties();
+   }
+
+   @BeforeClass
+   protected void setupBlobStore() {
+      context = ContextBuilder.newBuilder("transient").overrides(setupProperties()).build(BlobStoreContext.class);
+      blobStore = context.getBlobStore();
+      blobStore.createContainerInLocation(null, CONTAINER);
+      executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(8));
+   }
+
+   @AfterClass(alwaysRun = true)
+   protected void close() {
+      if (executor != null) {
+         executor.shutdownNow();
+      }
+      Closeables2.closeQuietly(context);
+   }
+
+   /**
+    * @return a {@link TransientBaseBlobStore} over the same store as {@link #blobStore}
+    */
+   protected BlobStore baseBlobStore() {
+      return context.utils().injector().getInstance(TransientBaseBlobStore.class);
+   }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.internal;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.config.LocalBlobStore;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.util.BlobUtils;
+import org.jclouds.collect.Memoized;
+import org.jclouds.domain.Location;
+import org.jclouds.io.Payload;
+import org.jclouds.io.PayloadSlicer;
+
+import com.google.common.base.Supplier;
+
+/**
+ * A {@link BaseBlobStore} over the transient {@link LocalBlobStore} of the same context, so tests exercise the
+ * implementations that remote providers inherit rather than the local ones. Get it from the injector of a transient
+ * context.
+ */
+public class TransientBaseBlobStore extends BaseBlobStore {
+   private final LocalBlobStore delegate;
+
+   @Inject
+   TransientBaseBlobStore(BlobStoreContext context, BlobUtils blobUtils, Supplier<Location> defaultLocation,
+         @Memoized Supplier<Set<? extends Location>> locations, PayloadSlicer slicer, LocalBlobStore delegate) {
+      super(context, blobUtils, defaultLocation, locations, slicer);
+      this.delegate = delegate;
+   }
+
+   @Override
+   public PageSet<? extends StorageMetadata> list() {
+      return delegate.list();
+   }
+
+   @Override
+   public boolean containerExists(String container) {
+      return delegate.containerExists(container);
+   }
+
+   @Override
+   public boolean createContainerInLocation(Location location, String container) {
+      return delegate.createContainerInLocation(location, container);
+   }
+
+   @Override
+   public boolean createContainerInLocation(Location location, String container, CreateContainerOptions options) {
+      return delegate.createContainerInLocation(location, container, options);
+   }
+
+   @Override
+   public ContainerAccess getContainerAccess(String container) {
+      return delegate.getContainerAccess(container);
+   }
+
+   @Override
+   public void setContainerAccess(String container, ContainerAccess access) {
+      delegate.setContainerAccess(container, access);
+   }
+
+   @Override
+   public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+      return delegate.list(container, options);
+   }
+
+   @Override
+   public boolean blobExists(String container, String name) {
+      return delegate.blobExists(container, name);
+   }
+
+   @Override
+   public String putBlob(String container, Blob blob) {
+      return delegate.putBlob(container, blob);
+   }
+
+   @Override
+   public String putBlob(String container, Blob blob, PutOptions options) {
+      return delegate.putBlob(container, blob, options);
+   }
+
+   @Override
+   public BlobMetadata blobMetadata(String container, String name) {
+      return delegate.blobMetadata(container, name);
+   }
+
+   @Override
+   public Blob getBlob(String container, String name, GetOptions options) {
+      return delegate.getBlob(container, name, options);
+   }
+
+   @Override
+   public void removeBlob(String container, String name) {
+      delegate.removeBlob(container, name);
+   }
+
+   @Override
+   public BlobAccess getBlobAccess(String container, String name) {
+      return delegate.getBlobAccess(container, name);
+   }
+
+   @Override
+   public void setBlobAccess(String container, String name, BlobAccess access) {
+      delegate.setBlobAccess(container, name, access);
+   }
+
+   @Override
+   public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blob, PutOptions options) {
+      return delegate.initiateMultipartUpload(container, blob, options);
+   }
+
+   @Override
+   public void abortMultipartUpload(MultipartUpload mpu) {
+      delegate.abortMultipartUpload(mpu);
+   }
+
+   @Override
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+      return delegate.completeMultipartUpload(mpu, parts);
+   }
+
+   @Override
+   public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+      return delegate.uploadMultipartPart(mpu, partNumber, payload);
+   }
+
+   @Override
+   public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
+      return delegate.listMultipartUpload(mpu);
+   }
+
+   @Override
+   public List<MultipartUpload> listMultipartUploads(String container) {
+      return delegate.listMultipartUploads(container);
+   }
+
+   @Override
+   public long getMinimumMultipartPartSize() {
+      return delegate.getMinimumMultipartPartSize();
+   }
+
+   @Override
+   public long getMaximumMultipartPartSize() {
+      return delegate.getMaximumMultipartPartSize();
+   }
+
+   @Override
+   public int getMaximumNumberOfParts() {
+      return delegate.getMaximumNumberOfParts();
+   }
+
+   @Override
+   protected boolean deleteAndVerifyContainerGone(String container) {
+      return delegate.deleteContainerIfEmpty(container);
+   }
+}
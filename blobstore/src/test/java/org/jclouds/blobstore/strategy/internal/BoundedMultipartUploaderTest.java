@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.internal.BaseTransientBlobStoreTest;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.testng.annotations.Test;
+
+@Test(testName = "BoundedMultipartUploaderTest", singleThreaded = true)
+public class BoundedMultipartUploaderTest extends BaseTransientBlobStoreTest {
+   private static final int CONCURRENCY = 3;
+
+   public void testPartsInFlightAreBounded() {
+      CountingBlobStore countingBlobStore = new CountingBlobStore(blobStore, -1);
+      PartIterable payloads = new PartIterable(20, countingBlobStore);
+      MultipartUpload mpu = initiate(countingBlobStore, "bounded");
+
+      List<MultipartPart> parts = new BoundedMultipartUploader(countingBlobStore, CONCURRENCY)
+            .upload(mpu, payloads, 1, executor);
+
+      assertEquals(parts.size(), 20);
+      for (int i = 0; i < parts.size(); i++) {
+         assertEquals(parts.get(i).partNumber(), i + 1);
+      }
+      assertTrue(payloads.maxOutstanding <= CONCURRENCY, "outstanding parts: " + payloads.maxOutstanding);
+      countingBlobStore.abortMultipartUpload(mpu);
+   }
+
+   public void testStopsReadingAfterFailure() {
+      CountingBlobStore countingBlobStore = new CountingBlobStore(blobStore, 2);
+      PartIterable payloads = new PartIterable(100, countingBlobStore);
+      MultipartUpload mpu = initiate(countingBlobStore, "failure");
+
+      try {
+         new BoundedMultipartUploader(countingBlobStore, CONCURRENCY).upload(mpu, payloads, 1, executor);
+         fail("expected upload to fail");
+      } catch (RuntimeException expected) {
+         assertTrue(payloads.produced < 100, "produced " + payloads.produced + " parts");
+      } finally {
+         countingBlobStore.abortMultipartUpload(mpu);
+      }
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testInvalidConcurrency() {
+      new BoundedMultipartUploader(blobStore, 0);
+   }
+
+   private static MultipartUpload initiate(BlobStore blobStore, String name) {
+      return blobStore.initiateMultipartUpload(CONTAINER, blobStore.blobBuilder(name).build().getMetadata(),
+            PutOptions.NONE);
+   }
+
+   private static final class CountingBlobStore extends ForwardingBlobStore {
+      private final AtomicInteger completed = new AtomicInteger();
+      private final int failingPart;
+
+      CountingBlobStore(BlobStore blobStore, int failingPart) {
+         super(blobStore);
+         this.failingPart = failingPart;
+      }
+
+      @Override
+      public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+         try {
+            if (partNumber == failingPart) {
+               throw new IllegalStateException("failing part " + partNumber);
+            }
+            return super.uploadMultipartPart(mpu, partNumber, payload);
+         } finally {
+            completed.incrementAndGet();
+         }
+      }
+   }
+
+   private static final class PartIterable implements Iterable<Payload> {
+      private final int count;
+      private final CountingBlobStore blobStore;
+      private volatile int produced;
+      private volatile int maxOutstanding;
+
+      PartIterable(int count, CountingBlobStore blobStore) {
+         this.count = count;
+         this.blobStore = blobStore;
+      }
+
+      @Override
+      public Iterator<Payload> iterator() {
+         return new Iterator<Payload>() {
+            @Override
+            public boolean hasNext() {
+               return produced < count;
+            }
+
+            @Override
+            public Payload next() {
+               if (!hasNext()) {
+                  throw new NoSuchElementException();
+               }
+               produced++;
+               maxOutstanding = Math.max(maxOutstanding, produced - blobStore.completed.get());
+               return Payloads.newByteArrayPayload(new byte[] { (byte) produced });
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+   }
+}
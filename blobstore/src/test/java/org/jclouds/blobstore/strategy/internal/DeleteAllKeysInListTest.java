@@ -25,8 +25,10 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
@@ -44,14 +46,17 @@ import org.jclouds.util.Closeables2;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Injector;
 
 @Test(testName = "DeleteAllKeysInListTest", singleThreaded = true)
@@ -98,6 +103,35 @@ public class DeleteAllKeysInListTest {
       assertEquals(blobstore.countBlobs(containerName), 1111);
    }
 
+   public void testExecuteInBatches() {
+      final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+      BlobStore batching = new ForwardingBlobStore(blobstore) {
+         @Override
+         public void removeBlob(String container, String name) {
+            throw new AssertionError("removed " + name + " outside of a batch");
+         }
+
+         @Override
+         public void removeBlobs(String container, Iterable<String> names) {
+            batchSizes.add(Iterables.size(names));
+            super.removeBlobs(container, names);
+         }
+      };
+      DeleteAllKeysInList batchDeleter = new DeleteAllKeysInList(MoreExecutors.sameThreadExecutor(), batching,
+            retryHandler, maxParallelDeletes);
+      batchDeleter.setDeleteBatchSize(100);
+
+      batchDeleter.execute(containerName, ListContainerOptions.Builder.recursive());
+
+      assertEquals(blobstore.countBlobs(containerName), 0);
+      int removed = 0;
+      for (int size : batchSizes) {
+         assertTrue(size <= 100, "batch of " + size);
+         removed += size;
+      }
+      assertEquals(removed, 3333);
+   }
+
    public void testContainerNotFound() {
       IMocksControl mockControl = createControl();
       BlobStore blobStore = mockControl.createMock(BlobStore.class);
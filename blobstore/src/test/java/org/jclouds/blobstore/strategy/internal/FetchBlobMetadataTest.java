@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MutableStorageMetadata;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.blobstore.domain.internal.MutableStorageMetadataImpl;
+import org.jclouds.blobstore.domain.internal.PageSetImpl;
+import org.jclouds.blobstore.internal.BaseTransientBlobStoreTest;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@Test(testName = "FetchBlobMetadataTest", singleThreaded = true)
+public class FetchBlobMetadataTest extends BaseTransientBlobStoreTest {
+   private static final int BLOB_COUNT = 10;
+
+   @BeforeClass
+   void putBlobs() {
+      for (int i = 0; i < BLOB_COUNT; i++) {
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder("blob-" + i).payload("content-" + i).build());
+      }
+   }
+
+   public void testConcurrentFetchesAreCapped() {
+      final AtomicInteger inFlight = new AtomicInteger();
+      final AtomicInteger maxInFlight = new AtomicInteger();
+      BlobStore slowBlobStore = new ForwardingBlobStore(blobStore) {
+         @Override
+         public BlobMetadata blobMetadata(String container, String name) {
+            int current = inFlight.incrementAndGet();
+            try {
+               int max;
+               do {
+                  max = maxInFlight.get();
+               } while (current > max && !maxInFlight.compareAndSet(max, current));
+               Uninterruptibles.sleepUninterruptibly(50, TimeUnit.MILLISECONDS);
+               return super.blobMetadata(container, name);
+            } finally {
+               inFlight.decrementAndGet();
+            }
+         }
+      };
+      FetchBlobMetadata fetchBlobMetadata = new FetchBlobMetadata(executor, slowBlobStore,
+            BackoffLimitedRetryHandler.INSTANCE);
+      fetchBlobMetadata.setMaxParallelFetches(2);
+
+      List<StorageMetadata> fetched = ImmutableList.copyOf(fetchBlobMetadata.setContainerName(CONTAINER)
+            .apply(blobStore.list(CONTAINER)));
+
+      assertEquals(fetched.size(), BLOB_COUNT);
+      assertEquals(maxInFlight.get(), 2);
+   }
+
+   public void testMetadataFollowsListingOrder() {
+      List<StorageMetadata> listing = Lists.newArrayList();
+      MutableStorageMetadata directory = new MutableStorageMetadataImpl();
+      directory.setName("directory/");
+      directory.setType(StorageType.RELATIVE_PATH);
+      listing.add(directory);
+      List<String> expected = Lists.newArrayList();
+      for (int i = BLOB_COUNT - 1; i >= 0; i--) {
+         MutableBlobMetadataImpl blob = new MutableBlobMetadataImpl();
+         blob.setName("blob-" + i);
+         listing.add(blob);
+         expected.add(blob.getName());
+         if (i == BLOB_COUNT / 2) {
+            // deleted since it was listed
+            MutableBlobMetadataImpl missing = new MutableBlobMetadataImpl();
+            missing.setName("missing");
+            listing.add(missing);
+         }
+      }
+      // the first blobs listed are the last ones fetched
+      BlobStore reorderingBlobStore = new ForwardingBlobStore(blobStore) {
+         @Override
+         public BlobMetadata blobMetadata(String container, String name) {
+            if (name.startsWith("blob-")) {
+               Uninterruptibles.sleepUninterruptibly(10 * Integer.parseInt(name.substring("blob-".length())),
+                     TimeUnit.MILLISECONDS);
+            }
+            return super.blobMetadata(container, name);
+         }
+      };
+      FetchBlobMetadata fetchBlobMetadata = new FetchBlobMetadata(executor, reorderingBlobStore,
+            BackoffLimitedRetryHandler.INSTANCE);
+
+      List<String> names = Lists.newArrayList();
+      for (StorageMetadata metadata : fetchBlobMetadata.setContainerName(CONTAINER)
+            .apply(new PageSetImpl<StorageMetadata>(listing, null))) {
+         names.add(metadata.getName());
+      }
+
+      assertEquals(names, expected);
+   }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.jclouds.blobstore.options.ListContainerOptions.Builder.maxResults;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.ContainerNotFoundException;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.util.CloseableIterator;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
+import org.jclouds.util.Closeables2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+@Test(testName = "PrefetchingListIteratorTest", singleThreaded = true)
+public class PrefetchingListIteratorTest {
+   private static final String CONTAINER = "container";
+   private static final int BLOBS = 25;
+
+   private BlobStoreContext context;
+   private BlobStore blobStore;
+   private ExecutorService executor;
+
+   @BeforeClass
+   void setupBlobStore() {
+      context = ContextBuilder.newBuilder("transient").build(BlobStoreContext.class);
+      blobStore = context.getBlobStore();
+      blobStore.createContainerInLocation(null, CONTAINER);
+      for (int i = 0; i < BLOBS; i++) {
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder(name(i)).payload("payload" + i).build());
+      }
+      executor = Executors.newCachedThreadPool();
+   }
+
+   @AfterClass
+   void close() {
+      if (executor != null)
+         executor.shutdownNow();
+      Closeables2.closeQuietly(context);
+   }
+
+   public void testIteratesEveryPageInOrder() {
+      CloseableIterator<StorageMetadata> it = blobStore.streamList(CONTAINER, maxResults(10));
+      List<String> names = Lists.newArrayList();
+      while (it.hasNext()) {
+         names.add(it.next().getName());
+      }
+      assertEquals(names.size(), BLOBS);
+      for (int i = 0; i < BLOBS; i++) {
+         assertEquals(names.get(i), name(i));
+      }
+   }
+
+   public void testNextPageIsFetchedWhileCurrentPageIsConsumed() throws Exception {
+      final CountDownLatch pagesRequested = new CountDownLatch(2);
+      BlobStore counting = new ForwardingBlobStore(blobStore) {
+         @Override
+         public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+            pagesRequested.countDown();
+            return super.list(container, options);
+         }
+      };
+      CloseableIterator<StorageMetadata> it = new PrefetchingListIterator(counting, CONTAINER, maxResults(10),
+            executor);
+      try {
+         assertEquals(it.next().getName(), name(0));
+         assertTrue(pagesRequested.await(10, TimeUnit.SECONDS), "second page was not requested");
+      } finally {
+         it.close();
+      }
+   }
+
+   public void testCloseCancelsPageInFlight() throws Exception {
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch interrupted = new CountDownLatch(1);
+      BlobStore blocking = new ForwardingBlobStore(blobStore) {
+         @Override
+         public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+            if (options.getMarker() == null) {
+               return super.list(container, options);
+            }
+            started.countDown();
+            try {
+               new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+               interrupted.countDown();
+            }
+            return super.list(container, options);
+         }
+      };
+      CloseableIterator<StorageMetadata> it = new PrefetchingListIterator(blocking, CONTAINER, maxResults(10),
+            executor);
+      assertEquals(it.next().getName(), name(0));
+      assertTrue(started.await(10, TimeUnit.SECONDS), "second page was not requested");
+
+      it.close();
+
+      assertTrue(interrupted.await(10, TimeUnit.SECONDS), "request in flight was not cancelled");
+      assertFalse(it.hasNext());
+   }
+
+   @Test(expectedExceptions = ContainerNotFoundException.class)
+   public void testFailureIsThrownFromHasNext() {
+      CloseableIterator<StorageMetadata> it = new PrefetchingListIterator(blobStore, "wrongcontainer",
+            ListContainerOptions.NONE, executor);
+      it.hasNext();
+   }
+
+   private static String name(int i) {
+      return String.format("blob%02d", i);
+   }
+}
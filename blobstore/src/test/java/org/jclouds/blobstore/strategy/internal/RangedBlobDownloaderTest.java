@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.internal.BaseTransientBlobStoreTest;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
+import org.jclouds.io.payloads.ByteSourcePayload;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+@Test(testName = "RangedBlobDownloaderTest", singleThreaded = true)
+public class RangedBlobDownloaderTest extends BaseTransientBlobStoreTest {
+   private static final String BLOB_NAME = "blob";
+   private static final int PART_SIZE = 1000;
+
+   private byte[] content;
+
+   @Override
+   protected Properties setupProperties() {
+      Properties overrides = super.setupProperties();
+      overrides.setProperty(BlobStoreConstants.PROPERTY_BLOBSTORE_DOWNLOAD_PART_SIZE, PART_SIZE + "");
+      overrides.setProperty(BlobStoreConstants.PROPERTY_BLOBSTORE_DOWNLOAD_CONCURRENCY, "3");
+      return overrides;
+   }
+
+   @BeforeClass
+   void putBlobs() {
+      // not a multiple of the part size, so the last range is short
+      content = new byte[10 * PART_SIZE + 123];
+      for (int i = 0; i < content.length; i++) {
+         content[i] = (byte) (i * 31);
+      }
+      blobStore.putBlob(CONTAINER, blobStore.blobBuilder(BLOB_NAME)
+            .payload(new ByteSourcePayload(ByteSource.wrap(content)))
+            .contentLength(content.length)
+            .build());
+      blobStore.putBlob(CONTAINER, blobStore.blobBuilder("empty")
+            .payload(new byte[0])
+            .build());
+   }
+
+   public void testDownloadBlob() throws IOException {
+      File destination = File.createTempFile("jclouds", "download");
+      try {
+         blobStore.downloadBlob(CONTAINER, BLOB_NAME, destination, executor);
+         assertEquals(Files.toByteArray(destination), content);
+      } finally {
+         destination.delete();
+      }
+   }
+
+   public void testDownloadBlobOverwritesDestination() throws IOException {
+      File destination = File.createTempFile("jclouds", "download");
+      try {
+         Files.write(new byte[3 * content.length], destination);
+         blobStore.downloadBlob(CONTAINER, BLOB_NAME, destination);
+         assertEquals(Files.toByteArray(destination), content);
+      } finally {
+         destination.delete();
+      }
+   }
+
+   public void testDownloadEmptyBlob() throws IOException {
+      File destination = File.createTempFile("jclouds", "download");
+      try {
+         blobStore.downloadBlob(CONTAINER, "empty", destination, executor);
+         assertEquals(destination.length(), 0);
+      } finally {
+         destination.delete();
+      }
+   }
+
+   public void testDownloadMissingBlob() throws IOException {
+      File destination = new File(Files.createTempDir(), "missing");
+      try {
+         blobStore.downloadBlob(CONTAINER, "missing", destination, executor);
+         fail("expected KeyNotFoundException");
+      } catch (KeyNotFoundException knfe) {
+         assertFalse(destination.exists());
+      } finally {
+         destination.getParentFile().delete();
+      }
+   }
+
+   public void testStreamBlob() throws IOException {
+      InputStream is = blobStore.streamBlob(CONTAINER, BLOB_NAME, executor);
+      try {
+         assertEquals(ByteStreams.toByteArray(is), content);
+      } finally {
+         is.close();
+      }
+   }
+
+   public void testStreamBlobSingleBytes() throws IOException {
+      InputStream is = blobStore.streamBlob(CONTAINER, BLOB_NAME);
+      try {
+         for (int i = 0; i < content.length; i++) {
+            assertEquals(is.read(), content[i] & 0xFF);
+         }
+         assertEquals(is.read(), -1);
+      } finally {
+         is.close();
+      }
+   }
+
+   public void testStreamEmptyBlob() throws IOException {
+      InputStream is = blobStore.streamBlob(CONTAINER, "empty", executor);
+      try {
+         assertEquals(is.read(), -1);
+      } finally {
+         is.close();
+      }
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testReadAfterClose() throws IOException {
+      InputStream is = blobStore.streamBlob(CONTAINER, BLOB_NAME, executor);
+      is.read();
+      is.close();
+      is.read();
+   }
+
+   public void testPartSizeLargerThanBlob() throws IOException {
+      RangedBlobDownloader downloader = new RangedBlobDownloader(blobStore, 10 * content.length, 2, 1,
+            BackoffLimitedRetryHandler.INSTANCE);
+      InputStream is = downloader.stream(CONTAINER, BLOB_NAME, executor);
+      try {
+         assertEquals(ByteStreams.toByteArray(is), content);
+      } finally {
+         is.close();
+      }
+   }
+
+   public void testBaseBlobStoreDownloadBlob() throws IOException {
+      BlobStore baseBlobStore = baseBlobStore();
+      File destination = File.createTempFile("jclouds", "download");
+      try {
+         baseBlobStore.downloadBlob(CONTAINER, BLOB_NAME, destination, executor);
+         assertEquals(Files.toByteArray(destination), content);
+      } finally {
+         destination.delete();
+      }
+   }
+
+   public void testBaseBlobStoreStreamBlob() throws IOException {
+      BlobStore baseBlobStore = baseBlobStore();
+      InputStream is = baseBlobStore.streamBlob(CONTAINER, BLOB_NAME);
+      try {
+         assertEquals(ByteStreams.toByteArray(is), content);
+      } finally {
+         is.close();
+      }
+   }
+
+   public void testBlobOverwrittenDuringDownloadFails() throws IOException {
+      final String name = "overwritten";
+      blobStore.putBlob(CONTAINER, blobStore.blobBuilder(name).payload(content).build());
+      BlobStore overwriting = new ForwardingBlobStore(blobStore) {
+         @Override
+         public Blob getBlob(String container, String name, GetOptions options) {
+            Blob blob = super.getBlob(container, name, options);
+            putBlob(container, blobBuilder(name).payload(new byte[content.length]).build());
+            return blob;
+         }
+      };
+      RangedBlobDownloader downloader = new RangedBlobDownloader(overwriting, PART_SIZE, 1, 3,
+            BackoffLimitedRetryHandler.INSTANCE);
+      File destination = new File(Files.createTempDir(), name);
+      try {
+         downloader.download(CONTAINER, name, destination, sameThreadExecutor());
+         fail("expected BlobRuntimeException");
+      } catch (BlobRuntimeException bre) {
+         assertTrue(bre.getMessage().contains("changed while downloading"), bre.getMessage());
+         assertFalse(destination.exists());
+      } finally {
+         destination.getParentFile().delete();
+      }
+   }
+
+   public void testTransientFailuresAreRetried() throws IOException {
+      FailingBlobStore failing = new FailingBlobStore(blobStore, 503, 2);
+      RangedBlobDownloader downloader = new RangedBlobDownloader(failing, 10 * content.length, 1, 3,
+            BackoffLimitedRetryHandler.INSTANCE);
+      InputStream is = downloader.stream(CONTAINER, BLOB_NAME, sameThreadExecutor());
+      try {
+         assertEquals(ByteStreams.toByteArray(is), content);
+      } finally {
+         is.close();
+      }
+      assertEquals(failing.rangedReads.get(), 3);
+   }
+
+   public void testClientErrorsAreNotRetried() throws IOException {
+      FailingBlobStore failing = new FailingBlobStore(blobStore, 403, 1);
+      RangedBlobDownloader downloader = new RangedBlobDownloader(failing, 10 * content.length, 1, 3,
+            BackoffLimitedRetryHandler.INSTANCE);
+      InputStream is = downloader.stream(CONTAINER, BLOB_NAME, sameThreadExecutor());
+      try {
+         is.read();
+         fail("expected IOException");
+      } catch (IOException expected) {
+         assertTrue(expected.getCause() instanceof HttpResponseException, String.valueOf(expected.getCause()));
+      } finally {
+         is.close();
+      }
+      assertEquals(failing.rangedReads.get(), 1);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testInvalidConcurrency() {
+      new RangedBlobDownloader(blobStore, PART_SIZE, 0, 1, BackoffLimitedRetryHandler.INSTANCE);
+   }
+
+   /** Fails the first ranged reads with the given status code. */
+   private static final class FailingBlobStore extends ForwardingBlobStore {
+      private final int statusCode;
+      private final AtomicInteger failuresLeft;
+      private final AtomicInteger rangedReads = new AtomicInteger();
+
+      FailingBlobStore(BlobStore blobStore, int statusCode, int failures) {
+         super(blobStore);
+         this.statusCode = statusCode;
+         this.failuresLeft = new AtomicInteger(failures);
+      }
+
+      @Override
+      public Blob getBlob(String container, String name, GetOptions options) {
+         rangedReads.incrementAndGet();
+         if (failuresLeft.getAndDecrement() > 0) {
+            throw new HttpResponseException("injected failure", null,
+                  HttpResponse.builder().statusCode(statusCode).build());
+         }
+         return super.getBlob(container, name, options);
+      }
+   }
+}
@@ -16,11 +16,16 @@
  */
 package org.jclouds.compute.config;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_CREDENTIAL;
 import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
+import static org.jclouds.Constants.PROPERTY_SESSION_STALE_INTERVAL;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.compute.config.ComputeServiceProperties.IMAGE_ID;
+import static org.jclouds.compute.config.ComputeServiceProperties.IMAGE_SNAPSHOT_DIRECTORY;
 import static org.jclouds.compute.config.ComputeServiceProperties.TEMPLATE;
 import static org.jclouds.compute.domain.OsFamily.UBUNTU;
 
+import java.io.File;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -54,12 +59,15 @@ import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIn
 import org.jclouds.compute.strategy.GetImageStrategy;
 import org.jclouds.compute.strategy.InitializeRunScriptOnNodeOrPlaceInBadMap;
 import org.jclouds.compute.suppliers.ImageCacheSupplier;
+import org.jclouds.compute.suppliers.ImageCatalogSnapshot;
 import org.jclouds.config.ValueOfConfigurationKeyOrNull;
+import org.jclouds.domain.Credentials;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.json.Json;
 import org.jclouds.location.Provider;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.suppliers.MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier;
+import org.jclouds.rest.suppliers.ValueLoadedCallback;
 import org.jclouds.scriptbuilder.domain.Statement;
 import org.jclouds.scriptbuilder.statements.login.AdminAccess;
 import org.jclouds.ssh.SshClient;
@@ -70,6 +78,7 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.AbstractModule;
 import com.google.inject.Binding;
 import com.google.inject.Inject;
@@ -78,6 +87,7 @@ import com.google.inject.Key;
 import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
+import com.google.inject.spi.InstanceBinding;
 import com.google.inject.name.Names;
 
 public abstract class BaseComputeServiceContextModule extends AbstractModule {
@@ -241,10 +251,40 @@ public abstract class BaseComputeServiceContextModule extends AbstractModule {
    @Memoized
    protected final Supplier<Set<? extends Image>> supplyImageCache(
          AtomicReference<AuthorizationException> authException, @Named(PROPERTY_SESSION_INTERVAL) long seconds,
+         @Named(PROPERTY_SESSION_STALE_INTERVAL) long staleSeconds,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
          final Supplier<Set<? extends Image>> imageSupplier, com.google.inject.Provider<GetImageStrategy> imageLoader, Injector injector) {
       Supplier<Set<? extends Image>> parsingImageSupplier = shouldEagerlyParseImages(injector) ? imageSupplier
             : supplyNonParsingImages(imageSupplier, injector);
-      return new ImageCacheSupplier(parsingImageSupplier, seconds, authException, imageLoader);
+      return new ImageCacheSupplier(parsingImageSupplier, seconds, staleSeconds, userExecutor, authException,
+            imageLoader, imageSnapshot(injector));
+   }
+
+   /**
+    * The snapshot of the images in the {@link ComputeServiceProperties#IMAGE_SNAPSHOT_DIRECTORY}, if configured. It is
+    * keyed by the provider, identity and every jclouds property of the context except the credential.
+    */
+   private static Optional<ImageCatalogSnapshot> imageSnapshot(Injector injector) {
+      String directory = injector.getInstance(ValueOfConfigurationKeyOrNull.class).apply(IMAGE_SNAPSHOT_DIRECTORY);
+      if (directory == null)
+         return Optional.absent();
+      Map<String, String> configuration = Maps.newHashMap();
+      for (Binding<?> binding : injector.getAllBindings().values()) {
+         Key<?> key = binding.getKey();
+         if (binding instanceof InstanceBinding && key.getTypeLiteral().getRawType() == String.class
+               && key.getAnnotation() instanceof com.google.inject.name.Named) {
+            String name = com.google.inject.name.Named.class.cast(key.getAnnotation()).value();
+            if (name.startsWith("jclouds.") && !name.equals(PROPERTY_CREDENTIAL))
+               configuration.put(name, String.valueOf(InstanceBinding.class.cast(binding).getInstance()));
+         }
+      }
+      String provider = injector.getInstance(Key.get(String.class, Provider.class));
+      Credentials creds = injector.getInstance(Key.get(new TypeLiteral<Supplier<Credentials>>() {
+      }, Provider.class)).get();
+      ImageCatalogSnapshot snapshot = ImageCatalogSnapshot.inDirectory(new File(directory), provider,
+            creds != null ? creds.identity : null, configuration);
+      injector.injectMembers(snapshot);
+      return Optional.of(snapshot);
    }
 
    protected boolean shouldEagerlyParseImages(Injector injector) {
@@ -282,9 +322,12 @@ public abstract class BaseComputeServiceContextModule extends AbstractModule {
    @Singleton
    @Memoized
    protected final Supplier<Set<? extends Hardware>> supplySizeCache(AtomicReference<AuthorizationException> authException, @Named(PROPERTY_SESSION_INTERVAL) long seconds,
+         @Named(PROPERTY_SESSION_STALE_INTERVAL) long staleSeconds,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
          final Supplier<Set<? extends Hardware>> hardwareSupplier) {
       return MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException, hardwareSupplier,
-               seconds, TimeUnit.SECONDS);
+               seconds, staleSeconds, TimeUnit.SECONDS, userExecutor,
+               new ValueLoadedCallback.NoOpCallback<Set<? extends Hardware>>());
    }
 
    @Provides
@@ -44,6 +44,16 @@ public final class ComputeServiceProperties {
     */
    public static final String POLL_MAX_PERIOD = "jclouds.compute.poll-status.max-period";
 
+   /**
+    * Whether concurrent node status polls, such as the ones of a large {@code createNodesInGroup}, are coalesced into
+    * one list call per tick instead of one get call per node. Defaults to false, as the default
+    * {@link org.jclouds.compute.strategy.ListNodesStrategy#listNodesByIds} lists every node; apis that list nodes by id
+    * in one call, such as ec2, enable it.
+    *
+    * @see org.jclouds.compute.strategy.impl.CoalescingGetNodeMetadataStrategy
+    */
+   public static final String POLL_COALESCE = "jclouds.compute.poll-status.coalesce";
+
    /**
     * time in milliseconds to wait for an image to finish creating.
     * 
@@ -96,6 +106,13 @@ public final class ComputeServiceProperties {
     */
    public static final String IMAGE_AUTHENTICATE_SUDO = "jclouds.image.authenticate-sudo";
 
+   /**
+    * directory where the image list of the context is kept between runs. When set, a new context starts from the
+    * images listed by the last context with the same provider, identity and configuration, and lists the images again
+    * in the background. Unset by default.
+    */
+   public static final String IMAGE_SNAPSHOT_DIRECTORY = "jclouds.compute.image-snapshot-directory";
+
    /**
     * comma-separated nodes that we shouldn't attempt to list as they are dead in the provider for
     * some reason.
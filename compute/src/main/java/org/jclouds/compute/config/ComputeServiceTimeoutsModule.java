@@ -16,6 +16,7 @@
  */
 package org.jclouds.compute.config;
 import static com.google.common.base.Predicates.not;
+import static org.jclouds.compute.config.ComputeServiceProperties.POLL_COALESCE;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_IMAGE_AVAILABLE;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_IMAGE_DELETED;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
@@ -41,6 +42,8 @@ import org.jclouds.compute.predicates.ScriptStatusReturnsZero;
 import org.jclouds.compute.predicates.ScriptStatusReturnsZero.CommandUsingClient;
 import org.jclouds.compute.reference.ComputeServiceConstants.PollPeriod;
 import org.jclouds.compute.reference.ComputeServiceConstants.Timeouts;
+import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
+import org.jclouds.compute.strategy.impl.CoalescingGetNodeMetadataStrategy;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
@@ -126,6 +129,8 @@ public class ComputeServiceTimeoutsModule extends AbstractModule {
    protected void configure() {
       bind(new TypeLiteral<Function<AtomicReference<NodeMetadata>, AtomicReference<NodeMetadata>>>() {
       }).annotatedWith(Names.named(TIMEOUT_NODE_RUNNING)).to(PollNodeRunning.class);
+      bind(GetNodeMetadataStrategy.class).annotatedWith(Names.named(POLL_COALESCE))
+            .to(CoalescingGetNodeMetadataStrategy.class);
    }
 
    /**
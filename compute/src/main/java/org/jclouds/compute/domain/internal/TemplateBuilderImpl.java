@@ -43,6 +43,7 @@ import org.jclouds.compute.options.TemplateOptions;
 import org.jclouds.compute.predicates.ImagePredicates;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.suppliers.ImageCacheSupplier;
+import org.jclouds.compute.suppliers.ImageIndex;
 import org.jclouds.domain.Location;
 import org.jclouds.logging.Logger;
 
@@ -50,6 +51,7 @@ import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
@@ -63,7 +65,6 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Predicates.and;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.find;
-import static com.google.common.collect.Iterables.size;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Iterables.tryFind;
 import static com.google.common.collect.Lists.newArrayList;
@@ -688,10 +689,24 @@ public class TemplateBuilderImpl implements TemplateBuilder {
          location = defaultLocation.get();
 
       if (image == null) {
-         Iterable<? extends Image> supportedImages = findSupportedImages(images);
+         Optional<ImageIndex> index = this.images.indexOf(images);
+         List<Object> key = null;
+         if (index.isPresent() && hardware == null && isMemoizable()) {
+            key = resolutionKey(hardwaresToSearch);
+            Template resolved = index.get().getResolvedTemplates().getIfPresent(key);
+            if (resolved != null) {
+               logger.debug("<<   matched memoized image(%s) hardware(%s) location(%s)", resolved.getImage().getId(),
+                     resolved.getHardware().getId(), resolved.getLocation().getId());
+               return new TemplateImpl(resolved.getImage(), resolved.getHardware(), resolved.getLocation(), options);
+            }
+         }
+         Iterable<? extends Image> supportedImages = findSupportedImages(
+               index.isPresent() ? index.get().candidates(location, osFamily, os64Bit) : images);
          if (hardware == null)
             hardware = resolveHardware(hardwaresToSearch, supportedImages);
          image = resolveImage(hardware, supportedImages);
+         if (key != null)
+            index.get().getResolvedTemplates().put(key, new TemplateImpl(image, hardware, location, options));
       } else {
          if (hardware == null)
             hardware = resolveHardware(hardwaresToSearch, ImmutableSet.of(image));
@@ -702,10 +717,31 @@ public class TemplateBuilderImpl implements TemplateBuilder {
       return new TemplateImpl(image, hardware, location, options);
    }
 
-   private Iterable<? extends Image> findSupportedImages(Set<? extends Image> images) {
+   /**
+    * Template resolution only depends on the fields in the
+    * {@link #resolutionKey(Set) key}, unless the caller passed custom image
+    * predicates or choosers, or asked to reload the images.
+    */
+   private boolean isMemoizable() {
+      return imagePredicate == null && imageChooser == null && (forceCacheReload == null || !forceCacheReload);
+   }
+
+   /**
+    * Everything that goes into resolving the image and hardware of a template
+    * once the location is known. The class is included as subclasses may
+    * resolve differently.
+    */
+   private List<Object> resolutionKey(Set<? extends Hardware> hardwaresToSearch) {
+      return Arrays.<Object> asList(getClass(), hardwaresToSearch, location, osFamily, osName, osDescription,
+            osVersion, os64Bit, osArch, imageName, imageDescription, imageVersion, hypervisor, minCores, minRam,
+            minDisk, biggest, fastest);
+   }
+
+   private Iterable<? extends Image> findSupportedImages(Iterable<? extends Image> images) {
       Predicate<Image> imagePredicate = buildImagePredicate();
-      Iterable<? extends Image> supportedImages = filter(images, imagePredicate);
-      if (size(supportedImages) == 0) {
+      // copied, as the images are iterated once per hardware profile afterwards
+      List<? extends Image> supportedImages = ImmutableList.copyOf(filter(images, imagePredicate));
+      if (supportedImages.isEmpty()) {
          throw throwNoSuchElementExceptionAfterLoggingImageIds(
                format("no image matched predicate: %s", imagePredicate), images);
       }
@@ -16,7 +16,10 @@
  */
 package org.jclouds.compute.predicates;
 
+import static org.jclouds.compute.config.ComputeServiceProperties.POLL_COALESCE;
+
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.jclouds.compute.domain.NodeMetadata.Status;
@@ -33,7 +36,7 @@ import com.google.common.collect.ImmutableSet;
 public class AtomicNodeRunning extends RefreshNodeAndDoubleCheckOnFailUnlessStatusInvalid {
 
    @Inject
-   public AtomicNodeRunning(GetNodeMetadataStrategy client) {
+   public AtomicNodeRunning(@Named(POLL_COALESCE) GetNodeMetadataStrategy client) {
       super(Status.RUNNING, ImmutableSet.of(Status.ERROR, Status.TERMINATED), client);
    }
 }
@@ -17,6 +17,9 @@
 package org.jclouds.compute.predicates;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.compute.config.ComputeServiceProperties.POLL_COALESCE;
+
+import javax.inject.Named;
 
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadata.Status;
@@ -30,7 +33,7 @@ public class AtomicNodeTerminated extends TrueIfNullOrDeletedRefreshAndDoubleChe
    private final GetNodeMetadataStrategy client;
 
    @Inject
-   public AtomicNodeTerminated(GetNodeMetadataStrategy client) {
+   public AtomicNodeTerminated(@Named(POLL_COALESCE) GetNodeMetadataStrategy client) {
       super(Status.TERMINATED);
       this.client = checkNotNull(client, "client");
    }
@@ -125,6 +125,86 @@ public class NodePredicates {
       }
    }
 
+   /**
+    * Matches nodes by id. Exposed so that {@link org.jclouds.compute.strategy.ListNodesStrategy} implementations can
+    * ask the provider for these ids only.
+    */
+   public static final class WithIds<T extends ComputeMetadata> implements Predicate<T> {
+      private final Set<String> ids;
+
+      private WithIds(Set<String> ids) {
+         this.ids = ids;
+      }
+
+      public Set<String> getIds() {
+         return ids;
+      }
+
+      @Override
+      public int hashCode() {
+         return ids.hashCode();
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof WithIds))
+            return false;
+         return ids.equals(WithIds.class.cast(obj).ids);
+      }
+
+      @Override
+      public boolean apply(T nodeMetadata) {
+         return ids.contains(nodeMetadata.getId());
+      }
+
+      @Override
+      public String toString() {
+         return "withIds(" + ids + ")";
+      }
+   }
+
+   /**
+    * Matches nodes by group. Exposed so that {@link org.jclouds.compute.strategy.ListNodesStrategy} implementations
+    * can ask the provider for the nodes of this group only.
+    */
+   public static final class InGroup implements Predicate<NodeMetadata> {
+      private final String group;
+
+      private InGroup(String group) {
+         this.group = group;
+      }
+
+      public String getGroup() {
+         return group;
+      }
+
+      @Override
+      public int hashCode() {
+         return group.hashCode();
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof InGroup))
+            return false;
+         return group.equals(InGroup.class.cast(obj).group);
+      }
+
+      @Override
+      public boolean apply(NodeMetadata nodeMetadata) {
+         return group.equals(nodeMetadata.getGroup());
+      }
+
+      @Override
+      public String toString() {
+         return "inGroup(" + group + ")";
+      }
+   }
+
    /**
     * Return nodes in the specified location.
     * 
@@ -158,18 +238,7 @@ public class NodePredicates {
     */
    public static <T extends ComputeMetadata> Predicate<T> withIds(String... ids) {
       checkNotNull(ids, "ids must be defined");
-      final Set<String> search = ImmutableSet.copyOf(ids);
-      return new Predicate<T>() {
-         @Override
-         public boolean apply(T nodeMetadata) {
-            return search.contains(nodeMetadata.getId());
-         }
-
-         @Override
-         public String toString() {
-            return "withIds(" + search + ")";
-         }
-      };
+      return new WithIds<T>(ImmutableSet.copyOf(ids));
    }
 
    /**
@@ -188,17 +257,7 @@ public class NodePredicates {
     */
    public static Predicate<NodeMetadata> inGroup(final String group) {
       checkNotNull(emptyToNull(group), "group must be defined");
-      return new Predicate<NodeMetadata>() {
-         @Override
-         public boolean apply(NodeMetadata nodeMetadata) {
-            return group.equals(nodeMetadata.getGroup());
-         }
-
-         @Override
-         public String toString() {
-            return "inGroup(" + group + ")";
-         }
-      };
+      return new InGroup(group);
    }
    
    /**
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy.impl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static org.jclouds.compute.config.ComputeServiceProperties.POLL_COALESCE;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.reference.ComputeServiceConstants.PollPeriod;
+import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+
+/**
+ * Coalesces the node lookups of concurrent status polls, such as the ones waiting for the nodes of a large
+ * {@link org.jclouds.compute.ComputeService#createNodesInGroup} to run, into one
+ * {@link ListNodesStrategy#listNodesByIds} call per tick, instead of one {@link GetNodeMetadataStrategy#getNode} call
+ * per node and poll.
+ * <p>
+ * There is no poller thread: one of the waiting callers runs each tick, for every node pending at that time, while the
+ * others wait for it. The tick starts after a window that lets the polls of the other pending nodes join it. The
+ * window adapts to how many nodes are pending: there is none while a single node is, and it grows to the initial poll
+ * period with ten or more. A tick with a single node, or whose list call fails, gets the nodes one by one, and so are
+ * the nodes missing from a successful list call, for example because they aren't listed yet.
+ * <p>
+ * This only pays off when {@link ListNodesStrategy#listNodesByIds} is a single call rather than a listing of every
+ * node, so it is disabled unless the api sets {@link org.jclouds.compute.config.ComputeServiceProperties#POLL_COALESCE}.
+ */
+@Beta
+@Singleton
+public class CoalescingGetNodeMetadataStrategy implements GetNodeMetadataStrategy {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(POLL_COALESCE)
+   protected boolean coalesce = false;
+
+   private final GetNodeMetadataStrategy getNodeStrategy;
+   private final ListNodesStrategy listNodesStrategy;
+   private final long maxWindow;
+
+   private final Object lock = new Object();
+   private Map<String, SettableFuture<NodeMetadata>> pending = Maps.newLinkedHashMap();
+   private boolean ticking;
+   private int lastTickSize;
+
+   @Inject
+   public CoalescingGetNodeMetadataStrategy(GetNodeMetadataStrategy getNodeStrategy,
+         ListNodesStrategy listNodesStrategy, PollPeriod period) {
+      this(getNodeStrategy, listNodesStrategy, period.pollInitialPeriod);
+   }
+
+   @VisibleForTesting
+   CoalescingGetNodeMetadataStrategy(GetNodeMetadataStrategy getNodeStrategy, ListNodesStrategy listNodesStrategy,
+         long maxWindow) {
+      this.getNodeStrategy = checkNotNull(getNodeStrategy, "getNodeStrategy");
+      this.listNodesStrategy = checkNotNull(listNodesStrategy, "listNodesStrategy");
+      this.maxWindow = maxWindow;
+   }
+
+   @Override
+   public NodeMetadata getNode(String id) {
+      if (!coalesce)
+         return getNodeStrategy.getNode(id);
+      SettableFuture<NodeMetadata> node;
+      synchronized (lock) {
+         node = pending.get(id);
+         if (node == null) {
+            node = SettableFuture.create();
+            pending.put(id, node);
+         }
+      }
+      try {
+         while (!node.isDone()) {
+            synchronized (lock) {
+               if (node.isDone())
+                  break;
+               if (ticking) {
+                  lock.wait();
+                  continue;
+               }
+               ticking = true;
+            }
+            tick();
+         }
+         return node.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      }
+   }
+
+   @VisibleForTesting
+   long window(int pendingNodes) {
+      return pendingNodes <= 1 ? 0 : maxWindow * Math.min(pendingNodes - 1, 10) / 10;
+   }
+
+   private void tick() throws InterruptedException {
+      Map<String, SettableFuture<NodeMetadata>> nodes = null;
+      try {
+         long window;
+         synchronized (lock) {
+            window = window(Math.max(lastTickSize, pending.size()));
+         }
+         if (window > 0)
+            Thread.sleep(window);
+         synchronized (lock) {
+            nodes = pending;
+            pending = Maps.newLinkedHashMap();
+            lastTickSize = nodes.size();
+         }
+         refresh(nodes);
+      } catch (RuntimeException e) {
+         failAll(nodes, e);
+      } catch (Error e) {
+         failAll(nodes, e);
+         throw e;
+      } finally {
+         synchronized (lock) {
+            ticking = false;
+            lock.notifyAll();
+         }
+      }
+   }
+
+   private static void failAll(Map<String, SettableFuture<NodeMetadata>> nodes, Throwable t) {
+      if (nodes == null)
+         return;
+      for (SettableFuture<NodeMetadata> node : nodes.values())
+         node.setException(t);
+   }
+
+   private void refresh(Map<String, SettableFuture<NodeMetadata>> nodes) {
+      if (nodes.size() > 1) {
+         try {
+            Map<String, NodeMetadata> listed = Maps.newHashMap();
+            for (NodeMetadata node : listNodesStrategy.listNodesByIds(nodes.keySet()))
+               listed.put(node.getId(), node);
+            logger.trace("<< listed %d of %d pending nodes", listed.size(), nodes.size());
+            for (Map.Entry<String, NodeMetadata> node : listed.entrySet()) {
+               SettableFuture<NodeMetadata> pendingNode = nodes.remove(node.getKey());
+               if (pendingNode != null)
+                  pendingNode.set(node.getValue());
+            }
+         } catch (RuntimeException e) {
+            logger.debug("could not list pending nodes %s, getting them one by one: %s", nodes.keySet(),
+                  e.getMessage());
+         }
+      }
+      for (Map.Entry<String, SettableFuture<NodeMetadata>> node : nodes.entrySet()) {
+         try {
+            node.getValue().set(getNodeStrategy.getNode(node.getKey()));
+         } catch (RuntimeException e) {
+            node.getValue().setException(e);
+         }
+      }
+   }
+}
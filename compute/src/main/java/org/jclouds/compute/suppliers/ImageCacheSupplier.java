@@ -18,8 +18,11 @@ package org.jclouds.compute.suppliers;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Resource;
@@ -40,6 +43,8 @@ import com.google.common.base.Supplier;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.inject.Provider;
@@ -74,6 +79,23 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     * and allows to add and remove images at runtime.
     */
    private final LoadingCache<String, Image> imageCache;
+
+   /**
+    * The snapshot the cache starts from, if any, and the executor used to list the images while it is served.
+    */
+   private final Optional<ImageCatalogSnapshot> snapshot;
+   private final Executor revalidateExecutor;
+   private volatile boolean snapshotChecked;
+   private volatile boolean revalidating;
+
+   /**
+    * The index over the cached images, rebuilt on the first read after they
+    * change.
+    */
+   private final AtomicLong imagesVersion = new AtomicLong();
+   private final Object indexLock = new Object();
+   private ImageIndex index;
+   private long indexVersion;
    
    @Resource
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
@@ -84,7 +106,56 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
       liveImageSupplier = imageSupplier;
       memoizedImageSupplier = MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException,
             imageSupplier, sessionIntervalSeconds, TimeUnit.SECONDS, this);
-      imageCache = CacheBuilder.newBuilder().expireAfterWrite(sessionIntervalSeconds, TimeUnit.SECONDS)
+      imageCache = newImageCache(sessionIntervalSeconds, imageLoader);
+      snapshot = Optional.absent();
+      revalidateExecutor = null;
+      snapshotChecked = true;
+   }
+
+   /**
+    * Creates a supplier that refreshes the images on the given executor once the session interval has elapsed, and
+    * keeps serving the previous images for up to {@code staleIntervalSeconds} more while doing so.
+    */
+   public ImageCacheSupplier(Supplier<Set<? extends Image>> imageSupplier, long sessionIntervalSeconds,
+         long staleIntervalSeconds, Executor reloadExecutor, AtomicReference<AuthorizationException> authException,
+         final Provider<GetImageStrategy> imageLoader) {
+      this(imageSupplier, sessionIntervalSeconds, staleIntervalSeconds, reloadExecutor, authException, imageLoader,
+            Optional.<ImageCatalogSnapshot> absent());
+   }
+
+   /**
+    * Creates a supplier that, in addition, starts from the images in the given snapshot and lists the images on the
+    * given executor on first use. Every list loaded afterwards is written to the snapshot.
+    */
+   public ImageCacheSupplier(final Supplier<Set<? extends Image>> imageSupplier, long sessionIntervalSeconds,
+         long staleIntervalSeconds, Executor reloadExecutor, AtomicReference<AuthorizationException> authException,
+         final Provider<GetImageStrategy> imageLoader, final Optional<ImageCatalogSnapshot> snapshot) {
+      this.snapshot = checkNotNull(snapshot, "snapshot");
+      this.revalidateExecutor = reloadExecutor;
+      this.snapshotChecked = !snapshot.isPresent();
+      liveImageSupplier = snapshot.isPresent() ? new Supplier<Set<? extends Image>>() {
+         @Override
+         public Set<? extends Image> get() {
+            Set<? extends Image> images = imageSupplier.get();
+            snapshot.get().write(images);
+            return images;
+         }
+      } : imageSupplier;
+      memoizedImageSupplier = MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException,
+            liveImageSupplier, sessionIntervalSeconds, staleIntervalSeconds, TimeUnit.SECONDS, reloadExecutor, this);
+      // images must outlive the memoized value, otherwise they would disappear while it is being refreshed
+      imageCache = newImageCache(sessionIntervalSeconds + staleIntervalSeconds, imageLoader);
+   }
+
+   private LoadingCache<String, Image> newImageCache(long expirationSeconds,
+         final Provider<GetImageStrategy> imageLoader) {
+      return CacheBuilder.newBuilder().expireAfterWrite(expirationSeconds, TimeUnit.SECONDS)
+            .removalListener(new RemovalListener<String, Image>() {
+               @Override
+               public void onRemoval(RemovalNotification<String, Image> notification) {
+                  imagesChanged();
+               }
+            })
             .build(new CacheLoader<String, Image>() {
                @Override
                public Image load(String key) throws Exception {
@@ -103,8 +174,69 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
       // values in the cache will be returned, as the cache properly handles
       // individual image additions and deletions (introduced, for example, by
       // the usage of the ImageExtension).
-      memoizedImageSupplier.get();
-      return ImmutableSet.copyOf(imageCache.asMap().values());
+      if (!snapshotChecked) {
+         startFromSnapshot();
+      }
+      // While the images of a snapshot are being revalidated, serve the
+      // snapshot instead of waiting for the same list.
+      if (!revalidating) {
+         memoizedImageSupplier.get();
+      }
+      return currentIndex().getImages();
+   }
+
+   /**
+    * Returns the index over the given images, if they are the ones this
+    * supplier currently returns. The same index is returned until the images
+    * change.
+    */
+   public Optional<ImageIndex> indexOf(Set<? extends Image> images) {
+      ImageIndex current = currentIndex();
+      return current.getImages() == images ? Optional.of(current) : Optional.<ImageIndex> absent();
+   }
+
+   private ImageIndex currentIndex() {
+      long version = imagesVersion.get();
+      synchronized (indexLock) {
+         if (index == null || indexVersion != version) {
+            index = new ImageIndex(ImmutableSet.copyOf(imageCache.asMap().values()));
+            indexVersion = version;
+         }
+         return index;
+      }
+   }
+
+   /**
+    * Must be called after every change to the {@link #imageCache}, so that
+    * the next read builds a new index.
+    */
+   private void imagesChanged() {
+      imagesVersion.incrementAndGet();
+   }
+
+   private synchronized void startFromSnapshot() {
+      if (snapshotChecked) {
+         return;
+      }
+      Optional<Set<? extends Image>> images = snapshot.get().read();
+      if (images.isPresent()) {
+         reset(images.get());
+         revalidating = true;
+         revalidateExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  memoizedImageSupplier.get();
+               } catch (RuntimeException e) {
+                  // the next caller loads the images again and gets the error
+                  logger.warn(e, "could not revalidate the images read from %s", snapshot.get());
+               } finally {
+                  revalidating = false;
+               }
+            }
+         });
+      }
+      snapshotChecked = true;
    }
 
    /**
@@ -130,18 +262,23 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     * is invoked forcing a fresh image lookup.
     */
    public void reset(Set<? extends Image> images) {
-      imageCache.invalidateAll();
-      imageCache.putAll(Maps.uniqueIndex(images, new Function<Image, String>() {
+      Map<String, ? extends Image> fresh = Maps.uniqueIndex(images, new Function<Image, String>() {
          @Override
          public String apply(Image input) {
             return input.getId();
          }
-      }));
+      });
+      // drop only the images that are gone, so that concurrent readers never see an empty cache while a background
+      // refresh repopulates it
+      imageCache.asMap().keySet().retainAll(fresh.keySet());
+      imageCache.putAll(fresh);
+      imagesChanged();
    }
    
    /**
     * Calls the {@link #liveImageSupplier} to get the current images and
-    * rebuilds the cache with them.
+    * rebuilds the cache with them. The images are written to the snapshot, if
+    * any.
     */
    public Set<? extends Image> rebuildCache() {
       Set<? extends Image> images = liveImageSupplier.get();
@@ -157,7 +294,11 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     */
    public Optional<? extends Image> get(String id) {
       try {
-         return Optional.fromNullable(imageCache.getUnchecked(id));
+         boolean cached = imageCache.getIfPresent(id) != null;
+         Image image = imageCache.getUnchecked(id);
+         if (!cached)
+            imagesChanged();
+         return Optional.fromNullable(image);
       } catch (Exception ex) {
          logger.error(ex, "Unexpected error loading image %s", id);
          return Optional.absent();
@@ -180,6 +321,7 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
    public void registerImage(Image image) {
       checkNotNull(image, "image");
       imageCache.put(image.getId(), image);
+      imagesChanged();
    }
 
    /**
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.internal.ImageImpl;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.domain.Credentials;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.domain.internal.LocationImpl;
+import org.jclouds.json.config.GsonModule.CredentialsAdapterFactory;
+import org.jclouds.json.internal.OptionalTypeAdapterFactory;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Keeps the last image list of a context in a file, so that a new context for the same provider, endpoint, identity
+ * and configuration can start from it instead of listing the images again.
+ * <p>
+ * The snapshot is only a starting point: {@link ImageCacheSupplier} serves it while the images are listed in the
+ * background, and overwrites it with every list it loads. Only the login user of the default credentials of the images
+ * is written, never their password or private key, and the file is only readable by its owner.
+ */
+@Beta
+public class ImageCatalogSnapshot {
+
+   private static final Type IMAGES_TYPE = new TypeToken<Set<Image>>() {
+   }.getType();
+
+   private final File file;
+   private final Gson gson;
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   /**
+    * Creates the snapshot for a context in the given directory. The file name is derived from a hash of the provider,
+    * identity and configuration, so that contexts listing different images never share a snapshot and no secrets
+    * end up in the file name.
+    */
+   public static ImageCatalogSnapshot inDirectory(File directory, String provider, String identity,
+         Map<String, String> configuration) {
+      Hasher hasher = Hashing.sha256().newHasher();
+      hasher.putString(checkNotNull(provider, "provider"), UTF_8).putByte((byte) 0);
+      hasher.putString(String.valueOf(identity), UTF_8).putByte((byte) 0);
+      for (Map.Entry<String, String> entry : ImmutableSortedMap.copyOf(configuration).entrySet()) {
+         hasher.putString(entry.getKey(), UTF_8).putByte((byte) 0);
+         hasher.putString(String.valueOf(entry.getValue()), UTF_8).putByte((byte) 0);
+      }
+      return new ImageCatalogSnapshot(new File(directory, provider + "-images-" + hasher.hash() + ".json"));
+   }
+
+   public ImageCatalogSnapshot(File file) {
+      this.file = checkNotNull(file, "file");
+      this.gson = new GsonBuilder()
+            .registerTypeAdapter(Image.class, new ImplementationAdapter<Image>(ImageImpl.class))
+            .registerTypeAdapter(Location.class, new ImplementationAdapter<Location>(LocationImpl.class))
+            .registerTypeAdapterFactory(new OptionalTypeAdapterFactory())
+            .registerTypeHierarchyAdapter(Credentials.class, new CredentialsAdapterFactory().nullSafe())
+            .create();
+   }
+
+   public File getFile() {
+      return file;
+   }
+
+   /**
+    * Reads the images of the last snapshot, or returns absent if there is none or it can't be read.
+    */
+   public Optional<Set<? extends Image>> read() {
+      if (!file.isFile())
+         return Optional.absent();
+      try {
+         Set<Image> images = gson.fromJson(Files.toString(file, UTF_8), IMAGES_TYPE);
+         if (images == null)
+            return Optional.absent();
+         logger.debug("<< read %d images from snapshot %s", images.size(), file);
+         return Optional.<Set<? extends Image>> of(ImmutableSet.copyOf(images));
+      } catch (IOException e) {
+         logger.warn(e, "could not read image snapshot %s", file);
+      } catch (RuntimeException e) {
+         logger.warn(e, "ignoring unreadable image snapshot %s", file);
+      }
+      return Optional.absent();
+   }
+
+   /**
+    * Replaces the snapshot with the given images. The file is written to a new temporary file next to the snapshot
+    * and then renamed over it, so that concurrent readers, and writers in other processes, see either the old or the
+    * new snapshot. Failures are logged, as the snapshot is only an optimization.
+    */
+   public void write(Set<? extends Image> images) {
+      File tmp = null;
+      try {
+         Files.createParentDirs(file);
+         tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+         if (!(tmp.setReadable(false, false) && tmp.setReadable(true, true)))
+            throw new IOException("could not make " + tmp + " readable only by its owner");
+         Files.write(gson.toJson(withoutSecrets(images), IMAGES_TYPE), tmp, UTF_8);
+         Files.move(tmp, file);
+         logger.debug(">> wrote %d images to snapshot %s", images.size(), file);
+      } catch (IOException e) {
+         logger.warn(e, "could not write image snapshot %s", file);
+         if (tmp != null)
+            tmp.delete();
+      }
+   }
+
+   private static Set<Image> withoutSecrets(Set<? extends Image> images) {
+      ImmutableSet.Builder<Image> builder = ImmutableSet.builder();
+      for (Image image : images) {
+         LoginCredentials credentials = image.getDefaultCredentials();
+         if (credentials != null
+               && (credentials.getOptionalPassword().isPresent() || credentials.getOptionalPrivateKey().isPresent())) {
+            image = ImageBuilder.fromImage(image)
+                  .defaultCredentials(credentials.toBuilder().noPassword().noPrivateKey().build()).build();
+         }
+         builder.add(image);
+      }
+      return builder.build();
+   }
+
+   @Override
+   public String toString() {
+      return "ImageCatalogSnapshot(" + file + ")";
+   }
+
+   /**
+    * Reads and writes an interface as its implementation class, as the snapshot only needs to round-trip the
+    * implementations jclouds builds.
+    */
+   private static final class ImplementationAdapter<T> implements JsonSerializer<T>, JsonDeserializer<T> {
+      private final Class<? extends T> implementation;
+
+      private ImplementationAdapter(Class<? extends T> implementation) {
+         this.implementation = implementation;
+      }
+
+      @Override
+      public JsonElement serialize(T src, Type typeOfSrc, JsonSerializationContext context) {
+         return context.serialize(src, implementation);
+      }
+
+      @Override
+      public T deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
+            throws JsonParseException {
+         return context.deserialize(json, implementation);
+      }
+   }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.domain.Location;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+
+/**
+ * An immutable image set, indexed by the attributes the
+ * {@link org.jclouds.compute.domain.TemplateBuilder} matches exactly: location, os family and 64-bit flag.
+ * <p>
+ * The {@link ImageCacheSupplier} creates a new index whenever its images change, so the index, and the templates
+ * resolved against it, are only valid for the image set it was built from. The lookup tables are built on first use.
+ */
+@Beta
+public final class ImageIndex {
+
+   private final Set<? extends Image> images;
+   private final Cache<List<Object>, Template> resolvedTemplates = CacheBuilder.newBuilder().maximumSize(256)
+         .build();
+
+   private List<Image> ordered;
+   private ListMultimap<Location, Integer> byLocation;
+   private List<Integer> withoutLocation;
+   private ListMultimap<OsFamily, Integer> byOsFamily;
+   private ListMultimap<Boolean, Integer> by64Bit;
+
+   public ImageIndex(Set<? extends Image> images) {
+      this.images = checkNotNull(images, "images");
+   }
+
+   public Set<? extends Image> getImages() {
+      return images;
+   }
+
+   /**
+    * Templates already resolved against these images, keyed by everything that went into resolving them. Callers
+    * are responsible for building keys that capture all inputs of the resolution.
+    */
+   public Cache<List<Object>, Template> getResolvedTemplates() {
+      return resolvedTemplates;
+   }
+
+   /**
+    * Returns a subset of the images that contains every image that can match the given criteria, in the iteration
+    * order of the image set. A null criterion matches anything. The candidates still have to be filtered by the full
+    * image predicate.
+    * <p>
+    * An image matches the location if it has no location, or if its location is the given one, its parent or its
+    * grandparent.
+    */
+   public Iterable<? extends Image> candidates(@Nullable Location location, @Nullable OsFamily osFamily,
+         @Nullable Boolean is64Bit) {
+      buildIndexIfNeeded();
+      List<Integer> candidates = null;
+      if (osFamily != null)
+         candidates = smallest(candidates, byOsFamily.get(osFamily));
+      if (is64Bit != null)
+         candidates = smallest(candidates, by64Bit.get(is64Bit));
+      if (location != null)
+         candidates = smallest(candidates, inLocation(location));
+      if (candidates == null)
+         return images;
+      final List<Image> images = ordered;
+      return Lists.transform(candidates, new Function<Integer, Image>() {
+         @Override
+         public Image apply(Integer position) {
+            return images.get(position);
+         }
+      });
+   }
+
+   private List<Integer> inLocation(Location location) {
+      List<Integer> positions = Lists.newArrayList(withoutLocation);
+      positions.addAll(byLocation.get(location));
+      Location parent = location.getParent();
+      if (parent != null) {
+         positions.addAll(byLocation.get(parent));
+         if (parent.getParent() != null)
+            positions.addAll(byLocation.get(parent.getParent()));
+      }
+      Collections.sort(positions);
+      return positions;
+   }
+
+   private static List<Integer> smallest(@Nullable List<Integer> a, List<Integer> b) {
+      return a == null || b.size() < a.size() ? b : a;
+   }
+
+   private synchronized void buildIndexIfNeeded() {
+      if (ordered != null)
+         return;
+      ImmutableListMultimap.Builder<Location, Integer> locations = ImmutableListMultimap.builder();
+      ImmutableList.Builder<Integer> noLocation = ImmutableList.builder();
+      ImmutableListMultimap.Builder<OsFamily, Integer> families = ImmutableListMultimap.builder();
+      ImmutableListMultimap.Builder<Boolean, Integer> bits = ImmutableListMultimap.builder();
+      List<Image> list = ImmutableList.<Image> copyOf(images);
+      for (int i = 0; i < list.size(); i++) {
+         Image image = list.get(i);
+         if (image.getLocation() != null)
+            locations.put(image.getLocation(), i);
+         else
+            noLocation.add(i);
+         if (image.getOperatingSystem().getFamily() != null)
+            families.put(image.getOperatingSystem().getFamily(), i);
+         bits.put(image.getOperatingSystem().is64Bit(), i);
+      }
+      withoutLocation = noLocation.build();
+      byOsFamily = families.build();
+      by64Bit = bits.build();
+      byLocation = locations.build();
+      ordered = list;
+   }
+
+   @Override
+   public String toString() {
+      return "ImageIndex(" + images.size() + " images)";
+   }
+}
@@ -29,6 +29,7 @@ import static org.testng.Assert.fail;
 import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Provider;
 
@@ -311,6 +312,59 @@ public class TemplateBuilderImplTest {
       verify(defaultTemplate, optionsProvider, templateBuilderProvider, getImageStrategy);
    }
 
+   @SuppressWarnings("unchecked")
+   @Test
+   public void testResolutionIsMemoizedUntilImagesChange() {
+      final AtomicInteger supportsImageCalls = new AtomicInteger();
+      Hardware hardware = new HardwareBuilder().id("hardwareId").supportsImage(new Predicate<Image>() {
+         @Override
+         public boolean apply(Image input) {
+            supportsImageCalls.incrementAndGet();
+            return true;
+         }
+      }).build();
+
+      Supplier<Set<? extends Location>> locations = Suppliers.<Set<? extends Location>> ofInstance(ImmutableSet
+               .<Location> of(region));
+      Supplier<Set<? extends Hardware>> hardwares = Suppliers.<Set<? extends Hardware>> ofInstance(ImmutableSet
+               .<Hardware> of(hardware));
+      Provider<TemplateOptions> optionsProvider = createMock(Provider.class);
+      Provider<TemplateBuilder> templateBuilderProvider = createMock(Provider.class);
+      GetImageStrategy getImageStrategy = createMock(GetImageStrategy.class);
+
+      expect(optionsProvider.get()).andReturn(new TemplateOptions()).times(3);
+
+      replay(optionsProvider, templateBuilderProvider, getImageStrategy);
+
+      ImageCacheSupplier imageCache = new ImageCacheSupplier(Suppliers.<Set<? extends Image>> ofInstance(ImmutableSet
+               .<Image> of(image, image64bit, imageNameAlt)), 60, Atomics.<AuthorizationException> newReference(),
+               Providers.of(getImageStrategy));
+
+      Template first = new TemplateBuilderImpl(locations, imageCache, hardwares, Suppliers.ofInstance(region),
+               optionsProvider, templateBuilderProvider).osArchMatches("X86_64").build();
+      assertEquals(first.getImage(), image64bit);
+      int callsToResolve = supportsImageCalls.get();
+      assertTrue(callsToResolve > 0);
+
+      // the same parameters resolve to the same template without evaluating the images again
+      Template second = new TemplateBuilderImpl(locations, imageCache, hardwares, Suppliers.ofInstance(region),
+               optionsProvider, templateBuilderProvider).osArchMatches("X86_64").build();
+      assertEquals(second.getImage(), image64bit);
+      assertEquals(second.getHardware(), hardware);
+      assertEquals(supportsImageCalls.get(), callsToResolve);
+
+      // registering an image invalidates the memoized resolutions
+      Image newer = ImageBuilder.fromImage(image64bit).id(getProviderFormatId("newerImageId")).name("newerImageName")
+               .build();
+      imageCache.registerImage(newer);
+      Template third = new TemplateBuilderImpl(locations, imageCache, hardwares, Suppliers.ofInstance(region),
+               optionsProvider, templateBuilderProvider).osArchMatches("X86_64").build();
+      assertEquals(third.getImage(), newer);
+      assertTrue(supportsImageCalls.get() > callsToResolve);
+
+      verify(optionsProvider, templateBuilderProvider, getImageStrategy);
+   }
+
    @SuppressWarnings("unchecked")
    @Test
    public void testHardwareWithImageIdPredicateOnlyAcceptsImage() {
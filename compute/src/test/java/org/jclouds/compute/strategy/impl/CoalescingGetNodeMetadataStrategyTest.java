@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy.impl;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+@Test(groups = "unit", singleThreaded = true, testName = "CoalescingGetNodeMetadataStrategyTest")
+public class CoalescingGetNodeMetadataStrategyTest {
+
+   private StubNodes nodes;
+
+   @BeforeMethod
+   public void setUp() {
+      nodes = new StubNodes();
+   }
+
+   public void testSingleNodeIsGotDirectly() {
+      CoalescingGetNodeMetadataStrategy strategy = coalescing(0);
+
+      assertEquals(strategy.getNode("a").getId(), "a");
+      assertEquals(nodes.gets, ImmutableList.of("a"));
+      assertEquals(nodes.lists.size(), 0);
+   }
+
+   public void testNodesPendingDuringATickAreListedTogether() throws Exception {
+      final CoalescingGetNodeMetadataStrategy strategy = coalescing(0);
+      nodes.block("first");
+
+      List<Thread> pollers = Lists.newArrayList();
+      final Map<String, NodeMetadata> results = new ConcurrentHashMap<String, NodeMetadata>();
+      for (final String id : ImmutableList.of("first", "b", "c", "d")) {
+         Thread poller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+               results.put(id, strategy.getNode(id));
+            }
+         });
+         poller.start();
+         pollers.add(poller);
+         if (id.equals("first"))
+            nodes.awaitBlocked();
+      }
+      awaitWaiting(pollers.subList(1, pollers.size()));
+      nodes.unblock();
+      for (Thread poller : pollers)
+         poller.join(TimeUnit.SECONDS.toMillis(10));
+
+      assertEquals(nodes.gets, ImmutableList.of("first"));
+      assertEquals(nodes.lists, ImmutableList.of(ImmutableSet.of("b", "c", "d")));
+      assertEquals(results.keySet(), ImmutableSet.of("first", "b", "c", "d"));
+      for (Map.Entry<String, NodeMetadata> result : results.entrySet())
+         assertEquals(result.getValue().getId(), result.getKey());
+   }
+
+   public void testNodesAreGotOneByOneWhenListingFails() throws Exception {
+      final CoalescingGetNodeMetadataStrategy strategy = coalescing(0);
+      nodes.failLists = true;
+      nodes.block("first");
+
+      Thread first = pollInBackground(strategy, "first");
+      nodes.awaitBlocked();
+      Thread b = pollInBackground(strategy, "b");
+      Thread c = pollInBackground(strategy, "c");
+      awaitWaiting(ImmutableList.of(b, c));
+      nodes.unblock();
+      first.join(TimeUnit.SECONDS.toMillis(10));
+      b.join(TimeUnit.SECONDS.toMillis(10));
+      c.join(TimeUnit.SECONDS.toMillis(10));
+
+      assertEquals(nodes.lists.size(), 1);
+      assertEquals(ImmutableSet.copyOf(nodes.gets), ImmutableSet.of("first", "b", "c"));
+   }
+
+   public void testNodesMissingFromTheListAreGotOneByOne() throws Exception {
+      final CoalescingGetNodeMetadataStrategy strategy = coalescing(0);
+      nodes.missing.add("late");
+      nodes.block("first");
+
+      Thread first = pollInBackground(strategy, "first");
+      nodes.awaitBlocked();
+      final Map<String, NodeMetadata> results = new ConcurrentHashMap<String, NodeMetadata>();
+      Thread late = new Thread(new Runnable() {
+         @Override
+         public void run() {
+            results.put("late", strategy.getNode("late"));
+         }
+      });
+      late.start();
+      Thread b = pollInBackground(strategy, "b");
+      awaitWaiting(ImmutableList.of(late, b));
+      nodes.unblock();
+      first.join(TimeUnit.SECONDS.toMillis(10));
+      late.join(TimeUnit.SECONDS.toMillis(10));
+      b.join(TimeUnit.SECONDS.toMillis(10));
+
+      assertEquals(results.get("late").getId(), "late");
+      assertEquals(nodes.lists, ImmutableList.of(ImmutableSet.of("late", "b")));
+      assertEquals(nodes.gets, ImmutableList.of("first", "late"));
+   }
+
+   public void testNodesAreGotDirectlyUnlessCoalescingIsEnabled() {
+      CoalescingGetNodeMetadataStrategy strategy = new CoalescingGetNodeMetadataStrategy(nodes, nodes, 0);
+
+      assertEquals(strategy.getNode("a").getId(), "a");
+      assertEquals(strategy.getNode("b").getId(), "b");
+      assertEquals(nodes.gets, ImmutableList.of("a", "b"));
+      assertEquals(nodes.lists.size(), 0);
+   }
+
+   public void testWindowGrowsWithPendingNodes() {
+      CoalescingGetNodeMetadataStrategy strategy = new CoalescingGetNodeMetadataStrategy(nodes, nodes, 1000);
+
+      assertEquals(strategy.window(0), 0);
+      assertEquals(strategy.window(1), 0);
+      assertEquals(strategy.window(2), 100);
+      assertEquals(strategy.window(6), 500);
+      assertEquals(strategy.window(11), 1000);
+      assertEquals(strategy.window(500), 1000);
+   }
+
+   private CoalescingGetNodeMetadataStrategy coalescing(long maxWindow) {
+      CoalescingGetNodeMetadataStrategy strategy = new CoalescingGetNodeMetadataStrategy(nodes, nodes, maxWindow);
+      strategy.coalesce = true;
+      return strategy;
+   }
+
+   private static Thread pollInBackground(final CoalescingGetNodeMetadataStrategy strategy, final String id) {
+      Thread poller = new Thread(new Runnable() {
+         @Override
+         public void run() {
+            strategy.getNode(id);
+         }
+      });
+      poller.start();
+      return poller;
+   }
+
+   /**
+    * Waits until the pollers are parked on their nodes, which means they joined the next tick.
+    */
+   private static void awaitWaiting(Iterable<Thread> pollers) throws InterruptedException {
+      for (Thread poller : pollers) {
+         while (poller.getState() != Thread.State.WAITING)
+            Thread.sleep(5);
+      }
+   }
+
+   private static class StubNodes implements GetNodeMetadataStrategy, ListNodesStrategy {
+      private final List<String> gets = new CopyOnWriteArrayList<String>();
+      private final List<Set<String>> lists = new CopyOnWriteArrayList<Set<String>>();
+      private final Set<String> missing = new CopyOnWriteArraySet<String>();
+      private final CountDownLatch blocked = new CountDownLatch(1);
+      private final CountDownLatch released = new CountDownLatch(1);
+      private volatile String blockOn;
+      private volatile boolean failLists;
+
+      void block(String id) {
+         blockOn = id;
+      }
+
+      void awaitBlocked() throws InterruptedException {
+         blocked.await(10, TimeUnit.SECONDS);
+      }
+
+      void unblock() {
+         released.countDown();
+      }
+
+      @Override
+      public NodeMetadata getNode(String id) {
+         gets.add(id);
+         if (id.equals(blockOn)) {
+            blocked.countDown();
+            try {
+               released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+         return node(id);
+      }
+
+      @Override
+      public Iterable<? extends NodeMetadata> listNodesByIds(Iterable<String> ids) {
+         lists.add(ImmutableSet.copyOf(ids));
+         if (failLists)
+            throw new IllegalStateException("not listed yet");
+         ImmutableSet.Builder<NodeMetadata> listed = ImmutableSet.builder();
+         for (String id : ids) {
+            if (!missing.contains(id))
+               listed.add(node(id));
+         }
+         return listed.build();
+      }
+
+      @Override
+      public Iterable<? extends ComputeMetadata> listNodes() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Iterable<? extends NodeMetadata> listDetailsOnNodesMatching(Predicate<? super NodeMetadata> filter) {
+         throw new UnsupportedOperationException();
+      }
+
+      private static NodeMetadata node(String id) {
+         return new NodeMetadataBuilder().id(id).status(Status.PENDING).build();
+      }
+   }
+}
@@ -22,7 +22,11 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import java.io.File;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.jclouds.compute.domain.Image;
@@ -36,8 +40,10 @@ import org.jclouds.rest.AuthorizationException;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
 import com.google.common.util.concurrent.Atomics;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.util.Providers;
@@ -147,4 +153,42 @@ public class ImageCacheSupplierTest {
       assertEquals(imageCache.get().size(), 1);
       assertFalse(any(imageCache.get(), idEquals("foo")));
    }
+
+   @Test
+   public void testStartsFromSnapshotAndRevalidatesInTheBackground() throws Exception {
+      File directory = Files.createTempDir();
+      ImageCatalogSnapshot snapshot = new ImageCatalogSnapshot(new File(directory, "images.json"));
+      snapshot.write(ImmutableSet.of(ImageBuilder.fromImage(image).id("snapshotImage").build()));
+
+      final CountDownLatch listImages = new CountDownLatch(1);
+      Supplier<Set<? extends Image>> imageSupplier = new Supplier<Set<? extends Image>>() {
+         @Override
+         public Set<? extends Image> get() {
+            Uninterruptibles.awaitUninterruptibly(listImages);
+            return images;
+         }
+      };
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         ImageCacheSupplier imageCache = new ImageCacheSupplier(imageSupplier, 60, 0, executor,
+               Atomics.<AuthorizationException> newReference(), Providers.of(getImageStrategy),
+               Optional.of(snapshot));
+
+         // The snapshot is served without waiting for the images to be listed
+         assertTrue(any(imageCache.get(), idEquals("snapshotImage")));
+
+         listImages.countDown();
+         executor.shutdown();
+         assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+         // Once listed, the images replace the snapshot, in memory and on disk
+         assertEquals(imageCache.get(), images);
+         assertEquals(snapshot.read().get(), images);
+      } finally {
+         listImages.countDown();
+         executor.shutdownNow();
+         snapshot.getFile().delete();
+         directory.delete();
+      }
+   }
 }
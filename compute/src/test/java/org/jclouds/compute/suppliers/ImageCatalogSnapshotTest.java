@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.domain.LoginCredentials;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.io.Files;
+
+@Test(groups = "unit", testName = "ImageCatalogSnapshotTest", singleThreaded = true)
+public class ImageCatalogSnapshotTest {
+
+   private File directory;
+
+   @BeforeMethod
+   public void createDirectory() {
+      directory = Files.createTempDir();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void deleteDirectory() {
+      for (File file : directory.listFiles()) {
+         file.delete();
+      }
+      directory.delete();
+   }
+
+   public void testImagesRoundTrip() {
+      Location provider = new LocationBuilder().scope(LocationScope.PROVIDER).id("aws-ec2").description("aws-ec2")
+            .iso3166Codes(ImmutableSet.of("US")).build();
+      Location region = new LocationBuilder().scope(LocationScope.REGION).id("us-east-1").description("us-east-1")
+            .parent(provider).build();
+      OperatingSystem os = OperatingSystem.builder().family(OsFamily.UBUNTU).name("ubuntu").version("16.04")
+            .description("ubuntu-xenial").arch("hvm").is64Bit(true).build();
+      Image image = new ImageBuilder().id("us-east-1/ami-1").providerId("ami-1").name("xenial")
+            .description("ubuntu-xenial").version("20170101").operatingSystem(os).status(Image.Status.AVAILABLE)
+            .location(region).userMetadata(ImmutableMap.of("owner", "099720109477"))
+            .defaultCredentials(LoginCredentials.builder().user("ubuntu").authenticateSudo(true).build()).build();
+
+      ImageCatalogSnapshot snapshot = ImageCatalogSnapshot.inDirectory(directory, "aws-ec2", "identity",
+            ImmutableMap.of("jclouds.endpoint", "https://ec2.us-east-1.amazonaws.com"));
+      snapshot.write(ImmutableSet.of(image));
+
+      Set<? extends Image> read = snapshot.read().get();
+      Image readImage = Iterables.getOnlyElement(read);
+      assertEquals(readImage, image);
+      assertEquals(readImage.getName(), image.getName());
+      assertEquals(readImage.getStatus(), image.getStatus());
+      assertEquals(readImage.getOperatingSystem(), os);
+      assertEquals(readImage.getLocation(), region);
+      assertEquals(readImage.getLocation().getParent(), provider);
+      assertEquals(readImage.getLocation().getParent().getIso3166Codes(), ImmutableSet.of("US"));
+      assertEquals(readImage.getUserMetadata(), image.getUserMetadata());
+      assertEquals(readImage.getDefaultCredentials().getUser(), "ubuntu");
+      assertEquals(readImage.getDefaultCredentials().shouldAuthenticateSudo(), true);
+   }
+
+   public void testSecretsAreNotWritten() throws IOException {
+      Image image = new ImageBuilder().id("ami-1").name("windows").description("windows")
+            .operatingSystem(OperatingSystem.builder().family(OsFamily.WINDOWS).description("windows").build())
+            .status(Image.Status.AVAILABLE)
+            .defaultCredentials(LoginCredentials.builder().user("Administrator").password("hunter2")
+                  .authenticateSudo(true).build()).build();
+
+      ImageCatalogSnapshot snapshot = new ImageCatalogSnapshot(new File(directory, "images.json"));
+      snapshot.write(ImmutableSet.of(image));
+
+      assertFalse(Files.toString(snapshot.getFile(), UTF_8).contains("hunter2"));
+      LoginCredentials credentials = Iterables.getOnlyElement(snapshot.read().get()).getDefaultCredentials();
+      assertEquals(credentials.getUser(), "Administrator");
+      assertTrue(credentials.shouldAuthenticateSudo());
+      assertFalse(credentials.getOptionalPassword().isPresent());
+      assertEquals(directory.list(), new String[] { "images.json" });
+   }
+
+   public void testMissingOrCorruptSnapshotIsAbsent() throws IOException {
+      ImageCatalogSnapshot snapshot = new ImageCatalogSnapshot(new File(directory, "images.json"));
+      assertFalse(snapshot.read().isPresent());
+
+      Files.write("{not json", snapshot.getFile(), UTF_8);
+      assertFalse(snapshot.read().isPresent());
+   }
+
+   public void testSnapshotIsKeyedByProviderIdentityAndConfiguration() {
+      ImmutableMap<String, String> configuration = ImmutableMap.of("jclouds.ec2.ami-owners", "137112412989");
+      File file = ImageCatalogSnapshot.inDirectory(directory, "aws-ec2", "identity", configuration).getFile();
+
+      assertEquals(ImageCatalogSnapshot.inDirectory(directory, "aws-ec2", "identity", configuration).getFile(), file);
+      assertNotEquals(ImageCatalogSnapshot.inDirectory(directory, "aws-ec2", "other", configuration).getFile(), file);
+      assertNotEquals(ImageCatalogSnapshot.inDirectory(directory, "aws-ec2", "identity",
+            ImmutableMap.of("jclouds.ec2.ami-owners", "099720109477")).getFile(), file);
+      assertFalse(file.getName().contains("identity"));
+   }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.Set;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "ImageIndexTest")
+public class ImageIndexTest {
+
+   private final Location provider = new LocationBuilder().scope(LocationScope.PROVIDER).id("aws-ec2")
+         .description("aws-ec2").build();
+   private final Location region = new LocationBuilder().scope(LocationScope.REGION).id("us-east-1")
+         .description("us-east-1").parent(provider).build();
+   private final Location otherRegion = new LocationBuilder().scope(LocationScope.REGION).id("us-west-1")
+         .description("us-west-1").parent(provider).build();
+   private final Location zone = new LocationBuilder().scope(LocationScope.ZONE).id("us-east-1a")
+         .description("us-east-1a").parent(region).build();
+
+   private final Image ubuntuInRegion = image("ubuntuInRegion", OsFamily.UBUNTU, true, region);
+   private final Image centosEverywhere = image("centosEverywhere", OsFamily.CENTOS, true, null);
+   private final Image ubuntuInOtherRegion = image("ubuntuInOtherRegion", OsFamily.UBUNTU, true, otherRegion);
+   private final Image ubuntu32InProvider = image("ubuntu32InProvider", OsFamily.UBUNTU, false, provider);
+   private final Image unrecognizedInZone = image("unrecognizedInZone", null, true, zone);
+
+   private final Set<Image> images = ImmutableSet.of(ubuntuInRegion, centosEverywhere, ubuntuInOtherRegion,
+         ubuntu32InProvider, unrecognizedInZone);
+
+   public void testNoCriteriaReturnsAllImages() {
+      ImageIndex index = new ImageIndex(images);
+      assertSame(index.candidates(null, null, null), images);
+   }
+
+   public void testLocationIncludesParentsAndImagesWithoutLocation() {
+      ImageIndex index = new ImageIndex(images);
+      assertEquals(ImmutableList.copyOf(index.candidates(zone, null, null)),
+            ImmutableList.of(ubuntuInRegion, centosEverywhere, ubuntu32InProvider, unrecognizedInZone));
+      assertEquals(ImmutableList.copyOf(index.candidates(region, null, null)),
+            ImmutableList.of(ubuntuInRegion, centosEverywhere, ubuntu32InProvider));
+   }
+
+   public void testUsesTheMostSelectiveCriterionInImageOrder() {
+      ImageIndex index = new ImageIndex(images);
+      assertEquals(ImmutableList.copyOf(index.candidates(null, OsFamily.CENTOS, true)),
+            ImmutableList.of(centosEverywhere));
+      assertEquals(ImmutableList.copyOf(index.candidates(otherRegion, OsFamily.UBUNTU, false)),
+            ImmutableList.of(ubuntu32InProvider));
+      assertEquals(ImmutableList.copyOf(index.candidates(null, OsFamily.WINDOWS, null)), ImmutableList.of());
+   }
+
+   private static Image image(String id, OsFamily family, boolean is64Bit, Location location) {
+      OperatingSystem os = OperatingSystem.builder().family(family).description(id).is64Bit(is64Bit).build();
+      return new ImageBuilder().id(id).providerId(id).name(id).operatingSystem(os).status(Image.Status.AVAILABLE)
+            .location(location).build();
+   }
+}
@@ -30,6 +30,15 @@ public final class Constants {
     */
    public static final String PROPERTY_USER_THREADS = "jclouds.user-threads";
 
+   /**
+    * Boolean property. default (false)
+    * <p/>
+    * Whether the user executor runs each task on a new virtual thread instead of on a pool of
+    * {@link #PROPERTY_USER_THREADS} threads, so that the number of blocking calls in flight is not bounded by the pool.
+    * Virtual threads need Java 21; on older JVMs the pool is used.
+    */
+   public static final String PROPERTY_USER_VIRTUAL_THREADS = "jclouds.user-threads.virtual";
+
    /**
     * Integer property. default (20)
     * <p/>
@@ -97,6 +106,15 @@ public final class Constants {
     */
    public static final String PROPERTY_SESSION_INTERVAL = "jclouds.session-interval";
 
+   /**
+    * Long property. default (0)
+    * <p/>
+    * How many seconds past {@link #PROPERTY_SESSION_INTERVAL} cached location, image and hardware lists may still be served
+    * while they are refreshed in the background. 0 means callers wait for the refresh once the session interval has
+    * elapsed.
+    */
+   public static final String PROPERTY_SESSION_STALE_INTERVAL = "jclouds.session-stale-interval";
+
    /**
     * Boolean property.
     * <p/>
@@ -357,6 +375,11 @@ public final class Constants {
     */
    public static final String PROPERTY_MAX_PARALLEL_DELETES = "jclouds.max-parallel-deletes";
 
+   /**
+    * The maximum number of blob metadata requests happening in parallel while listing a container with details.
+    */
+   public static final String PROPERTY_MAX_PARALLEL_METADATA_FETCHES = "jclouds.max-parallel-metadata-fetches";
+
    /** Comma-separated list of methods considered idempotent for purposes of retries.  By default jclouds uses DELETE,GET,HEAD,OPTIONS,PUT. */
    public static final String PROPERTY_IDEMPOTENT_METHODS = "jclouds.idempotent-methods";
    
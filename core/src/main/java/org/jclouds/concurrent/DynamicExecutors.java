@@ -16,11 +16,15 @@
  */
 package org.jclouds.concurrent;
 
+import java.lang.reflect.Method;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.base.Optional;
+
 /**
  * Factory and utility methods for handling {@link DynamicThreadPoolExecutor}.
  */
@@ -50,6 +54,26 @@ public class DynamicExecutors {
       return executor;
    }
 
+   /**
+    * Creates an executor that runs each task on a new virtual thread, named with the given prefix followed by a
+    * counter. Virtual threads are available from Java 21, so they are looked up reflectively.
+    * 
+    * @return the executor, or absent if the JVM does not support virtual threads
+    */
+   public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor(String namePrefix) {
+      try {
+         Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+         Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+         builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+         ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+         Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+         return Optional.of((ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory));
+      } catch (Exception e) {
+         // older JVMs, or preview features disabled on Java 19 and 20
+         return Optional.absent();
+      }
+   }
+
    /**
     * Cannot instantiate.
     */
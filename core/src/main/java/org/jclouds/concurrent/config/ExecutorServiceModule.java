@@ -18,7 +18,9 @@ package org.jclouds.concurrent.config;
 
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.Constants.PROPERTY_USER_VIRTUAL_THREADS;
 import static org.jclouds.concurrent.DynamicExecutors.newScalingThreadPool;
+import static org.jclouds.concurrent.DynamicExecutors.newVirtualThreadPerTaskExecutor;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -34,6 +36,7 @@ import javax.inject.Singleton;
 import org.jclouds.lifecycle.Closer;
 import org.jclouds.logging.Logger;
 
+import com.google.common.base.Optional;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.SimpleTimeLimiter;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -72,6 +75,31 @@ public class ExecutorServiceModule extends AbstractModule {
       }
    }
 
+   /**
+    * Creates the virtual thread executor when {@link org.jclouds.Constants#PROPERTY_USER_VIRTUAL_THREADS} is set and
+    * the JVM supports it.
+    */
+   static final class VirtualThreads {
+      @Resource
+      private Logger logger = Logger.NULL;
+
+      @com.google.inject.Inject(optional = true)
+      @Named(PROPERTY_USER_VIRTUAL_THREADS)
+      private boolean enabled = false;
+
+      Optional<ListeningExecutorService> newExecutor(String namePrefix) {
+         if (!enabled)
+            return Optional.absent();
+         Optional<ExecutorService> executor = newVirtualThreadPerTaskExecutor(namePrefix);
+         if (!executor.isPresent()) {
+            logger.warn("%s is set, but this JVM does not support virtual threads; using a thread pool",
+                  PROPERTY_USER_VIRTUAL_THREADS);
+            return Optional.absent();
+         }
+         return Optional.of(listeningDecorator(executor.get()));
+      }
+   }
+
    final ListeningExecutorService userExecutorFromConstructor;
 
    public ExecutorServiceModule() {
@@ -119,10 +147,14 @@ public class ExecutorServiceModule extends AbstractModule {
    @Provides
    @Singleton
    @Named(PROPERTY_USER_THREADS)
-   final ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count, Closer closer) { // NO_UCD
+   final ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count,
+         VirtualThreads virtualThreads, Closer closer) { // NO_UCD
       if (userExecutorFromConstructor != null)
          return userExecutorFromConstructor;
-      return shutdownOnClose(WithSubmissionTrace.wrap(newThreadPoolNamed("user thread %d", count)), closer);
+      Optional<ListeningExecutorService> virtual = virtualThreads.newExecutor("user thread ");
+      ListeningExecutorService executor = virtual.isPresent() ? virtual.get() : newThreadPoolNamed("user thread %d",
+            count);
+      return shutdownOnClose(WithSubmissionTrace.wrap(executor), closer);
    }
 
    @Provides
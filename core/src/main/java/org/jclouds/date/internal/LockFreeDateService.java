@@ -0,0 +1,488 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.date.internal;
+
+import static org.jclouds.date.internal.DateUtils.findTZ;
+import static org.jclouds.date.internal.DateUtils.trimTZ;
+import static org.jclouds.date.internal.DateUtils.trimToMillis;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.SimpleTimeZone;
+
+import javax.inject.Singleton;
+
+import org.jclouds.date.DateService;
+
+/**
+ * {@link DateService} that formats and parses the common UTC forms with integer arithmetic, and never shares mutable
+ * state between threads.
+ * <p/>
+ * Dates in the proleptic Gregorian range 1583 to 9999, and input in the exact shape each format produces, take the
+ * fast path. Anything else, such as lenient field values or unusual time zone designators, is handed to a
+ * {@link SimpleDateFormat} owned by the calling thread, so results are the same as
+ * {@link SimpleDateFormatDateService} for every input.
+ */
+@Singleton
+public class LockFreeDateService implements DateService {
+
+   private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat" };
+   private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct",
+         "Nov", "Dec" };
+
+   private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+   // before this, SimpleDateFormat uses the julian calendar
+   private static final long MIN_FAST_MILLIS = daysFromCivil(1583, 1, 1) * MILLIS_PER_DAY;
+   private static final long MAX_FAST_MILLIS = daysFromCivil(10000, 1, 1) * MILLIS_PER_DAY;
+
+   private static final ThreadLocal<SimpleDateFormat> iso8601SecondsSimpleDateFormat = gmt("yyyy-MM-dd'T'HH:mm:ssZ");
+   private static final ThreadLocal<SimpleDateFormat> iso8601SimpleDateFormat = gmt("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+   private static final ThreadLocal<SimpleDateFormat> rfc822SimpleDateFormat = gmt("EEE, dd MMM yyyy HH:mm:ss 'GMT'");
+   private static final ThreadLocal<SimpleDateFormat> cSimpleDateFormat = gmt("EEE MMM dd HH:mm:ss Z yyyy");
+   // uses the default time zone, see SimpleDateFormatDateService
+   private static final ThreadLocal<SimpleDateFormat> rfc1123SimpleDateFormat = new ThreadLocal<SimpleDateFormat>() {
+      @Override
+      protected SimpleDateFormat initialValue() {
+         return new SimpleDateFormat("EEE, dd MMM yyyyy HH:mm:ss Z", Locale.US);
+      }
+   };
+
+   private static ThreadLocal<SimpleDateFormat> gmt(final String pattern) {
+      return new ThreadLocal<SimpleDateFormat>() {
+         @Override
+         protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+            format.setTimeZone(new SimpleTimeZone(0, "GMT"));
+            return format;
+         }
+      };
+   }
+
+   @Override
+   public final String cDateFormat(Date date) {
+      return cDateFormat(date.getTime());
+   }
+
+   @Override
+   public final String cDateFormat() {
+      return cDateFormat(System.currentTimeMillis());
+   }
+
+   private static String cDateFormat(long millis) {
+      if (!isFast(millis))
+         return cSimpleDateFormat.get().format(new Date(millis));
+      // EEE MMM dd HH:mm:ss +0000 yyyy
+      char[] buf = new char[30];
+      int days = (int) floorDiv(millis, MILLIS_PER_DAY);
+      int ymd = civilFromDays(days);
+      append(buf, 0, DAYS[dayOfWeek(days)]);
+      buf[3] = ' ';
+      append(buf, 4, MONTHS[ymd / 100 % 100 - 1]);
+      buf[7] = ' ';
+      appendDigits(buf, 8, ymd % 100, 2);
+      buf[10] = ' ';
+      appendTime(buf, 11, millis);
+      append(buf, 19, " +0000 ");
+      appendDigits(buf, 26, ymd / 10000, 4);
+      return new String(buf);
+   }
+
+   @Override
+   public final Date cDateParse(String toParse) {
+      // EEE MMM dd HH:mm:ss +hhmm yyyy
+      if (toParse.length() == 30 && toParse.charAt(3) == ' ' && toParse.charAt(7) == ' '
+            && toParse.charAt(10) == ' ' && toParse.charAt(19) == ' ' && toParse.charAt(25) == ' ') {
+         int offset = parseOffset(toParse, 20, toParse.length() - 5);
+         Date date = offset == Integer.MIN_VALUE ? null : parseFields(toParse, 0, digits(toParse, 26, 4),
+               month(toParse, 4), digits(toParse, 8, 2), 11, -1, offset);
+         if (date != null)
+            return date;
+      }
+      return parse(cSimpleDateFormat.get(), toParse);
+   }
+
+   @Override
+   public final String rfc822DateFormat(Date date) {
+      return rfc822DateFormat(date.getTime());
+   }
+
+   @Override
+   public final String rfc822DateFormat() {
+      return rfc822DateFormat(System.currentTimeMillis());
+   }
+
+   private static String rfc822DateFormat(long millis) {
+      if (!isFast(millis))
+         return rfc822SimpleDateFormat.get().format(new Date(millis));
+      // EEE, dd MMM yyyy HH:mm:ss GMT
+      char[] buf = new char[29];
+      int days = (int) floorDiv(millis, MILLIS_PER_DAY);
+      int ymd = civilFromDays(days);
+      append(buf, 0, DAYS[dayOfWeek(days)]);
+      buf[3] = ',';
+      buf[4] = ' ';
+      appendDigits(buf, 5, ymd % 100, 2);
+      buf[7] = ' ';
+      append(buf, 8, MONTHS[ymd / 100 % 100 - 1]);
+      buf[11] = ' ';
+      appendDigits(buf, 12, ymd / 10000, 4);
+      buf[16] = ' ';
+      appendTime(buf, 17, millis);
+      append(buf, 25, " GMT");
+      return new String(buf);
+   }
+
+   @Override
+   public final Date rfc822DateParse(String toParse) {
+      if (toParse.length() == 29 && toParse.endsWith(" GMT")) {
+         Date date = parseRfc1123Fields(toParse, 0);
+         if (date != null)
+            return date;
+      }
+      return parse(rfc822SimpleDateFormat.get(), toParse);
+   }
+
+   @Override
+   public final String iso8601SecondsDateFormat() {
+      return iso8601SecondsDateFormat(System.currentTimeMillis());
+   }
+
+   @Override
+   public final String iso8601SecondsDateFormat(Date date) {
+      return iso8601SecondsDateFormat(date.getTime());
+   }
+
+   private static String iso8601SecondsDateFormat(long millis) {
+      if (!isFast(millis))
+         return trimUTC(iso8601SecondsSimpleDateFormat.get().format(new Date(millis)));
+      // yyyy-MM-ddTHH:mm:ssZ
+      char[] buf = new char[20];
+      appendDate(buf, millis);
+      buf[10] = 'T';
+      appendTime(buf, 11, millis);
+      buf[19] = 'Z';
+      return new String(buf);
+   }
+
+   @Override
+   public final String iso8601DateFormat(Date date) {
+      return iso8601DateFormat(date.getTime());
+   }
+
+   @Override
+   public final String iso8601DateFormat() {
+      return iso8601DateFormat(System.currentTimeMillis());
+   }
+
+   private static String iso8601DateFormat(long millis) {
+      if (!isFast(millis))
+         return trimUTC(iso8601SimpleDateFormat.get().format(new Date(millis)));
+      // yyyy-MM-ddTHH:mm:ss.SSSZ
+      char[] buf = new char[24];
+      appendDate(buf, millis);
+      buf[10] = 'T';
+      appendTime(buf, 11, millis);
+      buf[19] = '.';
+      appendDigits(buf, 20, (int) floorMod(millis, 1000), 3);
+      buf[23] = 'Z';
+      return new String(buf);
+   }
+
+   @Override
+   public final Date iso8601DateParse(String toParse) {
+      if (toParse.length() < 10)
+         throw new IllegalArgumentException("incorrect date format " + toParse);
+      Date date = parseIso8601(toParse, true);
+      return date != null ? date : parse(iso8601SimpleDateFormat.get(), normalizeIso8601(toParse));
+   }
+
+   @Override
+   public final Date iso8601SecondsDateParse(String toParse) {
+      if (toParse.length() < 10)
+         throw new IllegalArgumentException("incorrect date format " + toParse);
+      Date date = parseIso8601(toParse, false);
+      return date != null ? date : parse(iso8601SecondsSimpleDateFormat.get(), normalizeIso8601(toParse));
+   }
+
+   @Override
+   public Date iso8601DateOrSecondsDateParse(String toParse) {
+      try {
+         return iso8601DateParse(toParse);
+      } catch (IllegalArgumentException orig) {
+         try {
+            return iso8601SecondsDateParse(toParse);
+         } catch (IllegalArgumentException ignored) {
+            throw orig;
+         }
+      }
+   }
+
+   @Override
+   public final String rfc1123DateFormat(Date date) {
+      return rfc1123SimpleDateFormat.get().format(date);
+   }
+
+   @Override
+   public final String rfc1123DateFormat() {
+      return rfc1123DateFormat(new Date());
+   }
+
+   @Override
+   public final Date rfc1123DateParse(String toParse) {
+      Date date = null;
+      if (toParse.length() == 29 && toParse.endsWith(" GMT")) {
+         date = parseRfc1123Fields(toParse, 0);
+      } else if (toParse.length() == 31 && toParse.charAt(25) == ' ') {
+         int offset = parseOffset(toParse, 26, toParse.length());
+         if (offset != Integer.MIN_VALUE)
+            date = parseRfc1123Fields(toParse, offset);
+      }
+      return date != null ? date : parse(rfc1123SimpleDateFormat.get(), toParse);
+   }
+
+   /**
+    * Parses {@code EEE, dd MMM yyyy HH:mm:ss}, followed by a zone at {@code offset} minutes east of UTC.
+    */
+   private static Date parseRfc1123Fields(String toParse, int offset) {
+      if (toParse.charAt(3) != ',' || toParse.charAt(4) != ' ' || toParse.charAt(7) != ' '
+            || toParse.charAt(11) != ' ' || toParse.charAt(16) != ' ')
+         return null;
+      return parseFields(toParse, 0, digits(toParse, 12, 4), month(toParse, 8), digits(toParse, 5, 2), 17, -1,
+            offset);
+   }
+
+   /**
+    * Parses {@code yyyy-MM-dd'T'HH:mm:ss}, with a fraction of at least three digits when {@code millis} is set, and
+    * an optional zone designator. Returns null when the input is in any other shape.
+    */
+   private static Date parseIso8601(String toParse, boolean millis) {
+      int length = toParse.length();
+      if (length < 19 || toParse.charAt(4) != '-' || toParse.charAt(7) != '-'
+            || (toParse.charAt(10) != 'T' && toParse.charAt(10) != ' '))
+         return null;
+      int index = 19;
+      int fraction = -1;
+      if (millis) {
+         if (index == length || toParse.charAt(index) != '.')
+            return null;
+         fraction = digits(toParse, index + 1, 3);
+         if (fraction < 0)
+            return null;
+         index += 4;
+         while (index < length && isDigit(toParse.charAt(index)))
+            index++;
+      }
+      int offset = 0;
+      if (index < length && !(index == length - 1 && toParse.charAt(index) == 'Z')) {
+         offset = parseOffset(toParse, index, length);
+         if (offset == Integer.MIN_VALUE)
+            return null;
+      }
+      return parseFields(toParse, -1, digits(toParse, 0, 4), digits(toParse, 5, 2), digits(toParse, 8, 2), 11,
+            fraction, offset);
+   }
+
+   /**
+    * Builds the date from already located fields, checking they are in range. When {@code dayOfWeek} is not negative,
+    * the day name at that index must also agree with the date.
+    */
+   private static Date parseFields(String toParse, int dayOfWeek, int year, int month, int day, int time,
+         int fraction, int offset) {
+      if (year < 1583 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month))
+         return null;
+      if (toParse.charAt(time + 2) != ':' || toParse.charAt(time + 5) != ':')
+         return null;
+      int hour = digits(toParse, time, 2);
+      int minute = digits(toParse, time + 3, 2);
+      int second = digits(toParse, time + 6, 2);
+      if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+         return null;
+      long days = daysFromCivil(year, month, day);
+      if (dayOfWeek >= 0 && !toParse.startsWith(DAYS[dayOfWeek((int) days)], dayOfWeek))
+         return null;
+      long millis = days * MILLIS_PER_DAY + ((hour * 60L + minute - offset) * 60 + second) * 1000
+            + Math.max(fraction, 0);
+      return isFast(millis) ? new Date(millis) : null;
+   }
+
+   /**
+    * Returns the offset in minutes east of UTC of a {@code +hh}, {@code +hhmm} or {@code +hh:mm} designator spanning
+    * {@code start} to {@code end}, or {@link Integer#MIN_VALUE} if it is in any other shape.
+    */
+   private static int parseOffset(String toParse, int start, int end) {
+      int length = end - start;
+      if (length != 3 && length != 5 && length != 6)
+         return Integer.MIN_VALUE;
+      char sign = toParse.charAt(start);
+      if (sign != '+' && sign != '-')
+         return Integer.MIN_VALUE;
+      int hours = digits(toParse, start + 1, 2);
+      int minutes = 0;
+      if (length == 5) {
+         minutes = digits(toParse, start + 3, 2);
+      } else if (length == 6) {
+         minutes = toParse.charAt(start + 3) == ':' ? digits(toParse, start + 4, 2) : -1;
+      }
+      if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59)
+         return Integer.MIN_VALUE;
+      int offset = hours * 60 + minutes;
+      return sign == '-' ? -offset : offset;
+   }
+
+   private static int month(String toParse, int index) {
+      for (int i = 0; i < MONTHS.length; i++) {
+         if (toParse.startsWith(MONTHS[i], index))
+            return i + 1;
+      }
+      return -1;
+   }
+
+   private static int digits(String toParse, int index, int count) {
+      if (index + count > toParse.length())
+         return -1;
+      int value = 0;
+      for (int i = index; i < index + count; i++) {
+         char c = toParse.charAt(i);
+         if (!isDigit(c))
+            return -1;
+         value = value * 10 + c - '0';
+      }
+      return value;
+   }
+
+   private static boolean isDigit(char c) {
+      return c >= '0' && c <= '9';
+   }
+
+   private static String normalizeIso8601(String toParse) {
+      String tz = findTZ(toParse);
+      toParse = trimToMillis(toParse);
+      toParse = trimTZ(toParse);
+      toParse += tz;
+      if (toParse.charAt(10) == ' ')
+         toParse = new StringBuilder(toParse).replace(10, 11, "T").toString();
+      return toParse;
+   }
+
+   private static String trimUTC(String formatted) {
+      return findTZ(formatted).equals("+0000") ? trimTZ(formatted) + "Z" : formatted;
+   }
+
+   private static Date parse(SimpleDateFormat format, String toParse) {
+      try {
+         return format.parse(toParse);
+      } catch (ParseException pe) {
+         throw new IllegalArgumentException("Error parsing data at " + pe.getErrorOffset(), pe);
+      }
+   }
+
+   private static boolean isFast(long millis) {
+      return millis >= MIN_FAST_MILLIS && millis < MAX_FAST_MILLIS;
+   }
+
+   /** writes {@code yyyy-MM-dd} at the start of the buffer */
+   private static void appendDate(char[] buf, long millis) {
+      int ymd = civilFromDays((int) floorDiv(millis, MILLIS_PER_DAY));
+      appendDigits(buf, 0, ymd / 10000, 4);
+      buf[4] = '-';
+      appendDigits(buf, 5, ymd / 100 % 100, 2);
+      buf[7] = '-';
+      appendDigits(buf, 8, ymd % 100, 2);
+   }
+
+   /** writes {@code HH:mm:ss} at {@code index} */
+   private static void appendTime(char[] buf, int index, long millis) {
+      int seconds = (int) (floorMod(millis, MILLIS_PER_DAY) / 1000);
+      appendDigits(buf, index, seconds / 3600, 2);
+      buf[index + 2] = ':';
+      appendDigits(buf, index + 3, seconds / 60 % 60, 2);
+      buf[index + 5] = ':';
+      appendDigits(buf, index + 6, seconds % 60, 2);
+   }
+
+   private static void appendDigits(char[] buf, int index, int value, int count) {
+      for (int i = index + count - 1; i >= index; i--) {
+         buf[i] = (char) ('0' + value % 10);
+         value /= 10;
+      }
+   }
+
+   private static void append(char[] buf, int index, String value) {
+      value.getChars(0, value.length(), buf, index);
+   }
+
+   private static long floorDiv(long x, long y) {
+      long quotient = x / y;
+      return (x % y != 0 && (x ^ y) < 0) ? quotient - 1 : quotient;
+   }
+
+   private static long floorMod(long x, long y) {
+      return x - floorDiv(x, y) * y;
+   }
+
+   private static int dayOfWeek(int days) {
+      // 1970-01-01 was a thursday
+      int dayOfWeek = (days + 4) % 7;
+      return dayOfWeek < 0 ? dayOfWeek + 7 : dayOfWeek;
+   }
+
+   private static int daysInMonth(int year, int month) {
+      switch (month) {
+         case 2:
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+         case 4:
+         case 6:
+         case 9:
+         case 11:
+            return 30;
+         default:
+            return 31;
+      }
+   }
+
+   /**
+    * Days since 1970-01-01 of a date in the proleptic Gregorian calendar.
+    *
+    * @see <a href="http://howardhinnant.github.io/date_algorithms.html">chrono-compatible date algorithms</a>
+    */
+   static long daysFromCivil(int year, int month, int day) {
+      int y = month <= 2 ? year - 1 : year;
+      int era = (y >= 0 ? y : y - 399) / 400;
+      int yearOfEra = y - era * 400;
+      int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+      int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+      return era * 146097L + dayOfEra - 719468;
+   }
+
+   /**
+    * The inverse of {@link #daysFromCivil}, packed as {@code yyyyMMdd}.
+    */
+   static int civilFromDays(int days) {
+      int z = days + 719468;
+      int era = (z >= 0 ? z : z - 146096) / 146097;
+      int dayOfEra = z - era * 146097;
+      int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+      int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+      int mp = (5 * dayOfYear + 2) / 153;
+      int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+      int month = mp < 10 ? mp + 3 : mp - 9;
+      int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+      return year * 10000 + month * 100 + day;
+   }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http;
+
+import static com.google.common.base.Objects.equal;
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+
+/**
+ * Receives an event for every attempt the {@link HttpCommandExecutorService} makes to send a command, so that
+ * latency, retries and transferred bytes can be observed without enabling wire logging.
+ * <p/>
+ * Every {@link #requestStarted} is followed by exactly one {@link #responseReceived} or {@link #requestFailed} for
+ * the same request. {@link #requestRetried} is sent when that attempt is going to be repeated. Implementations are
+ * called on the thread executing the command and must be thread-safe and cheap.
+ * <p/>
+ * Metrics are off by default. To turn them on, bind this interface in a module passed to the context, for example to
+ * {@link org.jclouds.http.internal.InMemoryHttpMetrics}.
+ */
+@Beta
+public interface HttpMetrics {
+
+   /**
+    * The request, after filtering, is about to be sent.
+    */
+   void requestStarted(Tags tags, HttpRequest request);
+
+   /**
+    * The response status and headers were received. The payload may not have been read yet.
+    *
+    * @param nanos
+    *           elapsed time since the matching {@link #requestStarted}
+    */
+   void responseReceived(Tags tags, HttpRequest request, HttpResponse response, long nanos);
+
+   /**
+    * The request could not be sent or no response was received.
+    *
+    * @param nanos
+    *           elapsed time since the matching {@link #requestStarted}
+    */
+   void requestFailed(Tags tags, HttpRequest request, Exception exception, long nanos);
+
+   /**
+    * The last attempt failed or was redirected, and the command will be sent again.
+    */
+   void requestRetried(Tags tags, HttpRequest request);
+
+   /**
+    * Ignores all events.
+    */
+   HttpMetrics NONE = new HttpMetrics() {
+      @Override
+      public void requestStarted(Tags tags, HttpRequest request) {
+      }
+
+      @Override
+      public void responseReceived(Tags tags, HttpRequest request, HttpResponse response, long nanos) {
+      }
+
+      @Override
+      public void requestFailed(Tags tags, HttpRequest request, Exception exception, long nanos) {
+      }
+
+      @Override
+      public void requestRetried(Tags tags, HttpRequest request) {
+      }
+
+      @Override
+      public String toString() {
+         return "NONE";
+      }
+   };
+
+   /**
+    * Identifies the calls an event belongs to.
+    */
+   final class Tags {
+      private final String provider;
+      private final String method;
+      private final String commandName;
+
+      public Tags(String provider, String method, String commandName) {
+         this.provider = checkNotNull(provider, "provider");
+         this.method = checkNotNull(method, "method");
+         this.commandName = checkNotNull(commandName, "commandName");
+      }
+
+      /**
+       * id of the provider or api of the context, or {@code unknown} outside of a context.
+       */
+      public String getProvider() {
+         return provider;
+      }
+
+      /**
+       * the http method, such as {@code GET}
+       */
+      public String getMethod() {
+         return method;
+      }
+
+      /**
+       * the command name also used to configure timeouts, such as {@code PutObject}, or {@code unknown} for
+       * requests not created from an annotated api.
+       */
+      public String getCommandName() {
+         return commandName;
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(provider, method, commandName);
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj)
+            return true;
+         if (obj == null || getClass() != obj.getClass())
+            return false;
+         Tags that = Tags.class.cast(obj);
+         return equal(this.provider, that.provider) && equal(this.method, that.method)
+               && equal(this.commandName, that.commandName);
+      }
+
+      @Override
+      public String toString() {
+         return toStringHelper(this).add("provider", provider).add("method", method)
+               .add("commandName", commandName).toString();
+      }
+   }
+}
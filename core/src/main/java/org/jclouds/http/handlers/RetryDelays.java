@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.handlers;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Delays imposed by retry handlers before a command is sent again.
+ * <p/>
+ * Handlers call {@link #sleep(long)} instead of {@link Thread#sleep(long)}. Asynchronous executors consult the
+ * handlers between {@link #startCollecting()} and {@link #stopCollecting()}, so that the delay is added up instead of
+ * blocking the thread, and then schedule the retry after it.
+ */
+@Beta
+public final class RetryDelays {
+
+   private static final ThreadLocal<long[]> COLLECTED = new ThreadLocal<long[]>();
+
+   /**
+    * Sleeps for the given delay, or adds it to the delay being collected on this thread.
+    */
+   public static void sleep(long millis) throws InterruptedException {
+      long[] collected = COLLECTED.get();
+      if (collected != null) {
+         collected[0] += millis;
+      } else {
+         Thread.sleep(millis);
+      }
+   }
+
+   public static void startCollecting() {
+      COLLECTED.set(new long[1]);
+   }
+
+   /**
+    * @return the delay, in milliseconds, passed to {@link #sleep(long)} since {@link #startCollecting()}
+    */
+   public static long stopCollecting() {
+      long[] collected = COLLECTED.get();
+      COLLECTED.remove();
+      return collected == null ? 0 : collected[0];
+   }
+
+   private RetryDelays() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
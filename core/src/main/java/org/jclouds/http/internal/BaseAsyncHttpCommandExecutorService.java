@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.base.Throwables.propagateIfInstanceOf;
+import static org.jclouds.http.HttpUtils.checkRequestHasContentLengthOrChunkedEncoding;
+import static org.jclouds.http.HttpUtils.wirePayloadIfEnabled;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import org.jclouds.http.AsyncHttpCommandExecutorService;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpMetrics;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.DelegatingErrorHandler;
+import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.handlers.RetryDelays;
+import org.jclouds.io.ContentMetadataCodec;
+
+import com.google.common.annotations.Beta;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Base class of drivers built on a non-blocking http client.
+ * <p/>
+ * {@link #submit(HttpCommand)} goes through the same filters, logging, metrics, retry and error handlers as
+ * {@link #invoke(HttpCommand)}. Handlers run on the callback executor, since they may read the response body, and
+ * the delay they ask for is scheduled with {@link #schedule(Runnable, long)} instead of slept.
+ */
+@Beta
+public abstract class BaseAsyncHttpCommandExecutorService<Q> extends BaseHttpCommandExecutorService<Q> implements
+      AsyncHttpCommandExecutorService {
+
+   private final Executor callbackExecutor;
+
+   protected BaseAsyncHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+         DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+         DelegatingErrorHandler errorHandler, HttpWire wire, String idempotentMethods, Executor callbackExecutor) {
+      super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods);
+      this.callbackExecutor = checkNotNull(callbackExecutor, "callbackExecutor");
+   }
+
+   /**
+    * Sends the request without blocking. The future completes once the response status and headers are received;
+    * the payload of the response may still be streaming.
+    */
+   protected abstract ListenableFuture<HttpResponse> invokeAsync(Q nativeRequest);
+
+   /**
+    * Runs the task once the delay has elapsed, without holding a thread meanwhile. The task must not be run on a
+    * thread that performs I/O, so implementations may hand it to any executor.
+    */
+   protected abstract void schedule(Runnable task, long delayMillis);
+
+   @Override
+   protected HttpResponse invoke(Q nativeRequest) throws IOException, InterruptedException {
+      try {
+         return invokeAsync(nativeRequest).get();
+      } catch (ExecutionException e) {
+         propagateIfInstanceOf(e.getCause(), IOException.class);
+         throw propagate(e.getCause());
+      }
+   }
+
+   @Override
+   public ListenableFuture<HttpResponse> submit(HttpCommand command) {
+      SettableFuture<HttpResponse> result = SettableFuture.create();
+      new Attempt(command, result).run();
+      return result;
+   }
+
+   /**
+    * Sends the current request of the command once, and decides what to do with the outcome.
+    */
+   private final class Attempt implements Runnable, FutureCallback<HttpResponse> {
+      private final HttpCommand command;
+      private final SettableFuture<HttpResponse> result;
+      private HttpRequest request;
+      private HttpMetrics.Tags tags;
+      private Q nativeRequest;
+      private long start;
+
+      private Attempt(HttpCommand command, SettableFuture<HttpResponse> result) {
+         this.command = command;
+         this.result = result;
+      }
+
+      @Override
+      public void run() {
+         request = command.getCurrentRequest();
+         tags = metrics == HttpMetrics.NONE ? null : tags(request);
+         boolean pending = false;
+         try {
+            for (HttpRequestFilter filter : request.getFilters()) {
+               request = filter.filter(request);
+            }
+            checkRequestHasContentLengthOrChunkedEncoding(request,
+                  "After filtering, the request has neither chunked encoding nor content length: " + request);
+            logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
+            wirePayloadIfEnabled(wire, request);
+            utils.logRequest(headerLog, request, ">>");
+            metrics.requestStarted(tags, request);
+            pending = true;
+            start = System.nanoTime();
+            nativeRequest = convert(request);
+         } catch (Exception e) {
+            if (pending)
+               metrics.requestFailed(tags, request, e, System.nanoTime() - start);
+            cleanup(nativeRequest);
+            retryOrFail(e);
+            return;
+         }
+         Futures.addCallback(invokeAsync(nativeRequest), this, callbackExecutor);
+      }
+
+      @Override
+      public void onSuccess(HttpResponse response) {
+         metrics.responseReceived(tags, request, response, System.nanoTime() - start);
+         try {
+            logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
+            utils.logResponse(headerLog, response, "<<");
+            if (response.getPayload() != null && wire.enabled())
+               wire.input(response);
+            if (response.getStatusCode() >= 300) {
+               boolean retry;
+               long delay;
+               RetryDelays.startCollecting();
+               try {
+                  retry = shouldContinue(command, response);
+               } finally {
+                  delay = RetryDelays.stopCollecting();
+               }
+               if (retry) {
+                  retryAfter(delay);
+                  return;
+               }
+            }
+         } catch (Exception e) {
+            retryOrFail(e);
+            return;
+         }
+         if (command.getException() != null)
+            result.setException(command.getException());
+         else
+            result.set(response);
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+         metrics.requestFailed(tags, request, t instanceof Exception ? (Exception) t : new ExecutionException(t),
+               System.nanoTime() - start);
+         cleanup(nativeRequest);
+         if (t instanceof Exception) {
+            retryOrFail((Exception) t);
+         } else {
+            result.setException(t);
+         }
+      }
+
+      private void retryOrFail(Exception e) {
+         IOException ioe = getFirstThrowableOfType(e, IOException.class);
+         if (ioe != null) {
+            boolean retry;
+            long delay;
+            RetryDelays.startCollecting();
+            try {
+               retry = shouldContinue(command, ioe);
+            } finally {
+               delay = RetryDelays.stopCollecting();
+            }
+            if (retry) {
+               retryAfter(delay);
+               return;
+            }
+         }
+         command.setException(new HttpResponseException(e.getMessage() + " connecting to "
+               + command.getCurrentRequest().getRequestLine(), command, null, e));
+         result.setException(command.getException());
+      }
+
+      private void retryAfter(long delayMillis) {
+         metrics.requestRetried(tags, request);
+         final Attempt next = new Attempt(command, result);
+         if (delayMillis <= 0) {
+            callbackExecutor.execute(next);
+         } else {
+            schedule(new Runnable() {
+               @Override
+               public void run() {
+                  callbackExecutor.execute(next);
+               }
+            }, delayMillis);
+         }
+      }
+   }
+}
@@ -27,6 +27,7 @@ import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 import java.io.IOException;
 import java.net.ProtocolException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -35,6 +36,7 @@ import javax.inject.Named;
 import org.jclouds.Constants;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpMetrics;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpRequestFilter;
 import org.jclouds.http.HttpResponse;
@@ -44,10 +46,16 @@ import org.jclouds.http.IOExceptionRetryHandler;
 import org.jclouds.http.handlers.DelegatingErrorHandler;
 import org.jclouds.http.handlers.DelegatingRetryHandler;
 import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.location.Provider;
 import org.jclouds.logging.Logger;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.config.InvocationConfig;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.reflect.Invokable;
 
 public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandExecutorService {
    protected final HttpUtils utils;
@@ -67,6 +75,18 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    private final Set<String> idempotentMethods;
 
+   @com.google.inject.Inject(optional = true)
+   HttpMetrics metrics = HttpMetrics.NONE;
+
+   @com.google.inject.Inject(optional = true)
+   @Provider
+   private String provider = "unknown";
+
+   @com.google.inject.Inject(optional = true)
+   private InvocationConfig invocationConfig;
+
+   private final ConcurrentMap<Invokable<?, ?>, HttpMetrics.Tags> tagsByInvokable = Maps.newConcurrentMap();
+
    @Inject
    protected BaseHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
          DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
@@ -86,7 +106,10 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
       HttpResponse response = null;
       for (;;) {
          HttpRequest request = command.getCurrentRequest();
+         HttpMetrics.Tags tags = metrics == HttpMetrics.NONE ? null : tags(request);
          Q nativeRequest = null;
+         boolean pending = false;
+         long start = 0;
          try {
             for (HttpRequestFilter filter : request.getFilters()) {
                request = filter.filter(request);
@@ -96,8 +119,13 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
             logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
             wirePayloadIfEnabled(wire, request);
             utils.logRequest(headerLog, request, ">>");
+            metrics.requestStarted(tags, request);
+            pending = true;
+            start = System.nanoTime();
             nativeRequest = convert(request);
             response = invoke(nativeRequest);
+            pending = false;
+            metrics.responseReceived(tags, request, response, System.nanoTime() - start);
 
             logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
             utils.logResponse(headerLog, response, "<<");
@@ -106,16 +134,20 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
             nativeRequest = null; // response took ownership of streams
             int statusCode = response.getStatusCode();
             if (statusCode >= 300) {
-               if (shouldContinue(command, response))
+               if (shouldContinue(command, response)) {
+                  metrics.requestRetried(tags, request);
                   continue;
-               else
+               } else
                   break;
             } else {
                break;
             }
          } catch (Exception e) {
+            if (pending)
+               metrics.requestFailed(tags, request, e, System.nanoTime() - start);
             IOException ioe = getFirstThrowableOfType(e, IOException.class);
             if (ioe != null && shouldContinue(command, ioe)) {
+               metrics.requestRetried(tags, request);
                continue;
             }
             command.setException(new HttpResponseException(e.getMessage() + " connecting to "
@@ -131,6 +163,22 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
       return response;
    }
 
+   /**
+    * Tags metrics with the name {@link org.jclouds.rest.internal.InvokeHttpMethod} uses for the command, so they
+    * line up with the per-command timeout properties.
+    */
+   HttpMetrics.Tags tags(HttpRequest request) {
+      if (invocationConfig == null || !(request instanceof GeneratedHttpRequest))
+         return new HttpMetrics.Tags(provider, request.getMethod(), "unknown");
+      Invocation invocation = GeneratedHttpRequest.class.cast(request).getInvocation();
+      HttpMetrics.Tags tags = tagsByInvokable.get(invocation.getInvokable());
+      if (tags == null || !tags.getMethod().equals(request.getMethod())) {
+         tags = new HttpMetrics.Tags(provider, request.getMethod(), invocationConfig.getCommandName(invocation));
+         tagsByInvokable.put(invocation.getInvokable(), tags);
+      }
+      return tags;
+   }
+
    @VisibleForTesting
    boolean shouldContinue(HttpCommand command, HttpResponse response) {
       boolean shouldContinue = false;
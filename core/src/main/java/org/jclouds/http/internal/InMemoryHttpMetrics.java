@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static com.google.common.base.Objects.toStringHelper;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpMessage;
+import org.jclouds.http.HttpMetrics;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * {@link HttpMetrics} that keeps counters and a latency histogram per {@link HttpMetrics.Tags} in memory. Enable it by
+ * binding {@code HttpMetrics} to it in a module passed to the context, and read the numbers with {@link #getStats()},
+ * for example from {@code context.utils().injector().getInstance(InMemoryHttpMetrics.class)}. Recording is lock-free.
+ * <p/>
+ * Bytes are counted from the declared content length of the request and response payloads, so chunked bodies of
+ * unknown length are not included.
+ */
+@Beta
+@Singleton
+public class InMemoryHttpMetrics implements HttpMetrics {
+
+   private final ConcurrentMap<Tags, Recorder> recorders = Maps.newConcurrentMap();
+   private final AtomicInteger inFlight = new AtomicInteger();
+
+   @Override
+   public void requestStarted(Tags tags, HttpRequest request) {
+      Recorder recorder = recorder(tags);
+      inFlight.incrementAndGet();
+      recorder.inFlight.incrementAndGet();
+      recorder.requests.incrementAndGet();
+      recorder.bytesSent.addAndGet(contentLength(request));
+   }
+
+   @Override
+   public void responseReceived(Tags tags, HttpRequest request, HttpResponse response, long nanos) {
+      Recorder recorder = finished(tags, nanos);
+      int statusClass = response.getStatusCode() / 100;
+      if (statusClass >= 1 && statusClass <= 5)
+         recorder.responses.incrementAndGet(statusClass);
+      recorder.bytesReceived.addAndGet(contentLength(response));
+   }
+
+   @Override
+   public void requestFailed(Tags tags, HttpRequest request, Exception exception, long nanos) {
+      finished(tags, nanos).failures.incrementAndGet();
+   }
+
+   @Override
+   public void requestRetried(Tags tags, HttpRequest request) {
+      recorder(tags).retries.incrementAndGet();
+   }
+
+   /**
+    * the number of requests sent that have not yet received a response or failed, across all tags.
+    */
+   public int getInFlight() {
+      return inFlight.get();
+   }
+
+   /**
+    * a point-in-time copy of the statistics of each combination of tags seen so far.
+    */
+   public Map<Tags, Stats> getStats() {
+      ImmutableMap.Builder<Tags, Stats> builder = ImmutableMap.builder();
+      for (Map.Entry<Tags, Recorder> entry : recorders.entrySet()) {
+         builder.put(entry.getKey(), entry.getValue().snapshot());
+      }
+      return builder.build();
+   }
+
+   /**
+    * Zeroes the counters and latencies recorded so far. The in-flight gauges are kept, so that requests still in flight
+    * are counted down when they complete.
+    */
+   public void reset() {
+      for (Recorder recorder : recorders.values()) {
+         recorder.reset();
+      }
+   }
+
+   private Recorder finished(Tags tags, long nanos) {
+      Recorder recorder = recorder(tags);
+      inFlight.decrementAndGet();
+      recorder.inFlight.decrementAndGet();
+      recorder.latency.record(NANOSECONDS.toMicros(nanos));
+      return recorder;
+   }
+
+   private Recorder recorder(Tags tags) {
+      Recorder recorder = recorders.get(tags);
+      if (recorder == null) {
+         Recorder created = new Recorder();
+         recorder = recorders.putIfAbsent(tags, created);
+         if (recorder == null)
+            recorder = created;
+      }
+      return recorder;
+   }
+
+   private static long contentLength(HttpMessage message) {
+      if (message.getPayload() == null)
+         return 0;
+      Long length = message.getPayload().getContentMetadata().getContentLength();
+      return length == null ? 0 : length;
+   }
+
+   private static final class Recorder {
+      private final AtomicLong requests = new AtomicLong();
+      private final AtomicLong failures = new AtomicLong();
+      private final AtomicLong retries = new AtomicLong();
+      private final AtomicInteger inFlight = new AtomicInteger();
+      private final AtomicLong bytesSent = new AtomicLong();
+      private final AtomicLong bytesReceived = new AtomicLong();
+      // indexed by the first digit of the status code
+      private final AtomicLongArray responses = new AtomicLongArray(6);
+      private final LatencyHistogram latency = new LatencyHistogram();
+
+      private void reset() {
+         requests.set(0);
+         failures.set(0);
+         retries.set(0);
+         bytesSent.set(0);
+         bytesReceived.set(0);
+         for (int i = 0; i < responses.length(); i++) {
+            responses.set(i, 0);
+         }
+         latency.reset();
+      }
+
+      private Stats snapshot() {
+         long[] responsesByClass = new long[6];
+         for (int i = 0; i < responsesByClass.length; i++) {
+            responsesByClass[i] = responses.get(i);
+         }
+         return new Stats(requests.get(), failures.get(), retries.get(), inFlight.get(), bytesSent.get(),
+               bytesReceived.get(), responsesByClass, latency.snapshot());
+      }
+   }
+
+   /**
+    * Statistics of the requests sharing the same {@link HttpMetrics.Tags}.
+    */
+   public static final class Stats {
+      private final long requests;
+      private final long failures;
+      private final long retries;
+      private final int inFlight;
+      private final long bytesSent;
+      private final long bytesReceived;
+      private final long[] responsesByClass;
+      private final LatencyHistogram.Snapshot latency;
+
+      private Stats(long requests, long failures, long retries, int inFlight, long bytesSent, long bytesReceived,
+            long[] responsesByClass, LatencyHistogram.Snapshot latency) {
+         this.requests = requests;
+         this.failures = failures;
+         this.retries = retries;
+         this.inFlight = inFlight;
+         this.bytesSent = bytesSent;
+         this.bytesReceived = bytesReceived;
+         this.responsesByClass = responsesByClass;
+         this.latency = latency;
+      }
+
+      /**
+       * requests sent, including retries
+       */
+      public long getRequests() {
+         return requests;
+      }
+
+      /**
+       * requests that did not receive a response
+       */
+      public long getFailures() {
+         return failures;
+      }
+
+      public long getRetries() {
+         return retries;
+      }
+
+      public int getInFlight() {
+         return inFlight;
+      }
+
+      public long getBytesSent() {
+         return bytesSent;
+      }
+
+      public long getBytesReceived() {
+         return bytesReceived;
+      }
+
+      /**
+       * @param statusClass
+       *           the first digit of the status code, so {@code 5} counts all server errors
+       */
+      public long getResponses(int statusClass) {
+         return statusClass >= 1 && statusClass <= 5 ? responsesByClass[statusClass] : 0;
+      }
+
+      /**
+       * the time until the response headers were received, at the given percentile, such as {@code 99.9}.
+       */
+      public long getLatencyAtPercentile(double percentile, TimeUnit unit) {
+         return unit.convert(latency.getValueAtPercentile(percentile), MICROSECONDS);
+      }
+
+      public long getMaxLatency(TimeUnit unit) {
+         return unit.convert(latency.getMax(), MICROSECONDS);
+      }
+
+      public double getMeanLatency(TimeUnit unit) {
+         return latency.getMean() * MICROSECONDS.toNanos(1) / unit.toNanos(1);
+      }
+
+      @Override
+      public String toString() {
+         return toStringHelper(this).add("requests", requests).add("failures", failures).add("retries", retries)
+               .add("inFlight", inFlight).add("bytesSent", bytesSent).add("bytesReceived", bytesReceived)
+               .add("2xx", responsesByClass[2]).add("3xx", responsesByClass[3]).add("4xx", responsesByClass[4])
+               .add("5xx", responsesByClass[5]).add("p50Micros", latency.getValueAtPercentile(50))
+               .add("p99Micros", latency.getValueAtPercentile(99)).add("maxMicros", latency.getMax()).toString();
+      }
+   }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of microsecond values, in the style of HdrHistogram. Values below 128 are counted
+ * exactly; above that each power of two is split into 64 buckets, so a reported value is within 1.6% of the recorded
+ * one. Values above {@link #MAX_VALUE} (about 71 minutes) are counted as {@code MAX_VALUE}.
+ */
+final class LatencyHistogram {
+   private static final int SUB_BUCKET_BITS = 6;
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+   static final long MAX_VALUE = (1L << 32) - 1;
+   static final int BUCKETS = index(MAX_VALUE) + 1;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+   private final AtomicLong sum = new AtomicLong();
+   private final AtomicLong max = new AtomicLong();
+
+   void record(long micros) {
+      long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+      counts.incrementAndGet(index(value));
+      sum.addAndGet(value);
+      long current;
+      while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+         // retry until another thread records a larger value or we win
+      }
+   }
+
+   /**
+    * Zeroes the counts. Values recorded concurrently may be kept in part, which is harmless for reporting.
+    */
+   void reset() {
+      for (int i = 0; i < BUCKETS; i++) {
+         counts.set(i, 0);
+      }
+      sum.set(0);
+      max.set(0);
+   }
+
+   /**
+    * Copies the current counts. Recording may continue while the copy is made, so the copy can be slightly ahead
+    * of {@link Snapshot#getSum()}, which is harmless for reporting.
+    */
+   Snapshot snapshot() {
+      long[] copy = new long[BUCKETS];
+      long count = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         copy[i] = counts.get(i);
+         count += copy[i];
+      }
+      return new Snapshot(copy, count, sum.get(), max.get());
+   }
+
+   static int index(long value) {
+      if (value < 2 * SUB_BUCKETS)
+         return (int) value;
+      int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+      return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+   }
+
+   /**
+    * the largest value counted in the same bucket as values at {@code index}
+    */
+   static long highestEquivalentValue(int index) {
+      if (index < 2 * SUB_BUCKETS)
+         return index;
+      int shift = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+      long mantissa = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+      return ((mantissa + 1) << shift) - 1;
+   }
+
+   static final class Snapshot {
+      private final long[] counts;
+      private final long count;
+      private final long sum;
+      private final long max;
+
+      private Snapshot(long[] counts, long count, long sum, long max) {
+         this.counts = counts;
+         this.count = count;
+         this.sum = sum;
+         this.max = max;
+      }
+
+      long getCount() {
+         return count;
+      }
+
+      long getSum() {
+         return sum;
+      }
+
+      long getMax() {
+         return max;
+      }
+
+      double getMean() {
+         return count == 0 ? 0 : (double) sum / count;
+      }
+
+      /**
+       * the smallest recorded value, within the bucket precision, that {@code percentile} percent of the values
+       * are less than or equal to.
+       */
+      long getValueAtPercentile(double percentile) {
+         checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+         if (count == 0)
+            return 0;
+         long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+         long seen = 0;
+         for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target)
+               return Math.min(highestEquivalentValue(i), max);
+         }
+         return max;
+      }
+   }
+}
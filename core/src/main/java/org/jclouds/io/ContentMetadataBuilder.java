@@ -21,6 +21,7 @@ import java.util.Date;
 import org.jclouds.io.payloads.BaseImmutableContentMetadata;
 import org.jclouds.javax.annotation.Nullable;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.hash.HashCode;
@@ -35,6 +36,7 @@ public class ContentMetadataBuilder {
    protected String contentType = "application/unknown";
    protected Long contentLength;
    protected HashCode contentMD5;
+   protected HashCode contentSHA256;
    protected String contentDisposition;
    protected String contentLanguage;
    protected String contentEncoding;
@@ -64,6 +66,16 @@ public class ContentMetadataBuilder {
       return this;
    }
 
+   @Beta
+   public ContentMetadataBuilder contentSHA256(@Nullable HashCode contentSHA256) {
+      if (contentSHA256 != null) {
+         Preconditions.checkArgument(contentSHA256.bits() == 256, "SHA-256 hash must have 256 bits, was: %s",
+               contentSHA256.bits());
+      }
+      this.contentSHA256 = contentSHA256;
+      return this;
+   }
+
    public ContentMetadataBuilder contentType(@Nullable String contentType) {
       this.contentType = contentType;
       return this;
@@ -92,21 +104,39 @@ public class ContentMetadataBuilder {
 
    public ContentMetadata build() {
       return new BaseImmutableContentMetadata(cacheControl, contentType, contentLength,
-               contentMD5 == null ? null : contentMD5.asBytes(), contentDisposition,
+               contentMD5 == null ? null : contentMD5.asBytes(), contentSHA256, contentDisposition,
                contentLanguage, contentEncoding, expires);
    }
 
    public static ContentMetadataBuilder fromContentMetadata(ContentMetadata in) {
       return new ContentMetadataBuilder()
                .cacheControl(in.getCacheControl()).contentType(in.getContentType()).contentLength(in.getContentLength())
-               .contentMD5(in.getContentMD5()).contentDisposition(in.getContentDisposition()).contentLanguage(
-                        in.getContentLanguage()).contentEncoding(in.getContentEncoding()).expires(in.getExpires());
+               .contentMD5(in.getContentMD5()).contentSHA256(getContentSHA256(in))
+               .contentDisposition(in.getContentDisposition()).contentLanguage(in.getContentLanguage())
+               .contentEncoding(in.getContentEncoding()).expires(in.getExpires());
+   }
+
+   /**
+    * SHA-256 of the payload, if already known. Signers which need a payload hash, such as AWS signature version 4,
+    * use this instead of reading the payload an extra time.
+    * <p/>
+    * {@link ContentMetadata} does not declare the hash, so that other implementations of it keep working; only the
+    * metadata built by this builder and its subclasses can carry one.
+    */
+   @Beta
+   @Nullable
+   public static HashCode getContentSHA256(ContentMetadata in) {
+      if (in instanceof ContentMetadataBuilder)
+         return ((ContentMetadataBuilder) in).contentSHA256;
+      if (in instanceof BaseImmutableContentMetadata)
+         return ((BaseImmutableContentMetadata) in).getContentSHA256();
+      return null;
    }
 
    @Override
    public int hashCode() {
       return Objects.hashCode(contentDisposition, contentEncoding, contentLanguage, contentLength, 
-               contentMD5, contentType, expires);
+               contentMD5, contentSHA256, contentType, expires);
    }
 
    @Override
@@ -124,6 +154,7 @@ public class ContentMetadataBuilder {
              Objects.equal(contentLanguage, other.contentLanguage) &&
              Objects.equal(contentLength, other.contentLength) &&
              Objects.equal(contentMD5, other.contentMD5) &&
+             Objects.equal(contentSHA256, other.contentSHA256) &&
              Objects.equal(contentType, other.contentType) &&
              Objects.equal(expires, other.expires);
    }
@@ -133,6 +164,7 @@ public class ContentMetadataBuilder {
       return "[cacheControl=" + cacheControl
                + ", contentDisposition=" + contentDisposition + ", contentEncoding=" + contentEncoding
                + ", contentLanguage=" + contentLanguage + ", contentLength=" + contentLength + ", contentMD5="
-               + contentMD5 + ", contentType=" + contentType + ", expires=" + expires + "]";
+               + contentMD5 + ", contentSHA256=" + contentSHA256 + ", contentType=" + contentType + ", expires="
+               + expires + "]";
    }
 }
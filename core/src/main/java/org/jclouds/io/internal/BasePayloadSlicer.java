@@ -60,34 +60,40 @@ public class BasePayloadSlicer implements PayloadSlicer {
       }
    }
 
+   /**
+    * Reads each part only when it is requested, so that callers which bound the number of parts in flight also bound
+    * the number of parts buffered on heap.
+    */
    private static final class InputStreamPayloadIterator implements Iterator<Payload> {
       private final InputStream input;
       private final ContentMetadata metaData;
       private Payload nextPayload;
+      private boolean fetched;
       private final int readLen;
 
       InputStreamPayloadIterator(InputStream input, ContentMetadata metaData) {
          this.input = checkNotNull(input, "input");
          this.metaData = checkNotNull(metaData, "metaData");
          this.readLen = checkNotNull(this.metaData.getContentLength(), "content-length").intValue();
-
-         this.nextPayload = getNextPayload();
       }
 
       @Override
       public boolean hasNext() {
+         if (!fetched) {
+            nextPayload = getNextPayload();
+            fetched = true;
+         }
          return nextPayload != null;
       }
 
       @Override
       public Payload next() {
-         Payload payload;
-
          if (!hasNext())
             throw new NoSuchElementException();
 
-         payload = nextPayload;
-         nextPayload = getNextPayload();
+         Payload payload = nextPayload;
+         nextPayload = null;
+         fetched = false;
 
          return payload;
       }
@@ -125,7 +131,11 @@ public class BasePayloadSlicer implements PayloadSlicer {
 
          if (content.length > 0) {
             payload = Payloads.newByteArrayPayload(content);
-            ContentMetadata cm = metaData.toBuilder().contentLength((long)content.length).contentMD5((HashCode) null).build();
+            ContentMetadata cm = metaData.toBuilder()
+                  .contentLength((long) content.length)
+                  .contentMD5((HashCode) null)
+                  .contentSHA256(null)
+                  .build();
             payload.setContentMetadata(BaseMutableContentMetadata.fromContentMetadata(cm));
          }
 
@@ -202,6 +212,7 @@ public class BasePayloadSlicer implements PayloadSlicer {
          ContentMetadata cm = metaData.toBuilder()
                .contentLength(byteSourceSize)
                .contentMD5((HashCode) null)
+               .contentSHA256(null)
                .build();
          nextPayload.setContentMetadata(BaseMutableContentMetadata.fromContentMetadata(cm));
          offset += byteSourceSize;
@@ -268,7 +279,7 @@ public class BasePayloadSlicer implements PayloadSlicer {
 
    protected Payload copyMetadataAndSetLength(Payload input, Payload returnVal, long length) {
       returnVal.setContentMetadata(BaseMutableContentMetadata.fromContentMetadata(input.getContentMetadata()
-            .toBuilder().contentLength(length).contentMD5((HashCode) null).build()));
+            .toBuilder().contentLength(length).contentMD5((HashCode) null).contentSHA256(null).build()));
       return returnVal;
    }
 
@@ -281,6 +292,7 @@ public class BasePayloadSlicer implements PayloadSlicer {
                                                        .toBuilder()
                                                        .contentLength(size)
                                                        .contentMD5((HashCode) null)
+                                                       .contentSHA256(null)
                                                        .build();
       Object rawContent = input.getRawContent();
       if (rawContent instanceof File) {
@@ -21,6 +21,7 @@ import java.util.Date;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.ContentMetadataBuilder;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Objects;
 import com.google.common.hash.HashCode;
 
@@ -30,6 +31,7 @@ public class BaseImmutableContentMetadata implements ContentMetadata {
    protected String contentType;
    protected Long contentLength;
    protected HashCode contentMD5;
+   protected HashCode contentSHA256;
    protected String contentDisposition;
    protected String contentLanguage;
    protected String contentEncoding;
@@ -43,10 +45,18 @@ public class BaseImmutableContentMetadata implements ContentMetadata {
 
    public BaseImmutableContentMetadata(String cacheControl, String contentType, Long contentLength, byte[] contentMD5,
             String contentDisposition, String contentLanguage, String contentEncoding, Date expires) {
+      this(cacheControl, contentType, contentLength, contentMD5, null, contentDisposition, contentLanguage,
+            contentEncoding, expires);
+   }
+
+   public BaseImmutableContentMetadata(String cacheControl, String contentType, Long contentLength, byte[] contentMD5,
+            HashCode contentSHA256, String contentDisposition, String contentLanguage, String contentEncoding,
+            Date expires) {
       this.cacheControl = cacheControl;
       this.contentType = contentType;
       this.contentLength = contentLength;
       this.contentMD5 = contentMD5 == null ? null : HashCode.fromBytes(contentMD5);
+      this.contentSHA256 = contentSHA256;
       this.contentDisposition = contentDisposition;
       this.contentLanguage = contentLanguage;
       this.contentEncoding = contentEncoding;
@@ -79,6 +89,14 @@ public class BaseImmutableContentMetadata implements ContentMetadata {
       return contentMD5;
    }
 
+   /**
+    * @see ContentMetadataBuilder#getContentSHA256(ContentMetadata)
+    */
+   @Beta
+   public HashCode getContentSHA256() {
+      return contentSHA256;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -124,13 +142,13 @@ public class BaseImmutableContentMetadata implements ContentMetadata {
       return "[cacheControl=" + cacheControl
                + "contentType=" + contentType + ", contentLength=" + contentLength + ", contentDisposition="
                + contentDisposition + ", contentEncoding=" + contentEncoding + ", contentLanguage=" + contentLanguage
-               + ", contentMD5=" + contentMD5 + ", expires = " + expires + "]";
+               + ", contentMD5=" + contentMD5 + ", contentSHA256=" + contentSHA256 + ", expires = " + expires + "]";
    }
 
    @Override
    public int hashCode() {
       return Objects.hashCode(contentDisposition, contentEncoding, contentLanguage, contentLength, 
-               contentMD5, contentType, expires);
+               contentMD5, contentSHA256, contentType, expires);
    }
 
    @Override
@@ -167,6 +185,8 @@ public class BaseImmutableContentMetadata implements ContentMetadata {
          return false;
       if (!Objects.equal(contentMD5, other.contentMD5))
          return false;
+      if (!Objects.equal(contentSHA256, other.contentSHA256))
+         return false;
       if (contentType == null) {
          if (other.contentType != null)
             return false;
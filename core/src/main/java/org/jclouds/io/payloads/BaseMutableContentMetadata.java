@@ -23,6 +23,7 @@ import org.jclouds.io.ContentMetadataBuilder;
 import org.jclouds.io.MutableContentMetadata;
 import org.jclouds.javax.annotation.Nullable;
 
+import com.google.common.annotations.Beta;
 import com.google.common.hash.HashCode;
 
 public class BaseMutableContentMetadata extends ContentMetadataBuilder implements MutableContentMetadata {
@@ -78,6 +79,19 @@ public class BaseMutableContentMetadata extends ContentMetadataBuilder implement
       contentMD5(md5);
    }
 
+   /**
+    * @see ContentMetadataBuilder#getContentSHA256(ContentMetadata)
+    */
+   @Beta
+   public HashCode getContentSHA256() {
+      return contentSHA256;
+   }
+
+   @Beta
+   public void setContentSHA256(HashCode sha256) {
+      contentSHA256(sha256);
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -171,6 +185,7 @@ public class BaseMutableContentMetadata extends ContentMetadataBuilder implement
                .contentLanguage(in.getContentLanguage())
                .contentLength(in.getContentLength())
                .contentMD5(in.getContentMD5())
+               .contentSHA256(getContentSHA256(in))
                .contentType(in.getContentType())
                .expires(in.getExpires());
    }
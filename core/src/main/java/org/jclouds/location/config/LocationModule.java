@@ -18,6 +18,8 @@ package org.jclouds.location.config;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
+import static org.jclouds.Constants.PROPERTY_SESSION_STALE_INTERVAL;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 
 import java.net.URI;
 import java.util.Map;
@@ -50,6 +52,7 @@ import org.jclouds.reflect.InvocationSuccess;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.functions.ImplicitOptionalConverter;
 import org.jclouds.rest.suppliers.MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier;
+import org.jclouds.rest.suppliers.ValueLoadedCallback;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
@@ -57,6 +60,7 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
@@ -105,9 +109,11 @@ public class LocationModule extends AbstractModule {
    @Memoized
    protected final Supplier<Set<? extends Location>> memoizedLocationsSupplier(
             AtomicReference<AuthorizationException> authException, @Named(PROPERTY_SESSION_INTERVAL) long seconds,
-            LocationsSupplier uncached) {
+            @Named(PROPERTY_SESSION_STALE_INTERVAL) long staleSeconds,
+            @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, LocationsSupplier uncached) {
       return MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException, uncached, seconds,
-               TimeUnit.SECONDS);
+               staleSeconds, TimeUnit.SECONDS, userExecutor,
+               new ValueLoadedCallback.NoOpCallback<Set<? extends Location>>());
    }
 
    @Provides
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.http.HttpUtils.tryFindHttpMethod;
+import static org.jclouds.reflect.Reflection2.getInvokableParameters;
+import static org.jclouds.util.Strings2.urlEncode;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.Encoded;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.http.options.HttpRequestOptions;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.Endpoint;
+import org.jclouds.rest.annotations.EndpointParam;
+import org.jclouds.rest.annotations.FormParams;
+import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.MapBinder;
+import org.jclouds.rest.annotations.OverrideRequestFilters;
+import org.jclouds.rest.annotations.ParamParser;
+import org.jclouds.rest.annotations.PartParam;
+import org.jclouds.rest.annotations.Payload;
+import org.jclouds.rest.annotations.PayloadParam;
+import org.jclouds.rest.annotations.PayloadParams;
+import org.jclouds.rest.annotations.QueryParams;
+import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.SkipEncoding;
+import org.jclouds.rest.annotations.VirtualHost;
+import org.jclouds.rest.annotations.WrapWith;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Chars;
+import com.google.common.reflect.Invokable;
+import com.google.common.reflect.Parameter;
+
+/**
+ * The annotations {@link RestAnnotationProcessor} reads from an {@link Invokable} and its owner type, collected once
+ * per invokable. Only binding the arguments of an invocation is left for each request.
+ */
+final class RequestTemplate {
+
+   private static final LoadingCache<Invokable<?, ?>, RequestTemplate> TEMPLATES = CacheBuilder.newBuilder().build(
+         new CacheLoader<Invokable<?, ?>, RequestTemplate>() {
+            @Override
+            public RequestTemplate load(Invokable<?, ?> invokable) {
+               return new RequestTemplate(invokable);
+            }
+         });
+
+   static RequestTemplate of(Invokable<?, ?> invokable) {
+      return TEMPLATES.getUnchecked(invokable);
+   }
+
+   /**
+    * A parameter carrying {@code A}, along with what is needed to bind its argument.
+    */
+   static final class BoundParam<A extends Annotation> {
+      final int position;
+      final A annotation;
+      final String key;
+      final Class<?> rawType;
+      @Nullable
+      final ParamParser parser;
+      final boolean encoded;
+      final boolean nullable;
+
+      private BoundParam(Parameter parameter, A annotation, @Nullable String key) {
+         this.position = parameter.hashCode(); // guava issue 1243
+         this.annotation = annotation;
+         this.key = key;
+         this.rawType = parameter.getType().getRawType();
+         this.parser = parameter.getAnnotation(ParamParser.class);
+         this.encoded = parameter.isAnnotationPresent(Encoded.class);
+         this.nullable = parameter.isAnnotationPresent(Nullable.class);
+      }
+   }
+
+   final Invokable<?, ?> invokable;
+   final List<Parameter> parameters;
+   final Optional<String> httpMethod;
+
+   final List<Class<? extends HttpRequestFilter>> typeFilters;
+   final List<Class<? extends HttpRequestFilter>> methodFilters;
+
+   @Nullable
+   final List<Character> skipEncoding;
+   final boolean encodeFullPath;
+   @Nullable
+   final String typePath;
+   @Nullable
+   final String methodPath;
+   final boolean virtualHost;
+
+   @Nullable
+   final Endpoint endpoint;
+   final List<Parameter> endpointParams;
+
+   @Nullable
+   final FormParams typeFormParams;
+   @Nullable
+   final FormParams methodFormParams;
+   @Nullable
+   final QueryParams typeQueryParams;
+   @Nullable
+   final QueryParams methodQueryParams;
+   @Nullable
+   final Headers typeHeaders;
+   @Nullable
+   final Headers methodHeaders;
+   @Nullable
+   final List<String> produces;
+
+   @Nullable
+   final MapBinder mapBinder;
+   @Nullable
+   final Payload payload;
+   @Nullable
+   final WrapWith wrapWith;
+   @Nullable
+   final PayloadParams payloadParams;
+
+   final List<BoundParam<PathParam>> pathParams;
+   final List<BoundParam<QueryParam>> queryParams;
+   final List<BoundParam<FormParam>> formParams;
+   final List<BoundParam<HeaderParam>> headerParams;
+   final List<BoundParam<PayloadParam>> payloadParamValues;
+   final List<BoundParam<PartParam>> partParams;
+   final List<BoundParam<Annotation>> binderOrWrapWith;
+   final Set<Integer> optionsPositions;
+
+   private RequestTemplate(Invokable<?, ?> invokable) {
+      Class<?> owner = invokable.getOwnerType().getRawType();
+      this.invokable = invokable;
+      this.parameters = getInvokableParameters(invokable);
+      this.httpMethod = tryFindHttpMethod(invokable);
+
+      RequestFilters methodRequestFilters = invokable.getAnnotation(RequestFilters.class);
+      this.typeFilters = methodRequestFilters != null && invokable.isAnnotationPresent(OverrideRequestFilters.class)
+            ? ImmutableList.<Class<? extends HttpRequestFilter>> of() : filters(owner.getAnnotation(RequestFilters.class));
+      this.methodFilters = filters(methodRequestFilters);
+
+      SkipEncoding skipEncoding = Optional.fromNullable(invokable.getAnnotation(SkipEncoding.class))
+            .or(Optional.fromNullable(owner.getAnnotation(SkipEncoding.class))).orNull();
+      this.skipEncoding = skipEncoding != null ? ImmutableList.copyOf(Chars.asList(skipEncoding.value())) : null;
+      this.typePath = owner.isAnnotationPresent(Path.class) ? owner.getAnnotation(Path.class).value() : null;
+      this.methodPath = invokable.isAnnotationPresent(Path.class) ? invokable.getAnnotation(Path.class).value() : null;
+      this.virtualHost = owner.isAnnotationPresent(VirtualHost.class) || invokable.isAnnotationPresent(VirtualHost.class);
+
+      this.endpoint = Optional.fromNullable(invokable.getAnnotation(Endpoint.class))
+            .or(Optional.fromNullable(owner.getAnnotation(Endpoint.class))).orNull();
+
+      this.typeFormParams = owner.getAnnotation(FormParams.class);
+      this.methodFormParams = invokable.getAnnotation(FormParams.class);
+      this.typeQueryParams = owner.getAnnotation(QueryParams.class);
+      this.methodQueryParams = invokable.getAnnotation(QueryParams.class);
+      this.typeHeaders = owner.getAnnotation(Headers.class);
+      this.methodHeaders = invokable.getAnnotation(Headers.class);
+      Produces produces = Optional.fromNullable(invokable.getAnnotation(Produces.class))
+            .or(Optional.fromNullable(owner.getAnnotation(Produces.class))).orNull();
+      this.produces = produces != null ? ImmutableList.copyOf(produces.value()) : null;
+
+      this.mapBinder = invokable.getAnnotation(MapBinder.class);
+      this.payload = invokable.getAnnotation(Payload.class);
+      this.wrapWith = invokable.getAnnotation(WrapWith.class);
+      this.payloadParams = invokable.getAnnotation(PayloadParams.class);
+
+      ImmutableList.Builder<Parameter> endpointParams = ImmutableList.builder();
+      ImmutableList.Builder<BoundParam<PathParam>> pathParams = ImmutableList.builder();
+      ImmutableList.Builder<BoundParam<QueryParam>> queryParams = ImmutableList.builder();
+      ImmutableList.Builder<BoundParam<FormParam>> formParams = ImmutableList.builder();
+      ImmutableList.Builder<BoundParam<HeaderParam>> headerParams = ImmutableList.builder();
+      ImmutableList.Builder<BoundParam<PayloadParam>> payloadParamValues = ImmutableList.builder();
+      ImmutableList.Builder<BoundParam<PartParam>> partParams = ImmutableList.builder();
+      ImmutableList.Builder<BoundParam<Annotation>> binders = ImmutableList.builder();
+      ImmutableList.Builder<BoundParam<Annotation>> wrappers = ImmutableList.builder();
+      ImmutableSet.Builder<Integer> optionsPositions = ImmutableSet.builder();
+      boolean encodedUsed = false;
+      for (Parameter param : parameters) {
+         encodedUsed |= param.isAnnotationPresent(Encoded.class);
+         if (param.isAnnotationPresent(EndpointParam.class))
+            endpointParams.add(param);
+         PathParam pathParam = param.getAnnotation(PathParam.class);
+         if (pathParam != null)
+            pathParams.add(new BoundParam<PathParam>(param, pathParam, pathParam.value()));
+         QueryParam queryParam = param.getAnnotation(QueryParam.class);
+         if (queryParam != null)
+            queryParams.add(new BoundParam<QueryParam>(param, queryParam, urlEncode(queryParam.value(), '/', ',')));
+         FormParam formParam = param.getAnnotation(FormParam.class);
+         if (formParam != null)
+            formParams.add(new BoundParam<FormParam>(param, formParam, formParam.value()));
+         HeaderParam headerParam = param.getAnnotation(HeaderParam.class);
+         if (headerParam != null)
+            headerParams.add(new BoundParam<HeaderParam>(param, headerParam, headerParam.value()));
+         PayloadParam payloadParam = param.getAnnotation(PayloadParam.class);
+         if (payloadParam != null)
+            payloadParamValues.add(new BoundParam<PayloadParam>(param, payloadParam, payloadParam.value()));
+         PartParam partParam = param.getAnnotation(PartParam.class);
+         if (partParam != null)
+            partParams.add(new BoundParam<PartParam>(param, partParam, partParam.name()));
+         BinderParam binderParam = param.getAnnotation(BinderParam.class);
+         if (binderParam != null)
+            binders.add(new BoundParam<Annotation>(param, binderParam, null));
+         else if (param.isAnnotationPresent(WrapWith.class))
+            wrappers.add(new BoundParam<Annotation>(param, param.getAnnotation(WrapWith.class), null));
+         Class<?> type = param.getType().getRawType();
+         if (HttpRequestOptions.class.isAssignableFrom(type) || HttpRequestOptions[].class.isAssignableFrom(type))
+            optionsPositions.add(param.hashCode());
+      }
+      this.encodeFullPath = !encodedUsed;
+      this.endpointParams = endpointParams.build();
+      this.pathParams = pathParams.build();
+      this.queryParams = queryParams.build();
+      this.formParams = formParams.build();
+      this.headerParams = headerParams.build();
+      this.payloadParamValues = payloadParamValues.build();
+      this.partParams = partParams.build();
+      // parameters annotated with BinderParam bind before those annotated with WrapWith
+      this.binderOrWrapWith = ImmutableList.<BoundParam<Annotation>> builder().addAll(binders.build())
+            .addAll(wrappers.build()).build();
+      this.optionsPositions = optionsPositions.build();
+   }
+
+   private static List<Class<? extends HttpRequestFilter>> filters(@Nullable RequestFilters annotation) {
+      return annotation != null ? ImmutableList.copyOf(annotation.value())
+            : ImmutableList.<Class<? extends HttpRequestFilter>> of();
+   }
+}
@@ -16,11 +16,15 @@
  */
 package org.jclouds.rest.suppliers;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Throwables.propagate;
 import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 
+import java.util.Random;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -33,6 +37,8 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ForwardingObject;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
@@ -50,6 +56,12 @@ import com.google.common.util.concurrent.UncheckedExecutionException;
  * 
  * Note this implementation is folded into the same class, vs being decorated as stacktraces are exceptionally long and
  * difficult to grok otherwise. We use {@link LoadingCache} to deal with concurrency issues related to the supplier.
+ * 
+ * <h3>refresh ahead</h3>
+ * When created with a positive stale duration, the value is refreshed in the background once the duration has elapsed
+ * and callers keep receiving the previous value until the reload completes. Only once the value is older than the
+ * duration plus the stale duration do callers block on a load. Each instance starts refreshing up to 10% earlier than
+ * the duration, so that suppliers created together don't all reload at the same time.
  */
 public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> extends ForwardingObject implements
       Supplier<T> {
@@ -90,6 +102,33 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
          return Objects.toStringHelper(this).add("delegate", delegate).toString();
       }
    }
+
+   /**
+    * Reloads the value on the given executor, so that the caller who triggered the refresh gets the previous value
+    * back instead of waiting for the load.
+    */
+   static class BackgroundReloadingLoader<V> extends SetAndThrowAuthorizationExceptionSupplierBackedLoader<V> {
+
+      private final Executor reloadExecutor;
+
+      public BackgroundReloadingLoader(Supplier<V> delegate, AtomicReference<AuthorizationException> authException,
+            ValueLoadedCallback<V> valueLoadedCallback, Executor reloadExecutor) {
+         super(delegate, authException, valueLoadedCallback);
+         this.reloadExecutor = checkNotNull(reloadExecutor, "reloadExecutor");
+      }
+
+      @Override
+      public ListenableFuture<Optional<V>> reload(final String key, Optional<V> oldValue) {
+         ListenableFutureTask<Optional<V>> task = ListenableFutureTask.create(new Callable<Optional<V>>() {
+            @Override
+            public Optional<V> call() {
+               return load(key);
+            }
+         });
+         reloadExecutor.execute(task);
+         return task;
+      }
+   }
    
    public static class ValueLoadedEvent<V> {
       private final Object eventKey;
@@ -112,6 +151,7 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
    private final Supplier<T> delegate;
    private final long duration;
    private final TimeUnit unit;
+   private final long staleDuration;
    private final LoadingCache<String, Optional<T>> cache;
 
    public static <T> MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> create(
@@ -129,16 +169,58 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
       return new MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T>(authException, delegate, duration,
             unit, valueLoadedCallback);
    }
-   
+
+   /**
+    * Creates a memoized supplier that refreshes the value on the given executor once the duration has elapsed, and
+    * keeps returning the previous value for up to {@code staleDuration} more while doing so. A stale duration of zero
+    * behaves like {@link #create(AtomicReference, Supplier, long, TimeUnit, ValueLoadedCallback)}.
+    */
+   public static <T> MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> create(
+         AtomicReference<AuthorizationException> authException, Supplier<T> delegate, long duration,
+         long staleDuration, TimeUnit unit, Executor reloadExecutor, ValueLoadedCallback<T> valueLoadedCallback) {
+      return new MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T>(authException, delegate, duration,
+            staleDuration, unit, reloadExecutor, valueLoadedCallback);
+   }
+
    MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier(AtomicReference<AuthorizationException> authException,
          Supplier<T> delegate, long duration, TimeUnit unit, ValueLoadedCallback<T> valueLoadedCallback) {
       this.delegate = delegate;
       this.duration = duration;
       this.unit = unit;
+      this.staleDuration = 0;
       this.cache = CacheBuilder.newBuilder().expireAfterWrite(duration, unit)
             .build(new SetAndThrowAuthorizationExceptionSupplierBackedLoader<T>(delegate, authException, valueLoadedCallback));
    }
 
+   MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier(AtomicReference<AuthorizationException> authException,
+         Supplier<T> delegate, long duration, long staleDuration, TimeUnit unit, Executor reloadExecutor,
+         ValueLoadedCallback<T> valueLoadedCallback) {
+      checkArgument(staleDuration >= 0, "staleDuration must be non-negative");
+      this.delegate = delegate;
+      this.duration = duration;
+      this.unit = unit;
+      this.staleDuration = staleDuration;
+      if (staleDuration == 0) {
+         this.cache = CacheBuilder.newBuilder().expireAfterWrite(duration, unit)
+               .build(new SetAndThrowAuthorizationExceptionSupplierBackedLoader<T>(delegate, authException,
+                     valueLoadedCallback));
+      } else {
+         this.cache = CacheBuilder.newBuilder().refreshAfterWrite(jitter(unit.toNanos(duration)), TimeUnit.NANOSECONDS)
+               .expireAfterWrite(duration + staleDuration, unit)
+               .build(new BackgroundReloadingLoader<T>(delegate, authException, valueLoadedCallback, reloadExecutor));
+      }
+   }
+
+   private static final Random JITTER = new Random();
+
+   /**
+    * Shortens the refresh interval by up to 10%, keeping it positive.
+    */
+   static long jitter(long nanos) {
+      long jittered = nanos - (long) (nanos * 0.1 * JITTER.nextDouble());
+      return Math.max(jittered, 1);
+   }
+
    @Override
    protected Supplier<T> delegate() {
       return delegate;
@@ -157,8 +239,8 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
 
    @Override
    public String toString() {
-      return Objects.toStringHelper(this).add("delegate", delegate).add("duration", duration).add("unit", unit)
-            .toString();
+      return Objects.toStringHelper(this).add("delegate", delegate).add("duration", duration)
+            .add("staleDuration", staleDuration).add("unit", unit).toString();
    }
 
 }
@@ -24,19 +24,24 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.Constants.PROPERTY_USER_VIRTUAL_THREADS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
+import org.jclouds.concurrent.DynamicExecutors;
 import org.jclouds.lifecycle.Closer;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Guice;
@@ -87,6 +92,34 @@ public class ExecutorServiceModuleTest {
       verify(executor);
    }
 
+   @Test(timeOut = 5000)
+   public void testVirtualThreadsRunTasksOrFallBackToThePool() throws Exception {
+      Injector i = Guice.createInjector(new ExecutorServiceModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(named(PROPERTY_USER_THREADS)).to(1);
+            bindConstant().annotatedWith(named(PROPERTY_USER_VIRTUAL_THREADS)).to(true);
+            super.configure();
+         }
+      });
+      ListeningExecutorService user = i.getInstance(Key.get(ListeningExecutorService.class,
+            named(PROPERTY_USER_THREADS)));
+      Thread thread = user.submit(new Callable<Thread>() {
+         @Override
+         public Thread call() {
+            return Thread.currentThread();
+         }
+      }).get();
+      assertTrue(thread.getName().startsWith("user thread "), thread.getName());
+      Optional<ExecutorService> probe = DynamicExecutors.newVirtualThreadPerTaskExecutor("probe");
+      if (probe.isPresent()) {
+         probe.get().shutdown();
+         assertEquals(Thread.class.getMethod("isVirtual").invoke(thread), true);
+      }
+      i.getInstance(Closer.class).close();
+      assertTrue(user.isShutdown());
+   }
+
    @Test(timeOut = 5000)
    public void testExceptionInSubmitRunnableIncludesSubmissionTrace() throws Exception {
       ListeningExecutorService exec = injector.getInstance(Key.get(ListeningExecutorService.class,
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.date.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Date;
+import java.util.Random;
+
+import org.jclouds.date.DateService;
+import org.testng.annotations.Test;
+
+import com.google.inject.Guice;
+
+/**
+ * Checks {@link LockFreeDateService} against {@link SimpleDateFormatDateService}, fast paths and fallbacks alike.
+ */
+@Test(groups = "unit", testName = "LockFreeDateServiceTest")
+public class LockFreeDateServiceTest {
+   private final DateService expected = new SimpleDateFormatDateService();
+   private final DateService actual = new LockFreeDateService();
+
+   public void testIsDefault() {
+      assertEquals(Guice.createInjector().getInstance(DateService.class).getClass(), LockFreeDateService.class);
+   }
+
+   public void testCivilConversionRoundTrips() {
+      for (int days = -200000; days < 3000000; days += 97) {
+         int ymd = LockFreeDateService.civilFromDays(days);
+         assertEquals(LockFreeDateService.daysFromCivil(ymd / 10000, ymd / 100 % 100, ymd % 100), days);
+      }
+   }
+
+   public void testFormatMatches() {
+      Random random = new Random(0);
+      long[] edges = { 0, -1, 1, Long.MIN_VALUE / 1000, Long.MAX_VALUE / 1000, -12219292800000L, -12219292800001L,
+            -12212553600000L, -12212553600001L, 253402300799999L, 253402300800000L, 951782400000L, 4107542399999L };
+      for (long millis : edges)
+         assertFormatMatches(new Date(millis));
+      for (int i = 0; i < 2000; i++)
+         assertFormatMatches(new Date(random.nextLong() % 300000000000000L));
+   }
+
+   private void assertFormatMatches(Date date) {
+      assertEquals(actual.iso8601DateFormat(date), expected.iso8601DateFormat(date), date.toString());
+      assertEquals(actual.iso8601SecondsDateFormat(date), expected.iso8601SecondsDateFormat(date), date.toString());
+      assertEquals(actual.rfc822DateFormat(date), expected.rfc822DateFormat(date), date.toString());
+      assertEquals(actual.rfc1123DateFormat(date), expected.rfc1123DateFormat(date), date.toString());
+      assertEquals(actual.cDateFormat(date), expected.cDateFormat(date), date.toString());
+   }
+
+   public void testFormattedDatesParseBack() {
+      Random random = new Random(1);
+      for (int i = 0; i < 2000; i++) {
+         Date date = new Date(random.nextLong() % 300000000000000L);
+         assertParseMatches(expected.iso8601DateFormat(date));
+         assertParseMatches(expected.iso8601SecondsDateFormat(date));
+         assertParseMatches(expected.rfc822DateFormat(date));
+         assertParseMatches(expected.rfc1123DateFormat(date));
+         assertParseMatches(expected.cDateFormat(date));
+      }
+   }
+
+   public void testParseMatches() {
+      String[] inputs = { "2009-03-12T02:00:07.000Z", "2009-03-12T02:00:07Z", "2009-03-12T06:00:07+0400",
+            "2011-05-26T02:14:13-04:00", "2011-05-25 16:12:21.656+0000", "2011-11-07T11:19:13.38225Z",
+            "2009-02-03T05:26:32.612278", "2009-02-03T05:26:32.6Z", "2009-02-03T05:26:32.61-05",
+            "2012-11-26T17:32:31UTC+0000", "2009-13-40T25:61:61.000Z", "2009-02-29T00:00:00Z", "2008-02-29T00:00:00Z",
+            "1582-10-10T00:00:00.000Z", "1583-01-01T00:00:00+01:00", "0001-01-01T00:00:00Z", "2009-03-12T02:00:07",
+            "2009-03-12x02:00:07Z", "2009-03-12T02:00:07.000Z junk", "2009-03-12T02:00:07+2400",
+            "Thu, 12 Mar 2009 02:00:07 GMT", "Fri, 12 Mar 2009 02:00:07 GMT", "Thu, 12 Mar 2009 02:00:07 +0100",
+            "Thu, 12 Mar 2009 02:00:07 -0530", "Thu, 12 mar 2009 02:00:07 GMT", "Thu, 32 Mar 2009 02:00:07 GMT",
+            "Thu, 12 Mar 2009 02:00:07 GMT trailing", "Thu, 2 Mar 2009 02:00:07 GMT", "Thu Mar 12 02:00:07 +0000 2009",
+            "Thu Mar 12 02:00:07 -0800 2009", "Thu Mar 12 02:00:07 GMT 2009", "Thu Feb 30 02:00:07 +0000 2009",
+            "-1", "foo", "", "2009-03-12", "2009-03-12T02:00:07.Z" };
+      for (String input : inputs)
+         assertParseMatches(input);
+   }
+
+   private void assertParseMatches(String input) {
+      assertEquals(parse(actual, input, 0), parse(expected, input, 0), "iso8601 " + input);
+      assertEquals(parse(actual, input, 1), parse(expected, input, 1), "iso8601Seconds " + input);
+      assertEquals(parse(actual, input, 2), parse(expected, input, 2), "iso8601OrSeconds " + input);
+      assertEquals(parse(actual, input, 3), parse(expected, input, 3), "rfc822 " + input);
+      assertEquals(parse(actual, input, 4), parse(expected, input, 4), "rfc1123 " + input);
+      assertEquals(parse(actual, input, 5), parse(expected, input, 5), "c " + input);
+   }
+
+   private static Object parse(DateService dateService, String input, int format) {
+      try {
+         switch (format) {
+            case 0:
+               return dateService.iso8601DateParse(input);
+            case 1:
+               return dateService.iso8601SecondsDateParse(input);
+            case 2:
+               return dateService.iso8601DateOrSecondsDateParse(input);
+            case 3:
+               return dateService.rfc822DateParse(input);
+            case 4:
+               return dateService.rfc1123DateParse(input);
+            default:
+               return dateService.cDateParse(input);
+         }
+      } catch (RuntimeException e) {
+         return e.getClass();
+      }
+   }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.easymock.IAnswer;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.DelegatingErrorHandler;
+import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.handlers.RetryDelays;
+import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.rest.internal.BaseHttpApiMetadata;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.name.Names;
+
+@Test(groups = "unit", testName = "BaseAsyncHttpCommandExecutorServiceTest")
+public class BaseAsyncHttpCommandExecutorServiceTest {
+
+   public void testRetryDelayIsScheduledInsteadOfSlept() throws Exception {
+      final HttpCommand command = new HttpCommand(HttpRequest.builder().endpoint("http://localhost").method("GET")
+            .build());
+      HttpResponse unavailable = HttpResponse.builder().statusCode(503).build();
+      HttpResponse ok = HttpResponse.builder().statusCode(200).build();
+
+      DelegatingRetryHandler retryHandler = createMock(DelegatingRetryHandler.class);
+      expect(retryHandler.shouldRetryRequest(command, unavailable)).andAnswer(new IAnswer<Boolean>() {
+         @Override
+         public Boolean answer() throws Throwable {
+            RetryDelays.sleep(60000);
+            command.incrementFailureCount();
+            return true;
+         }
+      });
+      replay(retryHandler);
+
+      MockAsyncHttpCommandExecutorService service = service(retryHandler, createMock(IOExceptionRetryHandler.class));
+      service.responses.add(Futures.immediateFuture(unavailable));
+      service.responses.add(Futures.immediateFuture(ok));
+
+      long start = System.nanoTime();
+      assertEquals(service.submit(command).get(), ok);
+      assertTrue(System.nanoTime() - start < 30000000000L);
+      assertEquals(service.delays, Lists.newArrayList(60000L));
+      verify(retryHandler);
+   }
+
+   public void testIOExceptionsAreRetried() throws Exception {
+      HttpCommand command = new HttpCommand(HttpRequest.builder().endpoint("http://localhost").method("GET").build());
+      HttpResponse ok = HttpResponse.builder().statusCode(200).build();
+
+      IOExceptionRetryHandler ioRetryHandler = createMock(IOExceptionRetryHandler.class);
+      expect(ioRetryHandler.shouldRetryRequest(eq(command), isA(IOException.class))).andReturn(true);
+      replay(ioRetryHandler);
+
+      MockAsyncHttpCommandExecutorService service = service(createMock(DelegatingRetryHandler.class), ioRetryHandler);
+      service.responses.add(Futures.<HttpResponse> immediateFailedFuture(new IOException("connection reset")));
+      service.responses.add(Futures.immediateFuture(ok));
+
+      assertEquals(service.submit(command).get(), ok);
+      assertTrue(service.delays.isEmpty());
+      verify(ioRetryHandler);
+   }
+
+   public void testInvokeBlocksOnTheFuture() throws Exception {
+      HttpCommand command = new HttpCommand(HttpRequest.builder().endpoint("http://localhost").method("GET").build());
+      HttpResponse ok = HttpResponse.builder().statusCode(200).build();
+
+      MockAsyncHttpCommandExecutorService service = service(createMock(DelegatingRetryHandler.class),
+            createMock(IOExceptionRetryHandler.class));
+      service.responses.add(Futures.immediateFuture(ok));
+
+      assertEquals(service.invoke(command), ok);
+   }
+
+   private static MockAsyncHttpCommandExecutorService service(final DelegatingRetryHandler retryHandler,
+         final IOExceptionRetryHandler ioRetryHandler) {
+      return Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), BaseHttpApiMetadata.defaultProperties());
+            bind(DelegatingRetryHandler.class).toInstance(retryHandler);
+            bind(IOExceptionRetryHandler.class).toInstance(ioRetryHandler);
+         }
+      }).getInstance(MockAsyncHttpCommandExecutorService.class);
+   }
+
+   private static class MockAsyncHttpCommandExecutorService extends BaseAsyncHttpCommandExecutorService<Object> {
+      private final Deque<ListenableFuture<HttpResponse>> responses = Lists.newLinkedList();
+      private final List<Long> delays = Lists.newArrayList();
+
+      @Inject
+      MockAsyncHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+            DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+            DelegatingErrorHandler errorHandler, HttpWire wire,
+            @Named(PROPERTY_IDEMPOTENT_METHODS) String idempotentMethods) {
+         super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods,
+               MoreExecutors.sameThreadExecutor());
+      }
+
+      @Override
+      protected Object convert(HttpRequest request) throws IOException, InterruptedException {
+         return request;
+      }
+
+      @Override
+      protected ListenableFuture<HttpResponse> invokeAsync(Object nativeRequest) {
+         return responses.remove();
+      }
+
+      @Override
+      protected void schedule(Runnable task, long delayMillis) {
+         delays.add(delayMillis);
+         task.run();
+      }
+
+      @Override
+      protected void cleanup(Object nativeRequest) {
+      }
+   }
+}
@@ -27,6 +27,7 @@ import static org.jclouds.http.HttpUtils.releasePayload;
 import static org.jclouds.io.Payloads.newInputStreamPayload;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -40,6 +41,7 @@ import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpException;
+import org.jclouds.http.HttpMetrics;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpRequestFilter;
 import org.jclouds.http.HttpResponse;
@@ -236,6 +238,43 @@ public class BaseHttpCommandExecutorServiceTest {
       verify(ioRetryHandler);
    }
 
+   public void testMetricsAreOffByDefault() {
+      IOExceptionRetryHandler ioRetryHandler = EasyMock.createMock(IOExceptionRetryHandler.class);
+      BaseHttpCommandExecutorService<?> service = mockHttpCommandExecutorService(ioRetryHandler);
+      assertSame(service.metrics, HttpMetrics.NONE);
+   }
+
+   public void testMetricsCountRetriesOfIdempotentRequests() {
+      final IOException error = new IOException("test exception");
+      HttpRequestFilter throwingFilter = new HttpRequestFilter() {
+         @Override
+         public HttpRequest filter(HttpRequest request) throws HttpException {
+            throw new HttpException(error);
+         }
+      };
+      HttpCommand command = new HttpCommand(HttpRequest.builder().endpoint("http://localhost").method("GET")
+            .filter(throwingFilter).build());
+
+      IOExceptionRetryHandler ioRetryHandler = EasyMock.createMock(IOExceptionRetryHandler.class);
+      expect(ioRetryHandler.shouldRetryRequest(command, error)).andReturn(true).times(2);
+      expect(ioRetryHandler.shouldRetryRequest(command, error)).andReturn(false);
+      replay(ioRetryHandler);
+
+      InMemoryHttpMetrics metrics = new InMemoryHttpMetrics();
+      BaseHttpCommandExecutorService<?> service = mockHttpCommandExecutorService(ioRetryHandler, metrics);
+      try {
+         service.invoke(command);
+         fail("Expected to fail due to throwing filter");
+      } catch (Exception e) {}
+
+      verify(ioRetryHandler);
+      InMemoryHttpMetrics.Stats stats = metrics.getStats().get(new HttpMetrics.Tags("unknown", "GET", "unknown"));
+      assertEquals(stats.getRetries(), 2);
+      // the filter failed before anything was sent
+      assertEquals(stats.getRequests(), 0);
+      assertEquals(metrics.getInFlight(), 0);
+   }
+
    private HttpCommand mockHttpCommand() {
       return new HttpCommand(HttpRequest.builder().endpoint("http://localhost").method("mock").build());
    }
@@ -268,6 +307,21 @@ public class BaseHttpCommandExecutorServiceTest {
       return injector.getInstance(BaseHttpCommandExecutorService.class);
    }
 
+   private BaseHttpCommandExecutorService<?> mockHttpCommandExecutorService(final IOExceptionRetryHandler ioRetryHandler,
+         final HttpMetrics metrics) {
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), BaseHttpApiMetadata.defaultProperties());
+            bind(IOExceptionRetryHandler.class).toInstance(ioRetryHandler);
+            bind(HttpMetrics.class).toInstance(metrics);
+            bind(BaseHttpCommandExecutorService.class).to(MockHttpCommandExecutorService.class);
+         }
+      });
+
+      return injector.getInstance(BaseHttpCommandExecutorService.class);
+   }
+
    private static class MockInputStream extends InputStream {
       boolean isOpen = true;
       int count;
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.jclouds.http.HttpMetrics.Tags;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payloads;
+import org.testng.annotations.Test;
+
+
+@Test(groups = "unit", testName = "InMemoryHttpMetricsTest")
+public class InMemoryHttpMetricsTest {
+   private static final Tags GET = new Tags("s3", "GET", "GetObject");
+   private static final Tags PUT = new Tags("s3", "PUT", "PutObject");
+
+   public void testCountsPerTags() {
+      InMemoryHttpMetrics metrics = new InMemoryHttpMetrics();
+      HttpRequest put = HttpRequest.builder().method("PUT").endpoint("http://localhost/bucket/key")
+            .payload(Payloads.newByteArrayPayload(new byte[100])).build();
+      HttpRequest get = HttpRequest.builder().method("GET").endpoint("http://localhost/bucket/key").build();
+      HttpResponse ok = HttpResponse.builder().statusCode(200).payload(new byte[42]).build();
+      HttpResponse unavailable = HttpResponse.builder().statusCode(503).build();
+
+      metrics.requestStarted(PUT, put);
+      metrics.requestStarted(GET, get);
+      assertEquals(metrics.getInFlight(), 2);
+      assertEquals(metrics.getStats().get(GET).getInFlight(), 1);
+
+      metrics.responseReceived(GET, get, unavailable, MILLISECONDS.toNanos(3));
+      metrics.requestRetried(GET, get);
+      metrics.requestStarted(GET, get);
+      metrics.responseReceived(GET, get, ok, MILLISECONDS.toNanos(5));
+      metrics.requestFailed(PUT, put, new IOException("reset"), MILLISECONDS.toNanos(7));
+      assertEquals(metrics.getInFlight(), 0);
+
+      InMemoryHttpMetrics.Stats getStats = metrics.getStats().get(GET);
+      assertEquals(getStats.getRequests(), 2);
+      assertEquals(getStats.getRetries(), 1);
+      assertEquals(getStats.getFailures(), 0);
+      assertEquals(getStats.getResponses(2), 1);
+      assertEquals(getStats.getResponses(5), 1);
+      assertEquals(getStats.getBytesSent(), 0);
+      assertEquals(getStats.getBytesReceived(), 42);
+      assertEquals(getStats.getLatencyAtPercentile(100, MICROSECONDS), 5000);
+      assertEquals(getStats.getMaxLatency(MILLISECONDS), 5);
+      assertEquals(getStats.getMeanLatency(MILLISECONDS), 4.0);
+
+      InMemoryHttpMetrics.Stats putStats = metrics.getStats().get(PUT);
+      assertEquals(putStats.getRequests(), 1);
+      assertEquals(putStats.getFailures(), 1);
+      assertEquals(putStats.getBytesSent(), 100);
+      assertEquals(putStats.getInFlight(), 0);
+
+      metrics.reset();
+      getStats = metrics.getStats().get(GET);
+      assertEquals(getStats.getRequests(), 0);
+      assertEquals(getStats.getRetries(), 0);
+      assertEquals(getStats.getResponses(2), 0);
+      assertEquals(getStats.getBytesReceived(), 0);
+      assertEquals(getStats.getMaxLatency(MILLISECONDS), 0);
+      assertEquals(metrics.getStats().get(PUT).getFailures(), 0);
+   }
+
+   public void testResetKeepsRequestsInFlight() {
+      InMemoryHttpMetrics metrics = new InMemoryHttpMetrics();
+      HttpRequest get = HttpRequest.builder().method("GET").endpoint("http://localhost/bucket/key").build();
+      HttpResponse ok = HttpResponse.builder().statusCode(200).build();
+
+      metrics.requestStarted(GET, get);
+      metrics.reset();
+      assertEquals(metrics.getInFlight(), 1);
+      assertEquals(metrics.getStats().get(GET).getInFlight(), 1);
+      assertEquals(metrics.getStats().get(GET).getRequests(), 0);
+
+      metrics.responseReceived(GET, get, ok, MILLISECONDS.toNanos(2));
+      assertEquals(metrics.getInFlight(), 0);
+      assertEquals(metrics.getStats().get(GET).getInFlight(), 0);
+      assertEquals(metrics.getStats().get(GET).getResponses(2), 1);
+   }
+
+   public void testHistogramBucketsCoverEveryValue() {
+      int previous = -1;
+      for (long value = 0; value < 1 << 20; value++) {
+         int index = LatencyHistogram.index(value);
+         assertTrue(index == previous || index == previous + 1, "index of " + value);
+         assertTrue(LatencyHistogram.highestEquivalentValue(index) >= value, "bucket of " + value);
+         previous = index;
+      }
+      assertEquals(LatencyHistogram.index(LatencyHistogram.MAX_VALUE), LatencyHistogram.BUCKETS - 1);
+      assertEquals(LatencyHistogram.highestEquivalentValue(LatencyHistogram.BUCKETS - 1), LatencyHistogram.MAX_VALUE);
+   }
+
+   public void testHistogramPercentilesAreWithinBucketPrecision() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      Random random = new Random(0);
+      long[] values = new long[10000];
+      for (int i = 0; i < values.length; i++) {
+         values[i] = (long) Math.exp(random.nextDouble() * 20);
+         histogram.record(values[i]);
+      }
+      Arrays.sort(values);
+      LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+      assertEquals(snapshot.getCount(), values.length);
+      assertEquals(snapshot.getMax(), values[values.length - 1]);
+      for (double percentile : new double[] { 0, 50, 90, 99, 99.9, 100 }) {
+         long expected = values[Math.max(0, (int) Math.ceil(percentile / 100 * values.length) - 1)];
+         long actual = snapshot.getValueAtPercentile(percentile);
+         assertTrue(actual >= expected && actual <= expected + expected / 64, percentile + ": " + actual + " vs "
+               + expected);
+      }
+   }
+
+   public void testHistogramClampsOutOfRangeValues() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(-5);
+      histogram.record(Long.MAX_VALUE);
+      LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+      assertEquals(snapshot.getValueAtPercentile(50), 0);
+      assertEquals(snapshot.getMax(), LatencyHistogram.MAX_VALUE);
+   }
+}
@@ -111,4 +111,21 @@ public class BasePayloadSlicerTest {
 
       assertFalse(iter.hasNext());
    }
+
+   @Test
+   public void testIterableSliceInputStreamReadsLazily() throws IOException {
+      PayloadSlicer slicer = new BasePayloadSlicer();
+      ByteArrayInputStream input = new ByteArrayInputStream("aaaaaaaaaabbbbbbbbbbccccc".getBytes(Charsets.US_ASCII));
+      Payload payload = new InputStreamPayload(input);
+
+      Iterator<Payload> iter = slicer.slice(payload, 10).iterator();
+      assertEquals(input.available(), 25);
+
+      assertTrue(iter.hasNext());
+      assertEquals(input.available(), 15);
+      assertTrue(iter.hasNext());
+      assertEquals(input.available(), 15);
+      assertEquals(Strings2.toStringAndClose(iter.next().openStream()), "aaaaaaaaaa");
+      assertEquals(input.available(), 15);
+   }
 }
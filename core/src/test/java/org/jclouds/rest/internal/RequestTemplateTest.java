@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import javax.ws.rs.Encoded;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import org.jclouds.http.filters.BasicAuthentication;
+import org.jclouds.http.filters.StripExpectHeader;
+import org.jclouds.http.options.HttpRequestOptions;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.OverrideRequestFilters;
+import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.SkipEncoding;
+import org.jclouds.rest.annotations.WrapWith;
+import org.jclouds.rest.binders.BindToStringPayload;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "RequestTemplateTest")
+public class RequestTemplateTest {
+
+   @Path("/v1")
+   @Produces("application/json")
+   @SkipEncoding('/')
+   @RequestFilters(BasicAuthentication.class)
+   public interface Annotated {
+      @GET
+      @Path("/{container}")
+      String list(@PathParam("container") String container, @Nullable @QueryParam("pre fix") String prefix,
+            HttpRequestOptions... options);
+
+      @POST
+      @Path("/{container}/{name}")
+      @Produces("text/plain")
+      @SkipEncoding({ '/', ':' })
+      @RequestFilters(StripExpectHeader.class)
+      @OverrideRequestFilters
+      String put(@PathParam("container") String container, @PathParam("name") @Encoded String name,
+            @HeaderParam("X-Meta") String meta, @WrapWith("ignored") @BinderParam(BindToStringPayload.class)
+            String content);
+   }
+
+   public void testTemplateIsCachedPerInvokable() {
+      assertSame(RequestTemplate.of(method(Annotated.class, "list", String.class, String.class,
+            HttpRequestOptions[].class)), RequestTemplate.of(method(Annotated.class, "list", String.class,
+            String.class, HttpRequestOptions[].class)));
+   }
+
+   public void testTypeAnnotationsApplyWhenMethodHasNone() {
+      RequestTemplate template = RequestTemplate.of(method(Annotated.class, "list", String.class, String.class,
+            HttpRequestOptions[].class));
+      assertEquals(template.httpMethod.get(), "GET");
+      assertEquals(template.typePath, "/v1");
+      assertEquals(template.methodPath, "/{container}");
+      assertEquals(template.produces, ImmutableList.of("application/json"));
+      assertEquals(template.skipEncoding, ImmutableList.of('/'));
+      assertEquals(template.typeFilters, ImmutableList.of(BasicAuthentication.class));
+      assertTrue(template.methodFilters.isEmpty());
+      assertTrue(template.encodeFullPath);
+      assertEquals(template.pathParams.get(0).key, "container");
+      assertEquals(template.queryParams.get(0).key, "pre%20fix");
+      assertEquals(template.queryParams.get(0).position, 1);
+      assertTrue(template.queryParams.get(0).nullable);
+      assertEquals(template.optionsPositions, ImmutableSet.of(2));
+   }
+
+   public void testMethodAnnotationsOverrideType() {
+      RequestTemplate template = RequestTemplate.of(method(Annotated.class, "put", String.class, String.class,
+            String.class, String.class));
+      assertEquals(template.httpMethod.get(), "POST");
+      assertEquals(template.produces, ImmutableList.of("text/plain"));
+      assertEquals(template.skipEncoding, ImmutableList.of('/', ':'));
+      assertTrue(template.typeFilters.isEmpty());
+      assertEquals(template.methodFilters, ImmutableList.of(StripExpectHeader.class));
+      assertFalse(template.encodeFullPath);
+      assertFalse(template.pathParams.get(0).encoded);
+      assertTrue(template.pathParams.get(1).encoded);
+      assertEquals(template.headerParams.get(0).key, "X-Meta");
+      assertEquals(template.binderOrWrapWith.size(), 1);
+      assertTrue(template.binderOrWrapWith.get(0).annotation instanceof BinderParam);
+      assertNull(template.mapBinder);
+      assertTrue(template.optionsPositions.isEmpty());
+   }
+}
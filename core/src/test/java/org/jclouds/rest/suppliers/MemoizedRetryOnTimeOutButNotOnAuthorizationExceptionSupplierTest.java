@@ -19,8 +19,12 @@ package org.jclouds.rest.suppliers;
 import static com.google.common.base.Suppliers.ofInstance;
 import static com.google.common.util.concurrent.Atomics.newReference;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -125,6 +129,55 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplierTest {
       assertEquals(handler.count.get(), 2);
    }
 
+   @Test
+   public void testRefreshAheadServesPreviousValueWhileReloading() throws Exception {
+      AtomicReference<AuthorizationException> authException = newReference();
+      final AtomicInteger loads = new AtomicInteger();
+      final CountDownLatch reloadStarted = new CountDownLatch(1);
+      final CountDownLatch finishReload = new CountDownLatch(1);
+      ExecutorService reloadExecutor = Executors.newSingleThreadExecutor();
+      try {
+         Supplier<Integer> supplier = MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(
+               authException, new Supplier<Integer>() {
+                  @Override
+                  public Integer get() {
+                     int load = loads.incrementAndGet();
+                     if (load > 1) {
+                        reloadStarted.countDown();
+                        Uninterruptibles.awaitUninterruptibly(finishReload);
+                     }
+                     return load;
+                  }
+               }, 1, 60, TimeUnit.SECONDS, reloadExecutor, new ValueLoadedCallback.NoOpCallback<Integer>());
+
+         assertEquals(supplier.get(), Integer.valueOf(1));
+
+         // Once the refresh interval has elapsed, the reload runs in the background and the old value is served
+         Uninterruptibles.sleepUninterruptibly(1100, TimeUnit.MILLISECONDS);
+         assertEquals(supplier.get(), Integer.valueOf(1));
+         assertTrue(reloadStarted.await(10, TimeUnit.SECONDS));
+         assertEquals(supplier.get(), Integer.valueOf(1));
+         assertEquals(loads.get(), 2);
+
+         finishReload.countDown();
+         reloadExecutor.shutdown();
+         assertTrue(reloadExecutor.awaitTermination(10, TimeUnit.SECONDS));
+         assertEquals(supplier.get(), Integer.valueOf(2));
+      } finally {
+         finishReload.countDown();
+         reloadExecutor.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testJitterShortensIntervalByAtMostTenPercent() {
+      for (int i = 0; i < 100; i++) {
+         long jittered = MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.jitter(1000);
+         assertTrue(jittered > 900 && jittered <= 1000, "jittered: " + jittered);
+      }
+      assertEquals(MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.jitter(0), 1);
+   }
+
    static class ValueLoadedEventHandler implements ValueLoadedCallback<String>{
       AtomicInteger count = new AtomicInteger(0);
 
@@ -33,6 +33,8 @@ import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
@@ -57,17 +59,19 @@ public class ApacheHCHttpCommandExecutorService extends BaseHttpCommandExecutorS
    private final HttpClient client;
    private final ApacheHCUtils apacheHCUtils;
    private final String userAgent;
+   private final RequestConfig putConfig;
 
    @Inject
    ApacheHCHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
          DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
-         DelegatingErrorHandler errorHandler, HttpWire wire, HttpClient client,
+         DelegatingErrorHandler errorHandler, HttpWire wire, HttpClient client, RequestConfig requestConfig,
          @Named(PROPERTY_IDEMPOTENT_METHODS) String idempotentMethods,
          @Named(PROPERTY_USER_AGENT) String userAgent) {
       super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods);
       this.client = client;
       this.apacheHCUtils = new ApacheHCUtils(contentMetadataCodec);
       this.userAgent = userAgent;
+      this.putConfig = RequestConfig.copy(requestConfig).setExpectContinueEnabled(true).build();
    }
 
    @Override
@@ -78,6 +82,11 @@ public class ApacheHCHttpCommandExecutorService extends BaseHttpCommandExecutorS
          returnVal.addHeader("Content-MD5", md5);
       }
 
+      if (returnVal instanceof HttpPut) {
+         // wait for the server to accept the headers before sending the payload
+         ((HttpPut) returnVal).setConfig(putConfig);
+      }
+
       if (!returnVal.containsHeader(HttpHeaders.USER_AGENT)) {
          returnVal.addHeader(HttpHeaders.USER_AGENT, userAgent);
       }
@@ -16,35 +16,37 @@
  */
 package org.jclouds.http.apachehc.config;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.http.apachehc.config.ApacheHCProperties.CONNECTION_TTL;
+import static org.jclouds.http.apachehc.config.ApacheHCProperties.IDLE_TIMEOUT;
+import static org.jclouds.http.apachehc.config.ApacheHCProperties.STALE_CHECK;
+
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.ProxySelector;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.net.ssl.SSLContext;
 
-import org.apache.http.HttpVersion;
 import org.apache.http.client.HttpClient;
-import org.apache.http.conn.ClientConnectionManager;
-import org.apache.http.conn.params.ConnManagerParams;
-import org.apache.http.conn.params.ConnPerRoute;
-import org.apache.http.conn.params.ConnPerRouteBean;
-import org.apache.http.conn.scheme.PlainSocketFactory;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.conn.scheme.SchemeRegistry;
-import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.X509HostnameVerifier;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.impl.conn.ProxySelectorRoutePlanner;
-import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
-import org.apache.http.params.BasicHttpParams;
-import org.apache.http.params.CoreConnectionPNames;
-import org.apache.http.params.CoreProtocolPNames;
-import org.apache.http.params.HttpParams;
-import org.apache.http.params.HttpProtocolParams;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
 import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpUtils;
 import org.jclouds.http.apachehc.ApacheHCHttpCommandExecutorService;
@@ -54,7 +56,10 @@ import org.jclouds.lifecycle.Closer;
 import org.jclouds.proxy.ProxyConfig;
 
 import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
 
@@ -69,42 +74,40 @@ public class ApacheHCHttpCommandExecutorServiceModule extends AbstractModule {
    @Override
    protected void configure() {
       install(new SSLModule());
+      bind(RequestConfig.class).toProvider(RequestConfigProvider.class).in(Scopes.SINGLETON);
+      bind(HttpClientConnectionManager.class).toProvider(ConnectionManagerProvider.class).in(Scopes.SINGLETON);
       bindClient();
    }
 
-   @Singleton
-   @Provides
-   final HttpParams newBasicHttpParams(HttpUtils utils) {
-      BasicHttpParams params = new BasicHttpParams();
+   static class RequestConfigProvider implements Provider<RequestConfig> {
 
-      params.setIntParameter(CoreConnectionPNames.SOCKET_BUFFER_SIZE, 8 * 1024).setBooleanParameter(
-               CoreConnectionPNames.STALE_CONNECTION_CHECK, true).setBooleanParameter(CoreConnectionPNames.TCP_NODELAY,
-               true).setParameter(CoreProtocolPNames.ORIGIN_SERVER, "jclouds/1.0");
+      @Inject(optional = true)
+      @Named(STALE_CHECK)
+      private boolean staleCheck = true;
 
-      if (utils.getConnectionTimeout() > 0) {
-         params.setIntParameter(CoreConnectionPNames.CONNECTION_TIMEOUT, utils.getConnectionTimeout());
-      }
+      private final HttpUtils utils;
 
-      if (utils.getSocketOpenTimeout() > 0) {
-         params.setIntParameter(CoreConnectionPNames.SO_TIMEOUT, utils.getSocketOpenTimeout());
+      @Inject
+      RequestConfigProvider(HttpUtils utils) {
+         this.utils = utils;
       }
 
-      if (utils.getMaxConnections() > 0)
-         ConnManagerParams.setMaxTotalConnections(params, utils.getMaxConnections());
-
-      if (utils.getMaxConnectionsPerHost() > 0) {
-         ConnPerRoute connectionsPerRoute = new ConnPerRouteBean(utils.getMaxConnectionsPerHost());
-         ConnManagerParams.setMaxConnectionsPerRoute(params, connectionsPerRoute);
+      @Override
+      public RequestConfig get() {
+         RequestConfig.Builder config = RequestConfig.custom().setStaleConnectionCheckEnabled(staleCheck);
+         if (utils.getConnectionTimeout() > 0)
+            config.setConnectTimeout(utils.getConnectionTimeout());
+         if (utils.getSocketOpenTimeout() > 0)
+            config.setSocketTimeout(utils.getSocketOpenTimeout());
+         return config.build();
       }
-      HttpProtocolParams.setVersion(params, HttpVersion.HTTP_1_1);
-      return params;
    }
 
    @Singleton
    @Provides
    final X509HostnameVerifier newHostnameVerifier(HttpUtils utils) {
-      return utils.relaxHostname() ? SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER
-               : SSLSocketFactory.STRICT_HOSTNAME_VERIFIER;
+      return utils.relaxHostname() ? SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER
+               : SSLConnectionSocketFactory.STRICT_HOSTNAME_VERIFIER;
    }
 
    @Singleton
@@ -119,38 +122,85 @@ public class ApacheHCHttpCommandExecutorServiceModule extends AbstractModule {
       return context;
    }
 
-   @Singleton
-   @Provides
-   final ClientConnectionManager newClientConnectionManager(HttpParams params, X509HostnameVerifier verifier,
-            SSLContext context, Closer closer) throws NoSuchAlgorithmException, KeyManagementException {
-
-      SchemeRegistry schemeRegistry = new SchemeRegistry();
-      schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
-
-      SSLSocketFactory sf = new SSLSocketFactory(context);
-      sf.setHostnameVerifier(verifier);
-      schemeRegistry.register(new Scheme("https", sf, 443));
-
-      final ClientConnectionManager cm = new ThreadSafeClientConnManager(params, schemeRegistry);
-      closer.addToClose(new Closeable() {
-         @Override
-         public void close() throws IOException {
-            cm.shutdown();
-         }
-      });
-      return cm;
+   /**
+    * Pools connections per route, and closes expired and idle connections from a background thread, so that
+    * requests do not find them closed by the server.
+    */
+   static class ConnectionManagerProvider implements Provider<HttpClientConnectionManager> {
+
+      @Inject(optional = true)
+      @Named(CONNECTION_TTL)
+      private long connectionTtlMillis = TimeUnit.MINUTES.toMillis(5);
+
+      @Inject(optional = true)
+      @Named(IDLE_TIMEOUT)
+      private long idleTimeoutMillis = TimeUnit.MINUTES.toMillis(1);
+
+      private final HttpUtils utils;
+      private final X509HostnameVerifier verifier;
+      private final SSLContext context;
+      private final Closer closer;
+
+      @Inject
+      ConnectionManagerProvider(HttpUtils utils, X509HostnameVerifier verifier, SSLContext context, Closer closer) {
+         this.utils = utils;
+         this.verifier = verifier;
+         this.context = context;
+         this.closer = closer;
+      }
+
+      @Override
+      public HttpClientConnectionManager get() {
+         final PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager(RegistryBuilder
+               .<ConnectionSocketFactory> create().register("http", PlainConnectionSocketFactory.getSocketFactory())
+               .register("https", new SSLConnectionSocketFactory(context, verifier)).build(), null, null, null,
+               connectionTtlMillis, MILLISECONDS);
+         if (utils.getMaxConnections() > 0)
+            cm.setMaxTotal(utils.getMaxConnections());
+         // a limit of 0 per host means the whole pool may be used by one host
+         cm.setDefaultMaxPerRoute(utils.getMaxConnectionsPerHost() > 0 ? utils.getMaxConnectionsPerHost() : cm
+               .getMaxTotal());
+         SocketConfig.Builder socketConfig = SocketConfig.custom().setTcpNoDelay(true);
+         if (utils.getSocketOpenTimeout() > 0)
+            socketConfig.setSoTimeout(utils.getSocketOpenTimeout());
+         cm.setDefaultSocketConfig(socketConfig.build());
+         cm.setDefaultConnectionConfig(ConnectionConfig.custom().setBufferSize(8 * 1024).build());
+
+         final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+               .setNameFormat("jclouds apachehc connection reaper %d").setDaemon(true).build());
+         long period = idleTimeoutMillis > 0 ? Math.min(idleTimeoutMillis, TimeUnit.SECONDS.toMillis(5))
+               : TimeUnit.SECONDS.toMillis(5);
+         reaper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+               cm.closeExpiredConnections();
+               if (idleTimeoutMillis > 0)
+                  cm.closeIdleConnections(idleTimeoutMillis, MILLISECONDS);
+            }
+         }, period, period, MILLISECONDS);
+
+         closer.addToClose(new Closeable() {
+            @Override
+            public void close() throws IOException {
+               reaper.shutdownNow();
+               cm.shutdown();
+            }
+         });
+         return cm;
+      }
    }
 
    @Provides
    @Singleton
-   final HttpClient newDefaultHttpClient(ProxyConfig config, BasicHttpParams params, ClientConnectionManager cm) {
-      DefaultHttpClient client = new DefaultHttpClient(cm, params);
+   final HttpClient newDefaultHttpClient(ProxyConfig config, RequestConfig requestConfig,
+         HttpClientConnectionManager cm) {
+      // jclouds reads and checks the payload as sent, so the client must not decompress it
+      HttpClientBuilder builder = HttpClientBuilder.create().setConnectionManager(cm)
+            .setDefaultRequestConfig(requestConfig).disableContentCompression();
       if (config.useSystem()) {
-         ProxySelectorRoutePlanner routePlanner = new ProxySelectorRoutePlanner(client.getConnectionManager()
-                  .getSchemeRegistry(), ProxySelector.getDefault());
-         client.setRoutePlanner(routePlanner);
+         builder.setRoutePlanner(new SystemDefaultRoutePlanner(ProxySelector.getDefault()));
       }
-      return client;
+      return builder.build();
    }
 
    protected void bindClient() {
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.apachehc.config;
+
+/**
+ * Configuration properties of the Apache HttpClient driver. The size of the connection pool is taken from
+ * {@link org.jclouds.Constants#PROPERTY_MAX_CONNECTIONS_PER_CONTEXT} and
+ * {@link org.jclouds.Constants#PROPERTY_MAX_CONNECTIONS_PER_HOST}.
+ */
+public final class ApacheHCProperties {
+
+   /**
+    * Long property. default (300000)
+    * <p/>
+    * How long, in milliseconds, a connection may be reused after it was opened; {@code -1} reuses connections for as
+    * long as the server keeps them open. A limit lets new connections pick up DNS changes of the endpoint.
+    */
+   public static final String CONNECTION_TTL = "jclouds.apachehc.connection-ttl";
+
+   /**
+    * Long property. default (60000)
+    * <p/>
+    * How long, in milliseconds, a pooled connection may stay idle before a background thread closes it; {@code -1}
+    * keeps idle connections until they expire.
+    */
+   public static final String IDLE_TIMEOUT = "jclouds.apachehc.idle-timeout";
+
+   /**
+    * Boolean property. default (true)
+    * <p/>
+    * Whether a pooled connection is checked for having been closed by the server before it is reused. The check
+    * costs a blocking read of up to a millisecond per request; servers that close idle connections sooner than
+    * {@link #IDLE_TIMEOUT} may cause requests to fail without it.
+    */
+   public static final String STALE_CHECK = "jclouds.apachehc.stale-check";
+
+   private ApacheHCProperties() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.apachehc.config;
+
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_HOST;
+import static org.jclouds.Constants.PROPERTY_SO_TIMEOUT;
+import static org.jclouds.http.apachehc.config.ApacheHCProperties.STALE_CHECK;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.jclouds.ContextBuilder;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.providers.AnonymousProviderMetadata;
+import org.jclouds.util.Strings2;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Injector;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "ApacheHCHttpCommandExecutorServiceModuleTest")
+public class ApacheHCHttpCommandExecutorServiceModuleTest {
+
+   private interface DummyApi extends Closeable {
+   }
+
+   public void testPoolIsConfiguredFromProperties() throws IOException {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT, "500");
+      overrides.setProperty(PROPERTY_MAX_CONNECTIONS_PER_HOST, "100");
+      overrides.setProperty(PROPERTY_SO_TIMEOUT, "1234");
+      overrides.setProperty(STALE_CHECK, "false");
+      Injector injector = injector(overrides);
+      try {
+         PoolingHttpClientConnectionManager cm = (PoolingHttpClientConnectionManager) injector
+               .getInstance(HttpClientConnectionManager.class);
+         assertEquals(cm.getMaxTotal(), 500);
+         assertEquals(cm.getDefaultMaxPerRoute(), 100);
+         assertEquals(cm.getDefaultSocketConfig().getSoTimeout(), 1234);
+         assertTrue(cm.getDefaultSocketConfig().isTcpNoDelay());
+
+         RequestConfig config = injector.getInstance(RequestConfig.class);
+         assertFalse(config.isStaleConnectionCheckEnabled());
+         assertEquals(config.getSocketTimeout(), 1234);
+      } finally {
+         injector.getInstance(Closer.class).close();
+      }
+   }
+
+   public void testUnlimitedConnectionsPerHostUseTheWholePool() throws IOException {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT, "40");
+      overrides.setProperty(PROPERTY_MAX_CONNECTIONS_PER_HOST, "0");
+      Injector injector = injector(overrides);
+      try {
+         PoolingHttpClientConnectionManager cm = (PoolingHttpClientConnectionManager) injector
+               .getInstance(HttpClientConnectionManager.class);
+         assertEquals(cm.getDefaultMaxPerRoute(), 40);
+         assertTrue(injector.getInstance(RequestConfig.class).isStaleConnectionCheckEnabled());
+      } finally {
+         injector.getInstance(Closer.class).close();
+      }
+   }
+
+   public void testConnectionsAreReused() throws Exception {
+      MockWebServer server = new MockWebServer();
+      server.enqueue(new MockResponse().setBody("first"));
+      server.enqueue(new MockResponse().setBody("second"));
+      server.play();
+      Injector injector = injector(new Properties());
+      try {
+         HttpCommandExecutorService executor = injector.getInstance(HttpCommandExecutorService.class);
+         HttpRequest put = HttpRequest.builder().method("PUT").endpoint(server.getUrl("/objects/1").toString())
+               .payload("hello").build();
+         HttpResponse response = executor.invoke(new HttpCommand(put));
+         assertEquals(Strings2.toStringAndClose(response.getPayload().openStream()), "first");
+         response = executor.invoke(new HttpCommand(put));
+         assertEquals(Strings2.toStringAndClose(response.getPayload().openStream()), "second");
+
+         RecordedRequest request = server.takeRequest();
+         assertEquals(request.getHeader("Expect"), "100-continue");
+         assertEquals(request.getUtf8Body(), "hello");
+         assertEquals(server.takeRequest().getSequenceNumber(), 1);
+      } finally {
+         injector.getInstance(Closer.class).close();
+         server.shutdown();
+      }
+   }
+
+   private static Injector injector(Properties overrides) {
+      return ContextBuilder.newBuilder(AnonymousProviderMetadata.forApiOnEndpoint(DummyApi.class, "http://localhost"))
+            .modules(ImmutableSet.of(new ApacheHCHttpCommandExecutorServiceModule())).overrides(overrides)
+            .buildInjector();
+   }
+}
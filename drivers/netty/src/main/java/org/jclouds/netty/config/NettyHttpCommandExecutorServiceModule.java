@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.config;
+
+import org.jclouds.http.AsyncHttpCommandExecutorService;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.config.ConfiguresHttpCommandExecutorService;
+import org.jclouds.http.config.SSLModule;
+import org.jclouds.netty.http.NettyHttpCommandExecutorService;
+
+import com.google.inject.AbstractModule;
+
+/**
+ * Configures the {@link NettyHttpCommandExecutorService}, which sends requests without holding a thread until their
+ * response arrives. Callers that want a future of the response can inject the
+ * {@link AsyncHttpCommandExecutorService}.
+ */
+@ConfiguresHttpCommandExecutorService
+public class NettyHttpCommandExecutorServiceModule extends AbstractModule {
+
+   @Override
+   protected void configure() {
+      install(new SSLModule());
+      // created with the context, so that an unsupported configuration fails the build of the context
+      bind(NettyHttpCommandExecutorService.class).asEagerSingleton();
+      bind(HttpCommandExecutorService.class).to(NettyHttpCommandExecutorService.class);
+      bind(AsyncHttpCommandExecutorService.class).to(NettyHttpCommandExecutorService.class);
+   }
+}
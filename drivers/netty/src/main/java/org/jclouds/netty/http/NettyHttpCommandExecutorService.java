@@ -0,0 +1,882 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.net.HttpHeaders.ACCEPT;
+import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
+import static com.google.common.net.HttpHeaders.EXPECT;
+import static com.google.common.net.HttpHeaders.HOST;
+import static com.google.common.net.HttpHeaders.TRANSFER_ENCODING;
+import static com.google.common.net.HttpHeaders.USER_AGENT;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+import static org.jclouds.Constants.PROPERTY_USER_AGENT;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.http.HttpUtils.filterOutContentHeaders;
+import static org.jclouds.io.Payloads.newByteArrayPayload;
+import static org.jclouds.io.Payloads.newInputStreamPayload;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.channel.group.ChannelGroup;
+import org.jboss.netty.channel.group.DefaultChannelGroup;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.handler.codec.http.DefaultHttpChunk;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpClientCodec;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpMessage;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.jboss.netty.handler.ssl.SslHandler;
+import org.jboss.netty.handler.timeout.ReadTimeoutHandler;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.DelegatingErrorHandler;
+import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.internal.BaseAsyncHttpCommandExecutorService;
+import org.jclouds.http.internal.HttpWire;
+import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.io.MutableContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.proxy.ProxyConfig;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Sends requests over non-blocking Netty channels, so requests waiting for a response do not hold a thread.
+ * <p/>
+ * Connections are kept alive and reused per scheme, host and port. At most
+ * {@link org.jclouds.Constants#PROPERTY_MAX_CONNECTIONS_PER_CONTEXT} connections are open at a time, and at most
+ * {@link org.jclouds.Constants#PROPERTY_MAX_CONNECTIONS_PER_HOST} per host when that is positive; further requests
+ * wait for a connection to be released. Idle connections are closed after
+ * {@link org.jclouds.Constants#PROPERTY_SO_TIMEOUT}.
+ * <p/>
+ * Payloads held in memory are written as they are. Other payloads are read a chunk at a time on the user executor,
+ * since reading them may block, and response bodies are streamed to the caller as they arrive. Proxies are not
+ * supported; building a context with a proxy configured fails.
+ */
+@Singleton
+public class NettyHttpCommandExecutorService extends
+      BaseAsyncHttpCommandExecutorService<NettyHttpCommandExecutorService.NettyRequest> implements Closeable {
+
+   private static final int CHUNK_SIZE = 8192;
+
+   private final Supplier<SSLContext> untrustedSSLContextProvider;
+   private final String userAgent;
+   private final ListeningExecutorService userExecutor;
+   private final NioClientSocketChannelFactory channelFactory;
+   private final HashedWheelTimer timer;
+   private final ChannelGroup channels = new DefaultChannelGroup("jclouds-netty");
+
+   // the connection pool, guarded by hosts
+   private final Map<String, Host> hosts = Maps.newHashMap();
+   private final Deque<Exchange> waiting = new ArrayDeque<Exchange>();
+   private int open;
+   private boolean closed;
+
+   @Inject
+   NettyHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+         DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+         DelegatingErrorHandler errorHandler, HttpWire wire,
+         @Named(PROPERTY_IDEMPOTENT_METHODS) String idempotentMethods,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ProxyConfig proxyConfig,
+         @Named("untrusted") Supplier<SSLContext> untrustedSSLContextProvider,
+         @Named(PROPERTY_USER_AGENT) String userAgent, Closer closer) {
+      super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods,
+            userExecutor);
+      checkState(!proxyConfigured(proxyConfig), "the netty driver does not support proxies");
+      this.untrustedSSLContextProvider = untrustedSSLContextProvider;
+      this.userAgent = userAgent;
+      this.userExecutor = userExecutor;
+      this.channelFactory = new NioClientSocketChannelFactory(
+            Executors.newCachedThreadPool(daemonThreads("jclouds netty boss %d")),
+            Executors.newCachedThreadPool(daemonThreads("jclouds netty worker %d")));
+      this.timer = new HashedWheelTimer(daemonThreads("jclouds netty timer %d"));
+      closer.addToClose(this);
+   }
+
+   private static boolean proxyConfigured(ProxyConfig config) {
+      if (config.getProxy().isPresent() || config.useSystem())
+         return true;
+      return config.isJvmProxyEnabled() && (System.getProperty("http.proxyHost") != null
+            || System.getProperty("https.proxyHost") != null || System.getProperty("socksProxyHost") != null);
+   }
+
+   /**
+    * The request line and headers, and the payload to stream after them.
+    */
+   static final class NettyRequest {
+      private final URI endpoint;
+      private final org.jboss.netty.handler.codec.http.HttpRequest message;
+      private final Payload payload;
+      private volatile Exchange exchange;
+
+      private NettyRequest(URI endpoint, org.jboss.netty.handler.codec.http.HttpRequest message, Payload payload) {
+         this.endpoint = endpoint;
+         this.message = message;
+         this.payload = payload;
+      }
+   }
+
+   @Override
+   protected NettyRequest convert(HttpRequest request) throws IOException, InterruptedException {
+      URI endpoint = request.getEndpoint();
+      String path = endpoint.getRawPath() == null || endpoint.getRawPath().isEmpty() ? "/" : endpoint.getRawPath();
+      if (endpoint.getRawQuery() != null)
+         path += "?" + endpoint.getRawQuery();
+      DefaultHttpRequest message = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+            HttpMethod.valueOf(request.getMethod()), path);
+
+      message.setHeader(HOST, port(endpoint) == defaultPort(endpoint) ? endpoint.getHost() : endpoint.getHost()
+            + ":" + port(endpoint));
+      if (request.getFirstHeaderOrNull(ACCEPT) == null)
+         message.setHeader(ACCEPT, "*/*");
+      if (request.getFirstHeaderOrNull(USER_AGENT) == null)
+         message.setHeader(USER_AGENT, userAgent);
+      for (Map.Entry<String, String> entry : request.getHeaders().entries()) {
+         // the body is sent right after the headers, so there is nothing to wait for
+         if (!EXPECT.equalsIgnoreCase(entry.getKey()))
+            message.addHeader(entry.getKey(), entry.getValue());
+      }
+
+      Payload payload = request.getPayload();
+      if (payload != null) {
+         MutableContentMetadata md = payload.getContentMetadata();
+         for (Map.Entry<String, String> entry : contentMetadataCodec.toHeaders(md).entries()) {
+            message.setHeader(entry.getKey(), entry.getValue());
+         }
+         if (md.getContentLength() == null) {
+            message.removeHeader(CONTENT_LENGTH);
+            message.setHeader(TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+         } else if (md.getContentLength() == 0) {
+            payload = null;
+         }
+      } else if (!message.containsHeader(CONTENT_LENGTH) && !message.containsHeader(TRANSFER_ENCODING)
+            && bodyExpected(message.getMethod())) {
+         message.setHeader(CONTENT_LENGTH, "0");
+      }
+      return new NettyRequest(endpoint, message, payload);
+   }
+
+   private static boolean bodyExpected(HttpMethod method) {
+      return HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method) || HttpMethod.PATCH.equals(method);
+   }
+
+   @Override
+   protected ListenableFuture<HttpResponse> invokeAsync(NettyRequest request) {
+      Exchange exchange = new Exchange(request);
+      request.exchange = exchange;
+      dispatch(exchange, true);
+      return exchange.response;
+   }
+
+   @Override
+   protected void schedule(final Runnable task, long delayMillis) {
+      timer.newTimeout(new TimerTask() {
+         @Override
+         public void run(Timeout timeout) {
+            task.run();
+         }
+      }, delayMillis, MILLISECONDS);
+   }
+
+   /**
+    * Called when an attempt ends without a response, for example when the caller is interrupted, so that its
+    * connection is closed and it no longer waits for one.
+    */
+   @Override
+   protected void cleanup(NettyRequest nativeRequest) {
+      if (nativeRequest != null && nativeRequest.exchange != null)
+         nativeRequest.exchange.abort();
+   }
+
+   @Override
+   public void close() {
+      List<Exchange> abandoned;
+      synchronized (hosts) {
+         if (closed)
+            return;
+         closed = true;
+         abandoned = ImmutableList.copyOf(waiting);
+         waiting.clear();
+      }
+      for (Exchange exchange : abandoned) {
+         exchange.response.setException(new IllegalStateException("the http client is closed"));
+      }
+      try {
+         channels.close().awaitUninterruptibly();
+      } finally {
+         try {
+            channelFactory.releaseExternalResources();
+         } finally {
+            timer.stop();
+         }
+      }
+   }
+
+   /**
+    * Sends the exchange on an idle connection to its host, or on a new connection if the limits allow, and otherwise
+    * queues it until a connection is released.
+    */
+   private void dispatch(Exchange exchange, boolean reuse) {
+      String key = key(exchange.request.endpoint);
+      Channel idle = null;
+      Channel evicted = null;
+      boolean connect = false;
+      boolean rejected = false;
+      synchronized (hosts) {
+         if (closed) {
+            rejected = true;
+         } else {
+            Host host = host(key);
+            if (reuse)
+               idle = host.pollIdle();
+            if (idle == null) {
+               if (hasCapacity(host)) {
+                  reserve(host);
+                  connect = true;
+               } else {
+                  waiting.add(exchange);
+                  // an idle connection to another host is worth less than a request waiting for one
+                  if (atConnectionLimit())
+                     evicted = evictIdle();
+               }
+            }
+         }
+      }
+      if (rejected) {
+         exchange.response.setException(new IllegalStateException("the http client is closed"));
+      } else if (idle != null) {
+         exchange.send(idle, true);
+      } else if (connect) {
+         connect(exchange);
+      } else if (evicted != null) {
+         // the waiting exchanges get the connection slot once it is closed
+         evicted.close();
+      }
+   }
+
+   /**
+    * Hands a connection whose response is complete to an exchange waiting for its host, or keeps it idle.
+    */
+   private void release(String key, final Channel channel) {
+      ChannelPipeline pipeline = channel.getPipeline();
+      // an idle connection must not time out as if a response were late
+      if (pipeline.get("timeout") != null)
+         pipeline.remove("timeout");
+      Exchange next = null;
+      boolean keep = false;
+      synchronized (hosts) {
+         if (!closed) {
+            next = nextWaitingFor(key);
+            if (next == null && (waiting.isEmpty() || !atConnectionLimit())) {
+               final Host host = host(key);
+               final IdleChannel idle = new IdleChannel(channel);
+               idle.timeout = timer.newTimeout(new TimerTask() {
+                  @Override
+                  public void run(Timeout timeout) {
+                     boolean expired;
+                     synchronized (hosts) {
+                        expired = host.idle.remove(idle);
+                     }
+                     if (expired)
+                        channel.close();
+                  }
+               }, utils.getSocketOpenTimeout(), MILLISECONDS);
+               host.idle.addLast(idle);
+               keep = true;
+            }
+         }
+      }
+      if (next != null) {
+         next.send(channel, true);
+      } else if (!keep) {
+         channel.close();
+      }
+   }
+
+   /**
+    * Frees the connection slot of a closed channel, and gives it to the first waiting exchange that may use it.
+    */
+   private void connectionClosed(String key, Channel channel) {
+      Exchange next;
+      synchronized (hosts) {
+         Host host = host(key);
+         if (channel != null)
+            host.removeIdle(channel);
+         host.open--;
+         open--;
+         next = closed ? null : nextWaitingWithCapacity();
+      }
+      if (next != null)
+         connect(next);
+   }
+
+   // guarded by hosts
+   private Host host(String key) {
+      Host host = hosts.get(key);
+      if (host == null) {
+         host = new Host();
+         hosts.put(key, host);
+      }
+      return host;
+   }
+
+   // guarded by hosts
+   private boolean hasCapacity(Host host) {
+      int maxPerHost = utils.getMaxConnectionsPerHost();
+      return !atConnectionLimit() && (maxPerHost <= 0 || host.open < maxPerHost);
+   }
+
+   // guarded by hosts; like the per host limit, a context limit of zero or less means no limit
+   private boolean atConnectionLimit() {
+      int max = utils.getMaxConnections();
+      return max > 0 && open >= max;
+   }
+
+   // guarded by hosts
+   private void reserve(Host host) {
+      host.open++;
+      open++;
+   }
+
+   // guarded by hosts
+   private Exchange nextWaitingFor(String key) {
+      for (Iterator<Exchange> it = waiting.iterator(); it.hasNext();) {
+         Exchange next = it.next();
+         if (key.equals(key(next.request.endpoint))) {
+            it.remove();
+            return next;
+         }
+      }
+      return null;
+   }
+
+   // guarded by hosts
+   private Exchange nextWaitingWithCapacity() {
+      for (Iterator<Exchange> it = waiting.iterator(); it.hasNext();) {
+         Exchange next = it.next();
+         Host host = host(key(next.request.endpoint));
+         if (hasCapacity(host)) {
+            it.remove();
+            reserve(host);
+            return next;
+         }
+      }
+      return null;
+   }
+
+   // guarded by hosts
+   private Channel evictIdle() {
+      for (Host host : hosts.values()) {
+         IdleChannel oldest = host.idle.pollFirst();
+         if (oldest != null) {
+            oldest.timeout.cancel();
+            return oldest.channel;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Opens a connection for the exchange, whose slot has already been reserved.
+    */
+   private void connect(final Exchange exchange) {
+      final URI endpoint = exchange.request.endpoint;
+      final String key = key(endpoint);
+      final boolean https = "https".equalsIgnoreCase(endpoint.getScheme());
+      final Channel channel;
+      try {
+         ChannelPipeline pipeline = Channels.pipeline();
+         if (https)
+            pipeline.addLast("ssl", new SslHandler(sslEngine(endpoint)));
+         pipeline.addLast("timeout", new ReadTimeoutHandler(timer, utils.getSocketOpenTimeout(), MILLISECONDS));
+         pipeline.addLast("codec", new HttpClientCodec());
+         pipeline.addLast("handler", new ResponseHandler());
+         channel = channelFactory.newChannel(pipeline);
+      } catch (RuntimeException e) {
+         connectionClosed(key, null);
+         exchange.response.setException(e);
+         return;
+      }
+      channel.getCloseFuture().addListener(new ChannelFutureListener() {
+         @Override
+         public void operationComplete(ChannelFuture future) {
+            connectionClosed(key, channel);
+         }
+      });
+      channels.add(channel);
+      channel.getConfig().setConnectTimeoutMillis(utils.getConnectionTimeout());
+      channel.getConfig().setOption("tcpNoDelay", true);
+      channel.connect(new InetSocketAddress(endpoint.getHost(), port(endpoint))).addListener(
+            new ChannelFutureListener() {
+               @Override
+               public void operationComplete(ChannelFuture connected) {
+                  if (!connected.isSuccess()) {
+                     exchange.fail(channel, connected.getCause());
+                  } else if (https) {
+                     channel.getPipeline().get(SslHandler.class).handshake().addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture handshake) {
+                           if (handshake.isSuccess()) {
+                              exchange.send(channel, false);
+                           } else {
+                              exchange.fail(channel, handshake.getCause());
+                           }
+                        }
+                     });
+                  } else {
+                     exchange.send(channel, false);
+                  }
+               }
+            });
+   }
+
+   private SSLEngine sslEngine(URI endpoint) {
+      SSLContext context;
+      try {
+         context = utils.trustAllCerts() ? untrustedSSLContextProvider.get() : SSLContext.getDefault();
+      } catch (NoSuchAlgorithmException e) {
+         throw Throwables.propagate(e);
+      }
+      SSLEngine engine = context.createSSLEngine(endpoint.getHost(), port(endpoint));
+      engine.setUseClientMode(true);
+      if (!utils.relaxHostname()) {
+         SSLParameters parameters = engine.getSSLParameters();
+         parameters.setEndpointIdentificationAlgorithm("HTTPS");
+         engine.setSSLParameters(parameters);
+      }
+      return engine;
+   }
+
+   private static String key(URI endpoint) {
+      return endpoint.getScheme().toLowerCase() + "://" + endpoint.getHost() + ":" + port(endpoint);
+   }
+
+   private static int port(URI endpoint) {
+      return endpoint.getPort() == -1 ? defaultPort(endpoint) : endpoint.getPort();
+   }
+
+   private static int defaultPort(URI endpoint) {
+      return "https".equalsIgnoreCase(endpoint.getScheme()) ? 443 : 80;
+   }
+
+   private static boolean isChunked(HttpMessage message) {
+      for (String value : message.getHeaders(TRANSFER_ENCODING)) {
+         if (HttpHeaders.Values.CHUNKED.equalsIgnoreCase(value.trim()))
+            return true;
+      }
+      return false;
+   }
+
+   /**
+    * The content of a payload that is held in memory, which can be written without blocking, or null.
+    */
+   private static byte[] inMemory(Payload payload) {
+      Object content = payload.getRawContent();
+      if (content instanceof byte[])
+         return (byte[]) content;
+      if (content instanceof String)
+         return ((String) content).getBytes(Charsets.UTF_8);
+      return null;
+   }
+
+   private static IOException asIOException(Throwable cause) {
+      return cause instanceof IOException ? (IOException) cause : new IOException(cause);
+   }
+
+   private static ThreadFactory daemonThreads(String nameFormat) {
+      return new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build();
+   }
+
+   /**
+    * The connections to one scheme, host and port.
+    */
+   private static final class Host {
+      private final Deque<IdleChannel> idle = new ArrayDeque<IdleChannel>();
+      private int open;
+
+      private Channel pollIdle() {
+         // the most recently used connection is the least likely to have been closed by the server
+         IdleChannel last = idle.pollLast();
+         if (last == null)
+            return null;
+         last.timeout.cancel();
+         return last.channel;
+      }
+
+      private void removeIdle(Channel channel) {
+         for (Iterator<IdleChannel> it = idle.iterator(); it.hasNext();) {
+            IdleChannel next = it.next();
+            if (next.channel == channel) {
+               next.timeout.cancel();
+               it.remove();
+            }
+         }
+      }
+   }
+
+   private static final class IdleChannel {
+      private final Channel channel;
+      private Timeout timeout;
+
+      private IdleChannel(Channel channel) {
+         this.channel = channel;
+      }
+   }
+
+   /**
+    * One request and its response on a channel. It is the attachment of the channel until the response body has
+    * been received.
+    */
+   private final class Exchange {
+      private final NettyRequest request;
+      private final SettableFuture<HttpResponse> response = SettableFuture.create();
+      private Channel channel;
+      private boolean reused;
+      private boolean aborted;
+      private boolean requestSent;
+      private boolean keepAlive;
+      private boolean closeDelimited;
+      private ResponseInputStream body;
+
+      private Exchange(NettyRequest request) {
+         this.request = request;
+      }
+
+      synchronized void send(Channel channel, boolean reused) {
+         if (aborted) {
+            release(key(request.endpoint), channel);
+            return;
+         }
+         this.channel = channel;
+         this.reused = reused;
+         this.requestSent = false;
+         channel.setAttachment(this);
+         ChannelPipeline pipeline = channel.getPipeline();
+         if (pipeline.get("timeout") == null)
+            pipeline.addBefore("codec", "timeout", new ReadTimeoutHandler(timer, utils.getSocketOpenTimeout(),
+                  MILLISECONDS));
+         ChannelFuture written = channel.write(request.message);
+         if (request.payload == null) {
+            written.addListener(new Sent(channel));
+            return;
+         }
+         byte[] content = inMemory(request.payload);
+         if (content != null) {
+            endPayload(channel, write(channel, ChannelBuffers.wrappedBuffer(content)));
+            return;
+         }
+         InputStream in;
+         try {
+            in = request.payload.openStream();
+         } catch (IOException e) {
+            fail(channel, e);
+            return;
+         }
+         written.addListener(new PayloadWriter(channel, in));
+      }
+
+      synchronized boolean isSendingOn(Channel channel) {
+         return !aborted && this.channel == channel && channel.getAttachment() == this;
+      }
+
+      private ChannelFuture write(Channel channel, ChannelBuffer content) {
+         return channel.write(isChunked(request.message) ? new DefaultHttpChunk(content) : content);
+      }
+
+      private void endPayload(Channel channel, ChannelFuture lastWritten) {
+         if (isChunked(request.message))
+            lastWritten = channel.write(HttpChunk.LAST_CHUNK);
+         lastWritten.addListener(new Sent(channel));
+      }
+
+      synchronized void sent(Channel channel) {
+         if (this.channel == channel)
+            requestSent = true;
+      }
+
+      synchronized void onResponse(org.jboss.netty.handler.codec.http.HttpResponse message) {
+         int statusCode = message.getStatus().getCode();
+         if (statusCode == 100)
+            return;
+         keepAlive = HttpHeaders.isKeepAlive(message);
+         ImmutableMultimap.Builder<String, String> headerBuilder = ImmutableMultimap.builder();
+         for (Map.Entry<String, String> header : message.getHeaders()) {
+            headerBuilder.put(header.getKey(), header.getValue());
+         }
+         ImmutableMultimap<String, String> headers = headerBuilder.build();
+
+         Payload payload = null;
+         if (message.isChunked()) {
+            closeDelimited = !message.containsHeader(CONTENT_LENGTH)
+                  && !isChunked(message);
+            final Channel current = channel;
+            body = new ResponseInputStream(current, new Runnable() {
+               @Override
+               public void run() {
+                  // the rest of the body would have to be read before the connection could be reused
+                  current.close();
+               }
+            });
+            payload = newInputStreamPayload(body);
+         } else {
+            ChannelBuffer content = message.getContent();
+            byte[] bytes = new byte[content.readableBytes()];
+            content.readBytes(bytes);
+            if (statusCode != 204)
+               payload = newByteArrayPayload(bytes);
+            finish();
+         }
+
+         HttpResponse.Builder<?> builder = HttpResponse.builder().statusCode(statusCode)
+               .message(message.getStatus().getReasonPhrase());
+         if (payload != null) {
+            contentMetadataCodec.fromHeaders(payload.getContentMetadata(), headers);
+            builder.payload(payload);
+         }
+         builder.headers(filterOutContentHeaders(headers));
+         response.set(builder.build());
+      }
+
+      synchronized void onChunk(HttpChunk chunk) {
+         if (body == null)
+            return;
+         body.offer(chunk.getContent());
+         if (chunk.isLast()) {
+            body.complete();
+            finish();
+         }
+      }
+
+      synchronized void onClosed(Channel closed) {
+         if (closed != channel)
+            return;
+         if (body != null && closeDelimited) {
+            body.complete();
+         } else {
+            fail(closed, new IOException("connection closed before the response was complete"));
+         }
+      }
+
+      synchronized void fail(Channel failed, Throwable cause) {
+         if (failed != channel && channel != null)
+            return;
+         failed.setAttachment(null);
+         failed.close();
+         if (body != null) {
+            body.fail(asIOException(cause));
+         } else if (!response.isDone()) {
+            if (reused && !aborted && (request.payload == null || request.payload.isRepeatable())) {
+               // idle connections may have been closed by the server; try again on a new one
+               channel = null;
+               dispatch(this, false);
+            } else {
+               response.setException(asIOException(cause));
+            }
+         }
+      }
+
+      void abort() {
+         synchronized (hosts) {
+            waiting.remove(this);
+         }
+         synchronized (this) {
+            aborted = true;
+            if (channel != null && channel.getAttachment() == this) {
+               channel.setAttachment(null);
+               channel.close();
+            }
+            response.setException(new CancellationException("the request was abandoned"));
+         }
+      }
+
+      private void finish() {
+         channel.setAttachment(null);
+         // a response may arrive before the whole request has been written
+         if (keepAlive && requestSent && channel.isOpen()) {
+            release(key(request.endpoint), channel);
+         } else {
+            channel.close();
+         }
+      }
+
+      /**
+       * Fails the exchange if a write does not complete, and otherwise records that the request has been sent.
+       */
+      private final class Sent implements ChannelFutureListener {
+         private final Channel channel;
+
+         private Sent(Channel channel) {
+            this.channel = channel;
+         }
+
+         @Override
+         public void operationComplete(ChannelFuture written) {
+            if (written.isSuccess()) {
+               sent(channel);
+            } else {
+               fail(channel, written.getCause());
+            }
+         }
+      }
+
+      /**
+       * Streams a payload that is not held in memory. Each chunk is read on the user executor, since reading may
+       * block, and only once the previous chunk has been written, so a slow connection holds back the reads.
+       */
+      private final class PayloadWriter implements Runnable, ChannelFutureListener {
+         private final Channel channel;
+         private final InputStream in;
+         private ChannelFuture lastWritten;
+
+         private PayloadWriter(Channel channel, InputStream in) {
+            this.channel = channel;
+            this.in = in;
+         }
+
+         @Override
+         public void operationComplete(ChannelFuture written) {
+            if (!written.isSuccess()) {
+               stop(written.getCause());
+               return;
+            }
+            lastWritten = written;
+            try {
+               userExecutor.execute(this);
+            } catch (RejectedExecutionException e) {
+               stop(e);
+            }
+         }
+
+         @Override
+         public void run() {
+            if (!isSendingOn(channel)) {
+               Closeables2.closeQuietly(in);
+               return;
+            }
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int read;
+            try {
+               read = ByteStreams.read(in, chunk, 0, chunk.length);
+            } catch (IOException e) {
+               stop(e);
+               return;
+            }
+            if (read == 0) {
+               Closeables2.closeQuietly(in);
+               endPayload(channel, lastWritten);
+            } else {
+               write(channel, ChannelBuffers.wrappedBuffer(chunk, 0, read)).addListener(this);
+            }
+         }
+
+         private void stop(Throwable cause) {
+            Closeables2.closeQuietly(in);
+            fail(channel, cause);
+         }
+      }
+   }
+
+   /**
+    * Handles the responses of one channel by passing them to its current {@link Exchange}.
+    */
+   private final class ResponseHandler extends SimpleChannelUpstreamHandler {
+
+      @Override
+      public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
+         Exchange exchange = (Exchange) ctx.getChannel().getAttachment();
+         if (exchange == null) {
+            ctx.getChannel().close();
+         } else if (e.getMessage() instanceof org.jboss.netty.handler.codec.http.HttpResponse) {
+            exchange.onResponse((org.jboss.netty.handler.codec.http.HttpResponse) e.getMessage());
+         } else if (e.getMessage() instanceof HttpChunk) {
+            exchange.onChunk((HttpChunk) e.getMessage());
+         }
+      }
+
+      @Override
+      public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) {
+         Exchange exchange = (Exchange) ctx.getChannel().getAttachment();
+         if (exchange != null) {
+            exchange.fail(ctx.getChannel(), e.getCause());
+         } else {
+            ctx.getChannel().close();
+         }
+      }
+
+      @Override
+      public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) {
+         Exchange exchange = (Exchange) ctx.getChannel().getAttachment();
+         if (exchange != null)
+            exchange.onClosed(ctx.getChannel());
+      }
+   }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+
+/**
+ * The body of a response, fed by the I/O thread as chunks arrive and drained by the caller. Reading from the channel
+ * is suspended while more than {@link #HIGH_WATER_MARK} bytes are buffered, so a slow reader does not make the body
+ * pile up in memory.
+ */
+final class ResponseInputStream extends InputStream {
+   static final int HIGH_WATER_MARK = 1024 * 1024;
+   static final int LOW_WATER_MARK = 256 * 1024;
+
+   private final Channel channel;
+   private final Runnable onAbort;
+   private final Queue<ChannelBuffer> chunks = new ArrayDeque<ChannelBuffer>();
+   private long buffered;
+   private boolean complete;
+   private boolean closed;
+   private IOException failure;
+
+   /**
+    * @param onAbort
+    *           run when the stream is closed before the whole body was received
+    */
+   ResponseInputStream(Channel channel, Runnable onAbort) {
+      this.channel = channel;
+      this.onAbort = onAbort;
+   }
+
+   synchronized void offer(ChannelBuffer chunk) {
+      if (closed || !chunk.readable())
+         return;
+      chunks.add(chunk);
+      buffered += chunk.readableBytes();
+      if (buffered > HIGH_WATER_MARK)
+         channel.setReadable(false);
+      notifyAll();
+   }
+
+   synchronized void complete() {
+      complete = true;
+      notifyAll();
+   }
+
+   synchronized void fail(IOException cause) {
+      if (!complete)
+         failure = cause;
+      notifyAll();
+   }
+
+   synchronized boolean isComplete() {
+      return complete;
+   }
+
+   @Override
+   public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+   }
+
+   @Override
+   public synchronized int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0)
+         return 0;
+      while (chunks.isEmpty()) {
+         if (closed)
+            return -1;
+         if (failure != null)
+            throw failure;
+         if (complete)
+            return -1;
+         try {
+            wait();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the response body");
+         }
+      }
+      ChannelBuffer head = chunks.peek();
+      int count = Math.min(len, head.readableBytes());
+      head.readBytes(b, off, count);
+      if (!head.readable())
+         chunks.remove();
+      buffered -= count;
+      if (buffered < LOW_WATER_MARK && !channel.isReadable())
+         channel.setReadable(true);
+      return count;
+   }
+
+   @Override
+   public synchronized int available() {
+      return (int) Math.min(buffered, Integer.MAX_VALUE);
+   }
+
+   @Override
+   public void close() {
+      boolean abort;
+      synchronized (this) {
+         if (closed)
+            return;
+         closed = true;
+         abort = !complete && failure == null;
+         chunks.clear();
+         buffered = 0;
+         notifyAll();
+      }
+      if (abort)
+         onAbort.run();
+   }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_HOST;
+import static org.jclouds.Constants.PROPERTY_PROXY_HOST;
+import static org.jclouds.Constants.PROPERTY_PROXY_PORT;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.http.AsyncHttpCommandExecutorService;
+import org.jclouds.http.BaseHttpCommandExecutorServiceIntegrationTest;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.netty.config.NettyHttpCommandExecutorServiceModule;
+import org.jclouds.providers.AnonymousProviderMetadata;
+import org.jclouds.util.Closeables2;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.inject.CreationException;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+/**
+ * Tests the functionality of the {@link NettyHttpCommandExecutorService}
+ */
+@Test
+public class NettyHttpCommandExecutorServiceTest extends BaseHttpCommandExecutorServiceIntegrationTest {
+
+   @Override
+   protected Module createConnectionModule() {
+      return new NettyHttpCommandExecutorServiceModule();
+   }
+
+   @Override
+   protected void addOverrideProperties(final Properties props) {
+      props.setProperty(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT, 50 + "");
+      props.setProperty(PROPERTY_MAX_CONNECTIONS_PER_HOST, 0 + "");
+      props.setProperty(PROPERTY_USER_THREADS, 5 + "");
+   }
+
+   private interface DummyApi extends Closeable {
+   }
+
+   private Injector injector(String url) {
+      return injector(url, new Properties());
+   }
+
+   private Injector injector(String url, Properties extra) {
+      Properties overrides = new Properties();
+      addOverrideProperties(overrides);
+      overrides.putAll(extra);
+      return ContextBuilder.newBuilder(AnonymousProviderMetadata.forApiOnEndpoint(DummyApi.class, url))
+            .modules(ImmutableSet.of(createConnectionModule())).overrides(overrides).buildInjector();
+   }
+
+   @Test
+   public void testSubmitRetriesServerErrors() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(503), new MockResponse().setBody("ok"));
+      Injector injector = injector(server.getUrl("/").toString());
+      try {
+         AsyncHttpCommandExecutorService executor = injector.getInstance(AsyncHttpCommandExecutorService.class);
+         ListenableFuture<HttpResponse> future = executor.submit(new HttpCommand(HttpRequest.builder()
+               .method("GET").endpoint(server.getUrl("/objects/1").toString()).build()));
+         HttpResponse response = future.get();
+         assertEquals(response.getStatusCode(), 200);
+         assertEquals(ByteStreams.toByteArray(response.getPayload().openStream()), "ok".getBytes());
+         assertEquals(server.getRequestCount(), 2);
+      } finally {
+         injector.getInstance(Closer.class).close();
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testLargeChunkedResponseIsStreamed() throws Exception {
+      byte[] body = new byte[8 * 1024 * 1024];
+      Arrays.fill(body, (byte) 'a');
+      MockWebServer server = mockWebServer(new MockResponse().setChunkedBody(new String(body, Charsets.US_ASCII), 64 * 1024),
+            new MockResponse().setBody("again"));
+      Injector injector = injector(server.getUrl("/").toString());
+      try {
+         AsyncHttpCommandExecutorService executor = injector.getInstance(AsyncHttpCommandExecutorService.class);
+         HttpRequest get = HttpRequest.builder().method("GET").endpoint(server.getUrl("/large").toString()).build();
+         HttpResponse response = executor.invoke(new HttpCommand(get));
+         InputStream in = response.getPayload().openStream();
+         try {
+            assertEquals(ByteStreams.toByteArray(in), body);
+         } finally {
+            in.close();
+         }
+         // the connection is reused once the body has been consumed
+         response = executor.invoke(new HttpCommand(get));
+         assertEquals(ByteStreams.toByteArray(response.getPayload().openStream()), "again".getBytes());
+         server.takeRequest();
+         assertEquals(server.takeRequest().getSequenceNumber(), 1);
+      } finally {
+         injector.getInstance(Closer.class).close();
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testActiveConnectionsAreCapped() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody("a"), new MockResponse().setBody("b"),
+            new MockResponse().setBody("c"));
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT, "1");
+      Injector injector = injector(server.getUrl("/").toString(), overrides);
+      try {
+         AsyncHttpCommandExecutorService executor = injector.getInstance(AsyncHttpCommandExecutorService.class);
+         List<ListenableFuture<HttpResponse>> futures = Lists.newArrayList();
+         for (int i = 0; i < 3; i++) {
+            futures.add(executor.submit(new HttpCommand(HttpRequest.builder().method("PUT")
+                  .endpoint(server.getUrl("/objects/" + i).toString()).payload("payload " + i).build())));
+         }
+         for (HttpResponse response : Futures.allAsList(futures).get(30, TimeUnit.SECONDS)) {
+            assertEquals(response.getStatusCode(), 200);
+            Closeables2.closeQuietly(response.getPayload());
+         }
+         // the requests waited for the only connection rather than opening new ones
+         for (int i = 0; i < 3; i++) {
+            assertEquals(server.takeRequest().getSequenceNumber(), i);
+         }
+      } finally {
+         injector.getInstance(Closer.class).close();
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testNonPositiveContextLimitIsUnlimited() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody("a"), new MockResponse().setBody("b"));
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT, "0");
+      Injector injector = injector(server.getUrl("/").toString(), overrides);
+      try {
+         AsyncHttpCommandExecutorService executor = injector.getInstance(AsyncHttpCommandExecutorService.class);
+         List<ListenableFuture<HttpResponse>> futures = Lists.newArrayList();
+         for (int i = 0; i < 2; i++) {
+            futures.add(executor.submit(new HttpCommand(HttpRequest.builder().method("GET")
+                  .endpoint(server.getUrl("/objects/" + i).toString()).build())));
+         }
+         for (HttpResponse response : Futures.allAsList(futures).get(30, TimeUnit.SECONDS)) {
+            assertEquals(response.getStatusCode(), 200);
+            Closeables2.closeQuietly(response.getPayload());
+         }
+      } finally {
+         injector.getInstance(Closer.class).close();
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testStreamedPayloadIsSent() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse());
+      Injector injector = injector(server.getUrl("/").toString());
+      try {
+         byte[] content = new byte[100 * 1024];
+         Arrays.fill(content, (byte) 'b');
+         Payload payload = Payloads.newInputStreamPayload(new ByteArrayInputStream(content));
+         payload.getContentMetadata().setContentLength((long) content.length);
+         HttpResponse response = injector.getInstance(AsyncHttpCommandExecutorService.class).invoke(
+               new HttpCommand(HttpRequest.builder().method("PUT").endpoint(server.getUrl("/objects/1").toString())
+                     .payload(payload).build()));
+         assertEquals(response.getStatusCode(), 200);
+         assertEquals(server.takeRequest().getBody(), content);
+      } finally {
+         injector.getInstance(Closer.class).close();
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testContextWithAProxyFailsToBuild() {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_PROXY_HOST, "localhost");
+      overrides.setProperty(PROPERTY_PROXY_PORT, "3128");
+      try {
+         injector("http://localhost", overrides);
+         fail("expected the proxy to be rejected");
+      } catch (CreationException e) {
+         assertTrue(e.getMessage().contains("does not support proxies"), e.getMessage());
+      }
+   }
+}
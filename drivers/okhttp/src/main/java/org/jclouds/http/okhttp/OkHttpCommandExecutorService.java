@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.net.Proxy;
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Named;
 
@@ -50,6 +51,7 @@ import org.jclouds.io.Payload;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableMultimap.Builder;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.squareup.okhttp.Headers;
 import com.squareup.okhttp.MediaType;
@@ -61,6 +63,7 @@ import com.squareup.okhttp.Response;
 public final class OkHttpCommandExecutorService extends BaseHttpCommandExecutorService<Request> {
    private final Function<URI, Proxy> proxyForURI;
    private final OkHttpClient globalClient;
+   private final ConcurrentMap<Proxy, OkHttpClient> clientsByProxy = Maps.newConcurrentMap();
    private final String userAgent;
 
    @Inject
@@ -147,10 +150,7 @@ public final class OkHttpCommandExecutorService extends BaseHttpCommandExecutorS
 
    @Override
    protected HttpResponse invoke(Request nativeRequest) throws IOException, InterruptedException {
-      OkHttpClient requestScopedClient = globalClient.clone();
-      requestScopedClient.setProxy(proxyForURI.apply(nativeRequest.uri()));
-
-      Response response = requestScopedClient.newCall(nativeRequest).execute();
+      Response response = clientFor(proxyForURI.apply(nativeRequest.uri())).newCall(nativeRequest).execute();
 
       HttpResponse.Builder<?> builder = HttpResponse.builder();
       builder.statusCode(response.code());
@@ -177,6 +177,21 @@ public final class OkHttpCommandExecutorService extends BaseHttpCommandExecutorS
       return builder.build();
    }
 
+   /**
+    * Clients only differ by proxy, and nearly every request uses the same one, so a copy of the global client is
+    * kept per proxy instead of cloning it for each request. The copies share its connection pool.
+    */
+   private OkHttpClient clientFor(Proxy proxy) {
+      OkHttpClient client = clientsByProxy.get(proxy);
+      if (client == null) {
+         OkHttpClient created = globalClient.clone().setProxy(proxy);
+         client = clientsByProxy.putIfAbsent(proxy, created);
+         if (client == null)
+            client = created;
+      }
+      return client;
+   }
+
    @Override
    protected void cleanup(Request nativeResponse) {
 
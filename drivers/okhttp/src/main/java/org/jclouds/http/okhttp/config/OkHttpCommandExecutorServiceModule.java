@@ -16,6 +16,13 @@
  */
 package org.jclouds.http.okhttp.config;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.jclouds.http.okhttp.config.OkHttpProperties.KEEP_ALIVE;
+import static org.jclouds.http.okhttp.config.OkHttpProperties.PROTOCOLS;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
@@ -29,12 +36,19 @@ import org.jclouds.http.config.SSLModule;
 import org.jclouds.http.okhttp.OkHttpClientSupplier;
 import org.jclouds.http.okhttp.OkHttpCommandExecutorService;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Scopes;
+import com.squareup.okhttp.ConnectionPool;
 import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
 
 /**
  * Configures the {@link OkHttpCommandExecutorService}.
@@ -51,12 +65,57 @@ public class OkHttpCommandExecutorServiceModule extends AbstractModule {
       bind(OkHttpClient.class).toProvider(OkHttpClientProvider.class).in(Scopes.SINGLETON);
    }
 
+   /**
+    * Connection pools shared by every context in the JVM that is configured with the same pool settings, so that
+    * contexts talking to the same endpoints reuse each other's connections.
+    */
+   private static final ConcurrentMap<List<Long>, ConnectionPool> POOLS = Maps.newConcurrentMap();
+
+   @VisibleForTesting
+   static ConnectionPool sharedConnectionPool(int maxIdleConnections, long keepAliveMillis) {
+      List<Long> key = ImmutableList.of((long) maxIdleConnections, keepAliveMillis);
+      ConnectionPool pool = POOLS.get(key);
+      if (pool == null) {
+         ConnectionPool created = new ConnectionPool(maxIdleConnections, keepAliveMillis);
+         pool = POOLS.putIfAbsent(key, created);
+         if (pool == null)
+            pool = created;
+      }
+      return pool;
+   }
+
+   @VisibleForTesting
+   static List<Protocol> parseProtocols(String protocols) {
+      List<Protocol> result = Lists.newArrayList();
+      for (String name : Splitter.on(',').trimResults().omitEmptyStrings().split(protocols)) {
+         try {
+            Protocol protocol = "h2".equals(name) ? Protocol.HTTP_2 : Protocol.get(name);
+            if (!result.contains(protocol))
+               result.add(protocol);
+         } catch (IOException e) {
+            throw new IllegalArgumentException("unsupported protocol in " + PROTOCOLS + ": " + name, e);
+         }
+      }
+      checkArgument(!result.contains(Protocol.HTTP_1_0), "%s must not contain http/1.0", PROTOCOLS);
+      if (!result.contains(Protocol.HTTP_1_1))
+         result.add(Protocol.HTTP_1_1);
+      return result;
+   }
+
    private static final class OkHttpClientProvider implements Provider<OkHttpClient> {
       private final HostnameVerifier verifier;
       private final Supplier<SSLContext> untrustedSSLContextProvider;
       private final HttpUtils utils;
       private final OkHttpClientSupplier clientSupplier;
 
+      @Inject(optional = true)
+      @Named(KEEP_ALIVE)
+      private long keepAliveMillis = TimeUnit.MINUTES.toMillis(5);
+
+      @Inject(optional = true)
+      @Named(PROTOCOLS)
+      private String protocols = "";
+
       @Inject
       OkHttpClientProvider(HttpUtils utils, @Named("untrusted") HostnameVerifier verifier,
             @Named("untrusted") Supplier<SSLContext> untrustedSSLContextProvider, OkHttpClientSupplier clientSupplier) {
@@ -76,6 +135,14 @@ public class OkHttpCommandExecutorServiceModule extends AbstractModule {
          // <adriancole.s3int0.s3-external-3.amazonaws.com>
          client.setFollowRedirects(false);
 
+         // keep what a custom OkHttpClientSupplier configured
+         if (client.getConnectionPool() == null) {
+            client.setConnectionPool(sharedConnectionPool(utils.getMaxConnections(), keepAliveMillis));
+         }
+         if (client.getProtocols() == null && !protocols.isEmpty()) {
+            client.setProtocols(parseProtocols(protocols));
+         }
+
          if (utils.relaxHostname()) {
             client.setHostnameVerifier(verifier);
          }
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.okhttp.config;
+
+/**
+ * Configuration properties of the OkHttp driver. The size of the connection pool is taken from
+ * {@link org.jclouds.Constants#PROPERTY_MAX_CONNECTIONS_PER_CONTEXT}.
+ */
+public final class OkHttpProperties {
+
+   /**
+    * Long property. default (300000)
+    * <p/>
+    * How long, in milliseconds, an idle pooled connection is kept open before it is closed.
+    */
+   public static final String KEEP_ALIVE = "jclouds.okhttp.keep-alive";
+
+   /**
+    * String property. default (the OkHttp defaults)
+    * <p/>
+    * Comma-separated protocols to negotiate, such as {@code h2,http/1.1}; {@code http/1.1} is always added. HTTP/2
+    * multiplexes requests to the same host over one connection, but is only used over TLS, and only where the JVM
+    * supports ALPN.
+    */
+   public static final String PROTOCOLS = "jclouds.okhttp.protocols";
+
+   private OkHttpProperties() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
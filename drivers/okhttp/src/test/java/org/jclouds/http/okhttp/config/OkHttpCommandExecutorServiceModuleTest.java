@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.okhttp.config;
+
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
+import static org.jclouds.http.okhttp.config.OkHttpCommandExecutorServiceModule.parseProtocols;
+import static org.jclouds.http.okhttp.config.OkHttpCommandExecutorServiceModule.sharedConnectionPool;
+import static org.jclouds.http.okhttp.config.OkHttpProperties.KEEP_ALIVE;
+import static org.jclouds.http.okhttp.config.OkHttpProperties.PROTOCOLS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.io.Closeable;
+import java.util.Properties;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.http.config.ConfiguresHttpCommandExecutorService;
+import org.jclouds.http.okhttp.OkHttpClientSupplier;
+import org.jclouds.providers.AnonymousProviderMetadata;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+
+@Test(groups = "unit", testName = "OkHttpCommandExecutorServiceModuleTest")
+public class OkHttpCommandExecutorServiceModuleTest {
+
+   private interface DummyApi extends Closeable {
+   }
+
+   public void testClientIsConfiguredFromProperties() {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT, "40");
+      overrides.setProperty(KEEP_ALIVE, "30000");
+      overrides.setProperty(PROTOCOLS, "h2");
+      OkHttpClient client = client(overrides, new OkHttpCommandExecutorServiceModule());
+
+      assertSame(client.getConnectionPool(), sharedConnectionPool(40, 30000));
+      assertEquals(client.getProtocols(), ImmutableList.of(Protocol.HTTP_2, Protocol.HTTP_1_1));
+   }
+
+   public void testContextsWithTheSameSettingsShareTheConnectionPool() {
+      OkHttpClient first = client(new Properties(), new OkHttpCommandExecutorServiceModule());
+      OkHttpClient second = client(new Properties(), new OkHttpCommandExecutorServiceModule());
+
+      assertNotSame(first, second);
+      assertSame(first.getConnectionPool(), second.getConnectionPool());
+      // the library defaults apply unless protocols are configured
+      assertNull(first.getProtocols());
+   }
+
+   public void testCustomClientSettingsAreKept() {
+      ConnectionPool pool = new ConnectionPool(1, 1000);
+      assertSame(client(new Properties(), new CustomPoolModule(pool)).getConnectionPool(), pool);
+   }
+
+   public void testParseProtocols() {
+      assertEquals(parseProtocols("http/1.1"), ImmutableList.of(Protocol.HTTP_1_1));
+      assertEquals(parseProtocols(" h2-16 , spdy/3.1,h2 "),
+            ImmutableList.of(Protocol.HTTP_2, Protocol.SPDY_3, Protocol.HTTP_1_1));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testParseProtocolsRejectsUnknownProtocols() {
+      parseProtocols("h3");
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testParseProtocolsRejectsHttp10() {
+      parseProtocols("http/1.0");
+   }
+
+   @ConfiguresHttpCommandExecutorService
+   private static final class CustomPoolModule extends AbstractModule {
+      private final ConnectionPool pool;
+
+      CustomPoolModule(ConnectionPool pool) {
+         this.pool = pool;
+      }
+
+      @Override
+      protected void configure() {
+         install(new OkHttpCommandExecutorServiceModule());
+         bind(OkHttpClientSupplier.class).toInstance(new OkHttpClientSupplier() {
+            @Override
+            public OkHttpClient get() {
+               return new OkHttpClient().setConnectionPool(pool);
+            }
+         });
+      }
+   }
+
+   private static OkHttpClient client(Properties overrides, Module connectionModule) {
+      return ContextBuilder.newBuilder(AnonymousProviderMetadata.forApiOnEndpoint(DummyApi.class, "http://localhost"))
+            .modules(ImmutableSet.of(connectionModule)).overrides(overrides).buildInjector()
+            .getInstance(OkHttpClient.class);
+   }
+}
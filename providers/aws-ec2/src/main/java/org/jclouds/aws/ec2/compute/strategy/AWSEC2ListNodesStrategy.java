@@ -34,6 +34,7 @@ import org.jclouds.aws.ec2.domain.AWSRunningInstance;
 import org.jclouds.aws.ec2.domain.SpotInstanceRequest;
 import org.jclouds.aws.ec2.functions.SpotInstanceRequestToAWSRunningInstance;
 import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.ec2.compute.strategy.EC2ListNodesStrategy;
 import org.jclouds.ec2.domain.RunningInstance;
 import org.jclouds.location.Region;
@@ -54,8 +55,8 @@ public class AWSEC2ListNodesStrategy extends EC2ListNodesStrategy {
    protected AWSEC2ListNodesStrategy(AWSEC2Api client, @Region Supplier<Set<String>> regions,
             Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata,
             @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
-            SpotInstanceRequestToAWSRunningInstance spotConverter) {
-      super(client, regions, runningInstanceToNodeMetadata, userExecutor);
+            SpotInstanceRequestToAWSRunningInstance spotConverter, GroupNamingConvention.Factory namingConvention) {
+      super(client, regions, runningInstanceToNodeMetadata, userExecutor, namingConvention);
       this.client = checkNotNull(client, "client");
       this.spotConverter = checkNotNull(spotConverter, "spotConverter");
    }
@@ -69,6 +70,17 @@ public class AWSEC2ListNodesStrategy extends EC2ListNodesStrategy {
       return concat(super.pollRunningInstances(), spots);
    }
 
+   @Override
+   protected Iterable<? extends RunningInstance> pollRunningInstancesMatching(
+            Multimap<String, Multimap<String, String>> filtersByRegions) {
+      // spot requests don't support the instance filters, they are matched by the node predicate instead
+      Iterable<? extends AWSRunningInstance> spots = filter(transform(concat(transform(filtersByRegions.keySet(),
+                                                                                       allSpotInstancesInRegion())),
+                                                                      spotConverter), notNull());
+
+      return concat(super.pollRunningInstancesMatching(filtersByRegions), spots);
+   }
+
    @Override
    protected Iterable<? extends RunningInstance> pollRunningInstancesByRegionsAndIds(final Multimap<String, String> idsByRegions) {
       Iterable<? extends AWSRunningInstance> spots = filter(transform(concat(transform(idsByRegions.keySet(),
@@ -26,6 +26,7 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 
 import org.jclouds.b2.B2Api;
 import org.jclouds.b2.B2ResponseException;
@@ -65,6 +66,7 @@ import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.strategy.internal.FetchBlobMetadata;
 import org.jclouds.blobstore.util.BlobUtils;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
@@ -83,6 +85,8 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.net.HttpHeaders;
 import com.google.common.util.concurrent.UncheckedExecutionException;
@@ -92,15 +96,18 @@ public final class B2BlobStore extends BaseBlobStore {
    private final BlobToHttpGetOptions blob2ObjectGetOptions;
    private final LoadingCache<String, Bucket> bucketNameToBucket;
    private final Supplier<Authorization> auth;
+   private final Provider<FetchBlobMetadata> fetchBlobMetadataProvider;
 
    @Inject
    B2BlobStore(BlobStoreContext context, BlobUtils blobUtils, Supplier<Location> defaultLocation,
             @Memoized Supplier<Set<? extends Location>> locations, PayloadSlicer slicer, final B2Api api,
-            BlobToHttpGetOptions blob2ObjectGetOptions, @Memoized Supplier<Authorization> auth) {
+            BlobToHttpGetOptions blob2ObjectGetOptions, @Memoized Supplier<Authorization> auth,
+            Provider<FetchBlobMetadata> fetchBlobMetadataProvider) {
       super(context, blobUtils, defaultLocation, locations, slicer);
       this.api = api;
       this.blob2ObjectGetOptions = blob2ObjectGetOptions;
       this.auth = auth;
+      this.fetchBlobMetadataProvider = fetchBlobMetadataProvider;
       this.bucketNameToBucket = CacheBuilder.newBuilder()
             .expireAfterWrite(5, TimeUnit.MINUTES)
             .build(new CacheLoader<String, Bucket>() {
@@ -194,6 +201,7 @@ public final class B2BlobStore extends BaseBlobStore {
       int size = 0;
       ImmutableList.Builder<StorageMetadata> builder = ImmutableList.builder();
       Set<String> commonPrefixes = Sets.newHashSet();
+      List<StorageMetadata> withoutDetails = Lists.newArrayList();
       String marker = options.getMarker();
       while (true) {
          B2ObjectList list = api.getObjectApi().listFileNames(bucket.bucketId(), marker, options.getMaxResults());
@@ -217,19 +225,21 @@ public final class B2BlobStore extends BaseBlobStore {
                }
             }
 
-            if (options.isDetailed()) {
-               BlobMetadata metadata = blobMetadata(container, entry.fileName());
-               if (metadata != null) {
-                  ++size;
-                  builder.add(metadata);
-               }
+            if (options.isDetailed() && entry.contentType() != null) {
+               // the listing carries the same fields as b2_get_file_info
+               ++size;
+               builder.add(toBlobMetadata(container, entry));
             } else {
                Map<String, String> userMetadata = ImmutableMap.of();
                ContentMetadata metadata = ContentMetadataBuilder.create()
                      .contentLength(entry.size())
                      .build();
+               BlobMetadata blobMetadata = new BlobMetadataImpl(null, entry.fileName(), null, null, null, null, entry.uploadTimestamp(), userMetadata, null, container, metadata, entry.size());
                ++size;
-               builder.add(new BlobMetadataImpl(null, entry.fileName(), null, null, null, null, entry.uploadTimestamp(), userMetadata, null, container, metadata, entry.size()));
+               builder.add(blobMetadata);
+               if (options.isDetailed()) {
+                  withoutDetails.add(blobMetadata);
+               }
             }
          }
          marker = list.nextFileName();
@@ -237,7 +247,31 @@ public final class B2BlobStore extends BaseBlobStore {
             break;
          }
       }
-      return new PageSetImpl<StorageMetadata>(builder.build(), marker);
+      if (withoutDetails.isEmpty()) {
+         return new PageSetImpl<StorageMetadata>(builder.build(), marker);
+      }
+      return new PageSetImpl<StorageMetadata>(fetchDetails(container, builder.build(), withoutDetails), marker);
+   }
+
+   /** Replaces the entries whose listing lacked details with their metadata, fetched in parallel. */
+   private List<StorageMetadata> fetchDetails(String container, List<StorageMetadata> entries,
+         List<StorageMetadata> withoutDetails) {
+      Map<String, StorageMetadata> fetched = Maps.newHashMap();
+      for (StorageMetadata metadata : fetchBlobMetadataProvider.get().setContainerName(container)
+            .apply(new PageSetImpl<StorageMetadata>(withoutDetails, null))) {
+         fetched.put(metadata.getName(), metadata);
+      }
+      Set<StorageMetadata> replaced = Sets.newIdentityHashSet();
+      replaced.addAll(withoutDetails);
+      ImmutableList.Builder<StorageMetadata> builder = ImmutableList.builder();
+      for (StorageMetadata entry : entries) {
+         if (!replaced.contains(entry)) {
+            builder.add(entry);
+         } else if (fetched.containsKey(entry.getName())) {
+            builder.add(fetched.get(entry.getName()));
+         }
+      }
+      return builder.build();
    }
 
    @Override
@@ -471,20 +505,31 @@ public final class B2BlobStore extends BaseBlobStore {
    }
 
    private MutableBlobMetadata toBlobMetadata(String container, B2Object b2Object) {
+      return toBlobMetadata(container, b2Object.fileName(), b2Object.contentSha1(), b2Object.uploadTimestamp(),
+            b2Object.contentLength(), b2Object.contentType(), b2Object.fileInfo());
+   }
+
+   private MutableBlobMetadata toBlobMetadata(String container, B2ObjectList.Entry entry) {
+      return toBlobMetadata(container, entry.fileName(), entry.contentSha1(), entry.uploadTimestamp(), entry.size(),
+            entry.contentType(), entry.fileInfo());
+   }
+
+   private MutableBlobMetadata toBlobMetadata(String container, String fileName, String contentSha1,
+         Date uploadTimestamp, Long contentLength, String contentType, Map<String, String> fileInfo) {
       MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
       metadata.setContainer(container);
-      metadata.setETag(b2Object.contentSha1());  // B2 does not support ETag, fake it with SHA-1
-      metadata.setLastModified(b2Object.uploadTimestamp());
-      metadata.setName(b2Object.fileName());
-      metadata.setSize(b2Object.contentLength());
+      metadata.setETag(contentSha1);  // B2 does not support ETag, fake it with SHA-1
+      metadata.setLastModified(uploadTimestamp);
+      metadata.setName(fileName);
+      metadata.setSize(contentLength);
       MutableContentMetadata contentMetadata = new BaseMutableContentMetadata();
-      contentMetadata.setContentLength(b2Object.contentLength());
-      contentMetadata.setContentType(b2Object.contentType());
+      contentMetadata.setContentLength(contentLength);
+      contentMetadata.setContentType(contentType);
       metadata.setContentMetadata(contentMetadata);
-      metadata.setUserMetadata(b2Object.fileInfo());
+      metadata.setUserMetadata(fileInfo);
       try {
          metadata.setPublicUri(URI.create(auth.get().downloadUrl() + "/file/" + container + "/" +
-               URLEncoder.encode(b2Object.fileName(), "UTF-8")));
+               URLEncoder.encode(fileName, "UTF-8")));
       } catch (UnsupportedEncodingException uee) {
          throw new RuntimeException(uee);
       }
@@ -18,12 +18,14 @@ package org.jclouds.b2.domain;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.json.SerializedNames;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 @AutoValue
 public abstract class B2ObjectList {
@@ -43,10 +45,15 @@ public abstract class B2ObjectList {
       public abstract String fileName();
       public abstract long size();
       public abstract Date uploadTimestamp();
+      @Nullable public abstract String contentSha1();
+      @Nullable public abstract String contentType();
+      @Nullable public abstract Map<String, String> fileInfo();
 
-      @SerializedNames({"action", "fileId", "fileName", "size", "uploadTimestamp"})
-      public static Entry create(Action action, String fileId, String fileName, long size, long uploadTimestamp) {
-         return new AutoValue_B2ObjectList_Entry(action, fileId, fileName, size, new Date(uploadTimestamp));
+      @SerializedNames({"action", "fileId", "fileName", "size", "uploadTimestamp", "contentSha1", "contentType", "fileInfo"})
+      public static Entry create(Action action, String fileId, String fileName, long size, long uploadTimestamp,
+            @Nullable String contentSha1, @Nullable String contentType, @Nullable Map<String, String> fileInfo) {
+         return new AutoValue_B2ObjectList_Entry(action, fileId, fileName, size, new Date(uploadTimestamp),
+               contentSha1, contentType, fileInfo == null ? null : ImmutableMap.copyOf(fileInfo));
       }
    }
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.b2.blobstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.util.Strings2;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+@Test(groups = "unit", testName = "B2BlobStoreMockTest")
+public final class B2BlobStoreMockTest {
+   private static final String CONTAINER = "kitten-videos";
+
+   public void testDetailedListTakesMetadataFromTheListing() throws Exception {
+      MockWebServer server = new MockWebServer();
+      server.enqueue(new MockResponse().setBody(stringFromResource("/authorize_account_response.json")));
+      server.enqueue(new MockResponse().setBody("{\"buckets\": [{\"bucketId\": \"4a48fe8875c6214145260818\", "
+            + "\"accountId\": \"30f20426f0b1\", \"bucketName\": \"" + CONTAINER + "\", "
+            + "\"bucketType\": \"allPrivate\"}]}"));
+      // files/hello.txt is listed with its details, files/world.txt is not
+      server.enqueue(new MockResponse().setBody(stringFromResource("/list_file_names_response.json")));
+      server.enqueue(new MockResponse().setBody("{\"files\": [{\"action\": \"upload\", "
+            + "\"fileId\": \"4_z27c88f1d182b150646ff0b16_f1004ba650fe24e6c_d20150809_m012854_c100_v0009990_t0000\", "
+            + "\"fileName\": \"files/world.txt\", \"size\": 6, \"uploadTimestamp\": 1439083734000}], "
+            + "\"nextFileName\": null}"));
+      server.enqueue(new MockResponse().setBody("{\"accountId\": \"30f20426f0b1\", "
+            + "\"bucketId\": \"4a48fe8875c6214145260818\", \"contentLength\": 6, "
+            + "\"contentSha1\": \"2aae6c35c94fcfb415dbe95f408b9ce91ee846ed\", \"contentType\": \"text/plain\", "
+            + "\"fileId\": \"4_z27c88f1d182b150646ff0b16_f1004ba650fe24e6c_d20150809_m012854_c100_v0009990_t0000\", "
+            + "\"fileInfo\": {\"author\": \"someone\"}, \"fileName\": \"files/world.txt\", \"action\": \"upload\", "
+            + "\"uploadTimestamp\": 1439083734000}"));
+      server.play();
+
+      BlobStoreContext context = context(server.getUrl("/").toString());
+      try {
+         List<StorageMetadata> list = ImmutableList.copyOf(context.getBlobStore().list(CONTAINER,
+               recursive().withDetails()));
+
+         assertThat(list).hasSize(2);
+         BlobMetadata hello = (BlobMetadata) list.get(0);
+         assertThat(hello.getName()).isEqualTo("files/hello.txt");
+         assertThat(hello.getETag()).isEqualTo("f572d396fae9206628714fb2ce00f72e94f2258f");
+         assertThat(hello.getContentMetadata().getContentType()).isEqualTo("text/plain");
+         assertThat(hello.getUserMetadata()).isEqualTo(ImmutableMap.of("author", "unknown"));
+         BlobMetadata world = (BlobMetadata) list.get(1);
+         assertThat(world.getName()).isEqualTo("files/world.txt");
+         assertThat(world.getETag()).isEqualTo("2aae6c35c94fcfb415dbe95f408b9ce91ee846ed");
+         assertThat(world.getUserMetadata()).isEqualTo(ImmutableMap.of("author", "someone"));
+
+         // only the entry without details is fetched
+         assertThat(server.getRequestCount()).isEqualTo(5);
+         assertThat(server.takeRequest().getPath()).isEqualTo("/b2api/v1/b2_authorize_account");
+         assertThat(server.takeRequest().getPath()).isEqualTo("/b2api/v1/b2_list_buckets");
+         assertThat(server.takeRequest().getPath()).isEqualTo("/b2api/v1/b2_list_file_names");
+         assertThat(server.takeRequest().getPath()).isEqualTo("/b2api/v1/b2_list_file_names");
+         assertThat(server.takeRequest().getPath()).isEqualTo("/b2api/v1/b2_get_file_info");
+      } finally {
+         context.close();
+         server.shutdown();
+      }
+   }
+
+   private static BlobStoreContext context(String uri) {
+      return ContextBuilder.newBuilder("b2")
+            .credentials("ACCOUNT_ID", "APPLICATION_KEY")
+            .endpoint(uri)
+            .modules(ImmutableSet.<Module> of(new ExecutorServiceModule(MoreExecutors.sameThreadExecutor())))
+            .buildView(BlobStoreContext.class);
+   }
+
+   private static String stringFromResource(String resourceName) throws IOException {
+      return Strings2.toStringAndClose(B2BlobStoreMockTest.class.getResourceAsStream(resourceName));
+   }
+}
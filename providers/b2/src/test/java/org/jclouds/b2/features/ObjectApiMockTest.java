@@ -351,6 +351,9 @@ public final class ObjectApiMockTest {
          assertThat(object.fileName()).isEqualTo("files/hello.txt");
          assertThat(object.size()).isEqualTo(6);
          assertThat(object.uploadTimestamp()).isEqualTo(new Date(1439083733000L));
+         assertThat(object.contentSha1()).isEqualTo("f572d396fae9206628714fb2ce00f72e94f2258f");
+         assertThat(object.contentType()).isEqualTo("text/plain");
+         assertThat(object.fileInfo()).containsEntry("author", "unknown");
 
          object = list.files().get(1);
          assertThat(object.action()).isEqualTo(Action.UPLOAD);
@@ -358,6 +361,8 @@ public final class ObjectApiMockTest {
          assertThat(object.fileName()).isEqualTo("files/world.txt");
          assertThat(object.size()).isEqualTo(6);
          assertThat(object.uploadTimestamp()).isEqualTo(new Date(1439083734000L));
+         assertThat(object.contentType()).isNull();
+         assertThat(object.fileInfo()).isNull();
 
          assertThat(server.getRequestCount()).isEqualTo(2);
          assertAuthentication(server);
@@ -18,15 +18,22 @@ package org.jclouds.googlecloudstorage.blobstore;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.io.BaseEncoding.base64;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.googlecloudstorage.domain.DomainResourceReferences.ObjectRole.READER;
 
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
+import javax.annotation.Resource;
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.KeyNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.BlobMetadata;
@@ -72,17 +79,27 @@ import org.jclouds.http.HttpResponseException;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.Payload;
 import org.jclouds.io.PayloadSlicer;
+import org.jclouds.logging.Logger;
 import org.jclouds.util.Strings2;
 
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.Callables;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Provider;
 
 public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
 
+   /** Largest number of sources a single compose request accepts. */
+   private static final int MAX_COMPOSE_SOURCES = 32;
+
    private final GoogleCloudStorageApi api;
    private final BucketToStorageMetadata bucketToStorageMetadata;
    private final ObjectToBlobMetadata objectToBlobMetadata;
@@ -92,6 +109,10 @@ public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
    private final BlobStoreListContainerOptionsToListObjectOptions listContainerOptionsToListObjectOptions;
    private final Supplier<String> projectId;
    private final BlobToHttpGetOptions blob2ObjectGetOptions;
+   private final ListeningExecutorService userExecutor;
+
+   @Resource
+   private Logger logger = Logger.NULL;
 
    @Inject GoogleCloudStorageBlobStore(BlobStoreContext context, BlobUtils blobUtils, Supplier<Location> defaultLocation,
             @Memoized Supplier<Set<? extends Location>> locations, PayloadSlicer slicer, GoogleCloudStorageApi api,
@@ -101,7 +122,8 @@ public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
             BlobMetadataToObjectTemplate blobMetadataToObjectTemplate,
             BlobStoreListContainerOptionsToListObjectOptions listContainerOptionsToListObjectOptions,
             @CurrentProject Supplier<String> projectId,
-            BlobToHttpGetOptions blob2ObjectGetOptions) {
+            BlobToHttpGetOptions blob2ObjectGetOptions,
+            @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
       super(context, blobUtils, defaultLocation, locations, slicer);
       this.api = api;
       this.bucketToStorageMetadata = bucketToStorageMetadata;
@@ -112,6 +134,7 @@ public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
       this.listContainerOptionsToListObjectOptions = listContainerOptionsToListObjectOptions;
       this.projectId = projectId;
       this.blob2ObjectGetOptions = checkNotNull(blob2ObjectGetOptions, "blob2ObjectGetOptions");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
    }
 
    @Override
@@ -383,38 +406,136 @@ public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
       removeBlobs(mpu.containerName(), builder.build());
    }
 
+   /**
+    * Composes the parts into the blob. Since a compose request takes at most 32 sources, larger uploads are first
+    * composed in groups of 32 into intermediate objects, level by level, until 32 or fewer remain. The parts are
+    * looked up and each level is composed in parallel on the jclouds userExecutor and the calling thread.
+    */
    @Override
-   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
-      ImmutableList.Builder<GoogleCloudStorageObject> objects = ImmutableList.builder();
+   public String completeMultipartUpload(final MultipartUpload mpu, List<MultipartPart> parts) {
+      ImmutableList.Builder<String> partNames = ImmutableList.builder();
+      List<Callable<GoogleCloudStorageObject>> lookups = Lists.newArrayList();
       for (MultipartPart part : parts) {
-         objects.add(api.getObjectApi().getObject(mpu.containerName(),
-               Strings2.urlEncode(getMPUPartName(mpu, part.partNumber()))));
+         final String partName = getMPUPartName(mpu, part.partNumber());
+         partNames.add(partName);
+         lookups.add(new Callable<GoogleCloudStorageObject>() {
+            @Override
+            public GoogleCloudStorageObject call() {
+               GoogleCloudStorageObject object = api.getObjectApi().getObject(mpu.containerName(),
+                     Strings2.urlEncode(partName));
+               if (object == null) {
+                  throw new KeyNotFoundException(mpu.containerName(), partName, "while completing multipart upload");
+               }
+               return object;
+            }
+         });
       }
+      List<GoogleCloudStorageObject> sources = invokeAll(lookups);
+
+      List<String> intermediateNames = Lists.newArrayList();
+      String eTag;
+      try {
+         for (int level = 0; sources.size() > MAX_COMPOSE_SOURCES; level++) {
+            List<Callable<GoogleCloudStorageObject>> composes = Lists.newArrayList();
+            int index = 0;
+            for (final List<GoogleCloudStorageObject> group : Lists.partition(sources, MAX_COMPOSE_SOURCES)) {
+               if (group.size() == 1) {
+                  composes.add(Callables.returning(group.get(0)));
+                  continue;
+               }
+               final String name = getMPUIntermediateName(mpu, level, index++);
+               intermediateNames.add(name);
+               composes.add(new Callable<GoogleCloudStorageObject>() {
+                  @Override
+                  public GoogleCloudStorageObject call() {
+                     ObjectTemplate intermediate = new ObjectTemplate().name(name)
+                           .contentType(mpu.blobMetadata().getContentMetadata().getContentType());
+                     return compose(mpu.containerName(), name, group, intermediate);
+                  }
+               });
+            }
+            sources = invokeAll(composes);
+         }
 
-      ObjectTemplate destination = blobMetadataToObjectTemplate.apply(mpu.blobMetadata());
-      if (mpu.putOptions().getBlobAccess() == BlobAccess.PUBLIC_READ) {
-         ObjectAccessControls controls = ObjectAccessControls.builder()
-               .entity("allUsers")
-               .bucket(mpu.containerName())
-               .role(READER)
-               .build();
-         destination.addAcl(controls);
+         ObjectTemplate destination = blobMetadataToObjectTemplate.apply(mpu.blobMetadata());
+         if (mpu.putOptions().getBlobAccess() == BlobAccess.PUBLIC_READ) {
+            ObjectAccessControls controls = ObjectAccessControls.builder()
+                  .entity("allUsers")
+                  .bucket(mpu.containerName())
+                  .role(READER)
+                  .build();
+            destination.addAcl(controls);
+         }
+         eTag = compose(mpu.containerName(), mpu.blobName(), sources, destination).etag();
+      } catch (RuntimeException e) {
+         // keep the parts, so that the upload can be completed again or aborted
+         try {
+            removeBlobs(mpu.containerName(), intermediateNames);
+         } catch (RuntimeException re) {
+            logger.debug("could not remove intermediate objects of %s: %s", mpu.blobName(), re);
+         }
+         throw e;
       }
 
+      // remove parts and intermediate objects, composite object keeps a reference to them
+      removeBlobs(mpu.containerName(), Iterables.concat(partNames.build(), intermediateNames));
+
+      return eTag;
+   }
+
+   private GoogleCloudStorageObject compose(String container, String name, List<GoogleCloudStorageObject> sources,
+         ObjectTemplate destination) {
       ComposeObjectTemplate template = ComposeObjectTemplate.builder()
-            .fromGoogleCloudStorageObject(objects.build())
+            .fromGoogleCloudStorageObject(sources)
             .destination(destination).build();
-      String eTag = api.getObjectApi().composeObjects(mpu.containerName(), Strings2.urlEncode(mpu.blobName()), template)
-            .etag();
+      return api.getObjectApi().composeObjects(container, Strings2.urlEncode(name), template);
+   }
 
-      // remove parts, composite object keeps a reference to them
-      ImmutableList.Builder<String> builder = ImmutableList.builder();
-      for (MultipartPart part : parts) {
-         builder.add(getMPUPartName(mpu, part.partNumber()));
+   /**
+    * Runs the tasks on the userExecutor and the calling thread. The caller runs every task that has not started yet
+    * itself, so this completes even when it is called from a task on a saturated userExecutor. It returns or throws
+    * only once every task has finished, so that a failure leaves no compose in flight to create an object after the
+    * intermediate objects were removed.
+    *
+    * @return the results of the tasks, in order
+    */
+   private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+      final List<ListenableFutureTask<T>> futures = Lists.newArrayListWithCapacity(tasks.size());
+      for (Callable<T> task : tasks) {
+         futures.add(ListenableFutureTask.create(task));
       }
-      removeBlobs(mpu.containerName(), builder.build());
-
-      return eTag;
+      // the helpers and the caller each run the tasks nobody has started yet, in order
+      Runnable runAll = new Runnable() {
+         @Override
+         public void run() {
+            for (ListenableFutureTask<T> future : futures) {
+               future.run();
+            }
+         }
+      };
+      for (int i = 1; i < futures.size(); i++) {
+         try {
+            userExecutor.execute(runAll);
+         } catch (RejectedExecutionException e) {
+            break;
+         }
+      }
+      runAll.run();
+      List<T> results = Lists.newArrayListWithCapacity(futures.size());
+      Throwable failure = null;
+      for (ListenableFutureTask<T> future : futures) {
+         try {
+            results.add(Uninterruptibles.getUninterruptibly(future));
+         } catch (ExecutionException e) {
+            if (failure == null) {
+               failure = e.getCause();
+            }
+         }
+      }
+      if (failure != null) {
+         throw Throwables.propagate(failure);
+      }
+      return results;
    }
 
    @Override
@@ -458,11 +579,16 @@ public final class GoogleCloudStorageBlobStore extends BaseBlobStore {
 
    @Override
    public int getMaximumNumberOfParts() {
-      // can raise limit via composite objects of composites
-      return 32;
+      // two levels of composition, which covers the largest object at the largest part size
+      return MAX_COMPOSE_SOURCES * MAX_COMPOSE_SOURCES;
    }
 
    private static String getMPUPartName(MultipartUpload mpu, int partNumber) {
       return String.format("%s_%08d", mpu.id(), partNumber);
    }
+
+   /** Not under the part prefix, so that listMultipartUpload does not report it as a part. */
+   private static String getMPUIntermediateName(MultipartUpload mpu, int level, int index) {
+      return String.format("%s-composite-%d-%08d", mpu.id(), level, index);
+   }
 }
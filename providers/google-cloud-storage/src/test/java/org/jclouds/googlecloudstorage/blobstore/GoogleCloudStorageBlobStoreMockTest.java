@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.googlecloudstorage.blobstore;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.googlecloudstorage.internal.BaseGoogleCloudStorageApiMockTest;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "GoogleCloudStorageBlobStoreMockTest", singleThreaded = true)
+public class GoogleCloudStorageBlobStoreMockTest extends BaseGoogleCloudStorageApiMockTest {
+
+   public void testCompleteMultipartUploadComposesMoreThan32Parts() throws Exception {
+      int partCount = 33;
+      for (int i = 0; i < partCount; i++) {
+         server.enqueue(jsonResponse("/object_get.json"));
+      }
+      // the first 32 parts go into one intermediate object, the last part is composed as is
+      server.enqueue(jsonResponse("/object_get.json"));
+      server.enqueue(jsonResponse("/object_get.json"));
+      for (int i = 0; i < partCount + 1; i++) {
+         server.enqueue(new MockResponse().setResponseCode(204));
+      }
+
+      BlobStore blobStore = builder().buildView(BlobStoreContext.class).getBlobStore();
+      assertEquals(blobStore.completeMultipartUpload(multipartUpload(), parts(partCount)), "etag");
+
+      for (int i = 1; i <= partCount; i++) {
+         assertSent(server, "GET", String.format("/storage/v1/b/test/o/upload_%08d", i));
+      }
+      assertSent(server, "POST", "/storage/v1/b/test/o/upload-composite-0-00000000/compose");
+      assertSent(server, "POST", "/storage/v1/b/test/o/blob/compose");
+      for (int i = 1; i <= partCount; i++) {
+         assertSent(server, "DELETE", String.format("/storage/v1/b/test/o/upload_%08d", i), null);
+      }
+      assertSent(server, "DELETE", "/storage/v1/b/test/o/upload-composite-0-00000000", null);
+      assertEquals(server.getRequestCount(), 2 * partCount + 3);
+   }
+
+   public void testCompleteMultipartUploadFromTheOnlyUserThread() throws Exception {
+      final int partCount = 33;
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            return "DELETE".equals(request.getMethod()) ? new MockResponse().setResponseCode(204)
+                  : jsonResponse("/object_get.json");
+         }
+      });
+      ListeningExecutorService userExecutor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+      BlobStoreContext context = builder(userExecutor).buildView(BlobStoreContext.class);
+      try {
+         final BlobStore blobStore = context.getBlobStore();
+         // the lookups and composes must not wait for the thread that waits for them
+         Future<String> eTag = userExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+               return blobStore.completeMultipartUpload(multipartUpload(), parts(partCount));
+            }
+         });
+         assertEquals(eTag.get(30, TimeUnit.SECONDS), "etag");
+         assertEquals(server.getRequestCount(), 2 * partCount + 3);
+      } finally {
+         context.close();
+         userExecutor.shutdownNow();
+      }
+   }
+
+   public void testFailedComposeWaitsForTheLevelBeforeRemovingIntermediateObjects() throws Exception {
+      // 65 parts make two intermediate objects, and the last part is composed as is
+      final int partCount = 65;
+      final List<String> events = Collections.synchronizedList(Lists.<String>newArrayList());
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            String path = request.getPath();
+            if ("DELETE".equals(request.getMethod())) {
+               events.add("DELETE " + path);
+               return new MockResponse().setResponseCode(204);
+            } else if (path.endsWith("/upload-composite-0-00000000/compose")) {
+               return new MockResponse().setResponseCode(400);
+            } else if (path.endsWith("/upload-composite-0-00000001/compose")) {
+               Thread.sleep(500);
+               events.add("composed " + path);
+            }
+            return jsonResponse("/object_get.json");
+         }
+      });
+      ListeningExecutorService userExecutor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+      BlobStoreContext context = builder(userExecutor).buildView(BlobStoreContext.class);
+      try {
+         try {
+            context.getBlobStore().completeMultipartUpload(multipartUpload(), parts(partCount));
+            fail("expected the compose to fail");
+         } catch (RuntimeException expected) {
+         }
+         // the intermediate objects are removed only once the compose still running has created its object
+         assertEquals(events.get(0), "composed /storage/v1/b/test/o/upload-composite-0-00000001/compose");
+         assertEquals(ImmutableSet.copyOf(events.subList(1, events.size())), ImmutableSet.of(
+               "DELETE /storage/v1/b/test/o/upload-composite-0-00000000",
+               "DELETE /storage/v1/b/test/o/upload-composite-0-00000001"));
+         assertEquals(events.size(), 3);
+      } finally {
+         context.close();
+         userExecutor.shutdownNow();
+      }
+   }
+
+   private static MultipartUpload multipartUpload() {
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
+      metadata.setName("blob");
+      return MultipartUpload.create("test", "blob", "upload", metadata, PutOptions.NONE);
+   }
+
+   private static List<MultipartPart> parts(int partCount) {
+      ImmutableList.Builder<MultipartPart> parts = ImmutableList.builder();
+      for (int i = 1; i <= partCount; i++) {
+         parts.add(MultipartPart.create(i, 5L * 1024 * 1024, "etag", null));
+      }
+      return parts.build();
+   }
+
+   public void testMaximumNumberOfParts() {
+      BlobStore blobStore = builder().buildView(BlobStoreContext.class).getBlobStore();
+      assertEquals(blobStore.getMaximumNumberOfParts(), 1024);
+   }
+}
@@ -28,7 +28,6 @@ import static org.testng.Assert.assertEquals;
 
 import java.io.IOException;
 import java.util.Properties;
-import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jclouds.ContextBuilder;
@@ -40,8 +39,8 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.gson.JsonParser;
-import com.google.inject.AbstractModule;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
 import com.squareup.okhttp.mockwebserver.RecordedRequest;
@@ -63,6 +62,10 @@ public class BaseGoogleCloudStorageApiMockTest {
 
 
    protected ContextBuilder builder() {
+      return builder(sameThreadExecutor());
+   }
+
+   protected ContextBuilder builder(ListeningExecutorService userExecutor) {
       Properties overrides = new Properties();
       overrides.put(PROJECT_NAME, "party");
       overrides.put(CREDENTIAL_TYPE, BEARER_TOKEN_CREDENTIALS.toString());
@@ -70,13 +73,10 @@ public class BaseGoogleCloudStorageApiMockTest {
             .credentials(identity, credential)
             .endpoint(url(""))
             .overrides(overrides)
-            .modules(modules);
+            .modules(ImmutableSet.of(new ExecutorServiceModule(userExecutor),
+                  new OkHttpCommandExecutorServiceModule()));
    }
 
-   private final Set<AbstractModule> modules = ImmutableSet
-         .of(new ExecutorServiceModule(sameThreadExecutor()), new OkHttpCommandExecutorServiceModule());
-
-
    final AtomicInteger suffix = new AtomicInteger();
 
    @BeforeMethod